@@ -270,10 +270,20 @@ func listVisibleChannelNames(ctx context.Context, callerName string, extensionId
 		return nil, err
 	}
 
+	channelAttrs, channelAttrErrs, err := api.GetAttrs(ctx, extensionId, channelNames, true)
+	if err != nil {
+		return nil, err
+	}
+
 	visibleChannelNames := make([]string, 0, len(channelNames))
-	for _, channelName := range channelNames {
-		channel, err := getChannel(ctx, channelName, extensionId)
-		if err != nil {
+	for i, channelName := range channelNames {
+		if channelAttrErrs[i] != nil {
+			continue
+		}
+		channel := &channel{
+			name: channelName,
+		}
+		if channel.fillFromAttr(channelAttrs[i]) != nil {
 			continue
 		}
 		if !channel.maySee(ctx, callerName) {
@@ -308,9 +318,7 @@ func handleSay(ctx context.Context, call *api.PluginCall) (interface{}, error) {
 	}
 
 	chatMessage := fmt.Sprintf("[%s] %s: %s", channelName, callerName, call.Arguments[2])
-	for _, member := range channel.members {
-		api.SendMessage(ctx, member, chatMessage)
-	}
+	api.SendMessageToPlayers(ctx, channel.members, chatMessage)
 
 	return "", nil
 }
@@ -842,40 +850,20 @@ func main() {
 				},
 			}
 
-			// future: server mode
-			// conn, err := newConn(ctx, handler)
-			// if err != nil {
-			// 	log.Fatal(err)
-			// }
-
-			req, err := api.ParseJsonRpcRequest(os.Stdin)
-			if err != nil {
-				return err
-			}
-
-			var res *jsonrpc2.Response
-			switch req.Method {
-			case chatGuestAutojoinMethod:
-				res = chatguestautojoinHandler.Handle(ctx, req)
-			case chatGuestAutoleaveMethod:
-				res = chatguestautoleaveHandler.Handle(ctx, req)
-			case chatAdminMethod:
-				res = chatadminHandler.Handle(ctx, req)
-			default:
-				res = chatHandler.Handle(ctx, req)
+			handle := func(ctx context.Context, req *jsonrpc2.Request) *jsonrpc2.Response {
+				switch req.Method {
+				case chatGuestAutojoinMethod:
+					return chatguestautojoinHandler.Handle(ctx, req)
+				case chatGuestAutoleaveMethod:
+					return chatguestautoleaveHandler.Handle(ctx, req)
+				case chatAdminMethod:
+					return chatadminHandler.Handle(ctx, req)
+				default:
+					return chatHandler.Handle(ctx, req)
+				}
 			}
 
-			b, err := jsonrpc2.EncodeMessage(res)
-			if err != nil {
-				return err
-			}
-			// future: server mode
-			// if conn != nil {
-			// 	// write response to conn
-			// } else {
-			fmt.Printf("%s", string(b))
-			// }
-			return nil
+			return api.Serve(ctx, os.Stdin, os.Stdout, handle)
 		},
 	}
 
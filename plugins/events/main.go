@@ -17,7 +17,6 @@ import (
 	"github.com/araddon/dateparse"
 	api "github.com/bhavanki/groundsapi"
 	"github.com/urfave/cli/v2"
-	"golang.org/x/exp/jsonrpc2"
 )
 
 func getEventName(n string) string {
@@ -149,16 +148,19 @@ func handleListEvents(ctx context.Context, call *api.PluginCall) (interface{}, e
 		return "", nil
 	}
 
+	eventAttrs, eventAttrErrs, err := api.GetAttrs(ctx, call.ExtensionId, eventAttrNames, true)
+	if err != nil {
+		return nil, err
+	}
 	events := make([]event, 0, len(eventAttrNames))
-	for _, eventAttrName := range eventAttrNames {
-		eventAttr, err := api.GetAttr(ctx, call.ExtensionId, eventAttrName, true)
-		if err != nil {
-			return nil, err
+	for i, eventAttrName := range eventAttrNames {
+		if eventAttrErrs[i] != nil {
+			return nil, eventAttrErrs[i]
 		}
 		foundEvent := event{
 			name: eventAttrName[1:],
 		}
-		err = foundEvent.fillFromAttr(eventAttr, tzLocation)
+		err = foundEvent.fillFromAttr(eventAttrs[i], tzLocation)
 		if err != nil {
 			return nil, err
 		}
@@ -324,30 +326,7 @@ func main() {
 				},
 			}
 
-			// future: server mode
-			// conn, err := newConn(ctx, handler)
-			// if err != nil {
-			// 	log.Fatal(err)
-			// }
-
-			req, err := api.ParseJsonRpcRequest(os.Stdin)
-			if err != nil {
-				return err
-			}
-
-			res := handler.Handle(ctx, req)
-
-			b, err := jsonrpc2.EncodeMessage(res)
-			if err != nil {
-				return err
-			}
-			// future: server mode
-			// if conn != nil {
-			// 	// write response to conn
-			// } else {
-			fmt.Printf("%s", string(b))
-			// }
-			return nil
+			return handler.Serve(ctx, os.Stdin, os.Stdout)
 		},
 	}
 
@@ -2,8 +2,10 @@ package groundsapi
 
 import (
 	"context"
+	"encoding/json"
+	"errors"
 	"net"
-	"reflect"
+	"sync"
 
 	"golang.org/x/exp/jsonrpc2"
 )
@@ -14,6 +16,48 @@ const (
 	ErrCodeNotFound = -32004
 )
 
+var (
+	apiClientMu sync.Mutex
+	apiClient   *jsonrpc2.Connection
+
+	batchConnMu  sync.Mutex
+	batchConn    net.Conn
+	batchDecoder *json.Decoder
+)
+
+// BatchCall is a single call in a batch sent by CallBatch.
+type BatchCall struct {
+	Method string
+	Params map[string]interface{}
+	// Result, if not nil, receives the result of the call.
+	Result interface{}
+	// Err is set if the call fails.
+	Err error
+}
+
+// BatchError is an error returned by Grounds for a call in a batch.
+type BatchError struct {
+	Code    int64  `json:"code"`
+	Message string `json:"message"`
+}
+
+func (e *BatchError) Error() string {
+	return e.Message
+}
+
+type batchRequest struct {
+	JsonRpc string                 `json:"jsonrpc"`
+	Method  string                 `json:"method"`
+	Params  map[string]interface{} `json:"params"`
+	Id      int64                  `json:"id"`
+}
+
+type batchResponse struct {
+	Result json.RawMessage `json:"result"`
+	Error  *BatchError     `json:"error"`
+	Id     int64           `json:"id"`
+}
+
 func newApiClient(ctx context.Context) (*jsonrpc2.Connection, error) {
 	return jsonrpc2.Dial(ctx,
 		jsonrpc2.NetDialer("unix", groundsApiSocketFile, net.Dialer{}),
@@ -23,9 +67,38 @@ func newApiClient(ctx context.Context) (*jsonrpc2.Connection, error) {
 	)
 }
 
+// getApiClient returns the shared connection to the API server, connecting
+// if there is none. The connection is kept open and reused for every call, and
+// calls from concurrent goroutines share it.
+func getApiClient() (*jsonrpc2.Connection, error) {
+	apiClientMu.Lock()
+	defer apiClientMu.Unlock()
+	if apiClient == nil {
+		// The connection outlives any single call, so it is not bound to the
+		// context of the call that happens to open it.
+		client, err := newApiClient(context.Background())
+		if err != nil {
+			return nil, err
+		}
+		apiClient = client
+	}
+	return apiClient, nil
+}
+
+// dropApiClient closes the given connection, if it is still the shared one,
+// so that the next call reconnects.
+func dropApiClient(client *jsonrpc2.Connection) {
+	apiClientMu.Lock()
+	defer apiClientMu.Unlock()
+	if apiClient == client {
+		apiClient = nil
+		client.Close()
+	}
+}
+
 func Call(ctx context.Context, method string, params map[string]interface{},
 	result interface{}) error {
-	client, err := newApiClient(ctx)
+	client, err := getApiClient()
 	if err != nil {
 		return err
 	}
@@ -35,26 +108,132 @@ func Call(ctx context.Context, method string, params map[string]interface{},
 	params["_plugin_call_id"] = ctx.Value(PluginCallIdKey).(string)
 	asyncCall := client.Call(ctx, method, params)
 	if result != nil {
-		return asyncCall.Await(ctx, result)
+		err = asyncCall.Await(ctx, result)
 	} else {
 		var ignored string
-		return asyncCall.Await(ctx, &ignored)
+		err = asyncCall.Await(ctx, &ignored)
+	}
+	if err != nil && ctx.Err() == nil && !isWireError(err) {
+		// The error didn't come from Grounds, so the connection is suspect.
+		dropApiClient(client)
 	}
+	return err
 }
 
-func ErrorCode(err error) int64 {
-	// err should be of type *jsonrpc2.wireError
-	errType := reflect.TypeOf(err)
-	if errType.Kind() != reflect.Ptr {
-		return -2
+// CallBatch sends several calls to Grounds in a single JSON RPC batch, and
+// so in a single round trip. The result or error of each call is set in the
+// call itself. The returned error is only for failures of the batch as a
+// whole.
+func CallBatch(ctx context.Context, calls []*BatchCall) error {
+	if len(calls) == 0 {
+		return nil
 	}
-	derefType := errType.Elem()
-	if derefType.Kind() != reflect.Struct {
-		return -1
+	pluginCallId := ctx.Value(PluginCallIdKey).(string)
+	requests := make([]batchRequest, len(calls))
+	for i, call := range calls {
+		params := call.Params
+		if params == nil {
+			params = make(map[string]interface{})
+		}
+		params["_plugin_call_id"] = pluginCallId
+		requests[i] = batchRequest{
+			JsonRpc: "2.0",
+			Method:  call.Method,
+			Params:  params,
+			Id:      int64(i),
+		}
+		call.Err = errors.New("No response for call in batch")
 	}
-	codeField, ok := derefType.FieldByName("Code")
-	if !ok || codeField.Type.Kind() != reflect.Int64 {
-		return 0
+
+	batchConnMu.Lock()
+	defer batchConnMu.Unlock()
+	responses, err := exchangeBatch(ctx, requests)
+	if err != nil {
+		if batchConn != nil {
+			batchConn.Close()
+			batchConn = nil
+		}
+		return err
+	}
+
+	for _, response := range responses {
+		if response.Id < 0 || response.Id >= int64(len(calls)) {
+			continue
+		}
+		call := calls[response.Id]
+		if response.Error != nil {
+			call.Err = response.Error
+		} else if call.Result != nil {
+			call.Err = json.Unmarshal(response.Result, call.Result)
+		} else {
+			call.Err = nil
+		}
+	}
+	return nil
+}
+
+// exchangeBatch writes a batch to the batch connection, connecting if
+// necessary, and reads back its responses. It must be called while holding
+// batchConnMu.
+func exchangeBatch(ctx context.Context, requests []batchRequest) ([]batchResponse, error) {
+	if batchConn == nil {
+		var dialer net.Dialer
+		conn, err := dialer.DialContext(ctx, "unix", groundsApiSocketFile)
+		if err != nil {
+			return nil, err
+		}
+		batchConn = conn
+		batchDecoder = json.NewDecoder(conn)
+	}
+	// A zero deadline, when the context has none, means no deadline.
+	deadline, _ := ctx.Deadline()
+	if err := batchConn.SetDeadline(deadline); err != nil {
+		return nil, err
+	}
+
+	if err := json.NewEncoder(batchConn).Encode(requests); err != nil {
+		return nil, err
+	}
+	var responses []batchResponse
+	if err := batchDecoder.Decode(&responses); err != nil {
+		return nil, err
+	}
+	return responses, nil
+}
+
+// rpcErrorCode gets the JSON-RPC error code of an error returned by Grounds.
+// The jsonrpc2 package does not export its error type, but its errors encode
+// to the JSON-RPC error objects they were read from, and match any jsonrpc2
+// error with the same code.
+func rpcErrorCode(err error) (int64, bool) {
+	var batchErr *BatchError
+	if errors.As(err, &batchErr) {
+		return batchErr.Code, true
+	}
+	encoded, jsonErr := json.Marshal(err)
+	if jsonErr != nil {
+		return 0, false
+	}
+	var wire struct {
+		Code *int64 `json:"code"`
+	}
+	if json.Unmarshal(encoded, &wire) != nil || wire.Code == nil {
+		return 0, false
+	}
+	if !errors.Is(err, jsonrpc2.NewError(*wire.Code, "")) {
+		return 0, false
 	}
-	return reflect.ValueOf(err).Elem().FieldByName("Code").Int()
+	return *wire.Code, true
+}
+
+func isWireError(err error) bool {
+	_, ok := rpcErrorCode(err)
+	return ok
+}
+
+// ErrorCode gets the JSON-RPC error code of an error returned by Grounds, or
+// zero if the error did not come from Grounds.
+func ErrorCode(err error) int64 {
+	code, _ := rpcErrorCode(err)
+	return code
 }
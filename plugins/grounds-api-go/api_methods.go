@@ -35,6 +35,34 @@ func GetAttr(ctx context.Context, thingId string, name string, asExtension bool)
 	return a, nil
 }
 
+// GetAttrs gets several attributes of a thing in one round trip. The returned
+// attributes and errors are in the same order as the names; an attribute
+// whose error is not nil could not be gotten.
+func GetAttrs(ctx context.Context, thingId string, names []string, asExtension bool) ([]Attr, []error, error) {
+	attrs := make([]Attr, len(names))
+	calls := make([]*BatchCall, len(names))
+	for i, name := range names {
+		calls[i] = &BatchCall{
+			Method: "getAttr",
+			Params: map[string]interface{}{
+				"thingId":       thingId,
+				"name":          name,
+				"_as_extension": asExtension,
+			},
+			Result: &attrs[i],
+		}
+	}
+	err := CallBatch(ctx, calls)
+	if err != nil {
+		return nil, nil, err
+	}
+	errs := make([]error, len(names))
+	for i, call := range calls {
+		errs[i] = call.Err
+	}
+	return attrs, errs, nil
+}
+
 func GetAttrNames(ctx context.Context, thingId string, asExtension bool) ([]string, error) {
 	params := map[string]interface{}{
 		"thingId":     thingId,
@@ -87,6 +115,23 @@ func SendMessage(ctx context.Context, playerName string, message string) error {
 	return Call(ctx, "sendMessage", params, nil)
 }
 
+// SendMessageToPlayers sends a message to several players, named or by ID, in
+// one call. The message is rendered once for all of them. The returned map
+// gives the delivery status for each player, as given: "sent", "muted",
+// "offline", or "notFound".
+func SendMessageToPlayers(ctx context.Context, players []string, message string) (map[string]string, error) {
+	params := map[string]interface{}{
+		"players": players,
+		"message": message,
+	}
+	var statuses map[string]string
+	err := Call(ctx, "sendMessageToPlayers", params, &statuses)
+	if err != nil {
+		return nil, err
+	}
+	return statuses, nil
+}
+
 func SendMessageToCaller(ctx context.Context, message string) error {
 	params := map[string]interface{}{
 		"message": message,
@@ -1,11 +1,14 @@
 package groundsapi
 
 import (
+	"bufio"
+	"bytes"
 	"context"
 	"encoding/json"
 	"errors"
 	"fmt"
 	"io"
+	"os"
 
 	"golang.org/x/exp/jsonrpc2"
 )
@@ -18,6 +21,21 @@ const (
 	ErrCodeInternalError  = -32603
 )
 
+const (
+	// PluginModeEnv is the environment variable that Grounds sets when it
+	// starts a plugin as a long-lived worker.
+	PluginModeEnv = "GROUNDS_PLUGIN_MODE"
+	// PersistentMode is the value of PluginModeEnv for a long-lived worker.
+	PersistentMode = "persistent"
+	// PingMethod is the method Grounds calls to check that a worker is healthy.
+	PingMethod = "_ping"
+
+	maxMessageSize = 1 << 20
+)
+
+// HandleFunc handles a single JSON-RPC request.
+type HandleFunc func(context.Context, *jsonrpc2.Request) *jsonrpc2.Response
+
 type SubcommandHandler func(context.Context, *PluginCall) (interface{}, error)
 
 type SubcommandDispatcher func(context.Context, PluginCall) SubcommandHandler
@@ -81,6 +99,74 @@ func (h PluginHandler) Handle(ctx context.Context, req *jsonrpc2.Request) *jsonr
 	}
 }
 
+// Serve handles requests from r, writing responses to w. In PersistentMode,
+// it loops over requests until r is exhausted; otherwise, it handles a single
+// request.
+func (h PluginHandler) Serve(ctx context.Context, r io.Reader, w io.Writer) error {
+	return Serve(ctx, r, w, h.Handle)
+}
+
+// IsPersistent reports whether Grounds started this plugin as a long-lived
+// worker.
+func IsPersistent() bool {
+	return os.Getenv(PluginModeEnv) == PersistentMode
+}
+
+// Serve handles requests from r, writing responses to w. In PersistentMode,
+// it loops over requests until r is exhausted; otherwise, it handles a single
+// request.
+func Serve(ctx context.Context, r io.Reader, w io.Writer, handle HandleFunc) error {
+	if IsPersistent() {
+		return ServeLoop(ctx, r, w, handle)
+	}
+
+	req, err := ParseJsonRpcRequest(r)
+	if err != nil {
+		return err
+	}
+	b, err := jsonrpc2.EncodeMessage(handle(ctx, req))
+	if err != nil {
+		return err
+	}
+	_, err = w.Write(b)
+	return err
+}
+
+// ServeLoop reads newline-delimited JSON-RPC requests from r, and writes a
+// newline-delimited response to w for each one, until r is exhausted. Ping
+// requests are answered without calling handle.
+func ServeLoop(ctx context.Context, r io.Reader, w io.Writer, handle HandleFunc) error {
+	scanner := bufio.NewScanner(r)
+	scanner.Buffer(make([]byte, 0, 64*1024), maxMessageSize)
+	for scanner.Scan() {
+		line := bytes.TrimSpace(scanner.Bytes())
+		if len(line) == 0 {
+			continue
+		}
+
+		var res *jsonrpc2.Response
+		msg, err := jsonrpc2.DecodeMessage(line)
+		if err != nil {
+			res = newJsonRpcErrorResponse(ErrCodeParseError, err.Error(), jsonrpc2.ID{})
+		} else if req, ok := msg.(*jsonrpc2.Request); !ok {
+			res = newJsonRpcErrorResponse(ErrCodeInvalidRequest, "Expected a request", jsonrpc2.ID{})
+		} else if req.Method == PingMethod {
+			res, _ = jsonrpc2.NewResponse(req.ID, "pong", nil)
+		} else {
+			res = handle(ctx, req)
+		}
+
+		b, err := jsonrpc2.EncodeMessage(res)
+		if err != nil {
+			return err
+		}
+		if _, err := w.Write(append(b, '\n')); err != nil {
+			return err
+		}
+	}
+	return scanner.Err()
+}
+
 func ParseJsonRpcRequest(r io.Reader) (*jsonrpc2.Request, error) {
 	b, err := io.ReadAll(r)
 	if err != nil {
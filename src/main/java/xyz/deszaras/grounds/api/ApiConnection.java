@@ -0,0 +1,241 @@
+package xyz.deszaras.grounds.api;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The state of a single plugin connection to the API server. Bytes read from
+ * the connection are fed to a non-blocking JSON parser, so requests may
+ * arrive in any number of pieces; each complete request is queued until it
+ * can be handled. Requests are handled one at a time, in the order received,
+ * and their responses are queued for writing in the same order.<p>
+ *
+ * Reading and parsing happen only on the API server's selector thread, while
+ * requests are handled and responses written on worker threads, so the
+ * methods shared between them are synchronized.
+ */
+class ApiConnection {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  /**
+   * The number of requests that may be queued before the connection is no
+   * longer read from.
+   */
+  static final int MAX_PENDING_REQUESTS = 64;
+
+  private final ByteChannel channel;
+  private final JsonParser parser;
+  private final ByteArrayFeeder feeder;
+  private TokenBuffer partialRequest;
+  private int depth;
+
+  private final Deque<JsonNode> pendingRequests;
+  private final Deque<ByteBuffer> pendingOutput;
+  private byte[] finalResponse;
+  private boolean handling;
+  private boolean inputClosed;
+  private boolean broken;
+
+  private SelectionKey key;
+
+  /**
+   * Creates a new connection.
+   *
+   * @param  channel channel for connection
+   * @throws IOException if the JSON parser cannot be created
+   */
+  ApiConnection(ByteChannel channel) throws IOException {
+    this.channel = channel;
+    parser = OBJECT_MAPPER.getFactory().createNonBlockingByteArrayParser();
+    feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    pendingRequests = new ArrayDeque<>();
+    pendingOutput = new ArrayDeque<>();
+  }
+
+  ByteChannel getChannel() {
+    return channel;
+  }
+
+  SelectionKey getKey() {
+    return key;
+  }
+
+  void setKey(SelectionKey key) {
+    this.key = key;
+  }
+
+  /**
+   * Reads what is available from the channel, and queues any requests that
+   * are now complete. The read buffer is only used for the duration of this
+   * call, so it may be shared across connections. If the bytes read are not
+   * valid JSON, the connection stops reading, and a parse error response is
+   * queued to follow the responses for the requests before it.
+   *
+   * @param  readBuffer buffer to read into, backed by an array
+   * @return            number of bytes read, or -1 at end of stream or once
+   *                    input is closed
+   * @throws IOException if the channel cannot be read
+   */
+  int read(ByteBuffer readBuffer) throws IOException {
+    synchronized (this) {
+      if (inputClosed) {
+        return -1;
+      }
+    }
+    readBuffer.clear();
+    int read = channel.read(readBuffer);
+    if (read < 0) {
+      feeder.endOfInput();
+    } else if (read > 0) {
+      feeder.feedInput(readBuffer.array(), 0, read);
+    }
+
+    synchronized (this) {
+      try {
+        parseRequests();
+      } catch (IOException e) {
+        finalResponse = ApiHandler.parseErrorResponse();
+        inputClosed = true;
+        return read;
+      }
+      if (read < 0) {
+        inputClosed = true;
+      }
+    }
+    return read;
+  }
+
+  private void parseRequests() throws IOException {
+    JsonToken token = parser.nextToken();
+    while (token != null && token != JsonToken.NOT_AVAILABLE) {
+      if (partialRequest == null) {
+        partialRequest = new TokenBuffer(parser);
+      }
+      partialRequest.copyCurrentEvent(parser);
+      if (token.isStructStart()) {
+        depth++;
+      } else if (token.isStructEnd()) {
+        depth--;
+      }
+      if (depth == 0) {
+        pendingRequests.add(OBJECT_MAPPER.readTree(partialRequest.asParser()));
+        partialRequest = null;
+      }
+      token = parser.nextToken();
+    }
+  }
+
+  /**
+   * Takes the next request to handle, if no request is being handled
+   * already. Once no requests remain, a final parse error response, if there
+   * is one, is queued for writing.
+   *
+   * @return next request, or null if there is nothing to handle now
+   */
+  synchronized JsonNode startNextRequest() {
+    if (handling || broken) {
+      return null;
+    }
+    JsonNode request = pendingRequests.poll();
+    if (request == null) {
+      if (finalResponse != null) {
+        pendingOutput.add(ByteBuffer.wrap(finalResponse));
+        finalResponse = null;
+      }
+      return null;
+    }
+    handling = true;
+    return request;
+  }
+
+  /**
+   * Finishes handling the current request, queueing its response for
+   * writing.
+   *
+   * @param  response response, serialized, or null if there is none
+   */
+  synchronized void finishRequest(byte[] response) {
+    if (response != null) {
+      pendingOutput.add(ByteBuffer.wrap(response));
+    }
+    handling = false;
+  }
+
+  /**
+   * Writes as much queued output as the channel accepts. If writing fails,
+   * the connection is marked broken.
+   *
+   * @return true if all queued output has been written
+   */
+  synchronized boolean flush() {
+    try {
+      while (!pendingOutput.isEmpty()) {
+        ByteBuffer output = pendingOutput.peek();
+        channel.write(output);
+        if (output.hasRemaining()) {
+          return false;
+        }
+        pendingOutput.poll();
+      }
+      return true;
+    } catch (IOException e) {
+      markBroken();
+      return false;
+    }
+  }
+
+  /**
+   * Marks this connection as broken, so that it is closed without handling
+   * any more requests.
+   */
+  synchronized void markBroken() {
+    broken = true;
+    pendingRequests.clear();
+    pendingOutput.clear();
+  }
+
+  /**
+   * Checks whether more should be read from this connection now.
+   *
+   * @return true if reading should continue
+   */
+  synchronized boolean wantsRead() {
+    return !inputClosed && !broken && pendingRequests.size() < MAX_PENDING_REQUESTS;
+  }
+
+  /**
+   * Checks whether this connection has output waiting to be written.
+   *
+   * @return true if output is waiting
+   */
+  synchronized boolean wantsWrite() {
+    return !pendingOutput.isEmpty();
+  }
+
+  /**
+   * Checks whether this connection is finished with, either because it is
+   * broken, or because its input is closed and every request it sent has
+   * been answered.
+   *
+   * @return true if this connection should be closed
+   */
+  synchronized boolean isDone() {
+    if (broken) {
+      return true;
+    }
+    return inputClosed && !handling && pendingRequests.isEmpty() &&
+        finalResponse == null && pendingOutput.isEmpty();
+  }
+}
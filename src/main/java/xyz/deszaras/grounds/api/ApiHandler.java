@@ -1,12 +1,13 @@
 package xyz.deszaras.grounds.api;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 
-import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.channels.ByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
@@ -22,116 +23,143 @@ import xyz.deszaras.grounds.model.Extension;
 import xyz.deszaras.grounds.model.Player;
 
 /**
- * A handler for a single API call.
+ * A handler for API requests. A request is either a single JSON RPC request
+ * or a batch: a JSON array of requests. The requests in a batch are handled in
+ * order, and their responses are returned together as a JSON array in the same
+ * order. A handler keeps no state of its own, besides the metrics it records
+ * for each API call, so one may be shared across threads.
  */
-class ApiHandler implements Runnable {
+class ApiHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(ApiHandler.class);
 
-  private static final int MAX_REQUEST_SIZE = 4096;
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
   @VisibleForTesting
   static final String ERROR_MISSING_JSON_RPC_ID = "Missing JSON RPC ID";
   @VisibleForTesting
+  static final String ERROR_EMPTY_BATCH = "Empty batch";
+  @VisibleForTesting
   static final String ERROR_MISSING_PLUGIN_CALL_ID = "Missing plugin call ID";
   @VisibleForTesting
   static final String ERROR_UNKNOWN_PLUGIN_CALL_ID_FORMAT = "Unknown plugin call ID %s";
   @VisibleForTesting
   static final String ERROR_UNKNOWN_METHOD_FORMAT = "Unknown method %s";
 
-  private final ByteChannel channel;
   private final PluginCallTracker pluginCallTracker;
   private final ApiMethodFactory apiMethodFactory;
   private final CommandExecutor commandExecutor;
+  private final PluginCallMetrics metrics;
+  private final long timeoutMillis;
 
-  ApiHandler(ByteChannel channel, PluginCallTracker pluginCallTracker,
-             ApiMethodFactory apiMethodFactory, CommandExecutor commandExecutor) {
-    this.channel = channel;
+  ApiHandler(PluginCallTracker pluginCallTracker, ApiMethodFactory apiMethodFactory,
+             CommandExecutor commandExecutor, PluginCallMetrics metrics,
+             long timeoutMillis) {
     this.pluginCallTracker = pluginCallTracker;
     this.apiMethodFactory = apiMethodFactory;
     this.commandExecutor = commandExecutor;
+    this.metrics = metrics;
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  /**
+   * Handles a request, single or batch.
+   *
+   * @param  requestNode request
+   * @return             response, serialized
+   * @throws JsonProcessingException if the response cannot be serialized
+   */
+  byte[] handle(JsonNode requestNode) throws JsonProcessingException {
+    LOG.debug("API request: {}", requestNode);
+
+    Object response;
+    if (!requestNode.isArray()) {
+      response = handleSingle(requestNode);
+    } else if (requestNode.isEmpty()) {
+      response = new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_REQUEST,
+                                                     ERROR_EMPTY_BATCH),
+                                     null);
+    } else {
+      response = handleBatch(requestNode);
+    }
+
+    byte[] responseBytes = OBJECT_MAPPER.writeValueAsBytes(response);
+    LOG.debug("API response: {}", new String(responseBytes, StandardCharsets.UTF_8));
+    return responseBytes;
   }
 
-  @Override
-  public void run() {
-    ByteBuffer readBuffer = ByteBuffer.allocate(MAX_REQUEST_SIZE);
+  /**
+   * Gets the response to a request that is not valid JSON.
+   *
+   * @return response, serialized
+   * @throws JsonProcessingException if the response cannot be serialized
+   */
+  static byte[] parseErrorResponse() throws JsonProcessingException {
+    return OBJECT_MAPPER.writeValueAsBytes(
+        new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.PARSE_ERROR, null), null));
+  }
 
+  private List<JsonRpcResponse> handleBatch(JsonNode batchNode) {
+    List<JsonRpcResponse> responses = new ArrayList<>(batchNode.size());
+    for (JsonNode requestNode : batchNode) {
+      responses.add(handleSingle(requestNode));
+    }
+    return responses;
+  }
+
+  private JsonRpcResponse handleSingle(JsonNode requestNode) {
+    JsonRpcRequest request;
     try {
-      int read = channel.read(readBuffer);
-      if (read <= 0) {
-        // end of stream
-        return;
-      }
-
-      LOG.debug("API request: {}", new String(readBuffer.array(), StandardCharsets.UTF_8));
-
-      JsonRpcResponse response;
-      handling: { // https://docs.oracle.com/javase/specs/jls/se7/html/jls-14.html#jls-14.15
-        JsonRpcRequest request;
-        try {
-          request = OBJECT_MAPPER.readValue(readBuffer.array(), JsonRpcRequest.class);
-        } catch (IOException e) {
-          response = new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.PARSE_ERROR,
-                                                         null),
-                                         null);
-          break handling;
-        }
-
-        Object jsonRpcId = request.getId();
-        if (jsonRpcId == null) {
-          response = new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_REQUEST,
-                                                         ERROR_MISSING_JSON_RPC_ID),
-                                         null);
-          break handling;
-        }
-
-        Optional<Object> pluginCallId =
-            request.getParam(ApiRequestParameters.PLUGIN_CALL_ID);
-        if (pluginCallId.isEmpty()) {
-          response = new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
-                                                         ERROR_MISSING_PLUGIN_CALL_ID),
-                                         jsonRpcId);
-          break handling;
-        }
-
-        Optional<PluginCallTracker.PluginCallInfo> callInfo =
-            pluginCallTracker.getInfo(pluginCallId.get().toString());
-        if (callInfo.isEmpty()) {
-          response = new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
-                                                         String.format(ERROR_UNKNOWN_PLUGIN_CALL_ID_FORMAT, pluginCallId.get())),
-                                         jsonRpcId);
-          break handling;
-        }
-
-        Actor actor = callInfo.get().getActor();
-        Player caller = callInfo.get().getCaller();
-        Extension extension = callInfo.get().getExtension();
-        ApiMethodContext ctx = new ApiMethodContext(actor, caller, extension, commandExecutor);
-
-        Optional<ApiMethod> apiMethodOpt =
-            apiMethodFactory.getApiMethod(request.getMethod());
-        if (apiMethodOpt.isEmpty()) {
-          response = new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.METHOD_NOT_FOUND,
-                                                         String.format(ERROR_UNKNOWN_METHOD_FORMAT, request.getMethod())),
-                                         jsonRpcId);
-          break handling;
-        }
-
-        response = apiMethodOpt.get().call(request, ctx);
-      } // end handling block
-
-      byte[] responseBytes = OBJECT_MAPPER.writeValueAsBytes(response);
-      LOG.debug("API response: {}", new String(responseBytes, StandardCharsets.UTF_8));
-      channel.write(ByteBuffer.wrap(responseBytes));
-    } catch (IOException e) {
-      LOG.error("Failed to process API call", e);
-    } finally {
-      try {
-        channel.close();
-      } catch (IOException e) {
-        LOG.info("Exception closing channel", e);
-      }
+      request = OBJECT_MAPPER.treeToValue(requestNode, JsonRpcRequest.class);
+    } catch (JsonProcessingException | IllegalArgumentException e) {
+      return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_REQUEST,
+                                                 e.getMessage()),
+                                 null);
+    }
+
+    Object jsonRpcId = request.getId();
+    if (jsonRpcId == null) {
+      return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_REQUEST,
+                                                 ERROR_MISSING_JSON_RPC_ID),
+                                 null);
+    }
+
+    Optional<Object> pluginCallId =
+        request.getParam(ApiRequestParameters.PLUGIN_CALL_ID);
+    if (pluginCallId.isEmpty()) {
+      return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
+                                                 ERROR_MISSING_PLUGIN_CALL_ID),
+                                 jsonRpcId);
+    }
+
+    Optional<PluginCallTracker.PluginCallInfo> callInfo =
+        pluginCallTracker.getInfo(pluginCallId.get().toString());
+    if (callInfo.isEmpty()) {
+      return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
+                                                 String.format(ERROR_UNKNOWN_PLUGIN_CALL_ID_FORMAT, pluginCallId.get())),
+                                 jsonRpcId);
     }
+
+    callInfo.get().countApiCall();
+
+    Actor actor = callInfo.get().getActor();
+    Player caller = callInfo.get().getCaller();
+    Extension extension = callInfo.get().getExtension();
+    ApiMethodContext ctx = new ApiMethodContext(actor, caller, extension, commandExecutor,
+                                                callInfo.get().isAsync(), timeoutMillis);
+
+    Optional<ApiMethod> apiMethodOpt =
+        apiMethodFactory.getApiMethod(request.getMethod());
+    if (apiMethodOpt.isEmpty()) {
+      return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.METHOD_NOT_FOUND,
+                                                 String.format(ERROR_UNKNOWN_METHOD_FORMAT, request.getMethod())),
+                                 jsonRpcId);
+    }
+
+    long start = System.nanoTime();
+    JsonRpcResponse response = apiMethodOpt.get().call(request, ctx);
+    metrics.recordApiCall(request.getMethod(), System.nanoTime() - start,
+                          !response.isSuccessful());
+    return response;
   }
 }
@@ -1,20 +1,30 @@
 package xyz.deszaras.grounds.api;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.channels.ClosedByInterruptException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.net.StandardProtocolFamily;
 import java.net.UnixDomainSocketAddress;
+import java.util.Iterator;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,42 +33,103 @@ import xyz.deszaras.grounds.api.method.ApiMethodFactory;
 import xyz.deszaras.grounds.command.CommandExecutor;
 
 /**
- * A server for receiving API calls from plugins.
+ * A server for receiving API calls from plugins. A single selector thread
+ * accepts plugin connections, reads requests from them, and writes responses
+ * back, so the number of threads stays fixed however many plugins are
+ * connected. Requests are handled on a fixed pool of worker threads. Each
+ * connection has at most one request being handled or waiting for a worker
+ * at a time, so requests on a connection are handled in order, and no
+ * connection can crowd out the rest. A connection with too many requests
+ * waiting is not read from until it catches up.
  */
 public class ApiServer implements Runnable {
 
   private static final Logger LOG = LoggerFactory.getLogger(ApiServer.class);
 
+  public static final int DEFAULT_WORKER_THREAD_COUNT = 8;
+
+  private static final int ACCEPT_BACKLOG = 1024;
+  private static final int READ_BUFFER_SIZE = 8192;
+
   private final Path socketPath;
   private final ExecutorService serverExecutor;
-  private final ExecutorService handlerExecutor;
+  private final ExecutorService workerExecutor;
   private final PluginCallTracker pluginCallTracker;
+  private final PluginCallExecutor pluginCallExecutor;
   private final ApiMethodFactory apiMethodFactory;
+  private final Supplier<CommandExecutor> commandExecutorSupplier;
+  private final Queue<ApiConnection> updatedConnections;
   private final CountDownLatch shutdownLatch;
 
   private Future<?> serverFuture;
   private ServerSocketChannel serverChannel;
+  private Selector selector;
+  private volatile ApiHandler handler;
 
   /**
-   * Creates a new API server.
+   * Creates a new API server, with a plugin call executor using default
+   * settings.
    *
    * @param  socketPath path to domain socket file
    */
   public ApiServer(Path socketPath) {
+    this(socketPath, new PluginCallExecutor());
+  }
+
+  /**
+   * Creates a new API server with the default number of worker threads.
+   *
+   * @param  socketPath         path to domain socket file
+   * @param  pluginCallExecutor executor for plugin calls
+   */
+  public ApiServer(Path socketPath, PluginCallExecutor pluginCallExecutor) {
+    this(socketPath, pluginCallExecutor, DEFAULT_WORKER_THREAD_COUNT);
+  }
+
+  /**
+   * Creates a new API server. An API call from a plugin call running apart
+   * from command execution may wait on a command, and one that calls another
+   * plugin runs the nested call on its worker thread, while the nested
+   * plugin's own API calls need other workers. So the number of worker
+   * threads should be greater than the number of threads running plugin
+   * calls, times one more than the deepest nesting of plugin calls expected.
+   *
+   * @param  socketPath         path to domain socket file
+   * @param  pluginCallExecutor executor for plugin calls
+   * @param  workerThreadCount  number of threads for handling requests
+   * @throws IllegalArgumentException if workerThreadCount is not positive
+   */
+  public ApiServer(Path socketPath, PluginCallExecutor pluginCallExecutor,
+                   int workerThreadCount) {
+    this(socketPath, pluginCallExecutor, workerThreadCount, CommandExecutor::getInstance);
+  }
+
+  @VisibleForTesting
+  ApiServer(Path socketPath, PluginCallExecutor pluginCallExecutor,
+            int workerThreadCount, Supplier<CommandExecutor> commandExecutorSupplier) {
+    if (workerThreadCount < 1) {
+      throw new IllegalArgumentException("API worker thread count must be positive");
+    }
     this.socketPath = Objects.requireNonNull(socketPath);
+    this.pluginCallExecutor = Objects.requireNonNull(pluginCallExecutor);
+    this.commandExecutorSupplier = commandExecutorSupplier;
 
     serverExecutor =
         Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
                                           .setDaemon(false)
                                           .setNameFormat("api-server")
                                           .build());
-    handlerExecutor =
-        Executors.newCachedThreadPool(new ThreadFactoryBuilder()
-                                      .setDaemon(false)
-                                      .setNameFormat("api-handler-%d")
-                                      .build());
+    // The queue needs no bound of its own, since each connection has at most
+    // one request in it.
+    workerExecutor =
+        Executors.newFixedThreadPool(workerThreadCount,
+                                     new ThreadFactoryBuilder()
+                                     .setDaemon(false)
+                                     .setNameFormat("api-worker-%d")
+                                     .build());
     pluginCallTracker = new PluginCallTracker();
     apiMethodFactory = new ApiMethodFactory();
+    updatedConnections = new ConcurrentLinkedQueue<>();
 
     shutdownLatch = new CountDownLatch(1);
   }
@@ -71,7 +142,10 @@ public class ApiServer implements Runnable {
   public void start() throws IOException {
     UnixDomainSocketAddress socketAddress = UnixDomainSocketAddress.of(socketPath);
     serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
-    serverChannel.bind(socketAddress);
+    serverChannel.bind(socketAddress, ACCEPT_BACKLOG);
+    serverChannel.configureBlocking(false);
+    selector = Selector.open();
+    serverChannel.register(selector, SelectionKey.OP_ACCEPT);
     LOG.info("API server bound to domain socket {}", socketPath);
 
     serverFuture = serverExecutor.submit(this);
@@ -88,28 +162,160 @@ public class ApiServer implements Runnable {
     serverFuture.cancel(true);
 
     shutdownLatch.await();
-    handlerExecutor.shutdownNow();
+    workerExecutor.shutdownNow();
     serverExecutor.shutdown();
+    LOG.info("Plugin calls: {}", pluginCallExecutor.getMetricsSummary());
+    pluginCallExecutor.shutdown();
     serverChannel.close();
     Files.delete(socketPath);
   }
 
   @Override
   public void run() {
-    CommandExecutor commandExecutor = CommandExecutor.getInstance();
+    handler = new ApiHandler(pluginCallTracker, apiMethodFactory,
+                             commandExecutorSupplier.get(),
+                             pluginCallExecutor.getMetrics(),
+                             pluginCallExecutor.getTimeoutMillis());
+    ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        selector.select();
+
+        ApiConnection updated = updatedConnections.poll();
+        while (updated != null) {
+          update(updated);
+          updated = updatedConnections.poll();
+        }
+
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (!key.isValid()) {
+            continue;
+          }
+          if (key.isAcceptable()) {
+            accept();
+            continue;
+          }
+          ApiConnection connection = (ApiConnection) key.attachment();
+          if (key.isReadable()) {
+            read(connection, readBuffer);
+          }
+          if (key.isValid() && key.isWritable()) {
+            connection.flush();
+          }
+          update(connection);
+        }
+      }
+    } catch (IOException e) {
+      LOG.error("API server failed", e);
+    } finally {
+      for (SelectionKey key : selector.keys()) {
+        close(key.channel());
+      }
+      close(selector);
+      shutdownLatch.countDown();
+    }
+  }
+
+  /**
+   * Accepts all waiting connections. A failure to accept or set up one
+   * connection is logged, and closes only that connection, so that the
+   * server keeps serving the others.
+   */
+  private void accept() {
     while (true) {
+      SocketChannel clientChannel;
+      try {
+        clientChannel = serverChannel.accept();
+      } catch (IOException e) {
+        // The selector tries again on its next pass.
+        LOG.error("Failed to accept API connection", e);
+        return;
+      }
+      if (clientChannel == null) {
+        return;
+      }
       try {
-        SocketChannel clientChannel = serverChannel.accept();
-        handlerExecutor.submit(new ApiHandler(clientChannel, pluginCallTracker,
-                                              apiMethodFactory, commandExecutor));
-      } catch (ClosedByInterruptException e) {
-        break;
+        clientChannel.configureBlocking(false);
+        ApiConnection connection = new ApiConnection(clientChannel);
+        connection.setKey(clientChannel.register(selector, SelectionKey.OP_READ, connection));
       } catch (IOException e) {
-        // oh noes
-        break;
+        LOG.error("Failed to set up API connection", e);
+        close(clientChannel);
       }
     }
-    shutdownLatch.countDown();
+  }
+
+  private void read(ApiConnection connection, ByteBuffer readBuffer) {
+    try {
+      connection.read(readBuffer);
+    } catch (IOException e) {
+      LOG.debug("Failed to read from API connection", e);
+      connection.markBroken();
+    }
+    dispatch(connection);
+  }
+
+  /**
+   * Hands the next request on a connection to a worker, if the connection
+   * has one waiting and is not already handling one.
+   */
+  private void dispatch(ApiConnection connection) {
+    JsonNode request = connection.startNextRequest();
+    if (request == null) {
+      return;
+    }
+    try {
+      workerExecutor.execute(() -> handle(connection, request));
+    } catch (RejectedExecutionException e) {
+      // shutting down
+      connection.markBroken();
+    }
+  }
+
+  private void handle(ApiConnection connection, JsonNode request) {
+    byte[] response = null;
+    try {
+      response = handler.handle(request);
+    } catch (IOException | RuntimeException e) {
+      LOG.error("Failed to process API call", e);
+      connection.markBroken();
+    } finally {
+      connection.finishRequest(response);
+    }
+    // Try writing right away, to spare the selector thread the trouble.
+    connection.flush();
+    dispatch(connection);
+    updatedConnections.add(connection);
+    selector.wakeup();
+  }
+
+  /**
+   * Brings a connection's interest in reading and writing up to date, or
+   * closes it if it is done. Only called on the selector thread.
+   */
+  private void update(ApiConnection connection) {
+    SelectionKey key = connection.getKey();
+    if (!key.isValid()) {
+      return;
+    }
+    if (connection.isDone()) {
+      key.cancel();
+      close(connection.getChannel());
+      return;
+    }
+    key.interestOps((connection.wantsRead() ? SelectionKey.OP_READ : 0) |
+                    (connection.wantsWrite() ? SelectionKey.OP_WRITE : 0));
+  }
+
+  private static void close(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      LOG.info("Exception closing API channel", e);
+    }
   }
 
   /**
@@ -120,4 +326,13 @@ public class ApiServer implements Runnable {
   public PluginCallTracker getPluginCallTracker() {
     return pluginCallTracker;
   }
+
+  /**
+   * Gets the plugin call executor for this API server.
+   *
+   * @return plugin call executor
+   */
+  public PluginCallExecutor getPluginCallExecutor() {
+    return pluginCallExecutor;
+  }
 }
@@ -0,0 +1,157 @@
+package xyz.deszaras.grounds.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies. Latencies are counted in buckets whose bounds
+ * are powers of two microseconds, so recording a latency is cheap and
+ * takes no lock, and percentiles are accurate to within a factor of two.
+ * The count, mean, and maximum are exact.
+ */
+public class LatencyHistogram {
+
+  /**
+   * The number of buckets. The last bucket holds every latency of 2^34
+   * microseconds (over four hours) or more.
+   */
+  static final int BUCKET_COUNT = 36;
+
+  private final AtomicLongArray buckets;
+  private final LongAdder count;
+  private final LongAdder totalNanos;
+  private final AtomicLong maxNanos;
+
+  /**
+   * Creates a new, empty histogram.
+   */
+  public LatencyHistogram() {
+    buckets = new AtomicLongArray(BUCKET_COUNT);
+    count = new LongAdder();
+    totalNanos = new LongAdder();
+    maxNanos = new AtomicLong();
+  }
+
+  /**
+   * Records a latency.
+   *
+   * @param nanos latency, in nanoseconds
+   */
+  public void record(long nanos) {
+    long boundedNanos = Math.max(nanos, 0L);
+    buckets.incrementAndGet(bucketFor(boundedNanos));
+    count.increment();
+    totalNanos.add(boundedNanos);
+    maxNanos.accumulateAndGet(boundedNanos, Math::max);
+  }
+
+  private static int bucketFor(long nanos) {
+    // Bucket i holds latencies under 2^i microseconds, and at least
+    // 2^(i-1) microseconds.
+    long micros = nanos / 1000L;
+    return Math.min(Long.SIZE - Long.numberOfLeadingZeros(micros), BUCKET_COUNT - 1);
+  }
+
+  private static double upperBoundMillis(int bucket) {
+    return (1L << bucket) / 1000.0;
+  }
+
+  /**
+   * Gets the number of latencies recorded.
+   *
+   * @return count
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Gets the mean latency.
+   *
+   * @return mean latency, in milliseconds
+   */
+  public double getMeanMillis() {
+    long n = count.sum();
+    return n == 0L ? 0.0 : totalNanos.sum() / 1.0e6 / n;
+  }
+
+  /**
+   * Gets the maximum latency.
+   *
+   * @return maximum latency, in milliseconds
+   */
+  public double getMaxMillis() {
+    return maxNanos.get() / 1.0e6;
+  }
+
+  /**
+   * Gets an estimate of a percentile latency. The estimate is the upper
+   * bound of the bucket holding the percentile, but no more than the
+   * maximum latency.
+   *
+   * @param  percentile percentile, from 0 to 100
+   * @return            percentile latency, in milliseconds, or zero if no
+   *                    latencies have been recorded
+   * @throws IllegalArgumentException if the percentile is out of range
+   */
+  public double getPercentileMillis(double percentile) {
+    if (percentile < 0.0 || percentile > 100.0) {
+      throw new IllegalArgumentException("Invalid percentile " + percentile);
+    }
+    long[] counts = new long[BUCKET_COUNT];
+    long n = 0L;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets.get(i);
+      n += counts[i];
+    }
+    if (n == 0L) {
+      return 0.0;
+    }
+    long rank = Math.max((long) Math.ceil(percentile / 100.0 * n), 1L);
+    long seen = 0L;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBoundMillis(i), getMaxMillis());
+      }
+    }
+    return getMaxMillis();
+  }
+
+  /**
+   * Gets the counts in each non-empty bucket, keyed by the bucket's upper
+   * bound in milliseconds.
+   *
+   * @return bucket counts, in increasing order of latency
+   */
+  public Map<Double, Long> getBucketCounts() {
+    Map<Double, Long> bucketCounts = new LinkedHashMap<>();
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      long bucketCount = buckets.get(i);
+      if (bucketCount > 0L) {
+        bucketCounts.put(upperBoundMillis(i), bucketCount);
+      }
+    }
+    return bucketCounts;
+  }
+
+  /**
+   * Gets a summary of this histogram, suitable for conversion to JSON.
+   *
+   * @return summary
+   */
+  public Map<String, Object> toMap() {
+    Map<String, Object> m = new LinkedHashMap<>();
+    m.put("count", getCount());
+    m.put("meanMs", getMeanMillis());
+    m.put("p50Ms", getPercentileMillis(50.0));
+    m.put("p90Ms", getPercentileMillis(90.0));
+    m.put("p99Ms", getPercentileMillis(99.0));
+    m.put("maxMs", getMaxMillis());
+    m.put("buckets", getBucketCounts());
+    return m;
+  }
+}
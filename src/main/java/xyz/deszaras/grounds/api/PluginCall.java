@@ -1,10 +1,12 @@
 package xyz.deszaras.grounds.api;
 
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
 
 import java.util.Objects;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import xyz.deszaras.grounds.auth.Role;
 import xyz.deszaras.grounds.model.Extension;
@@ -19,12 +21,14 @@ public class PluginCall {
   private final String pluginPath;
   private final String method;
   private final Set<Role> callerRoles;
-  private final ResourceBundle helpBundle;
+  private final Supplier<ResourceBundle> helpBundle;
   private final Extension extension;
   private final PluginCallTracker pluginCallTracker;
+  private final boolean persistent;
+  private final int maxWorkers;
 
   /**
-   * Creates a new plugin call.
+   * Creates a new plugin call that starts a new plugin process for each call.
    *
    * @param  pluginPath        plugin path
    * @param  method            method to call in request to plugin
@@ -36,12 +40,62 @@ public class PluginCall {
    */
   public PluginCall(String pluginPath, String method, Set<Role> callerRoles,
       ResourceBundle helpBundle, Extension extension, PluginCallTracker pluginCallTracker) {
+    this(pluginPath, method, callerRoles, helpBundle, extension, pluginCallTracker,
+         false, 1);
+  }
+
+  /**
+   * Creates a new plugin call.
+   *
+   * @param  pluginPath        plugin path
+   * @param  method            method to call in request to plugin
+   * @param  callerRoles       permitted caller roles for plugin
+   * @param  helpBundle        resource bundle with help text
+   * @param  extension         extension where plugin call is stored as an attribute
+   * @param  pluginCallTracker plugin call tracker
+   * @param  persistent        true to send calls to long-lived plugin workers
+   * @param  maxWorkers        maximum number of plugin workers, and so
+   *                           concurrent calls, if persistent
+   * @throws NullPointerException if any argument is null
+   * @throws IllegalArgumentException if maxWorkers is not positive
+   */
+  public PluginCall(String pluginPath, String method, Set<Role> callerRoles,
+      ResourceBundle helpBundle, Extension extension, PluginCallTracker pluginCallTracker,
+      boolean persistent, int maxWorkers) {
+    this(pluginPath, method, callerRoles, supplierOf(Objects.requireNonNull(helpBundle)),
+         extension, pluginCallTracker, persistent, maxWorkers);
+  }
+
+  /**
+   * Creates a new plugin call whose help resource bundle is built only when
+   * first needed. The supplier is called at most once.
+   *
+   * @param  pluginPath        plugin path
+   * @param  method            method to call in request to plugin
+   * @param  callerRoles       permitted caller roles for plugin
+   * @param  helpBundle        supplier of resource bundle with help text
+   * @param  extension         extension where plugin call is stored as an attribute
+   * @param  pluginCallTracker plugin call tracker
+   * @param  persistent        true to send calls to long-lived plugin workers
+   * @param  maxWorkers        maximum number of plugin workers, and so
+   *                           concurrent calls, if persistent
+   * @throws NullPointerException if any argument is null
+   * @throws IllegalArgumentException if maxWorkers is not positive
+   */
+  public PluginCall(String pluginPath, String method, Set<Role> callerRoles,
+      Supplier<ResourceBundle> helpBundle, Extension extension,
+      PluginCallTracker pluginCallTracker, boolean persistent, int maxWorkers) {
+    if (maxWorkers < 1) {
+      throw new IllegalArgumentException("maxWorkers must be positive");
+    }
     this.pluginPath = Objects.requireNonNull(pluginPath);
     this.method = Objects.requireNonNull(method);
     this.callerRoles = ImmutableSet.copyOf(Objects.requireNonNull(callerRoles));
-    this.helpBundle = Objects.requireNonNull(helpBundle);
+    this.helpBundle = Suppliers.memoize(Objects.requireNonNull(helpBundle)::get);
     this.extension = Objects.requireNonNull(extension);
     this.pluginCallTracker = Objects.requireNonNull(pluginCallTracker);
+    this.persistent = persistent;
+    this.maxWorkers = maxWorkers;
   }
 
   /**
@@ -77,7 +131,7 @@ public class PluginCall {
    * @return help resource bundle
    */
   public ResourceBundle getHelpBundle() {
-    return helpBundle;
+    return helpBundle.get();
   }
 
   /**
@@ -98,8 +152,32 @@ public class PluginCall {
     return pluginCallTracker;
   }
 
+  /**
+   * Checks if calls are sent to long-lived plugin workers, instead of to a
+   * new plugin process each time.
+   *
+   * @return true if persistent
+   */
+  public boolean isPersistent() {
+    return persistent;
+  }
+
+  /**
+   * Gets the maximum number of plugin workers, which is also the maximum
+   * number of concurrent calls to them. This only applies if persistent.
+   *
+   * @return maximum number of plugin workers
+   */
+  public int getMaxWorkers() {
+    return maxWorkers;
+  }
+
   @Override
   public String toString() {
     return String.format("%s::%s", pluginPath, method);
   }
+
+  private static Supplier<ResourceBundle> supplierOf(ResourceBundle helpBundle) {
+    return () -> helpBundle;
+  }
 }
@@ -0,0 +1,264 @@
+package xyz.deszaras.grounds.api;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.deszaras.grounds.command.CommandException;
+
+/**
+ * Runs plugin calls. Calls submitted to this executor run on a bounded pool of
+ * threads, apart from command execution. When every thread is busy, calls
+ * wait in a bounded queue, and when the queue is full, calls are rejected.
+ * Every call, whether submitted or run directly, is timed out after a fixed
+ * period, at which point its plugin process is destroyed. Persistent plugin
+ * calls are sent to workers from a {@link PluginWorkerPool}.<p>
+ *
+ * This executor also keeps metrics on its queue and on how long calls take,
+ * along with detailed {@link PluginCallMetrics} for each plugin call.
+ */
+public class PluginCallExecutor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PluginCallExecutor.class);
+
+  public static final int DEFAULT_THREAD_COUNT = 4;
+  public static final int DEFAULT_QUEUE_SIZE = 64;
+  public static final long DEFAULT_TIMEOUT_MILLIS = 30000L;
+
+  private final ThreadPoolExecutor callExecutor;
+  private final ScheduledExecutorService timeoutExecutor;
+  private final long timeoutMillis;
+  private final PluginWorkerPool workerPool;
+
+  private final LongAdder completedCount;
+  private final LongAdder rejectedCount;
+  private final LongAdder timedOutCount;
+  private final LongAdder totalCallNanos;
+  private final AtomicLong maxCallNanos;
+  private final PluginCallMetrics metrics;
+
+  /**
+   * Creates a new executor with default settings.
+   */
+  public PluginCallExecutor() {
+    this(DEFAULT_THREAD_COUNT, DEFAULT_QUEUE_SIZE, DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Creates a new executor.
+   *
+   * @param  threadCount   number of threads for running submitted calls
+   * @param  queueSize     number of submitted calls that may wait for a thread
+   * @param  timeoutMillis timeout for each call, in milliseconds
+   * @throws IllegalArgumentException if any argument is not positive
+   */
+  public PluginCallExecutor(int threadCount, int queueSize, long timeoutMillis) {
+    this(threadCount, queueSize, timeoutMillis, new PluginWorkerPool(timeoutMillis));
+  }
+
+  @VisibleForTesting
+  PluginCallExecutor(int threadCount, int queueSize, long timeoutMillis,
+                     PluginWorkerPool workerPool) {
+    if (threadCount < 1 || queueSize < 1 || timeoutMillis < 1L) {
+      throw new IllegalArgumentException("Plugin call thread count, queue size, " +
+                                         "and timeout must be positive");
+    }
+    // Threads are daemons, since an abandoned plugin call should not keep
+    // the server running.
+    callExecutor =
+        new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                               new ArrayBlockingQueue<>(queueSize),
+                               new ThreadFactoryBuilder()
+                               .setDaemon(true)
+                               .setNameFormat("plugin-call-%d")
+                               .build());
+    timeoutExecutor =
+        Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                   .setDaemon(true)
+                                                   .setNameFormat("plugin-call-timeout")
+                                                   .build());
+    this.timeoutMillis = timeoutMillis;
+    this.workerPool = workerPool;
+
+    completedCount = new LongAdder();
+    rejectedCount = new LongAdder();
+    timedOutCount = new LongAdder();
+    totalCallNanos = new LongAdder();
+    maxCallNanos = new AtomicLong();
+    metrics = new PluginCallMetrics();
+  }
+
+  /**
+   * Submits a plugin call to run on this executor's threads. If the queue is
+   * full, the returned future fails immediately.
+   *
+   * @param  callable plugin call
+   * @return          future for plugin call result
+   */
+  public ListenableFuture<String> submit(PluginCallable callable) {
+    ListenableFutureTask<String> task = ListenableFutureTask.create(() -> call(callable));
+    try {
+      callExecutor.execute(task);
+    } catch (RejectedExecutionException e) {
+      rejectedCount.increment();
+      LOG.warn("Rejected plugin call, {} calls are already waiting",
+               callExecutor.getQueue().size());
+      return Futures.immediateFailedFuture(
+          new CommandException("Too many plugin calls are in progress, try again later"));
+    }
+    return task;
+  }
+
+  /**
+   * Runs a plugin call on the current thread, subject to this executor's
+   * timeout.
+   *
+   * @param  callable plugin call
+   * @return          plugin call result
+   * @throws CommandException if the plugin call fails or times out
+   */
+  public String call(PluginCallable callable) throws CommandException {
+    long start = System.nanoTime();
+    ScheduledFuture<?> timeout =
+        timeoutExecutor.schedule(callable::timeOut, timeoutMillis, TimeUnit.MILLISECONDS);
+    PluginCallMetrics.Outcome outcome = PluginCallMetrics.Outcome.ERROR;
+    try {
+      String result = callable.call(workerPool);
+      outcome = PluginCallMetrics.Outcome.SUCCESS;
+      return result;
+    } finally {
+      timeout.cancel(false);
+      long elapsed = System.nanoTime() - start;
+      completedCount.increment();
+      totalCallNanos.add(elapsed);
+      maxCallNanos.accumulateAndGet(elapsed, Math::max);
+      if (callable.isTimedOut()) {
+        timedOutCount.increment();
+        outcome = PluginCallMetrics.Outcome.TIMEOUT;
+      }
+      metrics.recordPluginCall(callable.getPluginCall().toString(), elapsed, outcome,
+                               callable.getApiCallCount(), callable.getPhaseNanos());
+    }
+  }
+
+  /**
+   * Gets the timeout for each plugin call.
+   *
+   * @return timeout, in milliseconds
+   */
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  /**
+   * Gets the number of submitted calls waiting for a thread.
+   *
+   * @return queue depth
+   */
+  public int getQueueDepth() {
+    return callExecutor.getQueue().size();
+  }
+
+  /**
+   * Gets the number of submitted calls currently running.
+   *
+   * @return active call count
+   */
+  public int getActiveCount() {
+    return callExecutor.getActiveCount();
+  }
+
+  /**
+   * Gets the number of calls that have finished, successfully or not.
+   *
+   * @return completed call count
+   */
+  public long getCompletedCount() {
+    return completedCount.sum();
+  }
+
+  /**
+   * Gets the number of submitted calls rejected because the queue was full.
+   *
+   * @return rejected call count
+   */
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  /**
+   * Gets the number of calls that timed out.
+   *
+   * @return timed out call count
+   */
+  public long getTimedOutCount() {
+    return timedOutCount.sum();
+  }
+
+  /**
+   * Gets the mean time taken by finished calls.
+   *
+   * @return mean call time, in milliseconds
+   */
+  public double getMeanCallMillis() {
+    long count = completedCount.sum();
+    return count == 0L ? 0.0 : totalCallNanos.sum() / 1.0e6 / count;
+  }
+
+  /**
+   * Gets the longest time taken by a finished call.
+   *
+   * @return maximum call time, in milliseconds
+   */
+  public double getMaxCallMillis() {
+    return maxCallNanos.get() / 1.0e6;
+  }
+
+  /**
+   * Gets the detailed metrics for plugin calls run by this executor, and for
+   * the API calls they make.
+   *
+   * @return plugin call metrics
+   */
+  public PluginCallMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Gets a one-line summary of this executor's metrics.
+   *
+   * @return metrics summary
+   */
+  public String getMetricsSummary() {
+    return String.format("queued=%d active=%d completed=%d rejected=%d timedOut=%d " +
+                         "meanMs=%.1f maxMs=%.1f",
+                         getQueueDepth(), getActiveCount(), getCompletedCount(),
+                         getRejectedCount(), getTimedOutCount(),
+                         getMeanCallMillis(), getMaxCallMillis());
+  }
+
+  /**
+   * Shuts down this executor. Calls in progress are left to finish or time
+   * out.
+   */
+  public void shutdown() {
+    callExecutor.shutdown();
+    timeoutExecutor.shutdown();
+    workerPool.shutdown();
+  }
+}
@@ -1,14 +1,19 @@
 package xyz.deszaras.grounds.api;
 
 import com.google.common.base.Splitter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListResourceBundle;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import xyz.deszaras.grounds.auth.Role;
@@ -16,7 +21,12 @@ import xyz.deszaras.grounds.model.Attr;
 import xyz.deszaras.grounds.model.Extension;
 
 /**
- * A factory for {@link PluginCall} objects.
+ * A factory for {@link PluginCall} objects. Besides building new plugin
+ * calls, the factory can keep a cache of the calls it has built, so that a
+ * plugin call attribute is only compiled again after it changes. The cache
+ * is bounded, so that calls built for destroyed extensions, or for the
+ * extensions of a universe that has since been replaced, are eventually
+ * evicted instead of staying reachable forever.
  */
 public class PluginCallFactory {
 
@@ -28,22 +38,91 @@ public class PluginCallFactory {
 
   // FUTURE: plugin domain socket
 
+  public static final String MODE = "pluginMode";
+
+  public static final String WORKERS = "pluginWorkers";
+
+  public static final String MODE_PROCESS = "process";
+
+  public static final String MODE_PERSISTENT = "persistent";
+
+  static final int DEFAULT_WORKERS = 1;
+
   public static final String METHOD = "pluginMethod";
 
   public static final String CALLER_ROLES = "callerRoles";
 
   public static final String HELP = "commandHelp";
 
+  static final long MAX_CACHED_CALLS = 1000L;
+
+  private final Cache<CacheKey, CachedPluginCall> cache;
+
+  /**
+   * Creates a new factory whose cache holds up to
+   * {@value #MAX_CACHED_CALLS} plugin calls.
+   */
+  public PluginCallFactory() {
+    this(MAX_CACHED_CALLS);
+  }
+
+  /**
+   * Creates a new factory.
+   *
+   * @param maxCachedCalls maximum number of plugin calls to cache
+   */
+  PluginCallFactory(long maxCachedCalls) {
+    cache = CacheBuilder.newBuilder()
+        .maximumSize(maxCachedCalls)
+        .build();
+  }
+
+  /**
+   * Gets a plugin call for a plugin call attribute, reusing one built earlier
+   * if possible. Cached plugin calls are keyed by extension ID and attribute
+   * name, and a cached call is only reused while it was built from the very
+   * same attribute and extension. Attributes are immutable and
+   * replaced whenever they are set, so a changed attribute is never mistaken
+   * for the one a cached call was built from. The least recently used calls
+   * are evicted once the cache is full.
+   *
+   * @param pluginCallAttr    plugin call attribute
+   * @param pluginExtension   plugin extension
+   * @param pluginCallTracker plugin call tracker, used if a new call is built
+   * @return plugin call object
+   * @throws PluginCallFactoryException if a new plugin call cannot be built
+   * @see #newPluginCall(Attr, Extension, PluginCallTracker)
+   */
+  public PluginCall getPluginCall(Attr pluginCallAttr, Extension pluginExtension,
+                                  PluginCallTracker pluginCallTracker)
+      throws PluginCallFactoryException {
+    CacheKey key = new CacheKey(pluginExtension.getId(), pluginCallAttr.getName());
+    CachedPluginCall cached = cache.getIfPresent(key);
+    if (cached != null && cached.isFor(pluginCallAttr, pluginExtension)) {
+      return cached.pluginCall;
+    }
+
+    PluginCall pluginCall = newPluginCall(pluginCallAttr, pluginExtension, pluginCallTracker);
+    cache.put(key, new CachedPluginCall(pluginCallAttr, pluginCall));
+    return pluginCall;
+  }
+
   /**
    * Creates a new plugin call object from a plugin call attribute. The
    * attribute must be of type ATTRLIST. Valid attrs in the list value are:<p>
    * <ul>
    * <li>"pluginPath" (string) = path to plugin to run</li>
+   * <li>"pluginMode" (string) = "process" (default) to run the plugin anew for
+   *     each call, or "persistent" to keep long-lived plugin workers</li>
+   * <li>"pluginWorkers" (integer) = maximum number of persistent plugin
+   *     workers, and so concurrent calls (default 1)</li>
    * <li>"pluginMethod" (string) = JSON-RPC method to call</li>
    * <li>"callerRoles" (string) = comma-separated list of allowed roles</li>
    * <li>"commandHelp" (attrlist) = help text</li>
    * </ul>
    *
+   * The help resource bundle is only built once it is first asked for.
+   *
    * @param pluginCallAttr    plugin call attribute
    * @param pluginExtension   plugin extension
    * @param pluginCallTracker plugin call tracker
@@ -70,6 +149,40 @@ public class PluginCallFactory {
       throw new PluginCallFactoryException("Plugin call attribute is missing " + PATH);
     }
 
+    // Get the mode from the pluginMode attribute.
+    Optional<Attr> modeAttr = attrs.stream()
+        .filter(a -> a.getName().equals(MODE) &&
+                     a.getType() == Attr.Type.STRING)
+        .findFirst();
+    boolean persistent = false;
+    if (modeAttr.isPresent()) {
+      String mode = modeAttr.get().getValue();
+      if (mode.equalsIgnoreCase(MODE_PERSISTENT)) {
+        persistent = true;
+      } else if (!mode.equalsIgnoreCase(MODE_PROCESS)) {
+        throw new PluginCallFactoryException("Invalid plugin mode: " + mode);
+      }
+    }
+
+    // Get the maximum number of workers from the pluginWorkers attribute.
+    Optional<Attr> workersAttr = attrs.stream()
+        .filter(a -> a.getName().equals(WORKERS) &&
+                     a.getType() == Attr.Type.INTEGER)
+        .findFirst();
+    int maxWorkers = DEFAULT_WORKERS;
+    if (workersAttr.isPresent()) {
+      try {
+        maxWorkers = workersAttr.get().getIntValue();
+      } catch (NumberFormatException e) {
+        throw new PluginCallFactoryException("Invalid plugin worker count: " +
+                                             workersAttr.get().getValue());
+      }
+      if (maxWorkers < 1) {
+        throw new PluginCallFactoryException("Plugin worker count must be positive: " +
+                                             maxWorkers);
+      }
+    }
+
     // Get the method from the pluginMethod attribute.
     Optional<Attr> methodAttr = attrs.stream()
         .filter(a -> a.getName().equals(METHOD) &&
@@ -103,11 +216,11 @@ public class PluginCallFactory {
         .filter(a -> a.getName().equals(HELP) &&
                      a.getType() == Attr.Type.ATTRLIST)
         .findFirst();
-    ResourceBundle helpBundle;
+    Supplier<ResourceBundle> helpBundle;
     if (helpAttr.isPresent()) {
-      helpBundle = new AttrListResourceBundle(helpAttr.get());
+      helpBundle = () -> new AttrListResourceBundle(helpAttr.get());
     } else {
-      helpBundle = new EmptyResourceBundle();
+      helpBundle = EmptyResourceBundle::new;
     }
 
     return new PluginCall(pathAttr.get().getValue(),
@@ -115,7 +228,56 @@ public class PluginCallFactory {
                           callerRoles,
                           helpBundle,
                           pluginExtension,
-                          pluginCallTracker);
+                          pluginCallTracker,
+                          persistent,
+                          maxWorkers);
+  }
+
+  /**
+   * The key for a cached plugin call.
+   */
+  private static final class CacheKey {
+    private final UUID extensionId;
+    private final String attrName;
+
+    private CacheKey(UUID extensionId, String attrName) {
+      this.extensionId = extensionId;
+      this.attrName = attrName;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof CacheKey)) {
+        return false;
+      }
+      CacheKey o = (CacheKey) other;
+      return extensionId.equals(o.extensionId) && attrName.equals(o.attrName);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(extensionId, attrName);
+    }
+  }
+
+  /**
+   * A plugin call along with the attribute it was built from.
+   */
+  private static final class CachedPluginCall {
+    private final Attr attr;
+    private final PluginCall pluginCall;
+
+    private CachedPluginCall(Attr attr, PluginCall pluginCall) {
+      this.attr = attr;
+      this.pluginCall = pluginCall;
+    }
+
+    private boolean isFor(Attr attr, Extension extension) {
+      return this.attr == attr && pluginCall.getExtension() == extension;
+    }
   }
 
   /**
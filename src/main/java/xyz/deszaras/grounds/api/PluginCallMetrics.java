@@ -0,0 +1,286 @@
+package xyz.deszaras.grounds.api;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import xyz.deszaras.grounds.util.TabularOutput;
+
+/**
+ * Instrumentation for plugin calls and the API calls that plugins make. For
+ * each plugin call, named by plugin path and method, this keeps counts of
+ * calls, errors, timeouts, and API calls made, along with latency
+ * histograms for whole calls and for each phase of a call. For each API
+ * method, this keeps counts of calls and errors, along with a latency
+ * histogram. Recording takes no lock, so it is safe from any thread.<p>
+ *
+ * A snapshot of the metrics is available as text tables or as JSON.
+ */
+public class PluginCallMetrics {
+
+  private static final ObjectMapper OBJECT_MAPPER =
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  /**
+   * The phases of a plugin call.
+   */
+  public enum Phase {
+    /**
+     * Starting a plugin process.
+     */
+    SPAWN,
+    /**
+     * Writing the request to the plugin.
+     */
+    WRITE,
+    /**
+     * Reading the response from the plugin.
+     */
+    READ,
+    /**
+     * Waiting for the plugin process to exit.
+     */
+    EXIT;
+  }
+
+  /**
+   * The outcome of a plugin call.
+   */
+  public enum Outcome {
+    SUCCESS,
+    ERROR,
+    TIMEOUT;
+  }
+
+  private final Map<String, PluginCallStats> pluginCallStats;
+  private final Map<String, ApiMethodStats> apiMethodStats;
+
+  /**
+   * Creates a new, empty set of metrics.
+   */
+  public PluginCallMetrics() {
+    pluginCallStats = new ConcurrentHashMap<>();
+    apiMethodStats = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Records a finished plugin call.
+   *
+   * @param pluginCallName plugin call name
+   * @param nanos          time taken by call, in nanoseconds
+   * @param outcome        outcome of call
+   * @param apiCallCount   number of API calls made by plugin during call
+   * @param phaseNanos     time taken by each phase of call that occurred, in
+   *                       nanoseconds
+   */
+  public void recordPluginCall(String pluginCallName, long nanos, Outcome outcome,
+                               int apiCallCount, Map<Phase, Long> phaseNanos) {
+    PluginCallStats stats =
+        pluginCallStats.computeIfAbsent(pluginCallName, n -> new PluginCallStats());
+    stats.latency.record(nanos);
+    if (outcome == Outcome.ERROR) {
+      stats.errors.increment();
+    } else if (outcome == Outcome.TIMEOUT) {
+      stats.timeouts.increment();
+    }
+    stats.apiCalls.add(apiCallCount);
+    stats.maxApiCalls.accumulateAndGet(apiCallCount, Math::max);
+    for (Map.Entry<Phase, Long> e : phaseNanos.entrySet()) {
+      stats.phaseLatencies.get(e.getKey()).record(e.getValue());
+    }
+  }
+
+  /**
+   * Records a handled API call.
+   *
+   * @param method API method name
+   * @param nanos  time taken to handle call, in nanoseconds
+   * @param error  true if the call returned an error
+   */
+  public void recordApiCall(String method, long nanos, boolean error) {
+    ApiMethodStats stats =
+        apiMethodStats.computeIfAbsent(method, m -> new ApiMethodStats());
+    stats.latency.record(nanos);
+    if (error) {
+      stats.errors.increment();
+    }
+  }
+
+  /**
+   * Gets a snapshot of these metrics, suitable for conversion to JSON.
+   * Plugin calls and API methods are sorted by name.
+   *
+   * @return snapshot
+   */
+  public Map<String, Object> getSnapshot() {
+    Map<String, Object> pluginCalls = new LinkedHashMap<>();
+    for (Map.Entry<String, PluginCallStats> e : new TreeMap<>(pluginCallStats).entrySet()) {
+      pluginCalls.put(e.getKey(), e.getValue().toMap());
+    }
+    Map<String, Object> apiMethods = new LinkedHashMap<>();
+    for (Map.Entry<String, ApiMethodStats> e : new TreeMap<>(apiMethodStats).entrySet()) {
+      apiMethods.put(e.getKey(), e.getValue().toMap());
+    }
+
+    Map<String, Object> snapshot = new LinkedHashMap<>();
+    snapshot.put("timestamp", Instant.now().toString());
+    snapshot.put("pluginCalls", pluginCalls);
+    snapshot.put("apiMethods", apiMethods);
+    return snapshot;
+  }
+
+  /**
+   * Gets a snapshot of these metrics as JSON.
+   *
+   * @return snapshot JSON
+   * @throws JsonProcessingException if the snapshot cannot be serialized
+   */
+  public String toJson() throws JsonProcessingException {
+    return OBJECT_MAPPER.writeValueAsString(getSnapshot());
+  }
+
+  /**
+   * Gets a snapshot of these metrics as text tables: one for plugin calls,
+   * one for the phases of plugin calls, and one for API methods. Latencies
+   * are in milliseconds.
+   *
+   * @return snapshot text
+   */
+  public String toText() {
+    TabularOutput callTable = new TabularOutput();
+    callTable.defineColumn("PLUGIN CALL", "%-32.32s")
+        .defineColumn("CALLS", "%8s")
+        .defineColumn("ERRORS", "%8s")
+        .defineColumn("TIMEOUTS", "%8s")
+        .defineColumn("API/CALL", "%8s")
+        .defineColumn("MEAN", "%9s")
+        .defineColumn("P50", "%9s")
+        .defineColumn("P99", "%9s")
+        .defineColumn("MAX", "%9s");
+    TabularOutput phaseTable = new TabularOutput();
+    phaseTable.defineColumn("PLUGIN CALL", "%-32.32s")
+        .defineColumn("PHASE", "%-6s")
+        .defineColumn("COUNT", "%8s")
+        .defineColumn("MEAN", "%9s")
+        .defineColumn("P50", "%9s")
+        .defineColumn("P99", "%9s")
+        .defineColumn("MAX", "%9s");
+    for (Map.Entry<String, PluginCallStats> e : new TreeMap<>(pluginCallStats).entrySet()) {
+      PluginCallStats stats = e.getValue();
+      long calls = stats.latency.getCount();
+      callTable.addRow(e.getKey(),
+                       Long.toString(calls),
+                       Long.toString(stats.errors.sum()),
+                       Long.toString(stats.timeouts.sum()),
+                       String.format("%.1f", calls == 0L ? 0.0 :
+                                     (double) stats.apiCalls.sum() / calls),
+                       formatMillis(stats.latency.getMeanMillis()),
+                       formatMillis(stats.latency.getPercentileMillis(50.0)),
+                       formatMillis(stats.latency.getPercentileMillis(99.0)),
+                       formatMillis(stats.latency.getMaxMillis()));
+      for (Map.Entry<Phase, LatencyHistogram> p : stats.phaseLatencies.entrySet()) {
+        LatencyHistogram h = p.getValue();
+        if (h.getCount() == 0L) {
+          continue;
+        }
+        phaseTable.addRow(e.getKey(),
+                          p.getKey().name().toLowerCase(),
+                          Long.toString(h.getCount()),
+                          formatMillis(h.getMeanMillis()),
+                          formatMillis(h.getPercentileMillis(50.0)),
+                          formatMillis(h.getPercentileMillis(99.0)),
+                          formatMillis(h.getMaxMillis()));
+      }
+    }
+
+    TabularOutput apiTable = new TabularOutput();
+    apiTable.defineColumn("API METHOD", "%-32.32s")
+        .defineColumn("CALLS", "%8s")
+        .defineColumn("ERRORS", "%8s")
+        .defineColumn("MEAN", "%9s")
+        .defineColumn("P50", "%9s")
+        .defineColumn("P99", "%9s")
+        .defineColumn("MAX", "%9s");
+    for (Map.Entry<String, ApiMethodStats> e : new TreeMap<>(apiMethodStats).entrySet()) {
+      ApiMethodStats stats = e.getValue();
+      apiTable.addRow(e.getKey(),
+                      Long.toString(stats.latency.getCount()),
+                      Long.toString(stats.errors.sum()),
+                      formatMillis(stats.latency.getMeanMillis()),
+                      formatMillis(stats.latency.getPercentileMillis(50.0)),
+                      formatMillis(stats.latency.getPercentileMillis(99.0)),
+                      formatMillis(stats.latency.getMaxMillis()));
+    }
+
+    return callTable.toString() + "\n" + phaseTable.toString() + "\n" + apiTable.toString();
+  }
+
+  private static String formatMillis(double millis) {
+    return String.format("%.2f", millis);
+  }
+
+  /**
+   * Metrics for a single plugin call.
+   */
+  private static final class PluginCallStats {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final Map<Phase, LatencyHistogram> phaseLatencies;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder apiCalls = new LongAdder();
+    private final AtomicLong maxApiCalls = new AtomicLong();
+
+    private PluginCallStats() {
+      phaseLatencies = new EnumMap<>(Phase.class);
+      for (Phase phase : Phase.values()) {
+        phaseLatencies.put(phase, new LatencyHistogram());
+      }
+    }
+
+    private Map<String, Object> toMap() {
+      long calls = latency.getCount();
+      Map<String, Object> m = new LinkedHashMap<>();
+      m.put("calls", calls);
+      m.put("errors", errors.sum());
+      m.put("timeouts", timeouts.sum());
+      m.put("errorRate", calls == 0L ? 0.0 : (double) errors.sum() / calls);
+      m.put("timeoutRate", calls == 0L ? 0.0 : (double) timeouts.sum() / calls);
+      m.put("apiCalls", apiCalls.sum());
+      m.put("maxApiCallsPerCall", maxApiCalls.get());
+      m.put("latency", latency.toMap());
+      Map<String, Object> phases = new LinkedHashMap<>();
+      for (Map.Entry<Phase, LatencyHistogram> e : phaseLatencies.entrySet()) {
+        if (e.getValue().getCount() > 0L) {
+          phases.put(e.getKey().name().toLowerCase(), e.getValue().toMap());
+        }
+      }
+      m.put("phases", phases);
+      return m;
+    }
+  }
+
+  /**
+   * Metrics for a single API method.
+   */
+  private static final class ApiMethodStats {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+
+    private Map<String, Object> toMap() {
+      Map<String, Object> m = new LinkedHashMap<>();
+      m.put("calls", latency.getCount());
+      m.put("errors", errors.sum());
+      m.put("latency", latency.toMap());
+      return m;
+    }
+  }
+}
@@ -2,6 +2,7 @@ package xyz.deszaras.grounds.api;
 
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import xyz.deszaras.grounds.command.Actor;
 import xyz.deszaras.grounds.model.Extension;
@@ -62,18 +63,35 @@ class PluginCallTracker {
     private final Actor actor;
     private final Player caller;
     private final Extension extension;
+    private final boolean async;
+    private final AtomicInteger apiCallCount;
 
     /**
-     * Creates a new object.
+     * Creates a new object for a call that holds up command execution.
      *
      * @param actor     actor
      * @param caller    caller
      * @param extension extension
      */
     PluginCallInfo(Actor actor, Player caller, Extension extension) {
+      this(actor, caller, extension, false);
+    }
+
+    /**
+     * Creates a new object.
+     *
+     * @param actor     actor
+     * @param caller    caller
+     * @param extension extension
+     * @param async     whether the call runs apart from command execution
+     */
+    PluginCallInfo(Actor actor, Player caller, Extension extension,
+                   boolean async) {
       this.actor = actor;
       this.caller = caller;
       this.extension = extension;
+      this.async = async;
+      apiCallCount = new AtomicInteger();
     }
 
     /**
@@ -102,6 +120,31 @@ class PluginCallTracker {
     Extension getExtension() {
       return extension;
     }
+
+    /**
+     * Gets whether the call runs apart from command execution.
+     *
+     * @return true if the call is asynchronous
+     */
+    boolean isAsync() {
+      return async;
+    }
+
+    /**
+     * Counts an API call made during the plugin call.
+     */
+    void countApiCall() {
+      apiCallCount.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of API calls made during the plugin call so far.
+     *
+     * @return API call count
+     */
+    int getApiCallCount() {
+      return apiCallCount.get();
+    }
   }
 }
 
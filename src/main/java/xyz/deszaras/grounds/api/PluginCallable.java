@@ -7,6 +7,7 @@ import com.google.common.collect.ImmutableList;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -39,9 +40,17 @@ public class PluginCallable implements Callable<String> {
   private final Player player;
   private final PluginCall pluginCall;
   private final List<String> arguments;
+  private final boolean async;
+
+  private final Object processMonitor = new Object();
+  private Process pluginProcess; // guarded by processMonitor
+  private volatile boolean timedOut;
+  private final Map<PluginCallMetrics.Phase, Long> phaseNanos;
+  private int apiCallCount;
 
   /**
-   * Creates a new callable.
+   * Creates a new callable for a plugin call that runs while holding up
+   * command execution.
    *
    * @param  actor      actor executing the plugin call
    * @param  player     player executing the plugin call
@@ -51,10 +60,101 @@ public class PluginCallable implements Callable<String> {
    */
   public PluginCallable(Actor actor, Player player, PluginCall pluginCall,
                         List<String> arguments) {
+    this(actor, player, pluginCall, arguments, false);
+  }
+
+  /**
+   * Creates a new callable.
+   *
+   * @param  actor      actor executing the plugin call
+   * @param  player     player executing the plugin call
+   * @param  pluginCall plugin call to execute
+   * @param  arguments  arguments to pass to the plugin call
+   * @param  async      true if the plugin call runs apart from command
+   *                    execution, so that commands it runs through the API
+   *                    must be submitted for execution
+   * @throws NullPointerException if any argument is null
+   */
+  public PluginCallable(Actor actor, Player player, PluginCall pluginCall,
+                        List<String> arguments, boolean async) {
     this.actor = Objects.requireNonNull(actor);
     this.player = Objects.requireNonNull(player);
     this.pluginCall = Objects.requireNonNull(pluginCall);
     this.arguments = ImmutableList.copyOf(arguments);
+    this.async = async;
+    phaseNanos = new EnumMap<>(PluginCallMetrics.Phase.class);
+  }
+
+  /**
+   * Times out this plugin call, destroying the plugin process if it is
+   * running. The call then fails.
+   */
+  void timeOut() {
+    synchronized (processMonitor) {
+      timedOut = true;
+      if (pluginProcess != null) {
+        pluginProcess.destroyForcibly();
+      }
+    }
+  }
+
+  /**
+   * Checks if this plugin call was timed out.
+   *
+   * @return true if timed out
+   */
+  boolean isTimedOut() {
+    return timedOut;
+  }
+
+  /**
+   * Gets the plugin call made by this callable.
+   *
+   * @return plugin call
+   */
+  PluginCall getPluginCall() {
+    return pluginCall;
+  }
+
+  /**
+   * Gets the time taken by each phase of this plugin call that occurred.
+   * This is only complete once the call is finished.
+   *
+   * @return phase times, in nanoseconds
+   */
+  Map<PluginCallMetrics.Phase, Long> getPhaseNanos() {
+    return phaseNanos;
+  }
+
+  /**
+   * Gets the number of API calls the plugin made during this plugin call.
+   * This is only complete once the call is finished.
+   *
+   * @return API call count
+   */
+  int getApiCallCount() {
+    return apiCallCount;
+  }
+
+  private void recordPhase(PluginCallMetrics.Phase phase, long nanos) {
+    phaseNanos.merge(phase, nanos, Long::sum);
+  }
+
+  /**
+   * Sets the process running this plugin call, destroying it right away if
+   * the call has already timed out. Once this is passed null, a timeout can
+   * no longer reach the process, so a persistent worker can safely be given
+   * back to its pool.
+   *
+   * @param process plugin process, or null to detach the current one
+   */
+  private void attachProcess(Process process) {
+    synchronized (processMonitor) {
+      pluginProcess = process;
+      if (process != null && timedOut) {
+        process.destroyForcibly();
+      }
+    }
   }
 
   protected Process buildProcess(String path) throws IOException {
@@ -71,12 +171,29 @@ public class PluginCallable implements Callable<String> {
    * if it's empty.<p>
    *
    * Tracking of the plugin call is started just before the call occurs, and is
-   * removed regardless of the call outcome.
+   * removed regardless of the call outcome.<p>
+   *
+   * This method always starts a new plugin process, even for a persistent
+   * plugin call.
    *
    * @return result of plugin call
    */
   @Override
   public String call() throws CommandException {
+    return call(null);
+  }
+
+  /**
+   * Executes the plugin call, using a worker from the given pool if the plugin
+   * call is persistent.
+   *
+   * @param  workerPool plugin worker pool, or null to always start a new
+   *                    plugin process
+   * @return            result of plugin call
+   * @throws CommandException if the plugin call fails
+   * @see #call()
+   */
+  String call(PluginWorkerPool workerPool) throws CommandException {
 
     // Check that the caller has a permitted role.
     if (!(player.equals(Player.GOD))) {
@@ -97,7 +214,8 @@ public class PluginCallable implements Callable<String> {
 
     // Establish tracking for the call.
     PluginCallTracker.PluginCallInfo info =
-        new PluginCallTracker.PluginCallInfo(actor, player, pluginCall.getExtension());
+        new PluginCallTracker.PluginCallInfo(actor, player, pluginCall.getExtension(),
+                                             async);
     // TBD: Include extension in tracked info?
     pluginCall.getPluginCallTracker().track(pluginCallId, info);
 
@@ -115,17 +233,28 @@ public class PluginCallable implements Callable<String> {
     JsonRpcResponse response;
     int pluginExitCode;
     try {
-      Process pluginProcess = buildProcess(pluginCall.getPluginPath());
+      if (pluginCall.isPersistent() && workerPool != null) {
+        response = workerPool.call(pluginCall, request, this::attachProcess,
+                                   this::recordPhase);
+        pluginExitCode = 0;
+      } else {
+        long phaseStart = System.nanoTime();
+        Process process = buildProcess(pluginCall.getPluginPath());
+        attachProcess(process);
+        phaseStart = endPhase(PluginCallMetrics.Phase.SPAWN, phaseStart);
 
-      OutputStream stdin = pluginProcess.getOutputStream();
-      stdin.write(OBJECT_MAPPER.writeValueAsBytes(request));
-      stdin.close();
+        OutputStream stdin = process.getOutputStream();
+        stdin.write(OBJECT_MAPPER.writeValueAsBytes(request));
+        stdin.close();
+        phaseStart = endPhase(PluginCallMetrics.Phase.WRITE, phaseStart);
 
-      InputStream stdout = pluginProcess.getInputStream();
-      response = OBJECT_MAPPER.readValue(stdout, JsonRpcResponse.class);
+        InputStream stdout = process.getInputStream();
+        response = OBJECT_MAPPER.readValue(stdout, JsonRpcResponse.class);
+        phaseStart = endPhase(PluginCallMetrics.Phase.READ, phaseStart);
 
-      pluginExitCode = pluginProcess.waitFor();
-      // TBD: timeout
+        pluginExitCode = process.waitFor();
+        endPhase(PluginCallMetrics.Phase.EXIT, phaseStart);
+      }
     } catch (InterruptedException e) {
       // TBD: is this the right response?
       LOG.error("Interrupted waiting for plugin call {} in extension {} for {}",
@@ -134,15 +263,24 @@ public class PluginCallable implements Callable<String> {
                                  " in extension " +  pluginCall.getExtension().getId().toString(),
                                  e);
     } catch (IOException e) {
+      if (timedOut) {
+        throw newTimedOutException();
+      }
       LOG.error("Failed to execute plugin call {} in extension {} for {}",
                 pluginCall.toString(), pluginCall.getExtension().getId(), player.getName(), e);
       throw new CommandException("Failed to execute plugin call " + pluginCall.toString() +
                                  " in extension " + pluginCall.getExtension().getId().toString(),
                                  e);
     } finally {
+      attachProcess(null);
+      apiCallCount = info.getApiCallCount();
       pluginCall.getPluginCallTracker().untrack(pluginCallId);
     }
 
+    if (timedOut) {
+      throw newTimedOutException();
+    }
+
     // Does this actually matter?
     if (pluginExitCode != 0) {
       LOG.warn("Plugin call {} in extension {} for {} returned exit code {}",
@@ -178,4 +316,18 @@ public class PluginCallable implements Callable<String> {
     throw new CommandException("Plugin error: " +
                                response.getError().getMessage());
   }
+
+  private long endPhase(PluginCallMetrics.Phase phase, long phaseStart) {
+    long now = System.nanoTime();
+    recordPhase(phase, now - phaseStart);
+    return now;
+  }
+
+  private CommandException newTimedOutException() {
+    LOG.error("Plugin call {} in extension {} for {} timed out",
+              pluginCall.toString(), pluginCall.getExtension().getId(), player.getName());
+    return new CommandException("Plugin call " + pluginCall.toString() +
+                                " in extension " + pluginCall.getExtension().getId() +
+                                " timed out");
+  }
 }
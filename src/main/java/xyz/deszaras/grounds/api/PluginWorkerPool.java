@@ -0,0 +1,323 @@
+package xyz.deszaras.grounds.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long-lived plugin processes, or workers, for persistent plugin calls. A
+ * worker reads newline-delimited JSON-RPC requests from its standard input,
+ * and writes a newline-delimited JSON-RPC response to its standard output for
+ * each one. Workers are started on demand, with the environment variable
+ * {@value #MODE_ENV} set to {@value PluginCallFactory#MODE_PERSISTENT}, and
+ * are kept per plugin path, up to the largest maximum set by any plugin call
+ * for that path. A worker handles one call at a time, so callers beyond the
+ * maximum wait for a worker to free up.<p>
+ *
+ * A worker that has been idle for a while is pinged before it is used again.
+ * A worker that has exited, fails a ping, or fails during a call is destroyed,
+ * and replaced by a new one when one is next needed.
+ */
+class PluginWorkerPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PluginWorkerPool.class);
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  static final String MODE_ENV = "GROUNDS_PLUGIN_MODE";
+  static final String PING_METHOD = "_ping";
+  static final long HEALTH_CHECK_IDLE_MILLIS = 30000L;
+
+  private static final ObjLongConsumer<PluginCallMetrics.Phase> NO_PHASE_LISTENER =
+      (phase, nanos) -> { };
+
+  private final Map<String, Workers> workersByPath;
+  private final long acquireTimeoutMillis;
+  private volatile boolean shutdown;
+
+  /**
+   * Creates a new pool.
+   *
+   * @param acquireTimeoutMillis how long to wait for a free worker, in
+   *                             milliseconds
+   */
+  PluginWorkerPool(long acquireTimeoutMillis) {
+    workersByPath = new ConcurrentHashMap<>();
+    this.acquireTimeoutMillis = acquireTimeoutMillis;
+  }
+
+  /**
+   * Sends a request to a worker for a plugin call, and returns its response.
+   * The worker process is passed to the given listener before the request is
+   * sent, so that the caller can destroy it if the call takes too long. Once
+   * the call succeeds, the listener is passed null before the worker is given
+   * back for other calls to use, and from then on the caller must leave the
+   * process alone.
+   *
+   * @param  pluginCall      plugin call
+   * @param  request         request to send
+   * @param  processListener listener for the worker process
+   * @return                 response from worker
+   * @throws IOException if no worker is available, or the call fails
+   * @throws InterruptedException if interrupted waiting for a worker
+   */
+  JsonRpcResponse call(PluginCall pluginCall, JsonRpcRequest request,
+                       Consumer<Process> processListener)
+      throws IOException, InterruptedException {
+    return call(pluginCall, request, processListener, NO_PHASE_LISTENER);
+  }
+
+  /**
+   * Sends a request to a worker for a plugin call, and returns its response,
+   * passing the time taken by each phase of the call to the given listener.
+   * Starting a worker counts as the spawn phase, while sending the request
+   * and receiving the response count as the write and read phases.
+   *
+   * @param  pluginCall      plugin call
+   * @param  request         request to send
+   * @param  processListener listener for the worker process
+   * @param  phaseListener   listener for phase times, in nanoseconds
+   * @return                 response from worker
+   * @throws IOException if no worker is available, or the call fails
+   * @throws InterruptedException if interrupted waiting for a worker
+   * @see #call(PluginCall, JsonRpcRequest, Consumer)
+   */
+  JsonRpcResponse call(PluginCall pluginCall, JsonRpcRequest request,
+                       Consumer<Process> processListener,
+                       ObjLongConsumer<PluginCallMetrics.Phase> phaseListener)
+      throws IOException, InterruptedException {
+    if (shutdown) {
+      throw new IOException("Plugin workers are shut down");
+    }
+
+    String path = pluginCall.getPluginPath();
+    int maxWorkers = pluginCall.getMaxWorkers();
+    // Plugin calls sharing a path may ask for different maximums. Their
+    // workers are shared, and the limit only grows, so that neither call
+    // throws away the other's workers.
+    Workers workers = workersByPath.compute(path, (p, w) -> {
+        if (w == null) {
+          return new Workers(p, maxWorkers);
+        }
+        w.growTo(maxWorkers);
+        return w;
+      });
+
+    if (!workers.permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+      throw new IOException("Timed out waiting for a worker for plugin " + path);
+    }
+    PluginWorker worker = null;
+    try {
+      worker = workers.borrow(phaseListener);
+      processListener.accept(worker.process);
+      if (worker.isStale() && !worker.isHealthy()) {
+        LOG.warn("Plugin worker for {} failed health check, restarting", path);
+        worker.destroy();
+        worker = workers.start(phaseListener);
+        processListener.accept(worker.process);
+      }
+
+      JsonRpcResponse response = worker.call(request, phaseListener);
+      processListener.accept(null);
+      workers.giveBack(worker);
+      worker = null;
+      return response;
+    } finally {
+      if (worker != null) {
+        // The call failed, so the worker can't be trusted.
+        worker.destroy();
+      }
+      workers.permits.release();
+    }
+  }
+
+  /**
+   * Shuts down this pool, stopping all idle workers. Workers in use are
+   * stopped once they are given back.
+   */
+  void shutdown() {
+    shutdown = true;
+    workersByPath.values().forEach(Workers::retire);
+    workersByPath.clear();
+  }
+
+  /**
+   * Starts a new worker process.
+   *
+   * @param  path plugin path
+   * @return      worker process
+   * @throws IOException if the process cannot be started
+   */
+  protected Process startProcess(String path) throws IOException {
+    ProcessBuilder processBuilder = new ProcessBuilder(path)
+        .redirectError(ProcessBuilder.Redirect.INHERIT);
+    processBuilder.environment().put(MODE_ENV, PluginCallFactory.MODE_PERSISTENT);
+    return processBuilder.start();
+  }
+
+  /**
+   * The workers for a single plugin path.
+   */
+  private final class Workers {
+    private final String path;
+    private final Semaphore permits;
+    private final Deque<PluginWorker> idle;
+    private volatile boolean retired;
+
+    // Only changed inside workersByPath.compute, which is atomic per path.
+    private int maxWorkers;
+
+    private Workers(String path, int maxWorkers) {
+      this.path = path;
+      this.maxWorkers = maxWorkers;
+      permits = new Semaphore(maxWorkers, true);
+      idle = new ConcurrentLinkedDeque<>();
+    }
+
+    private void growTo(int newMaxWorkers) {
+      if (newMaxWorkers > maxWorkers) {
+        permits.release(newMaxWorkers - maxWorkers);
+        maxWorkers = newMaxWorkers;
+      }
+    }
+
+    private PluginWorker borrow(ObjLongConsumer<PluginCallMetrics.Phase> phaseListener)
+        throws IOException {
+      PluginWorker worker = idle.pollFirst();
+      while (worker != null) {
+        if (worker.process.isAlive()) {
+          return worker;
+        }
+        LOG.warn("Plugin worker for {} exited with code {}, restarting",
+                 path, worker.process.exitValue());
+        worker = idle.pollFirst();
+      }
+      return start(phaseListener);
+    }
+
+    private PluginWorker start(ObjLongConsumer<PluginCallMetrics.Phase> phaseListener)
+        throws IOException {
+      LOG.info("Starting plugin worker for {}", path);
+      long spawnStart = System.nanoTime();
+      PluginWorker worker = new PluginWorker(startProcess(path));
+      phaseListener.accept(PluginCallMetrics.Phase.SPAWN, System.nanoTime() - spawnStart);
+      return worker;
+    }
+
+    private void giveBack(PluginWorker worker) {
+      if (retired || shutdown || !worker.process.isAlive()) {
+        worker.close();
+        return;
+      }
+      idle.offerFirst(worker);
+      if (retired) {
+        closeIdle();
+      }
+    }
+
+    private void retire() {
+      retired = true;
+      closeIdle();
+    }
+
+    private void closeIdle() {
+      PluginWorker worker = idle.pollFirst();
+      while (worker != null) {
+        worker.close();
+        worker = idle.pollFirst();
+      }
+    }
+  }
+
+  /**
+   * A single worker process.
+   */
+  private static final class PluginWorker {
+    private final Process process;
+    private final BufferedWriter stdin;
+    private final BufferedReader stdout;
+    private long lastUsedNanos;
+
+    private PluginWorker(Process process) {
+      this.process = process;
+      stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(),
+                                                        StandardCharsets.UTF_8));
+      stdout = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                                                        StandardCharsets.UTF_8));
+      lastUsedNanos = System.nanoTime();
+    }
+
+    private JsonRpcResponse call(JsonRpcRequest request,
+                                 ObjLongConsumer<PluginCallMetrics.Phase> phaseListener)
+        throws IOException {
+      long writeStart = System.nanoTime();
+      stdin.write(OBJECT_MAPPER.writeValueAsString(request));
+      stdin.write('\n');
+      stdin.flush();
+      long readStart = System.nanoTime();
+      phaseListener.accept(PluginCallMetrics.Phase.WRITE, readStart - writeStart);
+
+      String line = stdout.readLine();
+      while (line != null && line.isBlank()) {
+        line = stdout.readLine();
+      }
+      if (line == null) {
+        throw new IOException("Plugin worker exited");
+      }
+      JsonRpcResponse response = OBJECT_MAPPER.readValue(line, JsonRpcResponse.class);
+      if (!Objects.equals(request.getId(), response.getId())) {
+        throw new IOException("Plugin worker responded to request " + response.getId() +
+                              " instead of " + request.getId());
+      }
+      lastUsedNanos = System.nanoTime();
+      phaseListener.accept(PluginCallMetrics.Phase.READ, lastUsedNanos - readStart);
+      return response;
+    }
+
+    private boolean isStale() {
+      return System.nanoTime() - lastUsedNanos >
+          TimeUnit.MILLISECONDS.toNanos(HEALTH_CHECK_IDLE_MILLIS);
+    }
+
+    private boolean isHealthy() {
+      try {
+        return call(new JsonRpcRequest(PING_METHOD, Map.of()), NO_PHASE_LISTENER)
+            .isSuccessful();
+      } catch (IOException e) {
+        return false;
+      }
+    }
+
+    private void destroy() {
+      process.destroyForcibly();
+    }
+
+    private void close() {
+      // Closing standard input ends the worker's request loop.
+      try {
+        stdin.close();
+      } catch (IOException e) {
+        process.destroyForcibly();
+        return;
+      }
+      process.destroy();
+    }
+  }
+}
@@ -2,6 +2,7 @@ package xyz.deszaras.grounds.api.method;
 
 import java.util.Objects;
 
+import xyz.deszaras.grounds.api.PluginCallExecutor;
 import xyz.deszaras.grounds.command.Actor;
 import xyz.deszaras.grounds.command.CommandExecutor;
 import xyz.deszaras.grounds.model.Extension;
@@ -17,13 +18,40 @@ public class ApiMethodContext {
   private final Player caller;
   private final Extension extension;
   private final CommandExecutor commandExecutor;
+  private final boolean asyncCall;
+  private final long timeoutMillis;
 
   public ApiMethodContext(Actor actor, Player caller, Extension extension,
                           CommandExecutor commandExecutor) {
+    this(actor, caller, extension, commandExecutor, false);
+  }
+
+  public ApiMethodContext(Actor actor, Player caller, Extension extension,
+                          CommandExecutor commandExecutor, boolean asyncCall) {
+    this(actor, caller, extension, commandExecutor, asyncCall,
+         PluginCallExecutor.DEFAULT_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * Creates a new context.
+   *
+   * @param actor           actor
+   * @param caller          caller
+   * @param extension       extension
+   * @param commandExecutor command executor
+   * @param asyncCall       whether the plugin call making the API call runs
+   *                        apart from command execution
+   * @param timeoutMillis   plugin call timeout, in milliseconds
+   */
+  public ApiMethodContext(Actor actor, Player caller, Extension extension,
+                          CommandExecutor commandExecutor, boolean asyncCall,
+                          long timeoutMillis) {
     this.actor = Objects.requireNonNull(actor);
     this.caller = Objects.requireNonNull(caller);
     this.extension = Objects.requireNonNull(extension);
     this.commandExecutor = Objects.requireNonNull(commandExecutor);
+    this.asyncCall = asyncCall;
+    this.timeoutMillis = timeoutMillis;
   }
 
   public Actor getActor() {
@@ -41,4 +69,25 @@ public class ApiMethodContext {
   public CommandExecutor getCommandExecutor() {
     return commandExecutor;
   }
+
+  /**
+   * Checks if the plugin call making the API call runs apart from command
+   * execution. If so, commands run for the call must be submitted to the
+   * command executor.
+   *
+   * @return true if the plugin call is asynchronous
+   */
+  public boolean isAsyncCall() {
+    return asyncCall;
+  }
+
+  /**
+   * Gets the timeout for the plugin call making the API call. There is no
+   * point waiting longer than this for a command submitted for the call.
+   *
+   * @return timeout, in milliseconds
+   */
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
 }
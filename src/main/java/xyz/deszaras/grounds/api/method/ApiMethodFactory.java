@@ -22,6 +22,7 @@ public class ApiMethodFactory {
         .put("getRoles", new GetRolesMethod())
         .put("sendMessage", new SendMessageMethod())
         .put("sendMessageToCaller", new SendMessageToCallerMethod())
+        .put("sendMessageToPlayers", new SendMessageToPlayersMethod())
         .put("removeAttr", new RemoveAttrMethod())
         .put("setAttr", new SetAttrMethod())
         .build();
@@ -1,10 +1,14 @@
 package xyz.deszaras.grounds.api.method;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import xyz.deszaras.grounds.api.ApiRequestParameters;
 import xyz.deszaras.grounds.api.JsonRpcRequest;
+import xyz.deszaras.grounds.util.Markup;
+import xyz.deszaras.grounds.util.RecordOutput;
+import xyz.deszaras.grounds.util.TabularOutput;
 
 /**
  * Useful functions for implementing API methods.
@@ -154,4 +158,42 @@ public final class ApiMethodUtils {
       throw new IllegalArgumentException("Parameter " + name + " is not a string list");
     }
   }
+
+  /**
+   * Renders a message for sending to players. Exactly one of a plain
+   * message, a record map, or a table map is rendered, in order of
+   * preference table, record, message, and an optional header is rendered
+   * before it.
+   *
+   * @param  message   plain message (may use markup)
+   * @param  recordMap record map
+   * @param  tableMap  table map
+   * @param  header    header (may use markup)
+   * @return           rendered message
+   * @throws IllegalArgumentException if the record or table is invalid
+   */
+  public static String renderMessage(String message, Map<String, List<String>> recordMap,
+                                     Map<String, List<List<String>>> tableMap,
+                                     String header) {
+    String rendered;
+    if (tableMap != null) {
+      try {
+        rendered = TabularOutput.from(tableMap).toString();
+      } catch (IllegalArgumentException | ClassCastException e) {
+        throw new IllegalArgumentException("Invalid table: " + e.getMessage(), e);
+      }
+    } else if (recordMap != null) {
+      try {
+        rendered = RecordOutput.from(recordMap).toString();
+      } catch (IllegalArgumentException | ClassCastException e) {
+        throw new IllegalArgumentException("Invalid record: " + e.getMessage(), e);
+      }
+    } else {
+      rendered = Markup.render(message);
+    }
+    if (header != null) {
+      rendered = Markup.render(header) + "\n" + rendered;
+    }
+    return rendered;
+  }
 }
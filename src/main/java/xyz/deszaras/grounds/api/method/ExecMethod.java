@@ -1,6 +1,9 @@
 package xyz.deszaras.grounds.api.method;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import xyz.deszaras.grounds.api.JsonRpcErrorCodes;
 import xyz.deszaras.grounds.api.JsonRpcRequest;
@@ -8,8 +11,10 @@ import xyz.deszaras.grounds.api.JsonRpcResponse;
 import xyz.deszaras.grounds.api.JsonRpcResponse.ErrorObject;
 import xyz.deszaras.grounds.command.Command;
 import xyz.deszaras.grounds.command.CommandCallable;
+import xyz.deszaras.grounds.command.CommandException;
 import xyz.deszaras.grounds.command.CommandFactoryException;
 import xyz.deszaras.grounds.command.CommandResult;
+import xyz.deszaras.grounds.command.PluginCallCommand;
 
 /**
  * An API method that executes a Grounds command.
@@ -41,11 +46,25 @@ class ExecMethod implements ApiMethod {
   }
 
   /**
-   * Executes a command, returning its result. Note that command execution
+   * Executes a command, returning its result. If the plugin call making the
+   * API call runs apart from command execution, the command is submitted to
+   * the command executor, and this method waits for it to finish, so that it
+   * is applied in order with all other commands. It waits no longer than the
+   * plugin call timeout, since by then the plugin call has been killed.
+   * Otherwise, command execution
    * occurs directly, and isn't submitted to the command executor. This is
-   * because there should already be a plugin command running, so this command
-   * needs to run as part of that, and cannot wait until the plugin command
-   * completes.<p>
+   * because the plugin command is holding up command execution, so this
+   * command needs to run as part of that, and cannot wait until the plugin
+   * command completes.<p>
+   *
+   * A plugin call command run from a plugin call that runs apart is not
+   * submitted, but runs on the current thread, which is the API server worker
+   * handling this request. Submitting it would hold this thread while the
+   * nested call waits for a plugin call executor thread, and those may all be
+   * busy with calls waiting on nested calls of their own. The worker is still
+   * held until the nested call is done, and the nested plugin's own API calls
+   * need other workers, so each level of nesting ties up one more API server
+   * worker.<p>
    *
    * This method is broken out so that other API commands can use it easily.
    *
@@ -63,6 +82,12 @@ class ExecMethod implements ApiMethod {
                                           asExtension ? ctx.getExtension() : ctx.getCaller(),
                                           commandLine);
       // TBD: prohibit calling another plugin? What about loops?
+      if (ctx.isAsyncCall()) {
+        if (commandToExecute instanceof PluginCallCommand) {
+          return executeNested((PluginCallCommand) commandToExecute);
+        }
+        return submitAndWait(commandToExecute, ctx);
+      }
       CommandCallable callable =
           new CommandCallable(commandToExecute, ctx.getCommandExecutor());
       return callable.call();
@@ -70,4 +95,26 @@ class ExecMethod implements ApiMethod {
       return new CommandResult(e);
     }
   }
+
+  private static CommandResult executeNested(PluginCallCommand command) {
+    try {
+      return new CommandResult<>(command.executeNested(), command);
+    } catch (CommandException e) {
+      return new CommandResult(e);
+    }
+  }
+
+  private static CommandResult submitAndWait(Command command, ApiMethodContext ctx) {
+    try {
+      return (CommandResult) ctx.getCommandExecutor().submit(command)
+          .get(ctx.getTimeoutMillis(), TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      return new CommandResult(new CommandException("Timed out waiting for command"));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new CommandResult(new CommandException("Interrupted waiting for command", e));
+    } catch (ExecutionException e) {
+      return new CommandResult(new CommandException(e.getCause()));
+    }
+  }
 }
@@ -11,9 +11,6 @@ import xyz.deszaras.grounds.api.JsonRpcResponse.ErrorObject;
 import xyz.deszaras.grounds.command.Message;
 import xyz.deszaras.grounds.model.Player;
 import xyz.deszaras.grounds.model.Universe;
-import xyz.deszaras.grounds.util.Markup;
-import xyz.deszaras.grounds.util.RecordOutput;
-import xyz.deszaras.grounds.util.TabularOutput;
 
 /**
  * An API method that sends a message to a player.
@@ -49,28 +46,12 @@ class SendMessageMethod implements ApiMethod {
         Universe.getCurrent().getThingByName(playerName, Player.class);
     if (targetPlayer.isPresent()) {
       Player sender = asExtension ? ctx.getExtension() : ctx.getCaller();
-      if (tableMap != null) {
-        try {
-          message = TabularOutput.from(tableMap).toString();
-        } catch (IllegalArgumentException | ClassCastException e) {
-          return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
-                                                     "Invalid table: " + e.getMessage()),
-                                     request.getId());
-        }
-
-      } else if (recordMap != null) {
-        try {
-          message = RecordOutput.from(recordMap).toString();
-        } catch (IllegalArgumentException | ClassCastException e) {
-          return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
-                                                     "Invalid record: " + e.getMessage()),
-                                     request.getId());
-        }
-      } else {
-        message = Markup.render(message);
-      }
-      if (header != null) {
-        message = Markup.render(header) + "\n" + message;
+      try {
+        message = ApiMethodUtils.renderMessage(message, recordMap, tableMap, header);
+      } catch (IllegalArgumentException e) {
+        return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
+                                                   e.getMessage()),
+                                   request.getId());
       }
       targetPlayer.get().sendMessage(new Message(sender, Message.Style.SCRIPT, message));
     }
@@ -0,0 +1,102 @@
+package xyz.deszaras.grounds.api.method;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import xyz.deszaras.grounds.api.JsonRpcErrorCodes;
+import xyz.deszaras.grounds.api.JsonRpcRequest;
+import xyz.deszaras.grounds.api.JsonRpcResponse;
+import xyz.deszaras.grounds.api.JsonRpcResponse.ErrorObject;
+import xyz.deszaras.grounds.command.Message;
+import xyz.deszaras.grounds.model.Player;
+import xyz.deszaras.grounds.model.Universe;
+import xyz.deszaras.grounds.util.UUIDUtils;
+
+/**
+ * An API method that sends a message to many players at once. The message is
+ * rendered once and then delivered to each player in turn. The result maps
+ * each recipient, as given, to the status of delivery to it.
+ */
+class SendMessageToPlayersMethod implements ApiMethod {
+
+  static final String STATUS_SENT = "sent";
+  static final String STATUS_MUTED = "muted";
+  static final String STATUS_OFFLINE = "offline";
+  static final String STATUS_NOT_FOUND = "notFound";
+
+  @Override
+  public JsonRpcResponse call(JsonRpcRequest request, ApiMethodContext ctx) {
+    boolean asExtension = ApiMethodUtils.asExtension(request);
+    List<String> recipients;
+    String message;
+    Map<String, List<String>> recordMap;
+    Map<String, List<List<String>>> tableMap;
+    String header;
+    try {
+      recipients = ApiMethodUtils.getRequiredStringListParam(request, "players");
+      message = ApiMethodUtils.getStringParam(request, "message", null);
+      recordMap = ApiMethodUtils.getParam(request, "record", Map.class, null);
+      tableMap = ApiMethodUtils.getParam(request, "table", Map.class, null);
+      header = ApiMethodUtils.getStringParam(request, "header", null);
+    } catch (IllegalArgumentException e) {
+      return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
+                                                 e.getMessage()),
+                                 request.getId());
+    }
+    if (message == null && recordMap == null && tableMap == null) {
+      return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
+                                                 "Either message, record, or table is required"),
+                                 request.getId());
+    }
+
+    try {
+      message = ApiMethodUtils.renderMessage(message, recordMap, tableMap, header);
+    } catch (IllegalArgumentException e) {
+      return new JsonRpcResponse(new ErrorObject(JsonRpcErrorCodes.INVALID_PARAMETERS,
+                                                 e.getMessage()),
+                                 request.getId());
+    }
+    Player sender = asExtension ? ctx.getExtension() : ctx.getCaller();
+    Message toSend = new Message(sender, Message.Style.SCRIPT, message);
+
+    Universe universe = Universe.getCurrent();
+    Map<String, String> statuses = new LinkedHashMap<>();
+    Set<Player> sentTo = new HashSet<>();
+    for (String recipient : recipients) {
+      Optional<Player> player = findPlayer(universe, recipient);
+      String status;
+      if (player.isEmpty()) {
+        status = STATUS_NOT_FOUND;
+      } else if (player.get().mutes(sender)) {
+        status = STATUS_MUTED;
+      } else if (player.get().getCurrentActor().isEmpty()) {
+        status = STATUS_OFFLINE;
+      } else {
+        // A player named more than once still gets only one copy.
+        if (sentTo.add(player.get())) {
+          player.get().sendMessage(toSend);
+        }
+        status = STATUS_SENT;
+      }
+      statuses.put(recipient, status);
+    }
+
+    return new JsonRpcResponse(statuses, request.getId());
+  }
+
+  private static Optional<Player> findPlayer(Universe universe, String recipient) {
+    if (UUIDUtils.isUUID(recipient)) {
+      try {
+        return universe.getThing(recipient, Player.class);
+      } catch (IllegalArgumentException e) {
+        // not a player
+        return Optional.empty();
+      }
+    }
+    return universe.getThingByName(recipient, Player.class);
+  }
+}
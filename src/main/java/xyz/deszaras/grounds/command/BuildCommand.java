@@ -114,8 +114,6 @@ public class BuildCommand extends Command<String> {
           thingType == BuiltInType.PLAYER) {
         built.setLocation(location);
         location.give(built);
-      } else if (thingType == BuiltInType.EXTENSION) {
-        CommandExecutor.getInstance().getCommandEventBus().register(built);
       }
       player.sendMessage(newInfoMessage("Created " + built.getId()));
       return built.getId().toString();
@@ -129,6 +129,7 @@ public class ChangePolicyCommand extends Command<String> {
         policy.setRoles(category, roles);
       }
     }
+    thing.policyChanged();
 
     return policy.toString();
   }
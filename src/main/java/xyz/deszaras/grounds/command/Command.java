@@ -1,6 +1,8 @@
 package xyz.deszaras.grounds.command;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -52,11 +54,22 @@ public abstract class Command<R> {
     return actor;
   }
 
-  @VisibleForTesting
   public Player getPlayer() {
     return player;
   }
 
+  /**
+   * Checks if this command is local. A local command reads or changes only
+   * its player, the player's location, and the things in that location, and
+   * it does not move anything between locations. Local commands in different
+   * locations may be run in parallel. By default, commands are not local.
+   *
+   * @return true if this command is local
+   */
+  public boolean isLocal() {
+    return false;
+  }
+
   /**
    * Executes the command. This does work around the call to
    * {@link #execute()}, so outside code must call this method.
@@ -74,6 +87,24 @@ public abstract class Command<R> {
     }
   }
 
+  /**
+   * Starts executing the command, returning a future for its result. A
+   * command that waits on something outside the game, like a plugin, may
+   * override this so that it finishes on another thread, leaving the command
+   * execution thread free. By default, this method calls {@link #execute()}
+   * and returns a completed future.
+   *
+   * @return future for result of command, which fails with a
+   *         {@link CommandException} if the command fails
+   */
+  public ListenableFuture<R> executeAsync() {
+    try {
+      return Futures.immediateFuture(execute());
+    } catch (CommandException e) {
+      return Futures.immediateFailedFuture(e);
+    }
+  }
+
   /**
    * Executes the implementation of this command.
    *
@@ -235,10 +266,6 @@ public abstract class Command<R> {
     }
     String renderedMessage = Markup.render(text);
     Message message = new Message(Player.GOD, Message.Style.INFO, renderedMessage);
-    location.get().getContents().stream()
-        .map(id -> Universe.getCurrent().getThing(id))
-        .filter(t -> t.isPresent())
-        .filter(t -> t.get() instanceof Player)
-        .forEach(p -> ((Player) p.get()).sendMessage(message));
+    location.get().getPlayers().forEach(p -> p.sendMessage(message));
   }
 }
@@ -1,5 +1,10 @@
 package xyz.deszaras.grounds.command;
 
+import com.google.common.util.concurrent.FluentFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
 import java.util.Objects;
 import java.util.concurrent.Callable;
 
@@ -34,11 +39,40 @@ public class CommandCallable<R> implements Callable<CommandResult<R>> {
       return new CommandResult<>(e);
     }
 
+    postEvents();
+
+    return commandResult;
+  }
+
+  /**
+   * Starts executing the command, which may finish on another thread. Events
+   * from the command are posted once it finishes successfully.
+   *
+   * @return future for result of command
+   */
+  public ListenableFuture<CommandResult<R>> callAsync() {
+    ListenableFuture<R> resultFuture;
+    try {
+      resultFuture = command.executeAsync();
+    } catch (RuntimeException e) {
+      resultFuture = Futures.immediateFailedFuture(new CommandException(e));
+    }
+    return FluentFuture.from(resultFuture)
+        .transform(r -> {
+            postEvents();
+            return new CommandResult<>(r, command);
+          }, MoreExecutors.directExecutor())
+        .catching(CommandException.class, e -> new CommandResult<R>(e),
+                  MoreExecutors.directExecutor())
+        .catching(RuntimeException.class,
+                  e -> new CommandResult<R>(new CommandException(e)),
+                  MoreExecutors.directExecutor());
+  }
+
+  private void postEvents() {
     // Post the events from the executed command to the event bus.
     command.getEvents().forEach(e -> {
       commandExecutor.getCommandEventBus().post(e);
     });
-
-    return commandResult;
   }
 }
@@ -5,26 +5,56 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.eventbus.EventBus;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 
 import xyz.deszaras.grounds.api.ApiServer;
+import xyz.deszaras.grounds.model.Attr;
+import xyz.deszaras.grounds.model.AttrNames;
+import xyz.deszaras.grounds.model.ListenerRouter;
 import xyz.deszaras.grounds.model.Player;
 import xyz.deszaras.grounds.security.CommandExecutorPermission;
 import xyz.deszaras.grounds.server.Server;
 
 /**
  * This class is responsible for executing commands. It is a singleton,
- * to have all commands executed through a single controlling entity.
- * Internally, this class uses only a single thread for command execution,
- * thereby serializing changes to the state of the game.<p>
+ * to have all commands executed through a single controlling entity.<p>
+ *
+ * By default, this class uses only a single thread for command execution,
+ * thereby serializing changes to the state of the game. It may instead be
+ * created with several threads, each with its own queue. Then, a
+ * {@linkplain Command#isLocal() local} command is queued on the thread chosen
+ * by its player's location, so local commands in different locations run in
+ * parallel, while those in the same location run in order. Any other command
+ * is queued on every thread as a barrier: it runs only after all previously
+ * submitted commands finish, and it runs alone. A player changes location
+ * through non-local commands, so while one of a player's barriers is still
+ * waiting or running, that player's local commands are queued as barriers
+ * too, instead of on the thread for a location the player may be leaving.
+ * So each player's commands run in the order they were submitted, and each
+ * local command runs in order with the others in the location where it
+ * runs. The one exception is a player moved by someone else's command, like
+ * YOINK, whose local commands submitted before the move was done still run
+ * on the thread for the player's previous location.<p>
+ *
+ * A command may finish on another thread, through
+ * {@link Command#executeAsync()}; plugin calls do this. Then the command
+ * thread moves on as soon as the command has started, and the future
+ * returned on submission completes when the command finishes.<p>
  *
  * When running with a security manager, many methods of this class are
  * guarded by {@link CommandExecutorPermission}.
@@ -89,6 +119,7 @@ public class CommandExecutor {
         .put("MUTE", MuteCommand.class)
         .put("UNMUTE", UnmuteCommand.class)
         .put("SHUTDOWN", ShutdownCommand.class)
+        .put("PLUGIN_STATS", PluginStatsCommand.class)
         .put("HELP", HelpCommand.class)
         .build();
 
@@ -171,13 +202,28 @@ public class CommandExecutor {
 
   /**
    * Creates the single command executor for the game, if it doesn't already
-   * exist.
+   * exist. The executor uses a single thread.
    *
    * @param apiServer API server instance, if running
    * @param server    server instance, if not in single-user mode
    * @throws IllegalStateException if the executor was already created
    */
   public static synchronized void create(ApiServer apiServer, Server server) {
+    create(apiServer, server, 1);
+  }
+
+  /**
+   * Creates the single command executor for the game, if it doesn't already
+   * exist.
+   *
+   * @param apiServer   API server instance, if running
+   * @param server      server instance, if not in single-user mode
+   * @param threadCount number of command execution threads
+   * @throws IllegalArgumentException if threadCount is not positive
+   * @throws IllegalStateException if the executor was already created
+   */
+  public static synchronized void create(ApiServer apiServer, Server server,
+                                         int threadCount) {
     SecurityManager sm = System.getSecurityManager();
     if (sm != null) {
       sm.checkPermission(CREATE_PERMISSION);
@@ -186,8 +232,10 @@ public class CommandExecutor {
     if (theExecutor != null) {
       throw new IllegalStateException("The command executor has already been created");
     }
+    EventBus commandEventBus = new EventBus("commandEvents");
+    commandEventBus.register(new ListenerRouter());
     theExecutor = new CommandExecutor(new CommandFactory(TRANSFORMS, COMMANDS, apiServer, server),
-                                      new EventBus("commandEvents"));
+                                      commandEventBus, threadCount);
   }
 
   /**
@@ -209,20 +257,47 @@ public class CommandExecutor {
   }
 
   private final CommandFactory commandFactory;
-  private final ExecutorService commandExecutorService;
+  private final List<ExecutorService> commandExecutorServices;
   private final EventBus commandEventBus;
+  private final Object submitMonitor = new Object();
+  // players with barriers waiting or running, and how many; guarded by
+  // submitMonitor
+  private final Map<UUID, Integer> pendingBarrierCounts = new HashMap<>();
 
   @VisibleForTesting
   CommandExecutor(CommandFactory commandFactory, EventBus commandEventBus) {
+    this(commandFactory, commandEventBus, 1);
+  }
+
+  @VisibleForTesting
+  CommandExecutor(CommandFactory commandFactory, EventBus commandEventBus,
+                  int threadCount) {
+    if (threadCount < 1) {
+      throw new IllegalArgumentException("Thread count must be positive, got " +
+                                         threadCount);
+    }
     this.commandFactory = Objects.requireNonNull(commandFactory);
-    commandExecutorService =
-        Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
-                                          .setDaemon(false)
-                                          .setNameFormat("grounds-command")
-                                          .build());
+    ThreadFactory threadFactory = new ThreadFactoryBuilder()
+        .setDaemon(false)
+        .setNameFormat(threadCount == 1 ? "grounds-command" : "grounds-command-%d")
+        .build();
+    ImmutableList.Builder<ExecutorService> b = ImmutableList.builder();
+    for (int i = 0; i < threadCount; i++) {
+      b.add(Executors.newSingleThreadExecutor(threadFactory));
+    }
+    commandExecutorServices = b.build();
     this.commandEventBus = commandEventBus;
   }
 
+  /**
+   * Gets the number of threads this executor uses to run commands.
+   *
+   * @return number of command execution threads
+   */
+  public int getThreadCount() {
+    return commandExecutorServices.size();
+  }
+
   /**
    * Gets this executor's command factory.
    *
@@ -249,14 +324,15 @@ public class CommandExecutor {
    * @param commandLine command line entered in the shell
    * @return future for the command result
    */
-  public Future<CommandResult<?>> submit(Actor actor, Player player, List<String> commandLine) {
+  public ListenableFuture<CommandResult<?>> submit(Actor actor, Player player,
+                                                   List<String> commandLine) {
     SecurityManager sm = System.getSecurityManager();
     if (sm != null) {
       sm.checkPermission(SUBMIT_PERMISSION);
     }
 
     try {
-      return (Future<CommandResult<?>>)
+      return (ListenableFuture<CommandResult<?>>)
           submit(commandFactory.getCommand(actor, player, commandLine));
     } catch (CommandFactoryException e) {
       return Futures.immediateFuture(new CommandResult(e));
@@ -269,14 +345,96 @@ public class CommandExecutor {
    * @param command command to run
    * @return future for the command result
    */
-  public <R> Future<CommandResult<R>> submit(Command<R> command) {
+  public <R> ListenableFuture<CommandResult<R>> submit(Command<R> command) {
     SecurityManager sm = System.getSecurityManager();
     if (sm != null) {
       sm.checkPermission(SUBMIT_PERMISSION);
     }
 
-    CommandCallable callable = new CommandCallable(command, this);
-    return commandExecutorService.submit(callable);
+    // The command may finish on another thread, after its task here is done.
+    SettableFuture<CommandResult<R>> result = SettableFuture.create();
+    CommandCallable<R> callable = new CommandCallable<>(command, this);
+    Runnable task = () -> result.setFuture(callable.callAsync());
+    synchronized (submitMonitor) {
+      if (commandExecutorServices.size() == 1) {
+        commandExecutorServices.get(0).execute(task);
+      } else if (command.isLocal() && !hasPendingBarrier(command.getPlayer())) {
+        commandExecutorServices.get(getThreadIndex(command.getPlayer())).execute(task);
+      } else {
+        submitBarrier(trackBarrier(command.getPlayer(), task));
+      }
+    }
+    return result;
+  }
+
+  private boolean hasPendingBarrier(Player player) {
+    return player != null && pendingBarrierCounts.containsKey(player.getId());
+  }
+
+  /**
+   * Counts a barrier as pending for its player until it is done. Only called
+   * while holding the submit monitor.
+   *
+   * @param  player player running command (may be null)
+   * @param  task   barrier task
+   * @return        barrier task that stops counting itself when done
+   */
+  private Runnable trackBarrier(Player player, Runnable task) {
+    if (player == null) {
+      return task;
+    }
+    UUID playerId = player.getId();
+    pendingBarrierCounts.merge(playerId, 1, Integer::sum);
+    return () -> {
+      try {
+        task.run();
+      } finally {
+        synchronized (submitMonitor) {
+          pendingBarrierCounts.computeIfPresent(playerId, (id, n) -> n > 1 ? n - 1 : null);
+        }
+      }
+    };
+  }
+
+  /**
+   * Picks the thread for a local command, based on its player's location.
+   *
+   * @param  player player running command
+   * @return        index of command execution thread
+   */
+  private int getThreadIndex(Player player) {
+    String key = player.getAttr(AttrNames.LOCATION)
+        .map(Attr::getValue)
+        .orElse(player.getId().toString());
+    return Math.floorMod(key.hashCode(), commandExecutorServices.size());
+  }
+
+  /**
+   * Queues a task on every thread, so that it runs after everything already
+   * queued, and before anything queued later. The first thread runs the task
+   * once all of the other threads have reached it, and they wait until it is
+   * done.
+   *
+   * @param task task to run exclusively
+   */
+  private void submitBarrier(Runnable task) {
+    int threadCount = commandExecutorServices.size();
+    CountDownLatch arrived = new CountDownLatch(threadCount - 1);
+    CountDownLatch done = new CountDownLatch(1);
+    commandExecutorServices.get(0).execute(() -> {
+        Uninterruptibles.awaitUninterruptibly(arrived);
+        try {
+          task.run();
+        } finally {
+          done.countDown();
+        }
+      });
+    for (int i = 1; i < threadCount; i++) {
+      commandExecutorServices.get(i).execute(() -> {
+          arrived.countDown();
+          Uninterruptibles.awaitUninterruptibly(done);
+        });
+    }
   }
 
   /**
@@ -288,6 +446,30 @@ public class CommandExecutor {
       sm.checkPermission(SHUTDOWN_PERMISSION);
     }
 
-    commandExecutorService.shutdown();
+    synchronized (submitMonitor) {
+      commandExecutorServices.forEach(ExecutorService::shutdown);
+    }
+  }
+
+  /**
+   * Waits for commands already submitted to this executor to finish running
+   * after it is shut down. A command that finishes asynchronously, like a
+   * plugin call, may still be completing elsewhere when this returns.
+   *
+   * @param  timeout maximum time to wait
+   * @param  unit    unit of timeout
+   * @return         true if all command threads finished, false if the
+   *                 timeout passed first
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    for (ExecutorService es : commandExecutorServices) {
+      if (!es.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        return false;
+      }
+    }
+    return true;
   }
 }
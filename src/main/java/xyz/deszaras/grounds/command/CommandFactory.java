@@ -32,6 +32,7 @@ public class CommandFactory {
   private final Map<String, Class<? extends Command>> commands;
   private final ApiServer apiServer;
   private final Server server;
+  private final PluginCallFactory pluginCallFactory;
 
   /**
    * Creates a new command factory.
@@ -49,6 +50,7 @@ public class CommandFactory {
     this.commands = ImmutableMap.copyOf(commands);
     this.apiServer = apiServer;
     this.server = server;
+    pluginCallFactory = new PluginCallFactory();
   }
 
   /**
@@ -147,7 +149,8 @@ public class CommandFactory {
       throw new CommandFactoryException("Failed to build plugin call for command " + commandName, e);
     }
 
-    return PluginCallCommand.newCommand(actor, player, pluginCall, pluginArguments);
+    return PluginCallCommand.newCommand(actor, player, pluginCall, pluginArguments,
+                                        apiServer.getPluginCallExecutor());
   }
 
   public PluginCallCommand newPluginCallCommand(Actor actor, Player player, Attr pluginCallAttr,
@@ -157,9 +160,10 @@ public class CommandFactory {
       throw new CommandFactoryException("API server is not available");
     }
     try {
-      PluginCall pluginCall = new PluginCallFactory()
-          .newPluginCall(pluginCallAttr, extension, apiServer.getPluginCallTracker());
-      return PluginCallCommand.newCommand(actor, player, pluginCall, pluginCallArguments);
+      PluginCall pluginCall = pluginCallFactory
+          .getPluginCall(pluginCallAttr, extension, apiServer.getPluginCallTracker());
+      return PluginCallCommand.newCommand(actor, player, pluginCall, pluginCallArguments,
+                                          apiServer.getPluginCallExecutor());
     } catch (PluginCallFactoryException e) {
       throw new CommandFactoryException("Failed to create plugin call for command", e);
     }
@@ -167,7 +171,10 @@ public class CommandFactory {
 
   /**
    * Finds a plugin call for the given command name among the extensions in the
-   * universe.
+   * universe. Plugin calls are cached by extension and attribute, and a
+   * cached call is only reused while the attribute it was built from is still
+   * in place on the same extension. Changing the attribute, or reloading the
+   * extension, leads to a new plugin call.
    *
    * @param  commandName command name
    * @return             plugin call implementing the command
@@ -181,24 +188,17 @@ public class CommandFactory {
 
     // Find the attribute defining the command. It must be attached
     // to an extension and have an attribute list as a value.
-    Optional<Attr> pluginCallAttr = Optional.empty();
-    Extension pluginCallExtension = null;
-    // this is inefficient :(
-    for (Extension extension : Universe.getCurrent().getThings(Extension.class)) {
-      Optional<Attr> extPluginCallAttr = extension.getAttr(commandName, Attr.Type.ATTRLIST);
-      if (extPluginCallAttr.isPresent()) {
-        pluginCallAttr = extPluginCallAttr;
-        pluginCallExtension = extension;
-        break;
-      }
-    }
+    Optional<Extension> pluginCallExtension =
+        Universe.getCurrent().findPluginCommandExtension(commandName);
+    Optional<Attr> pluginCallAttr = pluginCallExtension
+        .flatMap(e -> e.getAttr(commandName, Attr.Type.ATTRLIST));
 
     if (pluginCallAttr.isEmpty()) {
       return Optional.empty();
     }
 
-    return Optional.of(new PluginCallFactory()
-                       .newPluginCall(pluginCallAttr.get(), pluginCallExtension,
-                                      apiServer.getPluginCallTracker()));
+    return Optional.of(pluginCallFactory.getPluginCall(pluginCallAttr.get(),
+                                                       pluginCallExtension.get(),
+                                                       apiServer.getPluginCallTracker()));
   }
 }
@@ -63,8 +63,6 @@ public class DestroyCommand extends Command<Boolean> {
     }
     if (thing.getClass().equals(Player.class)) {
       Universe.getCurrent().removeAllRoles((Player) thing);
-    } else if (thing.getClass().equals(Extension.class)) {
-      CommandExecutor.getInstance().getCommandEventBus().unregister(thing);
     }
     Universe.getCurrent().removeThing(thing);
 
@@ -88,8 +86,7 @@ public class DestroyCommand extends Command<Boolean> {
         return "This place is occupied. Empty it out first";
       }
       Place place = (Place) thing;
-      if (Universe.getCurrent().getThings(Link.class).stream()
-          .anyMatch(l -> l.linksTo(place))) {
+      if (!Universe.getCurrent().findLinks(place).isEmpty()) {
         return "There are still links to this place. Unlink or remove them first";
       }
       return null;
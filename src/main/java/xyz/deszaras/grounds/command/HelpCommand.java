@@ -46,6 +46,11 @@ public class HelpCommand extends Command<String> {
       AnsiUtils.color("{hr -}", Ansi.Color.CYAN, false) + "\n" +
       AnsiUtils.color("Roles: %s", Ansi.Color.CYAN, false);
 
+  @Override
+  public boolean isLocal() {
+    return true;
+  }
+
   @Override
   protected String executeImpl() throws CommandException {
     if (args.isEmpty()) {
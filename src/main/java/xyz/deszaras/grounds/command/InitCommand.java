@@ -84,6 +84,7 @@ public class InitCommand extends Command<Boolean> {
     Policy ghPolicy = ghome.getPolicy();
     ghPolicy.setRoles(Policy.Category.GENERAL, Role.ALL_ROLES);
     ghPolicy.setRoles(Policy.Category.READ, Role.ALL_ROLES);
+    ghome.policyChanged();
 
     player.sendMessage(newInfoMessage("Updated guest home place " + ghome.getId()));
   }
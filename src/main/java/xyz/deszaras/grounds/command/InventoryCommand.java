@@ -15,6 +15,11 @@ public class InventoryCommand extends Command<String> {
     super(actor, player);
   }
 
+  @Override
+  public boolean isLocal() {
+    return true;
+  }
+
   @Override
   protected String executeImpl() {
     boolean showId =
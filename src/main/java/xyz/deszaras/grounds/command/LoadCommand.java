@@ -1,24 +1,28 @@
 package xyz.deszaras.grounds.command;
 
-import com.google.common.eventbus.EventBus;
-
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import xyz.deszaras.grounds.model.Extension;
+import xyz.deszaras.grounds.model.Journal;
 import xyz.deszaras.grounds.model.MissingThingException;
 import xyz.deszaras.grounds.model.Player;
 import xyz.deszaras.grounds.model.Thing;
 import xyz.deszaras.grounds.model.Universe;
 
 /**
- * Loads a universe from a file.<p>
+ * Loads a universe from a file. Any journal for the file is replayed onto
+ * the loaded universe, and if journaling is enabled, the journal is opened
+ * again to record further changes. If journaling is disabled, the replayed
+ * universe is saved and the journal is deleted, so that its records are not
+ * replayed again over later saves.<p>
  *
  * Arguments: file to load
  */
@@ -40,6 +44,13 @@ public class LoadCommand extends Command<Boolean> {
     // because they are disconnected from their players
     try {
       Universe loadedUniverse = Universe.load(f);
+      Path journalFile = Journal.getPath(f.toPath());
+      long replayStart = System.nanoTime();
+      int replayed = Journal.replay(journalFile, loadedUniverse);
+      if (replayed > 0) {
+        LOG.info("Replayed {} journal records onto universe from {} in {} ms", replayed, f,
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - replayStart));
+      }
 
       Player currentGod = Universe.getCurrent() != null ?
           Universe.getCurrent().getThing(Player.GOD.getId(), Player.class)
@@ -55,18 +66,10 @@ public class LoadCommand extends Command<Boolean> {
 
       loadedUniverse.removeGuests();
 
-      EventBus commandEventBus = CommandExecutor.getInstance().getCommandEventBus();
-      if (Universe.getCurrent() != null) {
-        for (Extension extension : Universe.getCurrent().getThings(Extension.class)) {
-          LOG.info("Unregistering extension {}", extension.getName());
-          commandEventBus.unregister(extension);
-        }
-      }
-      for (Extension extension : loadedUniverse.getThings(Extension.class)) {
-        LOG.info("Registering extension {}", extension.getName());
-        commandEventBus.register(extension);
+      Universe oldUniverse = Universe.getCurrent();
+      if (oldUniverse != null) {
+        oldUniverse.closeJournal();
       }
-
       Universe.setCurrent(loadedUniverse);
       Universe.setCurrentFile(f);
 
@@ -84,6 +87,16 @@ public class LoadCommand extends Command<Boolean> {
         // FUTURE: save new GOD's possessions?
       }
 
+      Journal.Settings journalSettings = Universe.getJournalSettings();
+      if (journalSettings != null) {
+        loadedUniverse.openJournal(journalFile, journalSettings);
+      } else {
+        if (replayed > 0) {
+          Universe.saveCurrent(true);
+        }
+        Journal.delete(journalFile);
+      }
+
       player.sendMessage(newInfoMessage("Loaded universe from " + f.getName()));
       return true;
     } catch (IOException e) {
@@ -27,6 +27,11 @@ public class LookCommand extends Command<String> {
     super(actor, player);
   }
 
+  @Override
+  public boolean isLocal() {
+    return true;
+  }
+
   @Override
   protected String executeImpl() throws CommandException {
     try {
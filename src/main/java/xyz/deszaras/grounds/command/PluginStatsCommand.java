@@ -0,0 +1,64 @@
+package xyz.deszaras.grounds.command;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.util.List;
+import java.util.Optional;
+
+import xyz.deszaras.grounds.api.ApiServer;
+import xyz.deszaras.grounds.api.PluginCallMetrics;
+import xyz.deszaras.grounds.model.Player;
+import xyz.deszaras.grounds.server.Server;
+
+/**
+ * Shows metrics for plugin calls and the API calls they make, either as text
+ * tables or as JSON.<p>
+ *
+ * Arguments: optional JSON
+ */
+@PermittedRoles(roles = {})
+public class PluginStatsCommand extends ServerCommand<String> {
+
+  private final boolean json;
+
+  public PluginStatsCommand(Actor actor, Player player, Server server, boolean json) {
+    super(actor, player, server);
+    this.json = json;
+  }
+
+  @Override
+  protected String executeImpl() throws CommandException {
+    checkIfServer();
+
+    Optional<ApiServer> apiServer = server.getApiServer();
+    if (apiServer.isEmpty()) {
+      throw new CommandException("The API server is not running, so there are no plugin calls");
+    }
+    PluginCallMetrics metrics = apiServer.get().getPluginCallExecutor().getMetrics();
+    if (!json) {
+      return metrics.toText();
+    }
+    try {
+      return metrics.toJson();
+    } catch (JsonProcessingException e) {
+      throw new CommandException("Failed to convert plugin call metrics to JSON", e);
+    }
+  }
+
+  public static PluginStatsCommand newCommand(Actor actor, Player player, Server server,
+                                              List<String> commandArgs)
+      throws CommandFactoryException {
+    if (commandArgs.size() > 1) {
+      throw new CommandFactoryException("Expected at most one argument, got " +
+                                        commandArgs.size());
+    }
+    boolean json = false;
+    if (commandArgs.size() == 1) {
+      if (!commandArgs.get(0).equalsIgnoreCase("JSON")) {
+        throw new CommandFactoryException("Unsupported format " + commandArgs.get(0));
+      }
+      json = true;
+    }
+    return new PluginStatsCommand(actor, player, server, json);
+  }
+}
@@ -6,7 +6,6 @@ import java.util.stream.Collectors;
 import xyz.deszaras.grounds.auth.Role;
 import xyz.deszaras.grounds.model.Place;
 import xyz.deszaras.grounds.model.Player;
-import xyz.deszaras.grounds.model.Universe;
 
 /**
  * Emits pose text, which is received as a message by all players
@@ -26,6 +25,11 @@ public class PoseCommand extends Command<Boolean> {
     this.message = Objects.requireNonNull(message);
   }
 
+  @Override
+  public boolean isLocal() {
+    return true;
+  }
+
   @Override
   protected Boolean executeImpl() throws CommandException {
     Place location = getPlayerLocation("pose to anyone");
@@ -35,11 +39,7 @@ public class PoseCommand extends Command<Boolean> {
     Message poseMessage = newMessage(Message.Style.POSE,
                                      String.format(POSE_FORMAT, message));
 
-    location.getContents().stream()
-        .map(id -> Universe.getCurrent().getThing(id))
-        .filter(t -> t.isPresent())
-        .filter(t -> t.get() instanceof Player)
-        .forEach(p -> ((Player) p.get()).sendMessage(poseMessage));
+    location.getPlayers().forEach(p -> p.sendMessage(poseMessage));
     return true;
   }
 
@@ -7,7 +7,8 @@ import xyz.deszaras.grounds.model.Player;
 import xyz.deszaras.grounds.model.Universe;
 
 /**
- * Saves the universe to a file.<p>
+ * Saves the universe to a file. When a file is given, it becomes the
+ * universe's file from then on.<p>
  *
  * Arguments: file to save to
  */
@@ -26,8 +27,14 @@ public class SaveCommand extends Command<Boolean> {
     try {
       File savedFile;
       if (f != null) {
-        Universe.save(Universe.getCurrent(), f);
+        File oldFile = Universe.getCurrentFile();
         Universe.setCurrentFile(f);
+        try {
+          Universe.saveCurrent(true);
+        } catch (IOException e) {
+          Universe.setCurrentFile(oldFile);
+          throw e;
+        }
         savedFile = f;
       } else {
         Universe.saveCurrent(true);
@@ -9,7 +9,6 @@ import java.util.stream.Collectors;
 import xyz.deszaras.grounds.auth.Role;
 import xyz.deszaras.grounds.model.Place;
 import xyz.deszaras.grounds.model.Player;
-import xyz.deszaras.grounds.model.Universe;
 
 /**
  * Says a message in the player's current location. Similar to
@@ -35,6 +34,11 @@ public class SayCommand extends Command<Boolean> {
     this.ooc = ooc;
   }
 
+  @Override
+  public boolean isLocal() {
+    return true;
+  }
+
   @Override
   protected Boolean executeImpl() throws CommandException {
     Place location = getPlayerLocation("say anything to anyone");
@@ -51,11 +55,7 @@ public class SayCommand extends Command<Boolean> {
       sayMessage = newMessage(Message.Style.SAY, sayMessageString);
     }
 
-    location.getContents().stream()
-        .map(id -> Universe.getCurrent().getThing(id))
-        .filter(t -> t.isPresent())
-        .filter(t -> t.get() instanceof Player)
-        .forEach(p -> ((Player) p.get()).sendMessage(sayMessage));
+    location.getPlayers().forEach(p -> p.sendMessage(sayMessage));
 
     if (!ooc) {
       postEvent(new SayMessageEvent(player, location, message));
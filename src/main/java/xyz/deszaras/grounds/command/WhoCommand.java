@@ -27,6 +27,11 @@ public class WhoCommand extends ServerCommand<String> {
     super(actor, player, server);
   }
 
+  @Override
+  public boolean isLocal() {
+    return true;
+  }
+
   @Override
   protected String executeImpl() throws CommandException {
     checkIfServer();
@@ -15,6 +15,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -28,7 +30,11 @@ import org.slf4j.LoggerFactory;
 
 /**
  * An attribute, which is a name/value pair. The value has a specific
- * type.
+ * type.<p>
+ *
+ * Attributes are immutable. The values of ATTR and ATTRLIST attributes are
+ * kept as JSON strings, but their parsed forms are also cached the first time
+ * they are needed, so that repeated reads do not parse the JSON again.
  */
 public final class Attr {
 
@@ -47,9 +53,23 @@ public final class Attr {
     ATTRLIST;
   }
   private final String name;
-  private final String value;
+  // The value as a string. For attributes created from a primitive value, it
+  // is formatted lazily. Strings are immutable, so a race here only means that
+  // more than one thread may format the same value.
+  private String value;
   private final Type type;
 
+  // The value in primitive form for INTEGER, BOOLEAN, and TIMESTAMP attributes,
+  // when it is well-formed. Booleans are stored as 0 or 1, and timestamps as
+  // epoch seconds.
+  private final long primitiveValue;
+  private final boolean hasPrimitiveValue;
+
+  // Parsed forms of the value, built lazily. Racing threads may each parse the
+  // value, but they produce equal immutable results, so any of them may win.
+  private volatile Object parsedValue;
+  private volatile Map<String, Attr> parsedValueMap;
+
   @JsonCreator
   public Attr(
       @JsonProperty("name") String name,
@@ -58,6 +78,40 @@ public final class Attr {
     this.name = Objects.requireNonNull(name);
     this.value = Objects.requireNonNull(value);
     this.type = type != null ? type : Type.STRING;
+
+    long primitive = 0L;
+    boolean hasPrimitive = true;
+    try {
+      switch (this.type) {
+        case INTEGER:
+          primitive = Integer.parseInt(value);
+          break;
+        case TIMESTAMP:
+          primitive = Long.parseLong(value);
+          break;
+        case BOOLEAN:
+          if ("true".equalsIgnoreCase(value)) {
+            primitive = 1L;
+          } else if (!"false".equalsIgnoreCase(value)) {
+            hasPrimitive = false;
+          }
+          break;
+        default:
+          hasPrimitive = false;
+          break;
+      }
+    } catch (NumberFormatException e) {
+      hasPrimitive = false;
+    }
+    primitiveValue = primitive;
+    hasPrimitiveValue = hasPrimitive;
+  }
+
+  private Attr(String name, long primitiveValue, Type type) {
+    this.name = Objects.requireNonNull(name);
+    this.type = type;
+    this.primitiveValue = primitiveValue;
+    hasPrimitiveValue = true;
   }
 
   /**
@@ -77,7 +131,7 @@ public final class Attr {
    * @param value attribute value
    */
   public Attr(String name, boolean value) {
-    this(name, value ? "true" : "false", Type.BOOLEAN);
+    this(name, value ? 1L : 0L, Type.BOOLEAN);
   }
 
   /**
@@ -87,7 +141,7 @@ public final class Attr {
    * @param value attribute value
    */
   public Attr(String name, int value) {
-    this(name, Integer.toString(value, 10), Type.INTEGER);
+    this(name, (long) value, Type.INTEGER);
   }
 
   /**
@@ -97,7 +151,7 @@ public final class Attr {
    * @param value attribute value
    */
   public Attr(String name, Instant value) {
-    this(name, Long.toString(value.getEpochSecond()), Type.TIMESTAMP);
+    this(name, value.getEpochSecond(), Type.TIMESTAMP);
   }
 
   /**
@@ -118,6 +172,7 @@ public final class Attr {
    */
   public Attr(String name, Attr attr) {
     this(name, attr.toJson(), Type.ATTR);
+    parsedValue = attr;
   }
 
   /**
@@ -128,6 +183,7 @@ public final class Attr {
    */
   public Attr(String name, List<Attr> attr) {
     this(name, toJson(attr), Type.ATTRLIST);
+    parsedValue = Collections.unmodifiableList(new ArrayList<>(attr));
   }
 
   /**
@@ -158,7 +214,19 @@ public final class Attr {
    */
   @JsonProperty
   public String getValue() {
-    return value;
+    String v = value;
+    if (v == null) {
+      switch (type) {
+        case BOOLEAN:
+          v = primitiveValue != 0L ? "true" : "false";
+          break;
+        default:
+          v = Long.toString(primitiveValue);
+          break;
+      }
+      value = v;
+    }
+    return v;
   }
 
   /**
@@ -172,7 +240,7 @@ public final class Attr {
     if (type != Type.INTEGER) {
       throw new IllegalStateException("Attribute " + name + " is type " + type);
     }
-    return Integer.parseInt(value);
+    return hasPrimitiveValue ? (int) primitiveValue : Integer.parseInt(value);
   }
 
   /**
@@ -186,7 +254,7 @@ public final class Attr {
     if (type != Type.BOOLEAN) {
       throw new IllegalStateException("Attribute " + name + " is type " + type);
     }
-    return Boolean.parseBoolean(value);
+    return hasPrimitiveValue ? primitiveValue != 0L : Boolean.parseBoolean(value);
   }
 
   /**
@@ -200,7 +268,99 @@ public final class Attr {
     if (type != Type.TIMESTAMP) {
       throw new IllegalStateException("Attribute " + name + " is type " + type);
     }
-    return Instant.ofEpochSecond(Long.parseLong(value));
+    return Instant.ofEpochSecond(hasPrimitiveValue ? primitiveValue : Long.parseLong(value));
+  }
+
+  /**
+   * Creates a copy of this integer attribute with a new value. The value is
+   * kept in primitive form, so this does no parsing or formatting. If the
+   * value is unchanged, this attribute itself is returned.
+   *
+   * @param  newValue new attribute value
+   * @return          attribute with new value
+   * @throws IllegalStateException if this attribute is not an integer type
+   */
+  Attr withIntValue(int newValue) {
+    if (type != Type.INTEGER) {
+      throw new IllegalStateException("Attribute " + name + " is type " + type);
+    }
+    if (hasPrimitiveValue && primitiveValue == newValue) {
+      return this;
+    }
+    return new Attr(name, (long) newValue, type);
+  }
+
+  /**
+   * Creates a copy of this Boolean attribute with a new value. If the value is
+   * unchanged, this attribute itself is returned.
+   *
+   * @param  newValue new attribute value
+   * @return          attribute with new value
+   * @throws IllegalStateException if this attribute is not a Boolean type
+   */
+  Attr withBooleanValue(boolean newValue) {
+    if (getBooleanValue() == newValue) {
+      return this;
+    }
+    return new Attr(name, newValue ? 1L : 0L, type);
+  }
+
+  /**
+   * Creates a new integer, Boolean, or timestamp attribute from a value in
+   * primitive form, as kept by {@link #getPrimitiveValue()}.
+   *
+   * @param  name           attribute name
+   * @param  primitiveValue attribute value in primitive form
+   * @param  type           attribute type
+   * @return                attribute
+   * @throws IllegalArgumentException if the type has no primitive form, or
+   *                                  the value is out of range for it
+   */
+  static Attr ofPrimitive(String name, long primitiveValue, Type type) {
+    boolean inRange;
+    switch (type) {
+      case INTEGER:
+        inRange = primitiveValue == (int) primitiveValue;
+        break;
+      case BOOLEAN:
+        inRange = primitiveValue == 0L || primitiveValue == 1L;
+        break;
+      case TIMESTAMP:
+        inRange = true;
+        break;
+      default:
+        throw new IllegalArgumentException("Attribute type " + type +
+                                           " has no primitive form");
+    }
+    if (!inRange) {
+      throw new IllegalArgumentException("Value " + primitiveValue +
+                                         " out of range for attribute type " + type);
+    }
+    return new Attr(name, primitiveValue, type);
+  }
+
+  /**
+   * Checks if this attribute's value is kept in primitive form, as it is for
+   * well-formed integer, Boolean, and timestamp values.
+   *
+   * @return true if value is kept in primitive form
+   */
+  boolean hasPrimitiveValue() {
+    return hasPrimitiveValue;
+  }
+
+  /**
+   * Gets the value of this attribute in primitive form. Booleans are 0 or 1,
+   * and timestamps are epoch seconds.
+   *
+   * @return attribute value in primitive form
+   * @throws IllegalStateException if the value is not kept in primitive form
+   */
+  long getPrimitiveValue() {
+    if (!hasPrimitiveValue) {
+      throw new IllegalStateException("Attribute " + name + " has no primitive value");
+    }
+    return primitiveValue;
   }
 
   /**
@@ -229,32 +389,51 @@ public final class Attr {
     if (type != Type.ATTR) {
       throw new IllegalStateException("Attribute " + name + " is type " + type);
     }
-    return fromJson(value);
+    Attr attrValue = (Attr) parsedValue;
+    if (attrValue == null) {
+      attrValue = fromJson(value);
+      parsedValue = attrValue;
+    }
+    return attrValue;
   }
 
   /**
-   * Gets the value of this attribute as a list of attributes.
+   * Gets the value of this attribute as a list of attributes. The list is
+   * unmodifiable.
    *
    * @return attribute value as a list of attributes
    * @throws IllegalStateException if this attribute is not an attrlist type
    */
   @JsonIgnore
+  @SuppressWarnings("unchecked")
   public List<Attr> getAttrListValue() {
     if (type != Type.ATTRLIST) {
       throw new IllegalStateException("Attribute " + name + " is type " + type);
     }
-    return listFromJson(value);
+    List<Attr> attrListValue = (List<Attr>) parsedValue;
+    if (attrListValue == null) {
+      attrListValue = Collections.unmodifiableList(listFromJson(value));
+      parsedValue = attrListValue;
+    }
+    return attrListValue;
   }
 
   /**
-   * Gets the value of this attribute as a map of attributes.
+   * Gets the value of this attribute as a map of attributes. The map is
+   * unmodifiable.
    *
    * @return attribute value as a map of attributes, keyed by attr name
    * @throws IllegalStateException if this attribute is not an attrlist type
    */
   @JsonIgnore
   public Map<String, Attr> getAttrListValueAsMap() {
-    return getAttrListValue().stream().collect(Collectors.toMap(a -> a.getName(), a -> a));
+    Map<String, Attr> attrListValueMap = parsedValueMap;
+    if (attrListValueMap == null) {
+      attrListValueMap = Collections.unmodifiableMap(getAttrListValue().stream()
+          .collect(Collectors.toMap(a -> a.getName(), a -> a)));
+      parsedValueMap = attrListValueMap;
+    }
+    return attrListValueMap;
   }
 
   /**
@@ -282,12 +461,20 @@ public final class Attr {
     }
 
     Attr o = (Attr) other;
-    return name.equals(o.name) && type.equals(o.type) && value.equals(o.value);
+    if (!name.equals(o.name) || !type.equals(o.type)) {
+      return false;
+    }
+    if (hasPrimitiveValue && o.hasPrimitiveValue) {
+      return primitiveValue == o.primitiveValue;
+    }
+    return getValue().equals(o.getValue());
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(name, type, value);
+    int result = 31 * name.hashCode() + type.hashCode();
+    return 31 * result +
+        (hasPrimitiveValue ? Long.hashCode(primitiveValue) : value.hashCode());
   }
 
   /**
@@ -297,7 +484,7 @@ public final class Attr {
    * @see #fromAttrSpec(String)
    */
   public String toAttrSpec() {
-    return String.format("%s[%s]=%s", name, type.toString(), value);
+    return String.format("%s[%s]=%s", name, type.toString(), getValue());
   }
 
   private static final Pattern ATTR_SPEC_PATTERN =
@@ -0,0 +1,99 @@
+package xyz.deszaras.grounds.model;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * An immutable set of attributes with distinct names, which also supports
+ * lookup by name. Changes produce new sets, leaving the original unchanged, so
+ * a thing can hold its attributes in one of these and swap in new versions
+ * atomically. Readers never need a lock, and iterating over a set is
+ * iterating over a snapshot.
+ */
+final class AttrSet extends AbstractSet<Attr> {
+
+  /**
+   * An empty set.
+   */
+  static final AttrSet EMPTY = new AttrSet(Map.of());
+
+  private final Map<String, Attr> byName;
+
+  private AttrSet(Map<String, Attr> byName) {
+    this.byName = byName;
+  }
+
+  /**
+   * Creates a set from a collection of attributes. If multiple attributes
+   * share a name, the last one wins.
+   *
+   * @param  attrs attributes
+   * @return       attribute set
+   */
+  static AttrSet of(Collection<Attr> attrs) {
+    Map<String, Attr> byName = new HashMap<>();
+    attrs.forEach(a -> byName.put(a.getName(), a));
+    return new AttrSet(Collections.unmodifiableMap(byName));
+  }
+
+  /**
+   * Gets an attribute by name.
+   *
+   * @param  name attribute name
+   * @return      attribute, or null if not present
+   */
+  Attr get(String name) {
+    return byName.get(name);
+  }
+
+  /**
+   * Creates a copy of this set with the given attribute, replacing any
+   * attribute of the same name.
+   *
+   * @param  attr attribute to add
+   * @return      new attribute set
+   */
+  AttrSet with(Attr attr) {
+    Map<String, Attr> newByName = new HashMap<>(byName);
+    newByName.put(attr.getName(), attr);
+    return new AttrSet(Collections.unmodifiableMap(newByName));
+  }
+
+  /**
+   * Creates a copy of this set without the attribute of the given name.
+   *
+   * @param  name name of attribute to leave out
+   * @return      new attribute set
+   */
+  AttrSet without(String name) {
+    if (!byName.containsKey(name)) {
+      return this;
+    }
+    Map<String, Attr> newByName = new HashMap<>(byName);
+    newByName.remove(name);
+    return new AttrSet(Collections.unmodifiableMap(newByName));
+  }
+
+  @Override
+  public Iterator<Attr> iterator() {
+    return byName.values().iterator();
+  }
+
+  @Override
+  public int size() {
+    return byName.size();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof Attr)) {
+      return false;
+    }
+    Attr attr = (Attr) o;
+    return attr.equals(byName.get(attr.getName()));
+  }
+}
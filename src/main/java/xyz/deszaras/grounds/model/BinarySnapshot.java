@@ -0,0 +1,416 @@
+package xyz.deszaras.grounds.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.deszaras.grounds.auth.Policy;
+import xyz.deszaras.grounds.auth.Role;
+import xyz.deszaras.grounds.model.proto.UniverseProtos;
+
+/**
+ * A universe snapshot in a compact binary form, made of protocol buffer
+ * messages (see <i>universe.proto</i>). The file starts with a magic number,
+ * followed by a stream of length-delimited records: a header, and then the
+ * things. Names that repeat, like attribute and class names, are interned
+ * along the way, IDs are two longs, and attribute and attribute list values
+ * are nested messages instead of JSON strings.<p>
+ *
+ * Saving streams one record at a time. Loading decodes records in order,
+ * but converts them into things in parallel, a bounded chunk at a time, so
+ * no more than one chunk of things is held in both its record and model
+ * forms at once. A binary snapshot is always written whole, to a temporary file
+ * that is then renamed over the universe file.
+ */
+final class BinarySnapshot {
+
+  private static final Logger LOG = LoggerFactory.getLogger(BinarySnapshot.class);
+
+  /**
+   * The suffix of new universe files that should be saved in binary form.
+   */
+  static final String FILE_SUFFIX = ".bin";
+
+  private static final byte[] MAGIC = { 'G', 'R', 'O', 'U', 'N', 'D', 'S', 1 };
+  private static final int VERSION = 1;
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int BUFFER_SIZE = 64 * 1024;
+  static final int LOAD_CHUNK_SIZE = 4096;
+
+  private BinarySnapshot() {
+  }
+
+  /**
+   * Checks if a file holds a binary snapshot. Only the start of the file is
+   * read.
+   *
+   * @param  f           file to check
+   * @return             true if the file holds a binary snapshot
+   * @throws IOException if the file cannot be read
+   */
+  static boolean isSnapshot(File f) throws IOException {
+    try (InputStream in = new FileInputStream(f)) {
+      return Arrays.equals(MAGIC, in.readNBytes(MAGIC.length));
+    }
+  }
+
+  /**
+   * Checks if a universe should be saved to a file in binary form. If the
+   * file already exists, then what is in it decides; otherwise, its name
+   * does.
+   *
+   * @param  f           file to save to
+   * @return             true to save in binary form
+   * @throws IOException if the file cannot be read
+   */
+  static boolean shouldSave(File f) throws IOException {
+    if (f.exists()) {
+      return isSnapshot(f);
+    }
+    return f.getName().endsWith(FILE_SUFFIX);
+  }
+
+  /**
+   * Saves a captured universe as a binary snapshot.
+   *
+   * @param  capture     captured universe, including every segment
+   * @param  f           universe file
+   * @param  sync        true to sync the new file to disk before it takes
+   *                     the place of the old one
+   * @throws IOException if the universe could not be saved
+   */
+  static void save(SegmentedSnapshot.Capture capture, File f, boolean sync)
+      throws IOException {
+    Path tempFile = f.toPath().resolveSibling(f.getName() + TEMP_SUFFIX);
+    int count = 0;
+    try (FileOutputStream fileOut = new FileOutputStream(tempFile.toFile());
+         OutputStream out = new BufferedOutputStream(fileOut, BUFFER_SIZE)) {
+      out.write(MAGIC);
+      Writer writer = new Writer(out);
+      writer.writeHeader(capture);
+      for (SegmentedSnapshot.ThingCopy thing : capture.getThings()) {
+        writer.writeThing(thing);
+        count++;
+      }
+      out.flush();
+      if (sync) {
+        fileOut.getFD().sync();
+      }
+    }
+    Files.move(tempFile, f.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    LOG.debug("Wrote {} things to {}", count, f);
+  }
+
+  /**
+   * Writes records, interning names as they first appear.
+   */
+  private static final class Writer {
+    private final OutputStream out;
+    private final Map<String, Integer> names = new HashMap<>();
+
+    private Writer(OutputStream out) {
+      this.out = out;
+    }
+
+    private int intern(String name) throws IOException {
+      Integer index = names.get(name);
+      if (index == null) {
+        index = names.size();
+        names.put(name, index);
+        UniverseProtos.Record.newBuilder().setName(name).build().writeDelimitedTo(out);
+      }
+      return index;
+    }
+
+    private void writeHeader(SegmentedSnapshot.Capture capture) throws IOException {
+      UniverseProtos.Header.Builder header = UniverseProtos.Header.newBuilder()
+          .setVersion(VERSION)
+          .setName(capture.getName())
+          .setOriginId(toProtoId(capture.getOriginId()))
+          .setLostAndFoundId(toProtoId(capture.getLostAndFoundId()))
+          .setGuestHomeId(toProtoId(capture.getGuestHomeId()));
+      for (Map.Entry<UUID, Set<Role>> entry : capture.getRoles().entrySet()) {
+        UniverseProtos.RoleAssignment.Builder assignment =
+            UniverseProtos.RoleAssignment.newBuilder().setPlayerId(toProtoId(entry.getKey()));
+        entry.getValue().forEach(role -> assignment.addRoles(role.name()));
+        header.addRoleAssignments(assignment);
+      }
+      UniverseProtos.Record.newBuilder().setHeader(header).build().writeDelimitedTo(out);
+    }
+
+    private void writeThing(SegmentedSnapshot.ThingCopy thing) throws IOException {
+      UniverseProtos.Thing.Builder builder = UniverseProtos.Thing.newBuilder()
+          .setClassName(intern(thing.getClassName()))
+          .setId(toProtoId(thing.getId()));
+      for (Attr attr : thing.getAttrs()) {
+        builder.addAttrs(toProto(attr));
+      }
+      for (UUID id : thing.getContents()) {
+        builder.addContents(toProtoId(id));
+      }
+      for (Map.Entry<Policy.Category, ? extends Set<Role>> entry :
+               thing.getPolicy().getPermissions().entrySet()) {
+        UniverseProtos.PolicyEntry.Builder policyEntry =
+            UniverseProtos.PolicyEntry.newBuilder().setCategory(intern(entry.getKey().name()));
+        for (Role role : entry.getValue()) {
+          policyEntry.addRoles(intern(role.name()));
+        }
+        builder.addPolicy(policyEntry);
+      }
+      UniverseProtos.Record.newBuilder().setThing(builder).build().writeDelimitedTo(out);
+    }
+
+    private UniverseProtos.Attr toProto(Attr attr) throws IOException {
+      UniverseProtos.Attr.Builder builder = UniverseProtos.Attr.newBuilder()
+          .setName(intern(attr.getName()))
+          .setType(UniverseProtos.AttrType.valueOf(attr.getType().name()));
+      switch (attr.getType()) {
+        case INTEGER:
+        case BOOLEAN:
+        case TIMESTAMP:
+          if (attr.hasPrimitiveValue()) {
+            builder.setNumberValue(attr.getPrimitiveValue());
+            return builder.build();
+          }
+          break;
+        case THING:
+          try {
+            UUID id = UUID.fromString(attr.getValue());
+            if (id.toString().equals(attr.getValue())) {
+              builder.setThingValue(toProtoId(id));
+              return builder.build();
+            }
+          } catch (IllegalArgumentException e) { // NOPMD
+            // keep as a string
+          }
+          break;
+        case ATTR:
+          try {
+            builder.setAttrValue(toProto(attr.getAttrValue()));
+            return builder.build();
+          } catch (IllegalArgumentException e) { // NOPMD
+            // keep as a string
+          }
+          break;
+        case ATTRLIST:
+          try {
+            UniverseProtos.AttrList.Builder attrList = UniverseProtos.AttrList.newBuilder();
+            for (Attr listAttr : attr.getAttrListValue()) {
+              attrList.addAttrs(toProto(listAttr));
+            }
+            builder.setAttrListValue(attrList);
+            return builder.build();
+          } catch (IllegalArgumentException e) { // NOPMD
+            // keep as a string
+          }
+          break;
+        default:
+          break;
+      }
+      return builder.setStringValue(attr.getValue()).build();
+    }
+  }
+
+  private static UniverseProtos.Uuid toProtoId(UUID id) {
+    return UniverseProtos.Uuid.newBuilder()
+        .setMsb(id.getMostSignificantBits())
+        .setLsb(id.getLeastSignificantBits())
+        .build();
+  }
+
+  private static UUID fromProtoId(UniverseProtos.Uuid id) {
+    return new UUID(id.getMsb(), id.getLsb());
+  }
+
+  /**
+   * Loads a universe from a binary snapshot.
+   *
+   * @param  f           universe file
+   * @return             loaded universe
+   * @throws IOException if the universe could not be loaded
+   */
+  static Universe load(File f) throws IOException {
+    LoadTimer timer = new LoadTimer();
+    try (InputStream in = new BufferedInputStream(new FileInputStream(f), BUFFER_SIZE)) {
+      if (!Arrays.equals(MAGIC, in.readNBytes(MAGIC.length))) {
+        throw new IOException("File " + f + " does not hold a binary universe snapshot");
+      }
+      UniverseProtos.Record record = UniverseProtos.Record.parseDelimitedFrom(in);
+      if (record == null || !record.hasHeader()) {
+        throw new IOException("Binary universe snapshot " + f + " has no header");
+      }
+      UniverseProtos.Header header = record.getHeader();
+      if (header.getVersion() != VERSION) {
+        throw new IOException("Unsupported binary universe snapshot version " +
+                              header.getVersion());
+      }
+      Map<String, Set<Role>> roles = new HashMap<>();
+      for (UniverseProtos.RoleAssignment assignment : header.getRoleAssignmentsList()) {
+        Set<Role> playerRoles = EnumSet.noneOf(Role.class);
+        assignment.getRolesList().forEach(role -> playerRoles.add(Role.valueOf(role)));
+        roles.put(fromProtoId(assignment.getPlayerId()).toString(), playerRoles);
+      }
+
+      // The stream can only be decoded in order, but turning records into
+      // things is independent work. Records are handed over a chunk at a
+      // time and then released, so loading still streams.
+      Reader reader = new Reader();
+      List<UniverseProtos.Thing> chunk = new ArrayList<>(LOAD_CHUNK_SIZE);
+      List<Thing> things = new ArrayList<>();
+      while ((record = UniverseProtos.Record.parseDelimitedFrom(in)) != null) {
+        switch (record.getRecordCase()) {
+          case NAME:
+            reader.names.add(record.getName());
+            break;
+          case THING:
+            chunk.add(record.getThing());
+            if (chunk.size() == LOAD_CHUNK_SIZE) {
+              timer.endPhase("read");
+              things.addAll(reader.toThings(chunk));
+              chunk.clear();
+              timer.endPhase("parse");
+            }
+            break;
+          default:
+            throw new IOException("Unexpected record of type " + record.getRecordCase() +
+                                  " in binary universe snapshot " + f);
+        }
+      }
+      timer.endPhase("read");
+      things.addAll(reader.toThings(chunk));
+      timer.endPhase("parse");
+
+      Universe universe = new Universe(header.getName(), things, roles,
+                                       fromProtoId(header.getOriginId()).toString(),
+                                       fromProtoId(header.getLostAndFoundId()).toString(),
+                                       fromProtoId(header.getGuestHomeId()).toString());
+      universe.snapshotLoaded(null);
+      timer.endPhase("index");
+      LOG.info("Loaded {} things from {}: {}", things.size(), f, timer);
+      return universe;
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Invalid binary universe snapshot " + f, e);
+    }
+  }
+
+  /**
+   * Converts records back into things, looking up interned names. Names are
+   * only added between chunks, so the things in a chunk may be converted on
+   * many threads at once.
+   */
+  private static final class Reader {
+    private final List<String> names = new ArrayList<>();
+    private final Map<Integer, Constructor<? extends Thing>> constructors =
+        new ConcurrentHashMap<>();
+
+    private String name(int index) throws IOException {
+      if (index < 0 || index >= names.size()) {
+        throw new IOException("Unknown name " + index + " in binary universe snapshot");
+      }
+      return names.get(index);
+    }
+
+    private List<Thing> toThings(List<UniverseProtos.Thing> records) throws IOException {
+      try {
+        return records.parallelStream()
+            .map(this::toThingUnchecked)
+            .collect(Collectors.toList());
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+    }
+
+    Thing toThingUnchecked(UniverseProtos.Thing thing) {
+      try {
+        return toThing(thing);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private Thing toThing(UniverseProtos.Thing thing) throws IOException {
+      Set<Attr> attrs = new HashSet<>();
+      for (UniverseProtos.Attr attr : thing.getAttrsList()) {
+        attrs.add(toAttr(attr));
+      }
+      Set<UUID> contents = new HashSet<>();
+      thing.getContentsList().forEach(id -> contents.add(fromProtoId(id)));
+      Map<Policy.Category, Set<Role>> permissions = new EnumMap<>(Policy.Category.class);
+      for (UniverseProtos.PolicyEntry entry : thing.getPolicyList()) {
+        Set<Role> roles = EnumSet.noneOf(Role.class);
+        for (int role : entry.getRolesList()) {
+          roles.add(Role.valueOf(name(role)));
+        }
+        permissions.put(Policy.Category.valueOf(name(entry.getCategory())), roles);
+      }
+
+      try {
+        return getConstructor(thing.getClassName())
+            .newInstance(fromProtoId(thing.getId()), attrs, contents, new Policy(permissions));
+      } catch (ReflectiveOperationException e) {
+        throw new IOException("Failed to create thing of class " +
+                              name(thing.getClassName()), e);
+      }
+    }
+
+    private Constructor<? extends Thing> getConstructor(int className) throws IOException {
+      Constructor<? extends Thing> constructor = constructors.get(className);
+      if (constructor == null) {
+        try {
+          constructor = Class.forName(name(className)).asSubclass(Thing.class)
+              .getConstructor(UUID.class, Set.class, Set.class, Policy.class);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+          throw new IOException("Cannot create things of class " + name(className), e);
+        }
+        constructors.put(className, constructor);
+      }
+      return constructor;
+    }
+
+    private Attr toAttr(UniverseProtos.Attr attr) throws IOException {
+      String attrName = name(attr.getName());
+      Attr.Type type = Attr.Type.valueOf(attr.getType().name());
+      switch (attr.getValueCase()) {
+        case NUMBERVALUE:
+          return Attr.ofPrimitive(attrName, attr.getNumberValue(), type);
+        case THINGVALUE:
+          return new Attr(attrName, fromProtoId(attr.getThingValue()).toString(), type);
+        case ATTRVALUE:
+          return new Attr(attrName, toAttr(attr.getAttrValue()));
+        case ATTRLISTVALUE:
+          List<Attr> attrList = new ArrayList<>();
+          for (UniverseProtos.Attr listAttr : attr.getAttrListValue().getAttrsList()) {
+            attrList.add(toAttr(listAttr));
+          }
+          return new Attr(attrName, attrList);
+        default:
+          return new Attr(attrName, attr.getStringValue(), type);
+      }
+    }
+  }
+}
@@ -3,12 +3,13 @@ package xyz.deszaras.grounds.model;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.eventbus.Subscribe;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -34,6 +35,8 @@ public class Extension extends Player {
    */
   public static final Set<Role> PERMITTED_ROLES = Set.of(Role.BARD, Role.THAUMATURGE);
 
+  private final Map<String, ListenerBatcher> listenerBatchers = new ConcurrentHashMap<>();
+
   public Extension(String name) {
     super(name);
   }
@@ -57,85 +60,67 @@ public class Extension extends Player {
   }
 
   /**
-   * Handles an event sent from the command event bus.
+   * Handles an event for one of this extension's listener attributes. The
+   * listener has already been found to want the event.
    *
-   * @param event event to handle
+   * @param listener        listener
+   * @param event           event to handle
+   * @param commandExecutor command executor for resulting commands
    */
-  @Subscribe
-  public void handle(Event event) {
-    LOG.debug("Extension {} handling event of type {}", getName(), event.getClass());
-    handle(event, CommandExecutor.getInstance());
+  void handle(ListenerIndex.Listener listener, Event<?> event,
+              CommandExecutor commandExecutor) {
+    Attr a = listener.getAttr();
+
+    // If the attribute batches events, queue the event for the next batch.
+    Optional<ListenerBatcher.Settings> batchSettings = listener.getBatchSettings();
+    if (batchSettings.isPresent()) {
+      listenerBatchers.computeIfAbsent(a.getName(), n -> new ListenerBatcher(this))
+          .add(event, a, batchSettings.get(), commandExecutor);
+      return;
+    }
+
+    // Create a plugin call command for the listener attribute. Pass the
+    // augmented event payload JSON string as the sole argument. Then, submit
+    // the command to be run later. This is asynchronous, so this handler
+    // should return reasonably quickly.
+    try {
+      PluginCallCommand command = commandExecutor.getCommandFactory()
+          .newPluginCallCommand(Actor.INTERNAL, this, a, this,
+                                List.of(event.getAugmentedPayloadJsonString()));
+      LOG.debug("Submitting plugin call command for listener {}", a.getName());
+      commandExecutor.submit(command);
+    } catch (CommandFactoryException e) {
+      LOG.error("Failed to create plugin call command for listener attribute {} on {}",
+                a.getName(), getName(), e);
+    }
   }
 
   /**
-   * Handles an event sent from the command event bus.
+   * Cancels and drops the event batcher for a listener attribute, if there
+   * is one. Call this whenever the attribute changes or is removed, so that
+   * batching starts over with its new value.
    *
-   * @param event           event to handle
-   * @param commandExecutor command executor for resulting commands
+   * @param attrName listener attribute name
    */
-  @VisibleForTesting
-  void handle(Event event, CommandExecutor commandExecutor) {
-    Set<Attr> listenerAttrs = getListenerAttrs();
-    for (Attr a : listenerAttrs) {
-
-      // If the attribute has an "eventType" attribute in its list, check if the
-      // simple class name of the event matches it. If not, do nothing.
-      Optional<Attr> eventTypeAttr = a.getAttrListValue().stream()
-          .filter(la -> la.getName().equals("eventType") &&
-                        la.getType() == Attr.Type.STRING)
-          .findFirst();
-      if (eventTypeAttr.isPresent() &&
-          !eventTypeAttr.get().getValue().equals(event.getClass().getSimpleName())){
-        LOG.debug("Listener attribute {} of extension {} wants event type {}, " +
-                  "but received {}, so not creating command",
-                  a.getName(), getName(), eventTypeAttr.get().getValue(),
-                  event.getClass());
-        continue;
-      }
-
-      // If the attribute has a "localized" attribute in its list, check if the
-      // event's place is the same as this extension's location, and do nothing
-      // if they don't match.
-      Optional<Attr> localizedAttr = a.getAttrListValue().stream()
-          .filter(la -> la.getName().equals("localized") &&
-                        la.getType() == Attr.Type.BOOLEAN)
-          .findFirst();
-      if (localizedAttr.isPresent() && localizedAttr.get().getBooleanValue() &&
-          event.getLocation() != null) {
-        try {
-          Optional<Thing> extensionLocation = getLocation();
-          if (extensionLocation.isEmpty()) {
-            LOG.warn("Extension {} has no location, cannot check if event " +
-                     "of type {} is local", getName(), event.getClass());
-          } else if (!extensionLocation.get().equals(event.getLocation())) {
-            LOG.debug("Listener attribute {} of extension {} wants localized " +
-                      "event, but received event from {}, so not creating command",
-                      a.getName(), getName(), event.getLocation().getName());
-            continue;
-          }
-        } catch (MissingThingException e) {
-          LOG.warn("Extension {} has a missing location, cannot check if event " +
-                   "of type {} is local", getName(), event.getClass());
-        }
-      }
-
-      // Create a plugin call command for the listener attribute. Pass the
-      // augmented event payload JSON string as the sole argument. Then, submit
-      // the command to be run later. This is asynchronous, so this handler
-      // should return reasonably quickly.
-      try {
-        PluginCallCommand command = commandExecutor.getCommandFactory()
-            .newPluginCallCommand(Actor.INTERNAL, this, a, this,
-                                  List.of(event.getAugmentedPayloadJsonString()));
-        LOG.debug("Submitting plugin call command for listener {}", a.getName());
-        commandExecutor.submit(command);
-      } catch (CommandFactoryException e) {
-        LOG.error("Failed to create plugin call command for listener attribute {} on {}",
-                  a.getName(), getName(), e);
-      }
+  void removeListenerBatcher(String attrName) {
+    ListenerBatcher batcher = listenerBatchers.remove(attrName);
+    if (batcher != null) {
+      batcher.cancel();
     }
   }
 
+  /**
+   * Cancels and drops the event batchers for all listener attributes.
+   */
+  void removeListenerBatchers() {
+    listenerBatchers.keySet().forEach(this::removeListenerBatcher);
+  }
+
+  @VisibleForTesting
+  boolean hasListenerBatcher(String attrName) {
+    return listenerBatchers.containsKey(attrName);
+  }
+
   /**
    * Gets all of the listener attributes for this extension. A listener
    * attribute has a name starting with a caret and is a list type.
@@ -145,7 +130,41 @@ public class Extension extends Player {
   @VisibleForTesting
   Set<Attr> getListenerAttrs() {
     return getAttrs().stream()
-        .filter(a -> a.getName().startsWith("^") && a.getType() == Attr.Type.ATTRLIST)
+        .filter(Extension::isListenerAttr)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Checks if an attribute is a listener attribute. A listener attribute has
+   * a name starting with a caret and is a list type.
+   *
+   * @param  attr attribute to check
+   * @return      true if the attribute is a listener attribute
+   */
+  static boolean isListenerAttr(Attr attr) {
+    return attr.getName().startsWith("^") && attr.getType() == Attr.Type.ATTRLIST;
+  }
+
+  /**
+   * Checks if an attribute defines a plugin command. A plugin command
+   * attribute has a name starting with a dollar sign and is a list type.
+   *
+   * @param  attr attribute to check
+   * @return      true if the attribute defines a plugin command
+   */
+  static boolean isPluginCommandAttr(Attr attr) {
+    return attr.getName().startsWith("$") && attr.getType() == Attr.Type.ATTRLIST;
+  }
+
+  /**
+   * Gets the names of all of the plugin commands defined by this extension.
+   *
+   * @return plugin command names
+   */
+  Set<String> getPluginCommandNames() {
+    return getAttrs().stream()
+        .filter(Extension::isPluginCommandAttr)
+        .map(Attr::getName)
         .collect(Collectors.toSet());
   }
 
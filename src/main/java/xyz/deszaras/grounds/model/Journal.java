@@ -0,0 +1,547 @@
+package xyz.deszaras.grounds.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.deszaras.grounds.auth.Policy;
+import xyz.deszaras.grounds.auth.Role;
+
+/**
+ * An append-only journal of the changes made to a universe since it was
+ * last saved. Each change is written as a single line of JSON: adding or
+ * removing a thing, setting or removing an attribute, giving or taking a
+ * thing, changing a thing's policy, or changing a player's roles. A
+ * universe writes to its journal as changes happen, so a crash loses at
+ * most the changes that were not yet synced to disk.<p>
+ *
+ * Every record holds the new state of what changed, not the difference, so
+ * replaying a record more than once has no further effect. This makes it
+ * safe to replay a journal on top of a snapshot that already holds some of
+ * its changes.<p>
+ *
+ * Writes are synced to disk in groups, every so often, instead of one by
+ * one. Saving the universe compacts the journal: the journal is set aside
+ * just before the save, and deleted once the save succeeds. When the
+ * journal grows past a threshold, its compactor is run to ask for a save.
+ */
+public class Journal implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(Journal.class);
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  public static final long DEFAULT_SYNC_MILLIS = 100L;
+  public static final long DEFAULT_COMPACT_BYTES = 64L * 1024L * 1024L;
+
+  private static final String JOURNAL_SUFFIX = ".journal";
+  private static final String SET_ASIDE_SUFFIX = ".old";
+
+  /**
+   * The kinds of journal records.
+   */
+  private enum Op {
+    ADD_THING,
+    REMOVE_THING,
+    SET_ATTR,
+    REMOVE_ATTR,
+    GIVE,
+    TAKE,
+    SET_POLICY,
+    SET_ROLES;
+  }
+
+  /**
+   * Settings for journals.
+   */
+  public static final class Settings {
+    private final long syncMillis;
+    private final long compactBytes;
+    private final Runnable compactor;
+
+    /**
+     * Creates new settings.
+     *
+     * @param syncMillis   period between syncs to disk, in milliseconds, or
+     *                     zero to sync after every record
+     * @param compactBytes journal size past which the compactor is run, or
+     *                     zero to never run it
+     * @param compactor    runnable that asks for the universe to be saved
+     * @throws IllegalArgumentException if syncMillis or compactBytes is
+     *                                  negative
+     * @throws NullPointerException if compactor is null
+     */
+    public Settings(long syncMillis, long compactBytes, Runnable compactor) {
+      if (syncMillis < 0L || compactBytes < 0L) {
+        throw new IllegalArgumentException("Journal sync period and compaction " +
+                                           "size may not be negative");
+      }
+      this.syncMillis = syncMillis;
+      this.compactBytes = compactBytes;
+      this.compactor = Objects.requireNonNull(compactor);
+    }
+
+    public long getSyncMillis() {
+      return syncMillis;
+    }
+
+    public long getCompactBytes() {
+      return compactBytes;
+    }
+  }
+
+  /**
+   * Gets the path of the journal for a universe file.
+   *
+   * @param  universeFile universe file
+   * @return              journal path
+   */
+  public static Path getPath(Path universeFile) {
+    return universeFile.resolveSibling(universeFile.getFileName() + JOURNAL_SUFFIX);
+  }
+
+  private static Path getSetAsidePath(Path journalFile) {
+    return journalFile.resolveSibling(journalFile.getFileName() + SET_ASIDE_SUFFIX);
+  }
+
+  /**
+   * Deletes a journal, including any records set aside. The journal must
+   * not be open.
+   *
+   * @param  journalFile journal file
+   * @throws IOException if the journal cannot be deleted
+   */
+  public static void delete(Path journalFile) throws IOException {
+    Files.deleteIfExists(journalFile);
+    Files.deleteIfExists(getSetAsidePath(journalFile));
+  }
+
+  private volatile Path file;
+  private volatile Path setAsideFile;
+  private final Settings settings;
+  private final Object writeMonitor = new Object();
+  private final ScheduledExecutorService syncExecutorService;
+
+  private FileChannel channel;
+  private long size;
+  private boolean unsynced;
+  private boolean compactionRequested;
+  private boolean closed;
+
+  /**
+   * Opens a journal for appending. The journal file is created if it does
+   * not exist.
+   *
+   * @param  file        journal file
+   * @param  settings    journal settings
+   * @throws IOException if the journal cannot be opened
+   */
+  Journal(Path file, Settings settings) throws IOException {
+    this.file = Objects.requireNonNull(file);
+    setAsideFile = getSetAsidePath(file);
+    this.settings = Objects.requireNonNull(settings);
+    channel = openChannel(file);
+    size = channel.size();
+
+    if (settings.getSyncMillis() > 0L) {
+      syncExecutorService =
+          Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                     .setDaemon(true)
+                                                     .setNameFormat("universe-journal")
+                                                     .build());
+      syncExecutorService.scheduleWithFixedDelay(this::sync, settings.getSyncMillis(),
+                                                 settings.getSyncMillis(),
+                                                 TimeUnit.MILLISECONDS);
+    } else {
+      syncExecutorService = null;
+    }
+  }
+
+  private static FileChannel openChannel(Path file) throws IOException {
+    return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                            StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Gets the journal file.
+   *
+   * @return journal file
+   */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Gets the journal settings.
+   *
+   * @return journal settings
+   */
+  public Settings getSettings() {
+    return settings;
+  }
+
+  /**
+   * Gets the current size of the journal.
+   *
+   * @return journal size, in bytes
+   */
+  public long getSize() {
+    synchronized (writeMonitor) {
+      return size;
+    }
+  }
+
+  void addThing(Thing thing) {
+    ObjectNode record = newRecord(Op.ADD_THING);
+    record.set("thing", OBJECT_MAPPER.valueToTree(thing));
+    append(record);
+  }
+
+  void removeThing(UUID thingId) {
+    append(newRecord(Op.REMOVE_THING).put("id", thingId.toString()));
+  }
+
+  void setAttr(UUID thingId, Attr attr) {
+    ObjectNode record = newRecord(Op.SET_ATTR).put("id", thingId.toString());
+    record.set("attr", OBJECT_MAPPER.valueToTree(attr));
+    append(record);
+  }
+
+  void removeAttr(UUID thingId, String attrName) {
+    append(newRecord(Op.REMOVE_ATTR)
+           .put("id", thingId.toString())
+           .put("name", attrName));
+  }
+
+  void give(UUID thingId, UUID itemId) {
+    append(newRecord(Op.GIVE)
+           .put("id", thingId.toString())
+           .put("item", itemId.toString()));
+  }
+
+  void take(UUID thingId, UUID itemId) {
+    append(newRecord(Op.TAKE)
+           .put("id", thingId.toString())
+           .put("item", itemId.toString()));
+  }
+
+  void setPolicy(UUID thingId, Policy policy) {
+    ObjectNode record = newRecord(Op.SET_POLICY).put("id", thingId.toString());
+    record.set("policy", OBJECT_MAPPER.valueToTree(policy));
+    append(record);
+  }
+
+  void setRoles(UUID playerId, Set<Role> roles) {
+    ObjectNode record = newRecord(Op.SET_ROLES).put("id", playerId.toString());
+    ArrayNode rolesNode = record.putArray("roles");
+    for (Role role : roles) {
+      rolesNode.add(role.name());
+    }
+    append(record);
+  }
+
+  private static ObjectNode newRecord(Op op) {
+    return OBJECT_MAPPER.createObjectNode().put("op", op.name());
+  }
+
+  private void append(ObjectNode record) {
+    byte[] bytes;
+    try {
+      bytes = (OBJECT_MAPPER.writeValueAsString(record) + "\n")
+          .getBytes(StandardCharsets.UTF_8);
+    } catch (JsonProcessingException e) {
+      LOG.error("Failed to serialize journal record of type {}", record.get("op"), e);
+      return;
+    }
+
+    synchronized (writeMonitor) {
+      if (closed) {
+        LOG.warn("Journal {} is closed, dropping record of type {}", file,
+                 record.get("op"));
+        return;
+      }
+      try {
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) {
+          channel.write(buf);
+        }
+        size += bytes.length;
+        unsynced = true;
+      } catch (IOException e) {
+        // The change has already happened, so all that can be done is to
+        // complain. The next save will capture it.
+        LOG.error("Failed to write to journal {}", file, e);
+        return;
+      }
+    }
+    if (syncExecutorService == null) {
+      sync();
+    }
+  }
+
+  /**
+   * Syncs all records written so far to disk, and runs the compactor if the
+   * journal has grown too large.
+   */
+  @VisibleForTesting
+  void sync() {
+    boolean compact = false;
+    synchronized (writeMonitor) {
+      if (closed) {
+        return;
+      }
+      if (unsynced) {
+        try {
+          channel.force(false);
+          unsynced = false;
+        } catch (IOException e) {
+          LOG.error("Failed to sync journal {}", file, e);
+        }
+      }
+      if (settings.getCompactBytes() > 0L && size > settings.getCompactBytes() &&
+          !compactionRequested) {
+        compactionRequested = true;
+        compact = true;
+      }
+    }
+    if (compact) {
+      LOG.info("Journal {} has grown to {} bytes, requesting compaction", file, size);
+      try {
+        settings.compactor.run();
+      } catch (RuntimeException e) {
+        LOG.error("Failed to request compaction of journal {}", file, e);
+      }
+    }
+  }
+
+  /**
+   * Sets aside the records written so far, just before the universe is
+   * saved. New records go to a new, empty journal. If records are already
+   * set aside, because an earlier save failed, then nothing is done, and
+   * the journal keeps growing until a save succeeds.
+   *
+   * @throws IOException if the journal cannot be set aside
+   */
+  void setAside() throws IOException {
+    synchronized (writeMonitor) {
+      if (closed || Files.exists(setAsideFile)) {
+        return;
+      }
+      channel.force(false);
+      channel.close();
+      Files.move(file, setAsideFile, StandardCopyOption.ATOMIC_MOVE);
+      channel = openChannel(file);
+      size = 0L;
+      unsynced = false;
+      compactionRequested = false;
+    }
+  }
+
+  /**
+   * Moves this journal to a new file, after the universe has been saved to a
+   * new file. Only the live journal moves; any records set aside stay where
+   * they are. Any journal already at the new file is replaced.
+   *
+   * @param  newFile     new journal file
+   * @return             true if the journal was moved, false if it is closed
+   * @throws IOException if the journal cannot be moved
+   */
+  boolean moveTo(Path newFile) throws IOException {
+    synchronized (writeMonitor) {
+      if (closed) {
+        return false;
+      }
+      channel.force(false);
+      channel.close();
+      try {
+        Files.move(file, newFile, StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+        channel = openChannel(file);
+        throw e;
+      }
+      channel = openChannel(newFile);
+      file = newFile;
+      setAsideFile = getSetAsidePath(newFile);
+      unsynced = false;
+    }
+    LOG.info("Journaling changes to {}", newFile);
+    return true;
+  }
+
+  /**
+   * Deletes records set aside, after the universe has been saved.
+   *
+   * @throws IOException if the records cannot be deleted
+   */
+  void discardSetAside() throws IOException {
+    Files.deleteIfExists(setAsideFile);
+  }
+
+  /**
+   * Syncs and closes this journal. Nothing is written to it afterwards.
+   */
+  @Override
+  public void close() {
+    if (syncExecutorService != null) {
+      syncExecutorService.shutdownNow();
+    }
+    synchronized (writeMonitor) {
+      if (closed) {
+        return;
+      }
+      try {
+        channel.force(false);
+        channel.close();
+      } catch (IOException e) {
+        LOG.error("Failed to close journal {}", file, e);
+      }
+      closed = true;
+    }
+  }
+
+  /**
+   * Replays a journal onto a universe: first any records that were set aside
+   * for a save that did not finish, and then the journal itself. Replay stops
+   * at the first incomplete or unreadable record, which is expected if the
+   * server stopped while writing it, and the journal is truncated there so
+   * that later records are not written after it.
+   *
+   * @param  journalFile journal file
+   * @param  universe    universe to replay onto
+   * @return             number of records replayed
+   * @throws IOException if the journal cannot be read
+   */
+  public static int replay(Path journalFile, Universe universe) throws IOException {
+    int count = replayFile(getSetAsidePath(journalFile), universe);
+    count += replayFile(journalFile, universe);
+    if (count > 0) {
+      // Places added by the journal need their players.
+      universe.getThings(Place.class).forEach(p -> p.resolvePlayers(universe));
+    }
+    return count;
+  }
+
+  private static int replayFile(Path f, Universe universe) throws IOException {
+    if (!Files.exists(f)) {
+      return 0;
+    }
+    int count = 0;
+    long goodLength = 0L;
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(f))) {
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+      int b;
+      while ((b = in.read()) != -1) {
+        if (b != '\n') {
+          line.write(b);
+          continue;
+        }
+        try {
+          apply(OBJECT_MAPPER.readTree(line.toByteArray()), universe);
+        } catch (IOException | RuntimeException e) {
+          LOG.error("Unreadable record in journal {} at byte {}, stopping replay",
+                    f, goodLength, e);
+          break;
+        }
+        count++;
+        goodLength += line.size() + 1;
+        line.reset();
+      }
+    }
+    if (goodLength < Files.size(f)) {
+      LOG.warn("Truncating journal {} to its last complete record", f);
+      try (FileChannel fc = FileChannel.open(f, StandardOpenOption.WRITE)) {
+        fc.truncate(goodLength);
+      }
+    }
+    LOG.info("Replayed {} records from journal {}", count, f);
+    return count;
+  }
+
+  private static void apply(JsonNode record, Universe universe) throws IOException {
+    Op op = Op.valueOf(record.get("op").asText());
+    if (op == Op.ADD_THING) {
+      universe.addThing(OBJECT_MAPPER.treeToValue(record.get("thing"), Thing.class));
+      return;
+    }
+    UUID id = UUID.fromString(record.get("id").asText());
+    if (op == Op.SET_ROLES) {
+      Set<Role> roles = EnumSet.noneOf(Role.class);
+      for (JsonNode role : record.get("roles")) {
+        roles.add(Role.valueOf(role.asText()));
+      }
+      universe.setRoles(id, roles);
+      return;
+    }
+
+    Optional<Thing> thing = universe.getThing(id);
+    if (thing.isEmpty()) {
+      LOG.warn("Journal record of type {} refers to missing thing {}, skipping",
+               op, id);
+      return;
+    }
+    switch (op) {
+      case REMOVE_THING:
+        universe.removeThing(thing.get());
+        break;
+      case SET_ATTR:
+        thing.get().setAttr(OBJECT_MAPPER.treeToValue(record.get("attr"), Attr.class));
+        break;
+      case REMOVE_ATTR:
+        thing.get().removeAttr(record.get("name").asText());
+        break;
+      case SET_POLICY:
+        Policy policy = OBJECT_MAPPER.treeToValue(record.get("policy"), Policy.class);
+        Policy thingPolicy = thing.get().getPolicy();
+        synchronized (thingPolicy) {
+          for (Policy.Category category : Policy.Category.values()) {
+            thingPolicy.setRoles(category, policy.getRoles(category));
+          }
+        }
+        thing.get().policyChanged();
+        break;
+      case GIVE:
+      case TAKE:
+        UUID itemId = UUID.fromString(record.get("item").asText());
+        Optional<Thing> item = universe.getThing(itemId);
+        if (item.isEmpty()) {
+          LOG.warn("Journal record of type {} refers to missing thing {}, skipping",
+                   op, itemId);
+        } else if (op == Op.GIVE) {
+          thing.get().give(item.get());
+        } else {
+          thing.get().take(item.get());
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unsupported journal record type " + op);
+    }
+  }
+}
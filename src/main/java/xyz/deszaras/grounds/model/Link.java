@@ -7,6 +7,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -76,6 +77,34 @@ public class Link extends Thing {
     return ImmutableList.of(getSource(), getDestination());
   }
 
+  /**
+   * Gets the IDs of the places connected by this link. Place attributes that
+   * are malformed are skipped.
+   *
+   * @return IDs of source and destination
+   */
+  @JsonIgnore
+  List<UUID> getPlaceIds() {
+    List<UUID> placeIds = new ArrayList<>(2);
+    getAttr(SOURCE).flatMap(Link::getPlaceId).ifPresent(placeIds::add);
+    getAttr(DESTINATION).flatMap(Link::getPlaceId).ifPresent(placeIds::add);
+    return placeIds;
+  }
+
+  /**
+   * Gets the ID of the place in a source or destination attribute.
+   *
+   * @param  placeAttr source or destination attribute
+   * @return           place ID, or empty if the attribute is malformed
+   */
+  static Optional<UUID> getPlaceId(Attr placeAttr) {
+    try {
+      return Optional.of(UUIDUtils.getUUID(placeAttr.getAttrValue().getThingValue()));
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      return Optional.empty();
+    }
+  }
+
   public boolean linksTo(Place place) {
     Optional<Place> placeOptional = Optional.of(place);
     return placeOptional.equals(getSource()) ||
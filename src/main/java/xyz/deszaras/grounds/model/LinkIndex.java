@@ -0,0 +1,69 @@
+package xyz.deszaras.grounds.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of the links in a universe by the places they connect. With it,
+ * finding the links for a place costs time proportional to the number of
+ * links at the place, and not to the size of the universe.<p>
+ *
+ * This class is thread-safe, but it is up to its universe to keep it in sync
+ * with the links it holds.
+ */
+final class LinkIndex {
+
+  private final Map<UUID, Set<Link>> index;
+
+  /**
+   * Creates an empty index.
+   */
+  LinkIndex() {
+    index = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Adds a link to this index for the given place.
+   *
+   * @param link    link to add
+   * @param placeId ID of a place the link connects
+   * @throws NullPointerException if any argument is null
+   */
+  void add(Link link, UUID placeId) {
+    Objects.requireNonNull(link);
+    index.compute(Objects.requireNonNull(placeId), (id, s) -> {
+        Set<Link> links = s != null ? s : ConcurrentHashMap.newKeySet();
+        links.add(link);
+        return links;
+      });
+  }
+
+  /**
+   * Removes a link from this index for the given place.
+   *
+   * @param link    link to remove
+   * @param placeId ID of a place the link connected
+   */
+  void remove(Link link, UUID placeId) {
+    index.computeIfPresent(placeId, (id, s) -> {
+        s.remove(link);
+        return s.isEmpty() ? null : s;
+      });
+  }
+
+  /**
+   * Gets the links for the given place. The returned set is a live,
+   * unmodifiable view.
+   *
+   * @param  placeId place ID
+   * @return         links that connect to the place
+   */
+  Set<Link> get(UUID placeId) {
+    Set<Link> links = index.get(placeId);
+    return links != null ? Collections.unmodifiableSet(links) : Set.of();
+  }
+}
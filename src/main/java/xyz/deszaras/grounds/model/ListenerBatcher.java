@@ -0,0 +1,407 @@
+package xyz.deszaras.grounds.model;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.deszaras.grounds.command.Actor;
+import xyz.deszaras.grounds.command.CommandExecutor;
+import xyz.deszaras.grounds.command.CommandFactoryException;
+import xyz.deszaras.grounds.command.Event;
+import xyz.deszaras.grounds.command.PluginCallCommand;
+
+/**
+ * Batches events for a single listener attribute of an extension, so that
+ * its plugin is called once for many events, instead of once per event. A
+ * listener attribute opts in to batching by having a "batchWindowMillis"
+ * attribute in its list.<p>
+ *
+ * Events are queued as they arrive. A batch is dispatched once the window
+ * has passed since the first event in it was queued, or as soon as the
+ * batch is full. The plugin receives the batch as a single argument: a JSON
+ * array of augmented event payloads, in the order the events arrived.<p>
+ *
+ * Only one batch for a listener is in progress at a time. While one is, new
+ * events wait in the queue. If the next batch comes due before the previous
+ * one is done, it is dispatched as soon as the previous one finishes. When
+ * the queue is full, the listener's overflow policy decides what happens to
+ * a new event.<p>
+ *
+ * A batcher is cancelled when its listener attribute is changed or removed,
+ * dropping any queued events.
+ */
+class ListenerBatcher {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ListenerBatcher.class);
+
+  static final String BATCH_WINDOW_MILLIS = "batchWindowMillis";
+  static final String BATCH_MAX_EVENTS = "batchMaxEvents";
+  static final String BATCH_QUEUE_SIZE = "batchQueueSize";
+  static final String BATCH_OVERFLOW = "batchOverflow";
+
+  static final int DEFAULT_MAX_EVENTS = 100;
+  static final int DEFAULT_QUEUE_SIZE = 1000;
+
+  private static final ScheduledExecutorService DEFAULT_SCHEDULER =
+      Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                                                 .setDaemon(true)
+                                                 .setNameFormat("listener-batch")
+                                                 .build());
+
+  /**
+   * What to do with a new event when the queue is full.
+   */
+  enum OverflowPolicy {
+    /**
+     * Drop the new event.
+     */
+    DROP_NEWEST("dropNewest"),
+    /**
+     * Drop the oldest queued event, and queue the new one.
+     */
+    DROP_OLDEST("dropOldest"),
+    /**
+     * Replace the most recent queued event of the same type caused by the
+     * same player, if there is one, with the new event; otherwise, drop the
+     * new event.
+     */
+    MERGE("merge");
+
+    private final String attrValue;
+
+    OverflowPolicy(String attrValue) {
+      this.attrValue = attrValue;
+    }
+
+    static OverflowPolicy fromAttrValue(String attrValue) {
+      for (OverflowPolicy p : values()) {
+        if (p.attrValue.equalsIgnoreCase(attrValue)) {
+          return p;
+        }
+      }
+      throw new IllegalArgumentException("Invalid batch overflow policy " + attrValue);
+    }
+  }
+
+  /**
+   * Batch settings for a listener attribute.
+   */
+  static final class Settings {
+    private final long windowMillis;
+    private final int maxEvents;
+    private final int queueSize;
+    private final OverflowPolicy overflowPolicy;
+
+    Settings(long windowMillis, int maxEvents, int queueSize,
+             OverflowPolicy overflowPolicy) {
+      if (windowMillis < 1L || maxEvents < 1 || queueSize < 1) {
+        throw new IllegalArgumentException("Batch window, maximum events, and " +
+                                           "queue size must be positive");
+      }
+      this.windowMillis = windowMillis;
+      this.maxEvents = maxEvents;
+      this.queueSize = queueSize;
+      this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+    }
+
+    /**
+     * Gets the batch settings from a listener attribute, if it opts in to
+     * batching.
+     *
+     * @param  listenerAttr listener attribute
+     * @return              batch settings, or empty if the listener does not
+     *                      batch events
+     * @throws IllegalArgumentException if any batch setting is invalid
+     */
+    static Optional<Settings> fromListenerAttr(Attr listenerAttr) {
+      Map<String, Attr> attrs = listenerAttr.getAttrListValueAsMap();
+      Attr windowAttr = attrs.get(BATCH_WINDOW_MILLIS);
+      if (windowAttr == null) {
+        return Optional.empty();
+      }
+      Attr maxEventsAttr = attrs.get(BATCH_MAX_EVENTS);
+      Attr queueSizeAttr = attrs.get(BATCH_QUEUE_SIZE);
+      Attr overflowAttr = attrs.get(BATCH_OVERFLOW);
+      try {
+        return Optional.of(new Settings(
+            windowAttr.getIntValue(),
+            maxEventsAttr != null ? maxEventsAttr.getIntValue() : DEFAULT_MAX_EVENTS,
+            queueSizeAttr != null ? queueSizeAttr.getIntValue() : DEFAULT_QUEUE_SIZE,
+            overflowAttr != null ? OverflowPolicy.fromAttrValue(overflowAttr.getValue()) :
+                OverflowPolicy.DROP_NEWEST));
+      } catch (IllegalStateException e) {
+        throw new IllegalArgumentException("Batch settings must be integers", e);
+      }
+    }
+
+    long getWindowMillis() {
+      return windowMillis;
+    }
+
+    int getMaxEvents() {
+      return maxEvents;
+    }
+
+    int getQueueSize() {
+      return queueSize;
+    }
+
+    OverflowPolicy getOverflowPolicy() {
+      return overflowPolicy;
+    }
+  }
+
+  /**
+   * An event waiting in the queue. Its payload is replaced when a newer event
+   * is merged into it.
+   */
+  private static final class QueuedEvent {
+    private final String mergeKey;
+    private String payload;
+
+    private QueuedEvent(String mergeKey, String payload) {
+      this.mergeKey = mergeKey;
+      this.payload = payload;
+    }
+  }
+
+  private final Extension extension;
+  private final ScheduledExecutorService scheduler;
+  private final Deque<QueuedEvent> queue;
+  // the most recent queued event for each merge key
+  private final Map<String, QueuedEvent> latestByMergeKey;
+
+  private Attr listenerAttr;
+  private Settings settings;
+  private CommandExecutor commandExecutor;
+  private ScheduledFuture<?> scheduledDispatch;
+  private long dispatchGeneration;
+  private ListenableFuture<?> inProgress;
+  private boolean dispatchDeferred;
+  private boolean cancelled;
+  private long droppedCount;
+
+  /**
+   * Creates a new batcher.
+   *
+   * @param extension extension with listener attribute
+   */
+  ListenerBatcher(Extension extension) {
+    this(extension, DEFAULT_SCHEDULER);
+  }
+
+  @VisibleForTesting
+  ListenerBatcher(Extension extension, ScheduledExecutorService scheduler) {
+    this.extension = extension;
+    this.scheduler = scheduler;
+    queue = new ArrayDeque<>();
+    latestByMergeKey = new HashMap<>();
+  }
+
+  /**
+   * Adds an event to the next batch. The listener attribute and settings
+   * given with the most recent event are used for the next batch. Events
+   * added after this batcher is cancelled are ignored.
+   *
+   * @param event           event
+   * @param listenerAttr    listener attribute
+   * @param settings        batch settings for listener attribute
+   * @param commandExecutor command executor for batch commands
+   */
+  synchronized void add(Event<?> event, Attr listenerAttr, Settings settings,
+                        CommandExecutor commandExecutor) {
+    if (cancelled) {
+      return;
+    }
+    this.listenerAttr = listenerAttr;
+    this.settings = settings;
+    this.commandExecutor = commandExecutor;
+
+    QueuedEvent queued = new QueuedEvent(mergeKey(event),
+                                         event.getAugmentedPayloadJsonString());
+    if (queue.size() < settings.getQueueSize()) {
+      enqueue(queued);
+    } else {
+      overflow(queued);
+    }
+
+    if (queue.size() >= settings.getMaxEvents()) {
+      dispatch();
+    } else if (scheduledDispatch == null && !dispatchDeferred) {
+      scheduleDispatch();
+    }
+  }
+
+  private static String mergeKey(Event<?> event) {
+    Player player = event.getPlayer();
+    return event.getClass().getName() + ":" + (player != null ? player.getId() : "");
+  }
+
+  private void overflow(QueuedEvent queued) {
+    switch (settings.getOverflowPolicy()) {
+      case DROP_OLDEST:
+        dequeue();
+        enqueue(queued);
+        break;
+      case MERGE:
+        if (replaceLatest(queued)) {
+          return;
+        }
+        break;
+      default:
+        break;
+    }
+    droppedCount++;
+    if (droppedCount == 1L || droppedCount % settings.getQueueSize() == 0L) {
+      LOG.warn("Listener attribute {} on {} is dropping events, {} dropped so far",
+               listenerAttr.getName(), extension.getName(), droppedCount);
+    }
+  }
+
+  private boolean replaceLatest(QueuedEvent queued) {
+    QueuedEvent latest = latestByMergeKey.get(queued.mergeKey);
+    if (latest == null) {
+      return false;
+    }
+    latest.payload = queued.payload;
+    return true;
+  }
+
+  private void enqueue(QueuedEvent queued) {
+    queue.add(queued);
+    latestByMergeKey.put(queued.mergeKey, queued);
+  }
+
+  private QueuedEvent dequeue() {
+    QueuedEvent queued = queue.poll();
+    if (queued != null) {
+      latestByMergeKey.remove(queued.mergeKey, queued);
+    }
+    return queued;
+  }
+
+  private void scheduleDispatch() {
+    long generation = ++dispatchGeneration;
+    scheduledDispatch = scheduler.schedule(() -> scheduledDispatch(generation),
+                                           settings.getWindowMillis(),
+                                           TimeUnit.MILLISECONDS);
+  }
+
+  private synchronized void scheduledDispatch(long generation) {
+    // A dispatch that was cancelled after it started running does nothing.
+    if (generation != dispatchGeneration) {
+      return;
+    }
+    scheduledDispatch = null;
+    dispatch();
+  }
+
+  private synchronized void batchDone(ListenableFuture<?> call) {
+    if (call != inProgress) {
+      return;
+    }
+    inProgress = null;
+    if (dispatchDeferred) {
+      dispatch();
+    }
+  }
+
+  /**
+   * Dispatches the next batch, unless the previous batch is still in
+   * progress, in which case dispatch is deferred until it is done.
+   */
+  private void dispatch() {
+    if (queue.isEmpty()) {
+      dispatchDeferred = false;
+      return;
+    }
+    if (inProgress != null && !inProgress.isDone()) {
+      dispatchDeferred = true;
+      return;
+    }
+    dispatchDeferred = false;
+    if (scheduledDispatch != null) {
+      scheduledDispatch.cancel(false);
+      scheduledDispatch = null;
+      dispatchGeneration++;
+    }
+
+    StringBuilder batch = new StringBuilder("[");
+    int count = 0;
+    while (count < settings.getMaxEvents() && !queue.isEmpty()) {
+      if (count > 0) {
+        batch.append(',');
+      }
+      batch.append(dequeue().payload);
+      count++;
+    }
+    batch.append(']');
+
+    try {
+      PluginCallCommand command = commandExecutor.getCommandFactory()
+          .newPluginCallCommand(Actor.INTERNAL, extension, listenerAttr, extension,
+                                List.of(batch.toString()));
+      LOG.debug("Submitting plugin call command for listener {} with {} events",
+                listenerAttr.getName(), count);
+      ListenableFuture<?> call = commandExecutor.submit(command);
+      inProgress = call;
+      call.addListener(() -> batchDone(call), scheduler);
+    } catch (CommandFactoryException e) {
+      LOG.error("Failed to create plugin call command for listener attribute {} on {}",
+                listenerAttr.getName(), extension.getName(), e);
+    }
+
+    if (!queue.isEmpty()) {
+      scheduleDispatch();
+    }
+  }
+
+  /**
+   * Cancels this batcher. Any scheduled dispatch is cancelled, and queued
+   * events are dropped. A batch already in progress is left to finish.
+   */
+  synchronized void cancel() {
+    cancelled = true;
+    if (scheduledDispatch != null) {
+      scheduledDispatch.cancel(false);
+      scheduledDispatch = null;
+    }
+    dispatchGeneration++;
+    dispatchDeferred = false;
+    queue.clear();
+    latestByMergeKey.clear();
+  }
+
+  /**
+   * Gets the number of events waiting in the queue.
+   *
+   * @return queue size
+   */
+  synchronized int getQueuedCount() {
+    return queue.size();
+  }
+
+  /**
+   * Gets the number of events dropped because the queue was full.
+   *
+   * @return dropped event count
+   */
+  synchronized long getDroppedCount() {
+    return droppedCount;
+  }
+}
@@ -0,0 +1,261 @@
+package xyz.deszaras.grounds.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An index of the listener attributes of the extensions in a universe by the
+ * event types and locations they listen to. Each listener attribute is
+ * parsed once, when it is indexed, so that routing an event to listeners
+ * only costs as much as the number of listeners that want it.<p>
+ *
+ * A listener is found for an event if its event type matches the event's
+ * simple class name, or if it has no event type; and, if it is localized, if
+ * its extension's location is where the event occurred. A localized listener
+ * whose extension has no location, and any listener for an event with no
+ * location, is not restricted by location.<p>
+ *
+ * This class is thread-safe, but it is up to its universe to keep it in sync
+ * with the extensions it holds. Lookups take no lock.
+ */
+final class ListenerIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ListenerIndex.class);
+
+  /**
+   * The event type key for listeners without an event type. This cannot be
+   * the simple name of any class.
+   */
+  private static final String ANY_EVENT_TYPE = "*";
+
+  /**
+   * The location key for listeners that are not restricted by location.
+   */
+  private static final UUID EVERYWHERE = new UUID(0L, 0L);
+
+  /**
+   * A listener attribute of an extension, with its settings parsed.
+   */
+  static final class Listener {
+    private final Extension extension;
+    private final Attr attr;
+    private final String eventType;
+    private final UUID locationId;
+    private final Optional<ListenerBatcher.Settings> batchSettings;
+
+    private Listener(Extension extension, Attr attr, String eventType,
+                     UUID locationId,
+                     Optional<ListenerBatcher.Settings> batchSettings) {
+      this.extension = extension;
+      this.attr = attr;
+      this.eventType = eventType;
+      this.locationId = locationId;
+      this.batchSettings = batchSettings;
+    }
+
+    /**
+     * Parses a listener attribute.
+     *
+     * @param  extension    extension with listener attribute
+     * @param  attr         listener attribute
+     * @return              listener
+     * @throws IllegalArgumentException if the attribute has invalid batch
+     *                                  settings, or if it is localized and
+     *                                  the extension has an invalid location
+     */
+    static Listener parse(Extension extension, Attr attr) {
+      Map<String, Attr> attrs = attr.getAttrListValueAsMap();
+
+      Attr eventTypeAttr = attrs.get("eventType");
+      String eventType = eventTypeAttr != null &&
+          eventTypeAttr.getType() == Attr.Type.STRING ?
+          eventTypeAttr.getValue() : ANY_EVENT_TYPE;
+
+      Attr localizedAttr = attrs.get("localized");
+      UUID locationId = EVERYWHERE;
+      if (localizedAttr != null && localizedAttr.getType() == Attr.Type.BOOLEAN &&
+          localizedAttr.getBooleanValue()) {
+        Optional<Attr> extensionLocationAttr = extension.getAttr(AttrNames.LOCATION);
+        if (extensionLocationAttr.isPresent()) {
+          String location = extensionLocationAttr.get().getValue();
+          try {
+            locationId = UUID.fromString(location);
+          } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Extension location " + location +
+                                               " is not a valid ID", e);
+          }
+        } else {
+          LOG.warn("Extension {} has no location, so localized listener " +
+                   "attribute {} hears events from everywhere",
+                   extension.getName(), attr.getName());
+        }
+      }
+
+      return new Listener(extension, attr, eventType, locationId,
+                          ListenerBatcher.Settings.fromListenerAttr(attr));
+    }
+
+    Extension getExtension() {
+      return extension;
+    }
+
+    Attr getAttr() {
+      return attr;
+    }
+
+    Optional<ListenerBatcher.Settings> getBatchSettings() {
+      return batchSettings;
+    }
+  }
+
+  // event type => location ID => listeners
+  private final Map<String, Map<UUID, Set<Listener>>> index;
+  // extension => listener attribute name => listener
+  private final Map<Extension, Map<String, Listener>> extensionListeners;
+
+  /**
+   * Creates an empty index.
+   */
+  ListenerIndex() {
+    index = new ConcurrentHashMap<>();
+    extensionListeners = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Indexes all of the listener attributes of an extension, replacing any
+   * already indexed for it. Call this when an extension is added, or when
+   * its location changes.
+   *
+   * @param extension extension
+   * @throws NullPointerException if extension is null
+   */
+  synchronized void add(Extension extension) {
+    Objects.requireNonNull(extension);
+    remove(extension);
+    for (Attr attr : extension.getListenerAttrs()) {
+      index(extension, attr);
+    }
+  }
+
+  /**
+   * Re-indexes a single attribute of an extension, using the attribute's
+   * current value. If the attribute is no longer a listener attribute, or
+   * no longer exists, it is only removed from this index. Call this whenever
+   * an attribute that is or was a listener attribute changes.
+   *
+   * @param extension extension
+   * @param attrName  attribute name
+   * @throws NullPointerException if extension is null
+   */
+  synchronized void refresh(Extension extension, String attrName) {
+    Objects.requireNonNull(extension);
+    Map<String, Listener> listeners = extensionListeners.get(extension);
+    if (listeners != null) {
+      Listener listener = listeners.remove(attrName);
+      if (listener != null) {
+        unindex(listener);
+      }
+      if (listeners.isEmpty()) {
+        extensionListeners.remove(extension);
+      }
+    }
+    Optional<Attr> attr = extension.getAttr(attrName);
+    if (attr.isPresent() && Extension.isListenerAttr(attr.get())) {
+      index(extension, attr.get());
+    }
+  }
+
+  /**
+   * Removes all of the listener attributes of an extension from this index.
+   *
+   * @param extension extension
+   */
+  synchronized void remove(Extension extension) {
+    Map<String, Listener> listeners = extensionListeners.remove(extension);
+    if (listeners != null) {
+      listeners.values().forEach(this::unindex);
+    }
+  }
+
+  private void index(Extension extension, Attr attr) {
+    Listener listener;
+    try {
+      listener = Listener.parse(extension, attr);
+    } catch (IllegalArgumentException e) {
+      LOG.error("Listener attribute {} of extension {} is invalid, so it will " +
+                "not handle events: {}",
+                attr.getName(), extension.getName(), e.getMessage(), e);
+      return;
+    }
+    extensionListeners.computeIfAbsent(extension, e -> new ConcurrentHashMap<>())
+        .put(attr.getName(), listener);
+    index.computeIfAbsent(listener.eventType, t -> new ConcurrentHashMap<>())
+        .computeIfAbsent(listener.locationId, l -> ConcurrentHashMap.newKeySet())
+        .add(listener);
+  }
+
+  private void unindex(Listener listener) {
+    Map<UUID, Set<Listener>> byLocation = index.get(listener.eventType);
+    if (byLocation == null) {
+      return;
+    }
+    Set<Listener> listeners = byLocation.get(listener.locationId);
+    if (listeners != null) {
+      listeners.remove(listener);
+      if (listeners.isEmpty()) {
+        byLocation.remove(listener.locationId);
+      }
+    }
+    if (byLocation.isEmpty()) {
+      index.remove(listener.eventType);
+    }
+  }
+
+  /**
+   * Finds the listeners for an event.
+   *
+   * @param  eventType  simple class name of event
+   * @param  locationId ID of location where event occurred, or null if none
+   * @return            listeners for event
+   */
+  List<Listener> find(String eventType, UUID locationId) {
+    Map<UUID, Set<Listener>> byType = index.get(eventType);
+    Map<UUID, Set<Listener>> byAnyType = index.get(ANY_EVENT_TYPE);
+    if (byType == null && byAnyType == null) {
+      return Collections.emptyList();
+    }
+    List<Listener> found = new ArrayList<>();
+    collect(byType, locationId, found);
+    collect(byAnyType, locationId, found);
+    return found;
+  }
+
+  private static void collect(Map<UUID, Set<Listener>> byLocation, UUID locationId,
+                              List<Listener> found) {
+    if (byLocation == null) {
+      return;
+    }
+    if (locationId == null) {
+      byLocation.values().forEach(found::addAll);
+      return;
+    }
+    Set<Listener> listeners = byLocation.get(EVERYWHERE);
+    if (listeners != null) {
+      found.addAll(listeners);
+    }
+    listeners = byLocation.get(locationId);
+    if (listeners != null) {
+      found.addAll(listeners);
+    }
+  }
+}
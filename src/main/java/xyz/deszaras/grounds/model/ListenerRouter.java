@@ -0,0 +1,51 @@
+package xyz.deszaras.grounds.model;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.eventbus.Subscribe;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.deszaras.grounds.command.CommandExecutor;
+import xyz.deszaras.grounds.command.Event;
+
+/**
+ * Routes events from the command event bus to the extension listener
+ * attributes that want them. Listeners are looked up in the current
+ * universe's listener index, so extensions themselves are not registered
+ * with the event bus, and an event only costs as much as the listeners that
+ * want it.
+ */
+public class ListenerRouter {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ListenerRouter.class);
+
+  /**
+   * Handles an event sent from the command event bus.
+   *
+   * @param event event to handle
+   */
+  @Subscribe
+  public void handle(Event event) {
+    handle(event, CommandExecutor.getInstance());
+  }
+
+  /**
+   * Handles an event sent from the command event bus.
+   *
+   * @param event           event to handle
+   * @param commandExecutor command executor for resulting commands
+   */
+  @VisibleForTesting
+  void handle(Event<?> event, CommandExecutor commandExecutor) {
+    Universe universe = Universe.getCurrent();
+    if (universe == null) {
+      return;
+    }
+    for (ListenerIndex.Listener listener : universe.findListeners(event)) {
+      LOG.debug("Extension {} handling event of type {}",
+                listener.getExtension().getName(), event.getClass());
+      listener.getExtension().handle(listener, event, commandExecutor);
+    }
+  }
+}
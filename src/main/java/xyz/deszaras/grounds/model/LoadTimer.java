@@ -0,0 +1,78 @@
+package xyz.deszaras.grounds.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Times the phases of loading a universe, so that each can be reported.
+ * A phase runs from the end of the previous phase (or the creation of the
+ * timer) until it is ended.<p>
+ *
+ * This class is not thread-safe; phases are ended by the loading thread,
+ * even when the work of a phase is spread across many.
+ */
+final class LoadTimer {
+
+  private final LongSupplier nanoClock;
+  private final Map<String, Long> phaseNanos = new LinkedHashMap<>();
+  private long phaseStart;
+
+  /**
+   * Creates a new timer, starting the first phase.
+   */
+  LoadTimer() {
+    this(System::nanoTime);
+  }
+
+  /**
+   * Creates a new timer with its own clock, starting the first phase.
+   *
+   * @param nanoClock source of the current time in nanoseconds
+   */
+  LoadTimer(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+    phaseStart = nanoClock.getAsLong();
+  }
+
+  /**
+   * Ends the current phase.
+   *
+   * @param phase name of phase
+   */
+  void endPhase(String phase) {
+    long now = nanoClock.getAsLong();
+    phaseNanos.merge(phase, now - phaseStart, Long::sum);
+    phaseStart = now;
+  }
+
+  /**
+   * Gets the time taken by a phase.
+   *
+   * @param  phase name of phase
+   * @return       phase time in milliseconds, or zero if there is no such phase
+   */
+  long getMillis(String phase) {
+    return TimeUnit.NANOSECONDS.toMillis(phaseNanos.getOrDefault(phase, 0L));
+  }
+
+  /**
+   * Gets the time taken by all ended phases.
+   *
+   * @return total time in milliseconds
+   */
+  long getTotalMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(
+        phaseNanos.values().stream().mapToLong(Long::longValue).sum());
+  }
+
+  @Override
+  public String toString() {
+    StringJoiner joiner = new StringJoiner(", ", "",
+                                           " (" + getTotalMillis() + " ms total)");
+    phaseNanos.keySet().forEach(phase -> joiner.add(phase + " " + getMillis(phase) + " ms"));
+    return joiner.toString();
+  }
+}
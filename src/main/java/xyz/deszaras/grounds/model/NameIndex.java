@@ -0,0 +1,88 @@
+package xyz.deszaras.grounds.model;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of the things in a universe by name. The index is split by the
+ * concrete class of each thing, so that a lookup only considers things of
+ * compatible types. Names are matched exactly.<p>
+ *
+ * This class is thread-safe, but it is up to its universe to keep it in sync
+ * with the things it holds.
+ */
+final class NameIndex {
+
+  private final Map<Class<? extends Thing>, Map<String, Set<Thing>>> index;
+
+  /**
+   * Creates an empty index.
+   */
+  NameIndex() {
+    index = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Adds a thing to this index under the given name.
+   *
+   * @param thing thing to add
+   * @param name  name of thing
+   * @throws NullPointerException if any argument is null
+   */
+  void add(Thing thing, String name) {
+    Objects.requireNonNull(thing);
+    Objects.requireNonNull(name);
+    index.computeIfAbsent(thing.getClass(), c -> new ConcurrentHashMap<>())
+        .compute(name, (n, s) -> {
+            Set<Thing> namedThings = s != null ? s : ConcurrentHashMap.newKeySet();
+            namedThings.add(thing);
+            return namedThings;
+          });
+  }
+
+  /**
+   * Removes a thing from this index under the given name.
+   *
+   * @param thing thing to remove
+   * @param name  name of thing
+   */
+  void remove(Thing thing, String name) {
+    Map<String, Set<Thing>> byName = index.get(thing.getClass());
+    if (byName == null) {
+      return;
+    }
+    byName.computeIfPresent(name, (n, s) -> {
+        s.remove(thing);
+        return s.isEmpty() ? null : s;
+      });
+  }
+
+  /**
+   * Finds a thing in this index by name, with an expected type. If multiple
+   * things share the name, an arbitrary one is returned.
+   *
+   * @param  name       name of thing to find
+   * @param  thingClass expected type of thing
+   * @return            thing
+   */
+  <T extends Thing> Optional<T> find(String name, Class<T> thingClass) {
+    for (Map.Entry<Class<? extends Thing>, Map<String, Set<Thing>>> e : index.entrySet()) {
+      if (!thingClass.isAssignableFrom(e.getKey())) {
+        continue;
+      }
+      Set<Thing> namedThings = e.getValue().get(name);
+      if (namedThings == null) {
+        continue;
+      }
+      Iterator<Thing> it = namedThings.iterator();
+      if (it.hasNext()) {
+        return Optional.of(thingClass.cast(it.next()));
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -3,17 +3,26 @@ package xyz.deszaras.grounds.model;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import xyz.deszaras.grounds.auth.Policy;
 
 /**
- * A thing that represents a place in the world.
+ * A thing that represents a place in the world. Besides its contents, a place
+ * keeps track of the players in it, so that messages to everyone in the place
+ * need not look through everything else that is there.
  */
 public class Place extends Thing {
 
+  private final Set<Player> players = ConcurrentHashMap.newKeySet();
+  private final Set<Player> playersView = Collections.unmodifiableSet(players);
+  private final Object playersMonitor = new Object();
+
   public Place(String name) {
     super(name);
   }
@@ -36,6 +45,76 @@ public class Place extends Thing {
     super(id, attrs, contents, policy);
   }
 
+  /**
+   * Gets the players in this place. The returned set is an unmodifiable, live
+   * view.
+   *
+   * @return players in this place
+   */
+  @JsonIgnore
+  public Set<Player> getPlayers() {
+    return playersView;
+  }
+
+  /**
+   * Rebuilds the set of players in this place from its contents, after the
+   * place has been loaded into a universe.
+   *
+   * @param universe universe holding the contents of this place
+   */
+  void resolvePlayers(Universe universe) {
+    synchronized (playersMonitor) {
+      players.clear();
+      for (UUID id : getContents()) {
+        universe.getThing(id)
+            .filter(t -> t instanceof Player)
+            .ifPresent(t -> players.add((Player) t));
+      }
+    }
+  }
+
+  @Override
+  public void give(Thing thing) {
+    synchronized (playersMonitor) {
+      super.give(thing);
+      if (thing instanceof Player) {
+        players.add((Player) thing);
+      }
+    }
+  }
+
+  @Override
+  public boolean giveIfNotPresent(Thing thing) {
+    synchronized (playersMonitor) {
+      boolean given = super.giveIfNotPresent(thing);
+      if (given && thing instanceof Player) {
+        players.add((Player) thing);
+      }
+      return given;
+    }
+  }
+
+  @Override
+  public void take(Thing thing) {
+    synchronized (playersMonitor) {
+      super.take(thing);
+      if (thing instanceof Player) {
+        players.remove(thing);
+      }
+    }
+  }
+
+  @Override
+  public boolean takeIfPresent(Thing thing) {
+    synchronized (playersMonitor) {
+      boolean taken = super.takeIfPresent(thing);
+      if (taken && thing instanceof Player) {
+        players.remove(thing);
+      }
+      return taken;
+    }
+  }
+
   public static Place build(String name, List<String> buildArgs) {
     checkArgument(buildArgs.size() == 0, "Expected 0 build arguments, got " + buildArgs.size());
     return new Place(name);
@@ -0,0 +1,73 @@
+package xyz.deszaras.grounds.model;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of the extensions in a universe by the plugin commands they
+ * define. A plugin command is defined by an attribute list attribute whose
+ * name starts with a dollar sign, like "$chat".<p>
+ *
+ * This class is thread-safe, but it is up to its universe to keep it in sync
+ * with the extensions it holds.
+ */
+final class PluginCommandIndex {
+
+  private final Map<String, Set<Extension>> index;
+
+  /**
+   * Creates an empty index.
+   */
+  PluginCommandIndex() {
+    index = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Adds an extension to this index under the given command name.
+   *
+   * @param extension   extension to add
+   * @param commandName name of plugin command defined by the extension
+   * @throws NullPointerException if any argument is null
+   */
+  void add(Extension extension, String commandName) {
+    Objects.requireNonNull(extension);
+    index.compute(Objects.requireNonNull(commandName), (n, s) -> {
+        Set<Extension> extensions = s != null ? s : ConcurrentHashMap.newKeySet();
+        extensions.add(extension);
+        return extensions;
+      });
+  }
+
+  /**
+   * Removes an extension from this index under the given command name.
+   *
+   * @param extension   extension to remove
+   * @param commandName name of plugin command formerly defined by the extension
+   */
+  void remove(Extension extension, String commandName) {
+    index.computeIfPresent(commandName, (n, s) -> {
+        s.remove(extension);
+        return s.isEmpty() ? null : s;
+      });
+  }
+
+  /**
+   * Finds an extension that defines the given plugin command. If multiple
+   * extensions define the command, an arbitrary one is returned.
+   *
+   * @param  commandName plugin command name
+   * @return             extension defining the command
+   */
+  Optional<Extension> find(String commandName) {
+    Set<Extension> extensions = index.get(commandName);
+    if (extensions == null) {
+      return Optional.empty();
+    }
+    Iterator<Extension> it = extensions.iterator();
+    return it.hasNext() ? Optional.of(it.next()) : Optional.empty();
+  }
+}
@@ -0,0 +1,75 @@
+package xyz.deszaras.grounds.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of the things in a universe by snapshot segment. Every thing
+ * belongs to exactly one segment, chosen from its ID, so that a snapshot
+ * can be written and rewritten one segment at a time.<p>
+ *
+ * This class is thread-safe, but it is up to its universe to keep it in sync
+ * with the things it holds.
+ */
+final class SegmentIndex {
+
+  /**
+   * The number of segments.
+   */
+  static final int SEGMENT_COUNT = 256;
+
+  /**
+   * Gets the segment that a thing belongs to.
+   *
+   * @param  id thing ID
+   * @return    segment number, from zero to {@link #SEGMENT_COUNT} - 1
+   */
+  static int segmentOf(UUID id) {
+    return Math.floorMod(id.hashCode(), SEGMENT_COUNT);
+  }
+
+  private final List<Set<Thing>> segments;
+
+  /**
+   * Creates an empty index.
+   */
+  SegmentIndex() {
+    segments = new ArrayList<>(SEGMENT_COUNT);
+    for (int i = 0; i < SEGMENT_COUNT; i++) {
+      segments.add(ConcurrentHashMap.newKeySet());
+    }
+  }
+
+  /**
+   * Adds a thing to this index.
+   *
+   * @param thing thing to add
+   */
+  void add(Thing thing) {
+    segments.get(segmentOf(thing.getId())).add(thing);
+  }
+
+  /**
+   * Removes a thing from this index.
+   *
+   * @param thing thing to remove
+   */
+  void remove(Thing thing) {
+    segments.get(segmentOf(thing.getId())).remove(thing);
+  }
+
+  /**
+   * Gets the things in a segment. The returned set is a live, unmodifiable
+   * view.
+   *
+   * @param  segment segment number
+   * @return         things in the segment
+   */
+  Set<Thing> get(int segment) {
+    return Collections.unmodifiableSet(segments.get(segment));
+  }
+}
@@ -0,0 +1,480 @@
+package xyz.deszaras.grounds.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.deszaras.grounds.auth.Policy;
+import xyz.deszaras.grounds.auth.Role;
+
+/**
+ * A universe snapshot split into segments. The universe file itself holds
+ * only a small manifest: the universe's name, special places, and role
+ * assignments, and the name of the file holding each segment of its things.
+ * Segment files live in a directory next to the universe file, like
+ * <i>allendra.json.segments</i>.<p>
+ *
+ * Segment files are never written over. A save writes new files, tagged
+ * with a new generation number, for only those segments holding things that
+ * changed since the last save, and carries the rest over from the last
+ * manifest. The new manifest is then renamed over the old one, which is the
+ * moment that the save takes effect, and segment files that the manifest
+ * no longer names are deleted. A save that fails partway leaves the last
+ * snapshot as it was.<p>
+ *
+ * The things to write are captured first, as cheap copies, so that the
+ * writing itself can happen on another thread while the universe goes on
+ * changing. Loading goes the other way: segments are independent, so they
+ * are read and parsed in parallel.
+ */
+final class SegmentedSnapshot {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SegmentedSnapshot.class);
+
+  /**
+   * The value of the "format" field that starts every manifest.
+   */
+  static final String FORMAT = "grounds-segmented";
+  private static final int VERSION = 1;
+
+  private static final String SEGMENT_DIRECTORY_SUFFIX = ".segments";
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+      .configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+  private static final TypeReference<List<Thing>> THING_LIST_TYPE =
+      new TypeReference<>() {};
+  private static final TypeReference<Map<String, Set<Role>>> ROLES_TYPE =
+      new TypeReference<>() {};
+  private static final ObjectWriter SEGMENT_WRITER =
+      OBJECT_MAPPER.writerFor(new TypeReference<List<ThingCopy>>() {});
+
+  private SegmentedSnapshot() {
+  }
+
+  /**
+   * What a saved snapshot holds: its generation, and the file for each
+   * non-empty segment.
+   */
+  static final class Manifest {
+    private final File file;
+    private final long generation;
+    private final Map<Integer, String> segmentFiles;
+
+    private Manifest(File file, long generation, Map<Integer, String> segmentFiles) {
+      this.file = Objects.requireNonNull(file);
+      this.generation = generation;
+      this.segmentFiles = Collections.unmodifiableMap(new TreeMap<>(segmentFiles));
+    }
+
+    /**
+     * Gets the universe file holding this manifest.
+     *
+     * @return universe file
+     */
+    File getFile() {
+      return file;
+    }
+
+    /**
+     * Gets the generation of this manifest, which goes up by one with each
+     * save.
+     *
+     * @return generation
+     */
+    long getGeneration() {
+      return generation;
+    }
+
+    /**
+     * Gets the names of the segment files, keyed by segment number. Empty
+     * segments have no file.
+     *
+     * @return segment file names
+     */
+    Map<Integer, String> getSegmentFiles() {
+      return segmentFiles;
+    }
+  }
+
+  /**
+   * Gets the directory holding the segment files for a universe file.
+   *
+   * @param  universeFile universe file
+   * @return              segment directory
+   */
+  static Path getSegmentDirectory(Path universeFile) {
+    return universeFile.resolveSibling(universeFile.getFileName() + SEGMENT_DIRECTORY_SUFFIX);
+  }
+
+  /**
+   * Checks if a file holds a segmented snapshot manifest. Only the start of
+   * the file is read.
+   *
+   * @param  f           file to check
+   * @return             true if the file holds a manifest
+   * @throws IOException if the file cannot be read
+   */
+  static boolean isSnapshot(File f) throws IOException {
+    try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(f)) {
+      return parser.nextToken() == JsonToken.START_OBJECT &&
+          parser.nextToken() == JsonToken.FIELD_NAME &&
+          "format".equals(parser.getCurrentName()) &&
+          parser.nextToken() == JsonToken.VALUE_STRING &&
+          FORMAT.equals(parser.getText());
+    } catch (JsonProcessingException e) {
+      return false;
+    }
+  }
+
+  private static JsonNode readManifestNode(File f) throws IOException {
+    JsonNode root = OBJECT_MAPPER.readTree(f);
+    if (root == null || !FORMAT.equals(root.path("format").asText())) {
+      throw new IOException("File " + f + " does not hold a universe snapshot manifest");
+    }
+    if (root.path("version").asInt() != VERSION) {
+      throw new IOException("Unsupported universe snapshot version " +
+                            root.path("version").asText());
+    }
+    return root;
+  }
+
+  private static Manifest toManifest(File f, JsonNode root) {
+    Map<Integer, String> segmentFiles = new TreeMap<>();
+    Iterator<Map.Entry<String, JsonNode>> segments = root.path("segments").fields();
+    while (segments.hasNext()) {
+      Map.Entry<String, JsonNode> segment = segments.next();
+      segmentFiles.put(Integer.valueOf(segment.getKey()), segment.getValue().asText());
+    }
+    return new Manifest(f, root.path("generation").asLong(), segmentFiles);
+  }
+
+  /**
+   * Reads the manifest of a segmented snapshot.
+   *
+   * @param  f           universe file
+   * @return             manifest
+   * @throws IOException if the manifest cannot be read
+   */
+  static Manifest readManifest(File f) throws IOException {
+    return toManifest(f, readManifestNode(f));
+  }
+
+  /**
+   * Loads a universe from a segmented snapshot.
+   *
+   * @param  f           universe file, holding the manifest
+   * @return             loaded universe
+   * @throws IOException if the universe could not be loaded
+   */
+  static Universe load(File f) throws IOException {
+    LoadTimer timer = new LoadTimer();
+    JsonNode root = readManifestNode(f);
+    Manifest manifest = toManifest(f, root);
+    Path segmentDirectory = getSegmentDirectory(f.toPath());
+    Map<String, Set<Role>> roles =
+        OBJECT_MAPPER.convertValue(root.get("roleAssignments"), ROLES_TYPE);
+    timer.endPhase("manifest");
+
+    List<Thing> things;
+    try {
+      things = new ArrayList<>(manifest.getSegmentFiles().values()).parallelStream()
+          .map(segmentFile -> readSegment(segmentDirectory.resolve(segmentFile)))
+          .flatMap(List::stream)
+          .collect(Collectors.toList());
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    timer.endPhase("segments");
+
+    Universe universe = new Universe(root.path("name").asText(), things, roles,
+                                     root.path("originId").asText(),
+                                     root.path("lostAndFoundId").asText(),
+                                     root.path("guestHomeId").asText());
+    // A snapshot with different segments cannot be saved incrementally.
+    universe.snapshotLoaded(root.path("segmentCount").asInt() == SegmentIndex.SEGMENT_COUNT ?
+                            manifest : null);
+    timer.endPhase("index");
+    LOG.info("Loaded {} things in {} segments from {}: {}", things.size(),
+             manifest.getSegmentFiles().size(), segmentDirectory, timer);
+    return universe;
+  }
+
+  private static List<Thing> readSegment(Path segmentFile) {
+    try {
+      return OBJECT_MAPPER.readValue(segmentFile.toFile(), THING_LIST_TYPE);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read universe segment " + segmentFile, e);
+    }
+  }
+
+  /**
+   * A copy of a thing as it was at one moment, which can be written out
+   * later, while the thing itself goes on changing. Attribute sets are
+   * already immutable, so only contents and policy are copied. A copy is
+   * written just as the thing itself would be.
+   */
+  @JsonPropertyOrder({ "class", "id", "attrs", "contents", "policy" })
+  static final class ThingCopy {
+    @JsonProperty("class")
+    private final String className;
+    @JsonProperty
+    private final UUID id;
+    @JsonProperty
+    private final Set<Attr> attrs;
+    @JsonProperty
+    private final Set<UUID> contents;
+    @JsonProperty
+    private final Policy policy;
+
+    private ThingCopy(Thing thing) {
+      className = thing.getClass().getName();
+      id = thing.getId();
+      attrs = thing.getAttrs();
+      contents = Set.copyOf(thing.getContents());
+      policy = new Policy(thing.getPolicy());
+    }
+
+    String getClassName() {
+      return className;
+    }
+
+    UUID getId() {
+      return id;
+    }
+
+    Set<Attr> getAttrs() {
+      return attrs;
+    }
+
+    Set<UUID> getContents() {
+      return contents;
+    }
+
+    Policy getPolicy() {
+      return policy;
+    }
+  }
+
+  /**
+   * A point-in-time copy of the parts of a universe that a save writes:
+   * everything for the manifest, and the things in every segment that is
+   * to be written.
+   */
+  static final class Capture {
+    private final String name;
+    private final UUID originId;
+    private final UUID lostAndFoundId;
+    private final UUID guestHomeId;
+    private final Map<UUID, Set<Role>> roles;
+    private final Manifest previous;
+    private final Map<Integer, List<ThingCopy>> segments;
+
+    private Capture(Universe universe, Manifest previous, Collection<Integer> segmentsToWrite) {
+      name = universe.getName();
+      originId = universe.getOriginId();
+      lostAndFoundId = universe.getLostAndFoundId();
+      guestHomeId = universe.getGuestHomeId();
+      roles = new HashMap<>();
+      universe.getRoleAssignments()
+          .forEach((playerId, playerRoles) -> roles.put(playerId,
+                                                        ImmutableSet.copyOf(playerRoles)));
+      this.previous = previous;
+      segments = new TreeMap<>();
+      for (int segment : segmentsToWrite) {
+        Set<Thing> things = universe.getSegment(segment);
+        List<ThingCopy> copies = new ArrayList<>(things.size());
+        things.forEach(thing -> copies.add(new ThingCopy(thing)));
+        segments.put(segment, copies);
+      }
+    }
+
+    String getName() {
+      return name;
+    }
+
+    UUID getOriginId() {
+      return originId;
+    }
+
+    UUID getLostAndFoundId() {
+      return lostAndFoundId;
+    }
+
+    UUID getGuestHomeId() {
+      return guestHomeId;
+    }
+
+    Map<UUID, Set<Role>> getRoles() {
+      return roles;
+    }
+
+    /**
+     * Gets copies of all the things captured.
+     *
+     * @return thing copies
+     */
+    List<ThingCopy> getThings() {
+      List<ThingCopy> things = new ArrayList<>(getThingCount());
+      segments.values().forEach(things::addAll);
+      return things;
+    }
+
+    /**
+     * Gets the number of things captured.
+     *
+     * @return number of things
+     */
+    int getThingCount() {
+      return segments.values().stream().mapToInt(List::size).sum();
+    }
+  }
+
+  /**
+   * Captures a universe for a later save. When the manifest of the last
+   * snapshot saved to or loaded from the save file is given, only the dirty
+   * segments are captured; otherwise, every segment is. Capture copies no
+   * more than references, contents, and policies, so it is cheap enough to
+   * do while the universe is not changing, and the slow work of writing is
+   * left for {@link #save(Capture,File,boolean)}.
+   *
+   * @param  universe      universe to capture
+   * @param  previous      last manifest for the save file, or null
+   * @param  dirtySegments numbers of segments with changed things
+   * @return               capture
+   */
+  static Capture capture(Universe universe, Manifest previous, Set<Integer> dirtySegments) {
+    Collection<Integer> segmentsToWrite;
+    if (previous != null) {
+      segmentsToWrite = dirtySegments;
+    } else {
+      segmentsToWrite = new ArrayList<>(SegmentIndex.SEGMENT_COUNT);
+      for (int i = 0; i < SegmentIndex.SEGMENT_COUNT; i++) {
+        segmentsToWrite.add(i);
+      }
+    }
+    return new Capture(universe, previous, segmentsToWrite);
+  }
+
+  /**
+   * Saves a captured universe as a segmented snapshot.
+   *
+   * @param  capture     captured universe
+   * @param  f           universe file, to hold the manifest
+   * @param  sync        true to sync new files to disk before the new
+   *                     manifest takes effect
+   * @return             new manifest
+   * @throws IOException if the universe could not be saved
+   */
+  static Manifest save(Capture capture, File f, boolean sync) throws IOException {
+    Path segmentDirectory = getSegmentDirectory(f.toPath());
+    Files.createDirectories(segmentDirectory);
+
+    long generation;
+    Map<Integer, String> segmentFiles = new TreeMap<>();
+    if (capture.previous != null) {
+      generation = capture.previous.getGeneration() + 1L;
+      segmentFiles.putAll(capture.previous.getSegmentFiles());
+    } else {
+      // Stay clear of the file names used by any snapshot already there.
+      generation = f.exists() && isSnapshot(f) ? readManifest(f).getGeneration() + 1L : 1L;
+    }
+
+    int written = 0;
+    for (Map.Entry<Integer, List<ThingCopy>> segment : capture.segments.entrySet()) {
+      if (segment.getValue().isEmpty()) {
+        segmentFiles.remove(segment.getKey());
+        continue;
+      }
+      String segmentFile = segment.getKey() + "-" + generation + ".json";
+      try (FileOutputStream out =
+           new FileOutputStream(segmentDirectory.resolve(segmentFile).toFile())) {
+        SEGMENT_WRITER.writeValue(out, segment.getValue());
+        if (sync) {
+          out.getFD().sync();
+        }
+      }
+      segmentFiles.put(segment.getKey(), segmentFile);
+      written++;
+    }
+
+    ObjectNode root = OBJECT_MAPPER.createObjectNode()
+        .put("format", FORMAT)
+        .put("version", VERSION)
+        .put("name", capture.name)
+        .put("originId", capture.originId.toString())
+        .put("lostAndFoundId", capture.lostAndFoundId.toString())
+        .put("guestHomeId", capture.guestHomeId.toString())
+        .put("generation", generation)
+        .put("segmentCount", SegmentIndex.SEGMENT_COUNT);
+    root.set("roleAssignments", OBJECT_MAPPER.valueToTree(capture.roles));
+    ObjectNode segmentsNode = root.putObject("segments");
+    segmentFiles.forEach((segment, segmentFile) ->
+                         segmentsNode.put(String.valueOf(segment), segmentFile));
+
+    Path tempFile = f.toPath().resolveSibling(f.getName() + TEMP_SUFFIX);
+    try (FileOutputStream out = new FileOutputStream(tempFile.toFile())) {
+      OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(out, root);
+      if (sync) {
+        out.getFD().sync();
+      }
+    }
+    Files.move(tempFile, f.toPath(), StandardCopyOption.ATOMIC_MOVE);
+    LOG.debug("Wrote {} of {} segments for generation {} of {}", written,
+              segmentFiles.size(), generation, f);
+
+    deleteUnusedSegmentFiles(segmentDirectory, new HashSet<>(segmentFiles.values()));
+    return new Manifest(f, generation, segmentFiles);
+  }
+
+  private static void deleteUnusedSegmentFiles(Path segmentDirectory,
+                                               Set<String> segmentFiles)
+      throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(segmentDirectory)) {
+      for (Path file : files) {
+        if (segmentFiles.contains(file.getFileName().toString())) {
+          continue;
+        }
+        try {
+          Files.delete(file);
+        } catch (IOException e) {
+          LOG.warn("Failed to delete unused segment file {}", file, e);
+        }
+      }
+    }
+  }
+}
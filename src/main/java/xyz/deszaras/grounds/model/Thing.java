@@ -10,19 +10,19 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -65,9 +65,16 @@ public class Thing {
       new Thing("EVERYTHING", EVERYTHING_ID) {};
 
   private final UUID id;
-  private final Map<String, Attr> attrs; // key = attr name
+  // Copy-on-write: replaced while holding changeMonitor, read without it.
+  private volatile AttrSet attrs;
   private final Set<UUID> contents;
+  private final Set<UUID> contentsView;
   private final Policy policy;
+  // Held while a change is made and passed on to the universe, so that
+  // changes reach the journal in the order they were made.
+  private final Object changeMonitor = new Object();
+
+  private volatile Universe universe;
 
   /**
    * Creates a new thing with a random ID.
@@ -88,11 +95,9 @@ public class Thing {
    */
   public Thing(String name, UUID id) {
     this.id = Objects.requireNonNull(id);
-    attrs = new HashMap<>();
-    attrs.put(AttrNames.NAME,
-              new Attr(AttrNames.NAME,
-                       Objects.requireNonNull(name)));
-    contents = new HashSet<>();
+    attrs = AttrSet.EMPTY.with(new Attr(AttrNames.NAME, Objects.requireNonNull(name)));
+    contents = ConcurrentHashMap.newKeySet();
+    contentsView = Collections.unmodifiableSet(contents);
     policy = new Policy(Policy.DEFAULT);
   }
 
@@ -113,13 +118,13 @@ public class Thing {
       @JsonProperty("contents") Set<UUID> contents,
       @JsonProperty("policy") Policy policy) {
     this.id = Objects.requireNonNull(id);
-    this.attrs = new HashMap<>();
-    Objects.requireNonNull(attrs).stream()
-        .forEach(a -> this.attrs.put(a.getName(), a));
-    if (!this.attrs.containsKey(AttrNames.NAME)) {
+    this.attrs = AttrSet.of(Objects.requireNonNull(attrs));
+    if (this.attrs.get(AttrNames.NAME) == null) {
       throw new IllegalArgumentException("Name not defined for thing with ID " + id);
     }
-    this.contents = new HashSet<>(Objects.requireNonNull(contents));
+    this.contents = ConcurrentHashMap.newKeySet();
+    this.contents.addAll(Objects.requireNonNull(contents));
+    contentsView = Collections.unmodifiableSet(this.contents);
     this.policy = new Policy(Objects.requireNonNull(policy));
   }
 
@@ -133,6 +138,28 @@ public class Thing {
     return id;
   }
 
+  /**
+   * Gets the universe that this thing belongs to. A thing belongs to a
+   * universe from when it is added to it until it is removed from it.
+   *
+   * @return universe, or null if this thing does not belong to one
+   */
+  @JsonIgnore
+  Universe getUniverse() {
+    return universe;
+  }
+
+  /**
+   * Sets the universe that this thing belongs to. This is called by the
+   * universe itself.
+   *
+   * @param universe universe, or null to remove this thing from its universe
+   */
+  @JsonIgnore
+  void setUniverse(Universe universe) {
+    this.universe = universe;
+  }
+
   /**
    * Gets this thing's name.
    *
@@ -409,18 +436,15 @@ public class Thing {
     }
   }
 
-  private final Object attrMonitor = new Object();
-
   /**
-   * Gets an immutable set of this thing's attributes.
+   * Gets an immutable set of this thing's attributes. The set is a snapshot
+   * and does not reflect later changes.
    *
    * @return attributes
    */
   @JsonProperty
   public final Set<Attr> getAttrs() {
-    synchronized (attrMonitor) {
-      return ImmutableSet.copyOf(attrs.values());
-    }
+    return attrs;
   }
 
   /**
@@ -430,9 +454,7 @@ public class Thing {
    * @return attribute, or null if not present
    */
   public final Optional<Attr> getAttr(String name) {
-    synchronized (attrMonitor) {
-      return Optional.ofNullable(attrs.get(name));
-    }
+    return Optional.ofNullable(attrs.get(name));
   }
 
   /**
@@ -457,9 +479,7 @@ public class Thing {
    * @param attr attribute to set
    */
   public final void setAttr(Attr attr) {
-    synchronized (attrMonitor) {
-      attrs.put(attr.getName(), attr);
-    }
+    updateAttr(attr.getName(), oldAttr -> attr);
   }
 
   /**
@@ -470,9 +490,7 @@ public class Thing {
    * @param value attribute value, as a string
    */
   public final void setAttr(String name, String value) {
-    synchronized (attrMonitor) {
-      attrs.put(name, new Attr(name, value));
-    }
+    setAttr(new Attr(name, value));
   }
 
   /**
@@ -483,9 +501,7 @@ public class Thing {
    * @param value attribute value, as an integer
    */
   public final void setAttr(String name, int value) {
-    synchronized (attrMonitor) {
-      attrs.put(name, new Attr(name, value));
-    }
+    setAttr(new Attr(name, value));
   }
 
   /**
@@ -496,9 +512,7 @@ public class Thing {
    * @param value attribute value, as a Boolean
    */
   public final void setAttr(String name, boolean value) {
-    synchronized (attrMonitor) {
-      attrs.put(name, new Attr(name, value));
-    }
+    setAttr(new Attr(name, value));
   }
 
   /**
@@ -509,9 +523,7 @@ public class Thing {
    * @param value attribute value, as an Instant
    */
   public final void setAttr(String name, Instant value) {
-    synchronized (attrMonitor) {
-      attrs.put(name, new Attr(name, value));
-    }
+    setAttr(new Attr(name, value));
   }
 
   /**
@@ -522,9 +534,7 @@ public class Thing {
    * @param value attribute value, as a Thing
    */
   public final void setAttr(String name, Thing value) {
-    synchronized (attrMonitor) {
-      attrs.put(name, new Attr(name, value));
-    }
+    setAttr(new Attr(name, value));
   }
 
   /**
@@ -535,9 +545,7 @@ public class Thing {
    * @param value attribute value, as a Attr
    */
   public final void setAttr(String name, Attr value) {
-    synchronized (attrMonitor) {
-      attrs.put(name, new Attr(name, value));
-    }
+    setAttr(new Attr(name, value));
   }
 
   /**
@@ -548,9 +556,7 @@ public class Thing {
    * @param value attribute value, as a list of Attr
    */
   public final void setAttr(String name, List<Attr> value) {
-    synchronized (attrMonitor) {
-      attrs.put(name, new Attr(name, value));
-    }
+    setAttr(new Attr(name, value));
   }
 
   public final void incrAttr(String name) {
@@ -573,18 +579,11 @@ public class Thing {
    * integer type
    */
   public final int addToAttr(String name, int incr) {
-    synchronized (attrMonitor) {
-      if (!attrs.containsKey(name)) {
-        throw new IllegalStateException("Attribute " + name + " not found");
-      }
-      Attr attr = attrs.get(name);
-      if (attr.getType() != Attr.Type.INTEGER) {
-        throw new IllegalStateException("Attribute " + name + " is type " + attr.getType());
-      }
-      int newValue = attr.getIntValue() + incr;
-      attrs.put(name, new Attr(name, newValue));
-      return newValue;
-    }
+    Attr oldAttr = updateAttr(name, attr -> {
+        checkAttrType(name, attr, Attr.Type.INTEGER);
+        return attr.withIntValue(attr.getIntValue() + incr);
+      });
+    return oldAttr.getIntValue() + incr;
   }
 
   /**
@@ -601,20 +600,11 @@ public class Thing {
    * Boolean type
    */
   public final boolean compareAndSetAttr(String name, boolean expect, boolean value) {
-    synchronized (attrMonitor) {
-      if (!attrs.containsKey(name)) {
-        throw new IllegalStateException("Attribute " + name + " not found");
-      }
-      Attr attr = attrs.get(name);
-      if (attr.getType() != Attr.Type.BOOLEAN) {
-        throw new IllegalStateException("Attribute " + name + " is type " + attr.getType());
-      }
-      if (attr.getBooleanValue() != expect) {
-        return false;
-      }
-      attrs.put(name, new Attr(name, value));
-      return true;
-    }
+    Attr oldAttr = updateAttr(name, attr -> {
+        checkAttrType(name, attr, Attr.Type.BOOLEAN);
+        return attr.getBooleanValue() == expect ? attr.withBooleanValue(value) : attr;
+      });
+    return oldAttr.getBooleanValue() == expect;
   }
 
   /**
@@ -629,17 +619,29 @@ public class Thing {
    * Boolean type
    */
   public final boolean getAndSetAttr(String name, boolean value) {
-    synchronized (attrMonitor) {
-      if (!attrs.containsKey(name)) {
-        throw new IllegalStateException("Attribute " + name + " not found");
-      }
-      Attr attr = attrs.get(name);
-      if (attr.getType() != Attr.Type.BOOLEAN) {
-        throw new IllegalStateException("Attribute " + name + " is type " + attr.getType());
-      }
-      boolean oldValue = attr.getBooleanValue();
-      attrs.put(name, new Attr(name, value));
-      return oldValue;
+    Attr oldAttr = updateAttr(name, attr -> {
+        checkAttrType(name, attr, Attr.Type.BOOLEAN);
+        return attr.withBooleanValue(value);
+      });
+    return oldAttr.getBooleanValue();
+  }
+
+  /**
+   * Checks that an attribute that is about to be updated exists and has the
+   * expected type.
+   *
+   * @param  name attribute name
+   * @param  attr attribute (may be null)
+   * @param  type expected attribute type
+   * @throws IllegalStateException if the attribute is null, or if the
+   * attribute is not of the expected type
+   */
+  private static void checkAttrType(String name, Attr attr, Attr.Type type) {
+    if (attr == null) {
+      throw new IllegalStateException("Attribute " + name + " not found");
+    }
+    if (attr.getType() != type) {
+      throw new IllegalStateException("Attribute " + name + " is type " + attr.getType());
     }
   }
 
@@ -649,21 +651,63 @@ public class Thing {
    * @param name attribute name
    */
   public final void removeAttr(String name) {
-    synchronized (attrMonitor) {
-      attrs.remove(name);
+    updateAttr(name, oldAttr -> null);
+  }
+
+  /**
+   * Atomically updates one of this thing's attributes. The update function is
+   * passed the current attribute, or null if there is none, and returns the
+   * new attribute, or null to remove it. If the update function returns the
+   * attribute passed to it, nothing changes.<p>
+   *
+   * Reads never lock, since the attribute set is replaced, not changed. But
+   * changes lock this thing's change monitor: each one is made, and passed on
+   * to the universe's indexes and journal, before the next one starts, so
+   * that they are journaled in the order they were made.
+   *
+   * @param  name   attribute name
+   * @param  update update function
+   * @return        attribute before the update (may be null)
+   */
+  private Attr updateAttr(String name, UnaryOperator<Attr> update) {
+    synchronized (changeMonitor) {
+      AttrSet current = attrs;
+      Attr oldAttr = current.get(name);
+      Attr newAttr = update.apply(oldAttr);
+      if (newAttr == oldAttr) {
+        return oldAttr;
+      }
+      attrs = newAttr != null ? current.with(newAttr) : current.without(name);
+      attrChanged(name, oldAttr, newAttr);
+      return oldAttr;
     }
   }
 
-  private final Object contentsMonitor = new Object();
+  /**
+   * Tells this thing's universe, if any, that an attribute has changed, so
+   * that it can keep its indexes and journal up to date.
+   *
+   * @param name    attribute name
+   * @param oldAttr old attribute (null if newly added)
+   * @param newAttr new attribute (null if removed)
+   */
+  private void attrChanged(String name, Attr oldAttr, Attr newAttr) {
+    Universe u = universe;
+    if (u != null) {
+      u.attrChanged(this, name, oldAttr, newAttr);
+    }
+  }
 
   /**
-   * Gets the contents of this thing.
+   * Gets the contents of this thing. The returned set is an unmodifiable,
+   * live view. It may be iterated safely while the contents change, but the
+   * iteration may or may not reflect those changes.
    *
    * @return contents
    */
   @JsonProperty
   public Set<UUID> getContents() {
-    return ImmutableSet.copyOf(contents);
+    return contentsView;
   }
 
   /**
@@ -673,9 +717,7 @@ public class Thing {
    * @return true if this thing contains the other thing
    */
   public boolean has(UUID thingId) {
-    synchronized (contentsMonitor) {
-      return contents.contains(thingId);
-    }
+    return contents.contains(thingId);
   }
 
   /**
@@ -694,9 +736,7 @@ public class Thing {
    * @param thing other thing
    */
   public void give(Thing thing) {
-    synchronized (contentsMonitor) {
-      contents.add(thing.getId());
-    }
+    addContent(thing);
   }
 
   /**
@@ -706,13 +746,7 @@ public class Thing {
    * @return true if given successfully, false if already given
    */
   public boolean giveIfNotPresent(Thing thing) {
-    synchronized (contentsMonitor) {
-      if (contents.contains(thing.getId())) {
-        return false;
-      }
-      contents.add(thing.getId());
-      return true;
-    }
+    return addContent(thing);
   }
 
   /**
@@ -721,9 +755,7 @@ public class Thing {
    * @param thing other thing
    */
   public void take(Thing thing) {
-    synchronized (contentsMonitor) {
-      contents.remove(thing.getId());
-    }
+    removeContent(thing);
   }
 
   /**
@@ -733,17 +765,46 @@ public class Thing {
    * @return true if taken successfully, false if already taken
    */
   public boolean takeIfPresent(Thing thing) {
-    synchronized (contentsMonitor) {
-      if (!contents.contains(thing.getId())) {
-        return false;
+    return removeContent(thing);
+  }
+
+  private boolean addContent(Thing thing) {
+    synchronized (changeMonitor) {
+      boolean given = contents.add(thing.getId());
+      if (given) {
+        contentsChanged(thing, true);
       }
-      contents.remove(thing.getId());
-      return true;
+      return given;
+    }
+  }
+
+  private boolean removeContent(Thing thing) {
+    synchronized (changeMonitor) {
+      boolean taken = contents.remove(thing.getId());
+      if (taken) {
+        contentsChanged(thing, false);
+      }
+      return taken;
+    }
+  }
+
+  /**
+   * Tells this thing's universe, if any, that its contents have changed, so
+   * that it can journal the change.
+   *
+   * @param item  thing given or taken
+   * @param given true if given, false if taken
+   */
+  private void contentsChanged(Thing item, boolean given) {
+    Universe u = universe;
+    if (u != null) {
+      u.contentsChanged(this, item, given);
     }
   }
 
   /**
-   * Gets the policy of this thing. This is not a defensive copy.
+   * Gets the policy of this thing. This is not a defensive copy, so call
+   * {@link #policyChanged()} after changing it.
    *
    * @return policy
    */
@@ -752,6 +813,21 @@ public class Thing {
     return policy;
   }
 
+  /**
+   * Tells this thing's universe, if any, that its policy has changed, so
+   * that the change is journaled and saved. The policy is journaled as it
+   * stands when this is called, so of two racing changes, the later record
+   * always holds both.
+   */
+  public void policyChanged() {
+    Universe u = universe;
+    if (u != null) {
+      synchronized (changeMonitor) {
+        u.policyChanged(this);
+      }
+    }
+  }
+
   /**
    * Checks if the player is permitted for a category, according to this
    * thing's policy. GOD is always permitted. A player always passes a
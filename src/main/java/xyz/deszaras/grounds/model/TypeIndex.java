@@ -0,0 +1,63 @@
+package xyz.deszaras.grounds.model;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of the things in a universe by their concrete class. Each class
+ * gets its own partition, which callers may iterate directly through a live,
+ * unmodifiable view, without any copying.<p>
+ *
+ * This class is thread-safe, but it is up to its universe to keep it in sync
+ * with the things it holds.
+ */
+final class TypeIndex {
+
+  private final Map<Class<? extends Thing>, Set<Thing>> index;
+
+  /**
+   * Creates an empty index.
+   */
+  TypeIndex() {
+    index = new ConcurrentHashMap<>();
+  }
+
+  private Set<Thing> partition(Class<? extends Thing> thingClass) {
+    return index.computeIfAbsent(thingClass, c -> ConcurrentHashMap.newKeySet());
+  }
+
+  /**
+   * Adds a thing to this index.
+   *
+   * @param thing thing to add
+   */
+  void add(Thing thing) {
+    partition(thing.getClass()).add(thing);
+  }
+
+  /**
+   * Removes a thing from this index.
+   *
+   * @param thing thing to remove
+   */
+  void remove(Thing thing) {
+    Set<Thing> things = index.get(thing.getClass());
+    if (things != null) {
+      things.remove(thing);
+    }
+  }
+
+  /**
+   * Gets the things of exactly the given class. Things of subclasses are not
+   * included. The returned set is a live, unmodifiable view.
+   *
+   * @param  thingClass thing class
+   * @return            things of the class
+   */
+  @SuppressWarnings("unchecked")
+  <T extends Thing> Set<T> get(Class<T> thingClass) {
+    return Collections.unmodifiableSet((Set<T>) partition(thingClass));
+  }
+}
@@ -5,27 +5,36 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.StandardCopyOption;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.EnumSet;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import xyz.deszaras.grounds.auth.Role;
+import xyz.deszaras.grounds.command.Event;
 import xyz.deszaras.grounds.security.UniversePermission;
 import xyz.deszaras.grounds.util.UUIDUtils;
 
@@ -52,7 +61,8 @@ public class Universe {
   public static final UniversePermission SET_CURRENT_PERMISSION =
       new UniversePermission("setCurrent");
   /**
-   * Permission needed to call {@link #saveCurrent(boolean)} or
+   * Permission needed to call {@link #saveCurrent(boolean)},
+   * {@link #saveCurrentInBackground(boolean)}, or
    * {@link #save(Universe,File)}.
    */
   public static final UniversePermission SAVE_PERMISSION =
@@ -74,6 +84,11 @@ public class Universe {
    */
   private static File theUniverseFile;
 
+  /**
+   * The settings for universe journals, or null if journaling is disabled.
+   */
+  private static Journal.Settings theJournalSettings;
+
   /**
    * Gets the current universe.
    *
@@ -127,17 +142,62 @@ public class Universe {
   }
 
   /**
-   * Saves the current universe to its file. If the safe parameters is true,
-   * then the universe is saved to a temporary file first (in the same directory
-   * as the universe file), and only if that succeeds is the original file
-   * replaced.
+   * Gets the settings for universe journals.
+   *
+   * @return journal settings, or null if journaling is disabled
+   */
+  public static Journal.Settings getJournalSettings() {
+    SecurityManager sm = System.getSecurityManager();
+    if (sm != null) {
+      sm.checkPermission(GET_CURRENT_PERMISSION);
+    }
+    return theJournalSettings;
+  }
+
+  /**
+   * Sets the settings for universe journals. This does not affect a journal
+   * that is already open.
+   *
+   * @param journalSettings journal settings, or null to disable journaling
+   */
+  public static void setJournalSettings(Journal.Settings journalSettings) {
+    SecurityManager sm = System.getSecurityManager();
+    if (sm != null) {
+      sm.checkPermission(SET_CURRENT_PERMISSION);
+    }
+    theJournalSettings = journalSettings;
+  }
+
+  private static final Object SAVE_MONITOR = new Object();
+  private static ExecutorService saveExecutorService;
+  private static Future<?> saveInProgress;
+
+  /**
+   * Saves the current universe to its file, as a segmented snapshot, and
+   * waits for the save to finish. Only the segments holding things that
+   * changed since the last save are written, unless the universe was not
+   * last saved to or loaded from a snapshot in the same file, in which case
+   * every segment is. The new snapshot takes effect when its manifest is
+   * renamed over the universe file, so a failed save leaves the last one
+   * intact. If the safe parameter is true, then new files are synced to disk
+   * before that happens.<p>
    *
-   * @param  safe true to save to a temporary file first
+   * If the universe file already holds a binary snapshot, or is new and
+   * named for one (ending in ".bin"), then the universe is saved as a whole
+   * binary snapshot instead, which is renamed over the universe file in the
+   * same way.<p>
+   *
+   * If the current universe has a journal, then the journal is compacted:
+   * its records are set aside before the save, and discarded once the save
+   * succeeds. If the universe file has changed since the journal was opened,
+   * then the journal is moved to go along with the new file.
+   *
+   * @param  safe true to sync new files to disk before the save takes effect
    * @return true if the current universe was saved; false if there
    *         is no current universe, or it's the VOID universe, or
-   *         if the current universe has no file, or if the temporary
-   *         save file couldn't be copied to the original file
+   *         if the current universe has no file
    * @throws IOException if the universe could not be saved
+   * @see #saveCurrentInBackground(boolean)
    * @see #save(Universe,File)
    */
   public static boolean saveCurrent(boolean safe) throws IOException {
@@ -145,42 +205,105 @@ public class Universe {
     if (sm != null) {
       sm.checkPermission(SAVE_PERMISSION);
     }
-    if (theUniverse == null || Universe.VOID.equals(theUniverse)) {
+    Future<?> save;
+    synchronized (SAVE_MONITOR) {
+      awaitSave(saveInProgress);
+      save = startSave(safe);
+    }
+    if (save == null) {
       return false;
     }
-    if (theUniverseFile == null) {
-      return false; // maybe should throw an exception
+    try {
+      save.get();
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IOException("Failed to save universe", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted waiting for universe save", e);
     }
+    return true;
+  }
 
-    File saveFile = safe ?
-        Path.of(theUniverseFile.toPath().toString() + "." + System.currentTimeMillis()).toFile() :
-        theUniverseFile;
-    LOG.debug("Writing universe to {}", saveFile);
-    Universe.save(theUniverse, saveFile);
-
-    if (safe) {
-      try {
-        LOG.debug("Copying universe data from {} to {}", saveFile, theUniverseFile);
-        Files.copy(saveFile.toPath(), theUniverseFile.toPath(),
-                   StandardCopyOption.REPLACE_EXISTING);
-      } catch (IOException e) {
-        LOG.error("Failed to copy temporary universe file {}", saveFile);
+  /**
+   * Saves the current universe to its file, as
+   * {@link #saveCurrent(boolean)} does, but without waiting. The current
+   * universe is captured right away, which is cheap, and then written out
+   * on a background thread while the universe goes on changing. Only one
+   * save runs at a time, so nothing is done if a save is still running.
+   * Failures are logged.
+   *
+   * @param  safe true to sync new files to disk before the save takes effect
+   * @return true if a save was started; false if there is no current
+   *         universe, or it's the VOID universe, or if the current universe
+   *         has no file, or if a save is still running
+   * @throws IOException if the universe could not be captured
+   */
+  public static boolean saveCurrentInBackground(boolean safe) throws IOException {
+    SecurityManager sm = System.getSecurityManager();
+    if (sm != null) {
+      sm.checkPermission(SAVE_PERMISSION);
+    }
+    synchronized (SAVE_MONITOR) {
+      if (saveInProgress != null && !saveInProgress.isDone()) {
+        LOG.info("Universe save still running, not starting another");
         return false;
       }
-      try {
-        LOG.debug("Deleting {}", saveFile);
-        Files.delete(saveFile.toPath());
-      } catch (IOException e) {
-        LOG.warn("Failed to delete temporary universe file {}", saveFile);
-      }
+      return startSave(safe) != null;
     }
-    return true;
+  }
+
+  /**
+   * Waits for any save running in the background to finish.
+   */
+  public static void awaitSave() {
+    synchronized (SAVE_MONITOR) {
+      awaitSave(saveInProgress);
+    }
+  }
+
+  private static void awaitSave(Future<?> save) {
+    if (save == null) {
+      return;
+    }
+    try {
+      save.get();
+    } catch (ExecutionException e) { // NOPMD
+      // already logged by the save itself
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // callers hold SAVE_MONITOR
+  private static Future<?> startSave(boolean safe) throws IOException {
+    if (theUniverse == null || Universe.VOID.equals(theUniverse)) {
+      return null;
+    }
+    if (theUniverseFile == null) {
+      return null; // maybe should throw an exception
+    }
+    Callable<Void> write = theUniverse.captureSnapshot(theUniverseFile, safe);
+    if (saveExecutorService == null) {
+      saveExecutorService =
+          Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                                            .setDaemon(true)
+                                            .setNameFormat("universe-save")
+                                            .build());
+    }
+    saveInProgress = saveExecutorService.submit(write);
+    return saveInProgress;
   }
 
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
   /**
-   * Loads a universe from a file.
+   * Loads a universe from a file. The file may hold a segmented snapshot
+   * manifest or a binary snapshot, as written by
+   * {@link #saveCurrent(boolean)}, or the whole universe as JSON, as written
+   * by {@link #save(Universe,File)}. The format is detected from the start of
+   * the file.
    *
    * @param  f           file containing universe
    * @return             loaded universe
@@ -188,14 +311,24 @@ public class Universe {
    */
   public static Universe load(File f) throws IOException {
     try {
-      return OBJECT_MAPPER.readValue(f, Universe.class);
+      if (BinarySnapshot.isSnapshot(f)) {
+        return BinarySnapshot.load(f);
+      }
+      if (SegmentedSnapshot.isSnapshot(f)) {
+        return SegmentedSnapshot.load(f);
+      }
+      LoadTimer timer = new LoadTimer();
+      Universe universe = OBJECT_MAPPER.readValue(f, Universe.class);
+      timer.endPhase("parse and index");
+      LOG.info("Loaded universe from {}: {}", f, timer);
+      return universe;
     } catch (JsonProcessingException e) {
       throw new IOException("Failed to load universe", e);
     }
   }
 
   /**
-   * Saves a universe to a file.
+   * Saves a whole universe to a single file.
    *
    * @param  universe    universe to save
    * @param  f           file to save to
@@ -216,10 +349,22 @@ public class Universe {
 
   private final String name;
   private final Map<UUID, Thing> things;
+  private final TypeIndex typeIndex;
+  private final NameIndex nameIndex;
+  private final LinkIndex linkIndex;
+  private final PluginCommandIndex pluginCommandIndex;
+  private final ListenerIndex listenerIndex;
+  private final SegmentIndex segmentIndex;
+  private final Set<UUID> dirtyIds;
+  // Role sets are immutable, and are replaced on each change, so that they
+  // may be read without holding rolesMonitor.
   private final Map<UUID, Set<Role>> roles;
+  private final Object rolesMonitor = new Object();
   private UUID originId;
   private UUID lostAndFoundId;
   private UUID guestHomeId;
+  private volatile Journal journal;
+  private volatile SegmentedSnapshot.Manifest snapshotManifest;
 
   /**
    * Creates an empty universe. Whoa.
@@ -228,28 +373,36 @@ public class Universe {
    */
   public Universe(String name) {
     this.name = Objects.requireNonNull(name);
-    things = new HashMap<>();
-    roles = new HashMap<>();
+    things = new ConcurrentHashMap<>();
+    typeIndex = new TypeIndex();
+    nameIndex = new NameIndex();
+    linkIndex = new LinkIndex();
+    pluginCommandIndex = new PluginCommandIndex();
+    listenerIndex = new ListenerIndex();
+    segmentIndex = new SegmentIndex();
+    dirtyIds = ConcurrentHashMap.newKeySet();
+    roles = new ConcurrentHashMap<>();
 
     buildSpecialPlaces();
   }
 
   private void buildSpecialPlaces() {
     Place origin = new Place("ORIGIN");
-    things.put(origin.getId(), origin);
+    addThing(origin);
     originId = origin.getId();
 
     Place laf = new Place("LOST+FOUND");
-    things.put(laf.getId(), laf);
+    addThing(laf);
     lostAndFoundId = laf.getId();
 
     Place ghome = new Place("GUEST HOME");
-    things.put(ghome.getId(), ghome);
+    addThing(ghome);
     guestHomeId = ghome.getId();
   }
 
   /**
-   * Creates a populated universe.
+   * Creates a populated universe. The things are added and indexed in
+   * parallel.
    *
    * @param name name
    * @param things things in the universe
@@ -261,23 +414,35 @@ public class Universe {
   @JsonCreator
   public Universe(
       @JsonProperty("name") String name,
-      @JsonProperty("things") Set<Thing> things,
+      @JsonProperty("things") Collection<Thing> things,
       @JsonProperty("roleAssignments") Map<String, Set<Role>> roles,
       @JsonProperty("originId") String originId,
       @JsonProperty("lostAndFoundId") String lafId,
       @JsonProperty("guestHomeId") String ghId) {
     this.name = Objects.requireNonNull(name);
 
-    this.things = new HashMap<>();
+    this.things = new ConcurrentHashMap<>();
+    typeIndex = new TypeIndex();
+    nameIndex = new NameIndex();
+    linkIndex = new LinkIndex();
+    pluginCommandIndex = new PluginCommandIndex();
+    listenerIndex = new ListenerIndex();
+    segmentIndex = new SegmentIndex();
+    dirtyIds = ConcurrentHashMap.newKeySet();
     if (things != null) {
-      things.stream().forEach(thing -> this.things.put(thing.getId(), thing));
+      // Things and indexes are all concurrent, so a large universe is
+      // indexed across every core.
+      things.parallelStream().forEach(thing -> addThing(thing));
+      things.parallelStream()
+          .filter(thing -> thing instanceof Place)
+          .forEach(place -> ((Place) place).resolvePlayers(this));
     }
 
-    this.roles = new HashMap<>();
+    this.roles = new ConcurrentHashMap<>();
     if (roles != null) {
       roles.entrySet().stream()
           .forEach(entry -> this.roles.put(UUID.fromString(entry.getKey()),
-                                           entry.getValue()));
+                                           Sets.immutableEnumSet(entry.getValue())));
     }
 
     this.originId = UUID.fromString(originId);
@@ -306,17 +471,17 @@ public class Universe {
   }
 
   /**
-   * Gets all the things in this universe of a specific type.
+   * Gets all the things in this universe of a specific type. Things of
+   * subtypes are not included. The returned collection is an unmodifiable
+   * view that reflects later changes to the universe, so it is cheap to get
+   * and safe to iterate while things are added or removed.
    *
    * @param thingClass thing class
    * @return things
    */
   @JsonIgnore
   public <T extends Thing> Collection<T> getThings(Class<T> thingClass) {
-    return things.values().stream()
-        .filter(t -> thingClass.equals(t.getClass()))
-        .map(t -> thingClass.cast(t))
-        .collect(Collectors.toUnmodifiableSet());
+    return typeIndex.get(thingClass);
   }
 
   /**
@@ -337,7 +502,7 @@ public class Universe {
    * @return thing
    */
   public Optional<Thing> getThing(UUID id) {
-    return Optional.ofNullable(things.get(id));
+    return id != null ? Optional.ofNullable(things.get(id)) : Optional.empty();
   }
 
   /**
@@ -379,30 +544,18 @@ public class Universe {
    * @return thing
    */
   public <T extends Thing> Optional<T> getThingByName(String name, Class<T> thingClass) {
-    // This is currently quite expensive
-    try {
-      return things.values().stream()
-          .filter(t -> thingClass.isAssignableFrom(t.getClass()))
-          .filter(t -> t.getName().equals(name))
-          .findFirst()
-          .map(t -> thingClass.cast(t));
-    } catch (ClassCastException e) {
-      throw new IllegalArgumentException("Thing " + name + " not of expected type " +
-                                         thingClass.getName(), e);
-    }
+    return nameIndex.find(name, thingClass);
   }
 
   /**
-   * Finds all links connected to the given place.
+   * Finds all links connected to the given place. The returned collection is
+   * an unmodifiable view that reflects later changes to the universe.
    *
    * @param  place place
    * @return       links that connect to the place
    */
   public Collection<Link> findLinks(Place place) {
-    // this is inefficient
-    return getThings(Link.class).stream()
-        .filter(l -> l.linksTo(place))
-        .collect(Collectors.toUnmodifiableSet());
+    return linkIndex.get(place.getId());
   }
 
   /**
@@ -415,12 +568,34 @@ public class Universe {
    * @return             link between the two places
    */
   public Optional<Link> findLink(Place source, Place destination) {
-    // this is inefficient
-    return getThings(Link.class).stream()
-        .filter(l -> l.linksTo(source) && l.linksTo(destination))
+    return linkIndex.get(source.getId()).stream()
+        .filter(l -> l.getPlaceIds().contains(destination.getId()))
         .findFirst();
   }
 
+  /**
+   * Finds an extension that defines the given plugin command, like "$chat".
+   * If multiple extensions define the command, an arbitrary one is returned.
+   *
+   * @param  commandName plugin command name
+   * @return             extension defining the command
+   */
+  public Optional<Extension> findPluginCommandExtension(String commandName) {
+    return pluginCommandIndex.find(commandName);
+  }
+
+  /**
+   * Finds the extension listener attributes that want an event.
+   *
+   * @param  event event
+   * @return       listeners for event
+   */
+  List<ListenerIndex.Listener> findListeners(Event<?> event) {
+    Thing location = event.getLocation();
+    return listenerIndex.find(event.getClass().getSimpleName(),
+                              location != null ? location.getId() : null);
+  }
+
   /**
    * Adds a thing to this universe.
    *
@@ -429,7 +604,29 @@ public class Universe {
    */
   public void addThing(Thing thing) {
     Objects.requireNonNull(thing);
-    things.put(thing.getId(), thing);
+    Thing oldThing = things.put(thing.getId(), thing);
+    if (oldThing != null) {
+      unindex(oldThing);
+    }
+    thing.setUniverse(this);
+    typeIndex.add(thing);
+    nameIndex.add(thing, thing.getName());
+    if (thing instanceof Link) {
+      Link link = (Link) thing;
+      link.getPlaceIds().forEach(placeId -> linkIndex.add(link, placeId));
+    }
+    if (thing instanceof Extension) {
+      Extension extension = (Extension) thing;
+      extension.getPluginCommandNames()
+          .forEach(commandName -> pluginCommandIndex.add(extension, commandName));
+      listenerIndex.add(extension);
+    }
+    segmentIndex.add(thing);
+    dirtyIds.add(thing.getId());
+    Journal j = journal;
+    if (j != null) {
+      j.addThing(thing);
+    }
   }
 
   /**
@@ -439,10 +636,275 @@ public class Universe {
    */
   public void removeThing(Thing thing) {
     if (thing != null) {
-      things.remove(thing.getId());
+      Thing oldThing = things.remove(thing.getId());
+      if (oldThing != null) {
+        unindex(oldThing);
+        dirtyIds.add(oldThing.getId());
+        Journal j = journal;
+        if (j != null) {
+          j.removeThing(oldThing.getId());
+        }
+      }
+    }
+  }
+
+  private void unindex(Thing thing) {
+    typeIndex.remove(thing);
+    nameIndex.remove(thing, thing.getName());
+    if (thing instanceof Link) {
+      Link link = (Link) thing;
+      link.getPlaceIds().forEach(placeId -> linkIndex.remove(link, placeId));
+    }
+    if (thing instanceof Extension) {
+      Extension extension = (Extension) thing;
+      extension.getPluginCommandNames()
+          .forEach(commandName -> pluginCommandIndex.remove(extension, commandName));
+      listenerIndex.remove(extension);
+      extension.removeListenerBatchers();
+    }
+    segmentIndex.remove(thing);
+    if (thing.getUniverse() == this) {
+      thing.setUniverse(null);
+    }
+  }
+
+  /**
+   * Updates this universe's indexes and journal after an attribute of one of
+   * its things changes, and marks the thing as needing to be saved. Things
+   * call this themselves whenever their attributes change.
+   *
+   * @param thing    thing whose attribute changed
+   * @param attrName attribute name
+   * @param oldAttr  old attribute (null if newly added)
+   * @param newAttr  new attribute (null if removed)
+   */
+  void attrChanged(Thing thing, String attrName, Attr oldAttr, Attr newAttr) {
+    if (things.get(thing.getId()) != thing) {
+      return;
+    }
+    dirtyIds.add(thing.getId());
+    Journal j = journal;
+    if (j != null) {
+      if (newAttr != null) {
+        j.setAttr(thing.getId(), newAttr);
+      } else {
+        j.removeAttr(thing.getId(), attrName);
+      }
+    }
+    if (AttrNames.NAME.equals(attrName)) {
+      if (oldAttr != null) {
+        nameIndex.remove(thing, oldAttr.getValue());
+      }
+      if (newAttr != null) {
+        nameIndex.add(thing, newAttr.getValue());
+      }
+    } else if (thing instanceof Link &&
+               (Link.SOURCE.equals(attrName) || Link.DESTINATION.equals(attrName))) {
+      // The other end of the link may still connect to the old place.
+      Link link = (Link) thing;
+      List<UUID> placeIds = link.getPlaceIds();
+      if (oldAttr != null) {
+        Link.getPlaceId(oldAttr)
+            .filter(placeId -> !placeIds.contains(placeId))
+            .ifPresent(placeId -> linkIndex.remove(link, placeId));
+      }
+      placeIds.forEach(placeId -> linkIndex.add(link, placeId));
+    } else if (thing instanceof Extension) {
+      Extension extension = (Extension) thing;
+      if (oldAttr != null && Extension.isPluginCommandAttr(oldAttr)) {
+        pluginCommandIndex.remove(extension, attrName);
+      }
+      if (newAttr != null && Extension.isPluginCommandAttr(newAttr)) {
+        pluginCommandIndex.add(extension, attrName);
+      }
+      if (AttrNames.LOCATION.equals(attrName)) {
+        // Localized listeners now listen somewhere else.
+        listenerIndex.add(extension);
+      } else if (oldAttr != null && Extension.isListenerAttr(oldAttr) ||
+                 newAttr != null && Extension.isListenerAttr(newAttr)) {
+        listenerIndex.refresh(extension, attrName);
+        extension.removeListenerBatcher(attrName);
+      }
+    }
+  }
+
+  /**
+   * Updates this universe's journal after the contents of one of its things
+   * change, and marks the thing as needing to be saved. Things call this
+   * themselves whenever their contents change.
+   *
+   * @param thing thing whose contents changed
+   * @param item  thing given or taken
+   * @param given true if given, false if taken
+   */
+  void contentsChanged(Thing thing, Thing item, boolean given) {
+    if (things.get(thing.getId()) != thing) {
+      return;
+    }
+    dirtyIds.add(thing.getId());
+    Journal j = journal;
+    if (j == null) {
+      return;
+    }
+    if (given) {
+      j.give(thing.getId(), item.getId());
+    } else {
+      j.take(thing.getId(), item.getId());
     }
   }
 
+  /**
+   * Updates this universe's journal after the policy of one of its things
+   * changes, and marks the thing as needing to be saved.
+   *
+   * @param thing thing whose policy changed
+   * @see Thing#policyChanged()
+   */
+  void policyChanged(Thing thing) {
+    if (things.get(thing.getId()) != thing) {
+      return;
+    }
+    dirtyIds.add(thing.getId());
+    Journal j = journal;
+    if (j != null) {
+      j.setPolicy(thing.getId(), thing.getPolicy());
+    }
+  }
+
+  /**
+   * Gets the things in one segment of this universe's snapshot.
+   *
+   * @param  segment segment number
+   * @return         things in segment
+   */
+  Set<Thing> getSegment(int segment) {
+    return segmentIndex.get(segment);
+  }
+
+  /**
+   * Records that this universe was just loaded from a segmented snapshot, so
+   * that the next save to the same file need only write what changes after
+   * now.
+   *
+   * @param manifest manifest of loaded snapshot, or null if the snapshot
+   *                 cannot be saved over incrementally
+   */
+  void snapshotLoaded(SegmentedSnapshot.Manifest manifest) {
+    dirtyIds.clear();
+    snapshotManifest = manifest;
+  }
+
+  /**
+   * Captures this universe for a save to a file, as a segmented snapshot.
+   * Only the segments holding things that changed since the last save to
+   * the same file are captured, unless the file is for a binary snapshot,
+   * in which case everything is. The journal, if any, is set aside. If the
+   * file is new, the journal is moved next to it only once the save has
+   * taken effect, so a failed save leaves it where it was. The returned
+   * callable writes out what was captured, and may be called on another
+   * thread.
+   *
+   * @param  f           universe file
+   * @param  sync        true to sync new files to disk before the save takes
+   *                     effect
+   * @return             callable that writes the snapshot
+   * @throws IOException if the journal cannot be set aside
+   */
+  private Callable<Void> captureSnapshot(File f, boolean sync) throws IOException {
+    Journal j = journal;
+    Path journalFile = Journal.getPath(f.toPath());
+    Path oldJournalFile = j != null ? j.getFile() : null;
+    boolean moveJournal = j != null && !oldJournalFile.equals(journalFile);
+    if (j != null) {
+      j.setAside();
+    }
+
+    // Things that change from here on are marked again, for the next save.
+    Set<UUID> changedIds = new HashSet<>();
+    for (Iterator<UUID> i = dirtyIds.iterator(); i.hasNext();) {
+      changedIds.add(i.next());
+      i.remove();
+    }
+    Set<Integer> dirtySegments = new HashSet<>();
+    changedIds.forEach(id -> dirtySegments.add(SegmentIndex.segmentOf(id)));
+
+    boolean binary = BinarySnapshot.shouldSave(f);
+    SegmentedSnapshot.Manifest previous = snapshotManifest;
+    if (binary || previous != null && !previous.getFile().equals(f)) {
+      previous = null;
+    }
+    SegmentedSnapshot.Capture capture =
+        SegmentedSnapshot.capture(this, previous, dirtySegments);
+    LOG.debug("Captured {} things for save to {}", capture.getThingCount(), f);
+
+    return () -> {
+      try {
+        if (moveJournal) {
+          // Whatever is there belongs to the snapshot about to be replaced.
+          Journal.delete(journalFile);
+        }
+        if (binary) {
+          BinarySnapshot.save(capture, f, sync);
+          snapshotManifest = null;
+        } else {
+          snapshotManifest = SegmentedSnapshot.save(capture, f, sync);
+        }
+      } catch (IOException | RuntimeException e) {
+        dirtyIds.addAll(changedIds);
+        LOG.error("Failed to save universe to {}", f, e);
+        throw e;
+      }
+      LOG.info("Saved universe to {}, {} changed things, {} things written", f,
+               changedIds.size(), capture.getThingCount());
+      if (moveJournal) {
+        // Records since the capture follow the new snapshot, and only then
+        // are the records it now holds discarded.
+        if (j.moveTo(journalFile)) {
+          Journal.delete(oldJournalFile);
+        }
+      } else if (j != null) {
+        j.discardSetAside();
+      }
+      return null;
+    };
+  }
+
+  /**
+   * Opens a journal for this universe, so that changes to it are written
+   * there. Any journal already open is closed first.
+   *
+   * @param  journalFile journal file
+   * @param  settings    journal settings
+   * @throws IOException if the journal cannot be opened
+   */
+  public void openJournal(Path journalFile, Journal.Settings settings)
+      throws IOException {
+    closeJournal();
+    journal = new Journal(journalFile, settings);
+    LOG.info("Journaling changes to {}", journalFile);
+  }
+
+  /**
+   * Closes this universe's journal, if it has one.
+   */
+  public void closeJournal() {
+    Journal j = journal;
+    journal = null;
+    if (j != null) {
+      j.close();
+    }
+  }
+
+  /**
+   * Gets this universe's journal.
+   *
+   * @return journal
+   */
+  @JsonIgnore
+  public Optional<Journal> getJournal() {
+    return Optional.ofNullable(journal);
+  }
+
   /**
    * Gets all the role assignments in this universe.
    *
@@ -460,7 +922,7 @@ public class Universe {
    * @return current roles
    */
   public Set<Role> getRoles(Player player) {
-    return Collections.unmodifiableSet(roles.getOrDefault(player.getId(), Collections.emptySet()));
+    return roles.getOrDefault(player.getId(), Collections.emptySet());
   }
 
   /**
@@ -483,11 +945,13 @@ public class Universe {
    * @return new set of current roles
    */
   public Set<Role> addRole(Role role, Player player) {
-    return roles.merge(player.getId(), EnumSet.of(role),
-                       (oldSet, newSet) -> {
-                          oldSet.addAll(newSet);
-                          return oldSet;
-                        });
+    synchronized (rolesMonitor) {
+      Set<Role> newRoles = roles.merge(player.getId(), Sets.immutableEnumSet(role),
+                                       (oldSet, newSet) ->
+                                           Sets.immutableEnumSet(Sets.union(oldSet, newSet)));
+      rolesChanged(player.getId(), newRoles);
+      return newRoles;
+    }
   }
 
   /**
@@ -498,11 +962,15 @@ public class Universe {
    * @return new set of current roles
    */
   public Set<Role> removeRole(Role role, Player player) {
-    return roles.computeIfPresent(player.getId(),
-                                  (key, oldSet) -> {
-                                    oldSet.remove(role);
-                                    return oldSet;
-                                  });
+    synchronized (rolesMonitor) {
+      Set<Role> newRoles = roles.computeIfPresent(player.getId(),
+                                                  (key, oldSet) -> Sets.immutableEnumSet(
+                                                      Sets.difference(oldSet, Set.of(role))));
+      if (newRoles != null) {
+        rolesChanged(player.getId(), newRoles);
+      }
+      return newRoles;
+    }
   }
 
   /**
@@ -511,7 +979,37 @@ public class Universe {
    * @param player player
    */
   public void removeAllRoles(Player player) {
-    roles.remove(player.getId());
+    synchronized (rolesMonitor) {
+      if (roles.remove(player.getId()) != null) {
+        rolesChanged(player.getId(), Set.of());
+      }
+    }
+  }
+
+  /**
+   * Replaces all player roles in this universe, as when replaying a journal.
+   *
+   * @param playerId player ID
+   * @param newRoles new roles
+   */
+  void setRoles(UUID playerId, Set<Role> newRoles) {
+    synchronized (rolesMonitor) {
+      if (newRoles.isEmpty()) {
+        roles.remove(playerId);
+      } else {
+        roles.put(playerId, Sets.immutableEnumSet(newRoles));
+      }
+      rolesChanged(playerId, newRoles);
+    }
+  }
+
+  // Called while holding rolesMonitor, so that role changes are journaled in
+  // the order they were made.
+  private void rolesChanged(UUID playerId, Set<Role> newRoles) {
+    Journal j = journal;
+    if (j != null) {
+      j.setRoles(playerId, ImmutableSet.copyOf(newRoles));
+    }
   }
 
   /**
@@ -14,7 +14,9 @@ import xyz.deszaras.grounds.model.Universe;
 
 /**
  * This runnable saves the current universe, if possible. Instances of this
- * class live on the server's administrative queue.
+ * class live on the server's administrative queue. The universe is captured
+ * by a command, so that it is not changing, but written out in the
+ * background, so that commands need not wait for the disk.
  */
 public class AutosaveRunnable implements Runnable {
 
@@ -40,9 +42,10 @@ public class AutosaveRunnable implements Runnable {
     @Override
     protected Boolean executeImpl() {
       try {
-        Universe.saveCurrent(true);
-        LOG.info("Autosaved current universe");
-        return true;
+        if (Universe.saveCurrentInBackground(true)) {
+          LOG.info("Autosaving current universe");
+          return true;
+        }
       } catch (IOException e) {
         LOG.error("Failed to autosave current universe", e);
       }
@@ -2,11 +2,16 @@ package xyz.deszaras.grounds.server;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
+import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.converters.FileConverter;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
 import java.util.Properties;
 
+import xyz.deszaras.grounds.model.Journal;
+import xyz.deszaras.grounds.model.Universe;
+
 /**
  * The entry point for the application.
  */
@@ -15,7 +20,6 @@ public class Main {
   public static class Args {
     @Parameter(names = { "-p", "--properties" },
                description = "Server properties (for multi-user mode)",
-               required = true,
                converter = FileConverter.class)
     private File propertiesFile = null;
     @Parameter(names = { "-s", "--single-user" },
@@ -25,6 +29,11 @@ public class Main {
                description = "Universe to load (for multi-user mode)",
                converter = FileConverter.class)
     private File universeFile = null;
+    @Parameter(names = { "-c", "--convert" },
+               description = "Convert the universe to this file and exit " +
+                   "(a new file ending in .bin is binary)",
+               converter = FileConverter.class)
+    private File convertFile = null;
   }
 
   public static void main(String[] args) throws Exception {
@@ -34,6 +43,17 @@ public class Main {
         .build()
         .parse(args);
 
+    if (jcArgs.convertFile != null) {
+      if (jcArgs.universeFile == null) {
+        throw new ParameterException("A universe to convert is required");
+      }
+      convert(jcArgs.universeFile, jcArgs.convertFile);
+      return;
+    }
+    if (jcArgs.propertiesFile == null) {
+      throw new ParameterException("The following option is required: [-p | --properties]");
+    }
+
     Properties properties = new Properties();
     try (FileReader r = new FileReader(jcArgs.propertiesFile)) {
       properties.load(r);
@@ -47,4 +67,22 @@ public class Main {
       server.shutdownOnCommand();
     }
   }
+
+  /**
+   * Converts a universe from one file to another. The universe's journal,
+   * if any, is replayed first. The format of each file is detected as it
+   * is when loading and saving universes in the game.
+   *
+   * @param  fromFile    file to convert from
+   * @param  toFile      file to convert to
+   * @throws IOException if the universe cannot be loaded or saved
+   */
+  private static void convert(File fromFile, File toFile) throws IOException {
+    Universe universe = Universe.load(fromFile);
+    Journal.replay(Journal.getPath(fromFile.toPath()), universe);
+    Universe.setCurrent(universe);
+    Universe.setCurrentFile(toFile);
+    Universe.saveCurrent(true);
+    System.out.println("Converted universe from " + fromFile + " to " + toFile);
+  }
 }
@@ -1,10 +1,13 @@
 package xyz.deszaras.grounds.command;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 
 import xyz.deszaras.grounds.api.PluginCall;
+import xyz.deszaras.grounds.api.PluginCallExecutor;
 import xyz.deszaras.grounds.api.PluginCallable;
 import xyz.deszaras.grounds.api.PluginCallFactory;
 import xyz.deszaras.grounds.auth.Policy.Category;
@@ -23,7 +26,12 @@ import xyz.deszaras.grounds.model.Player;
  * for details on the necessary attribute structure.<p>
  *
  * A player may call a plugin if they pass the USE category on
- * the extension where the plugin call is defined.
+ * the extension where the plugin call is defined.<p>
+ *
+ * When submitted to the command executor, the plugin call runs on the plugin
+ * call executor, so that it does not hold up other commands. Any commands
+ * that the plugin runs through the API are submitted back to the command
+ * executor, so that they are applied in order with all other commands.
  */
 @PermittedRoles(roles = { Role.GUEST, Role.DENIZEN, Role.BARD, Role.ADEPT, Role.THAUMATURGE })
 public class PluginCallCommand extends Command<String> {
@@ -31,6 +39,7 @@ public class PluginCallCommand extends Command<String> {
   private final Extension pluginCallExtension;
   private final PluginCall pluginCall;
   private final List<String> pluginCallArguments;
+  private final PluginCallExecutor pluginCallExecutor;
 
   /**
    * Creates a new plugin call command.
@@ -39,23 +48,63 @@ public class PluginCallCommand extends Command<String> {
    * @param player              player executing the command
    * @param pluginCall          plugin call to execute
    * @param pluginCallArguments arguments to pass to the plugin call
+   * @param pluginCallExecutor  executor for plugin calls
    */
   public PluginCallCommand(Actor actor, Player player, PluginCall pluginCall,
-                           List<String> pluginCallArguments) {
+                           List<String> pluginCallArguments,
+                           PluginCallExecutor pluginCallExecutor) {
     super(actor, player);
     this.pluginCall = pluginCall;
     this.pluginCallExtension = pluginCall.getExtension();
     this.pluginCallArguments = ImmutableList.copyOf(pluginCallArguments);
+    this.pluginCallExecutor = pluginCallExecutor;
+  }
+
+  @Override
+  public ListenableFuture<String> executeAsync() {
+    try {
+      checkPermittedRoles();
+      checkUse();
+    } catch (CommandException e) {
+      return Futures.immediateFailedFuture(e);
+    }
+
+    return pluginCallExecutor.submit(new PluginCallable(actor, player, pluginCall,
+                                                        pluginCallArguments, true));
   }
 
   @Override
   protected String executeImpl() throws CommandException {
+    checkUse();
+
+    return pluginCallExecutor.call(new PluginCallable(actor, player, pluginCall,
+                                                      pluginCallArguments));
+  }
 
+  /**
+   * Runs this plugin call on the current thread, for a plugin running on the
+   * plugin call executor that calls another plugin through the API. The
+   * current thread is then the API server worker handling that request.
+   * Waiting for the executor to run the nested call instead could leave
+   * every executor thread waiting on a call queued behind it. As for any call on
+   * the executor, commands that the nested plugin runs through the API are
+   * submitted to the command executor.
+   *
+   * @return result of plugin call
+   * @throws CommandException if the plugin call fails
+   */
+  public String executeNested() throws CommandException {
+    checkPermittedRoles();
+    checkUse();
+
+    return pluginCallExecutor.call(new PluginCallable(actor, player, pluginCall,
+                                                      pluginCallArguments, true));
+  }
+
+  private void checkUse() throws PermissionException {
     if (!pluginCallExtension.passes(Category.USE, player)) {
       throw new PermissionException("Permission denied");
     }
-
-    return new PluginCallable(actor, player, pluginCall, pluginCallArguments).call();
   }
 
   /**
@@ -67,13 +116,16 @@ public class PluginCallCommand extends Command<String> {
    * @param player              player currently assumed by the actor
    * @param pluginCall          plugin call to execute
    * @param pluginCallArguments unresolved plugin call arguments
+   * @param pluginCallExecutor  executor for plugin calls
    * @return plugin call command
    * @throws CommandFactoryException if the command cannot be built
    */
   public static PluginCallCommand newCommand(Actor actor, Player player,
                                              PluginCall pluginCall,
-                                             List<String> pluginCallArguments)
+                                             List<String> pluginCallArguments,
+                                             PluginCallExecutor pluginCallExecutor)
       throws CommandFactoryException {
-    return new PluginCallCommand(actor, player, pluginCall, pluginCallArguments);
+    return new PluginCallCommand(actor, player, pluginCall, pluginCallArguments,
+                                 pluginCallExecutor);
   }
 }
@@ -0,0 +1,58 @@
+package xyz.deszaras.grounds.server;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import xyz.deszaras.grounds.api.PluginCallMetrics;
+
+/**
+ * This runnable writes a snapshot of plugin call metrics to a file, as JSON
+ * if the file name ends with ".json", or as text tables otherwise. The
+ * snapshot is written to a temporary file first and then moved into place,
+ * so a reader never sees a partial snapshot. Instances of this class live on
+ * the server's administrative queue.
+ */
+public class PluginStatsRunnable implements Runnable {
+
+  private static final Logger LOG =
+      LoggerFactory.getLogger(PluginStatsRunnable.class);
+
+  private final PluginCallMetrics metrics;
+  private final Path statsFile;
+
+  /**
+   * Creates a new runnable.
+   *
+   * @param metrics   plugin call metrics
+   * @param statsFile file to write snapshots to
+   */
+  public PluginStatsRunnable(PluginCallMetrics metrics, Path statsFile) {
+    this.metrics = metrics;
+    this.statsFile = statsFile;
+  }
+
+  @Override
+  public void run() {
+    try {
+      String snapshot;
+      if (statsFile.getFileName().toString().endsWith(".json")) {
+        snapshot = metrics.toJson();
+      } else {
+        snapshot = metrics.toText();
+      }
+      Path tempFile = statsFile.resolveSibling(statsFile.getFileName() + ".tmp");
+      Files.writeString(tempFile, snapshot, StandardCharsets.UTF_8);
+      Files.move(tempFile, statsFile, StandardCopyOption.REPLACE_EXISTING,
+                 StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // Keep going, since the next snapshot may succeed.
+      LOG.error("Failed to write plugin call metrics to {}", statsFile, e);
+    }
+  }
+}
@@ -37,9 +37,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import xyz.deszaras.grounds.api.ApiServer;
+import xyz.deszaras.grounds.api.PluginCallExecutor;
 import xyz.deszaras.grounds.command.Actor;
 import xyz.deszaras.grounds.command.CommandExecutor;
 import xyz.deszaras.grounds.command.LoadCommand;
+import xyz.deszaras.grounds.model.Journal;
 import xyz.deszaras.grounds.model.Player;
 import xyz.deszaras.grounds.model.Universe;
 
@@ -59,7 +61,21 @@ public class Server {
   private static final Logger LOG = LoggerFactory.getLogger(Server.class);
 
   public static final String DEFAULT_ADMIN_THREAD_COUNT = "2";
+  public static final String DEFAULT_API_WORKER_THREAD_COUNT =
+      Integer.toString(ApiServer.DEFAULT_WORKER_THREAD_COUNT);
   public static final String DEFAULT_AUTOSAVE_PERIOD_SECONDS = "300";
+  public static final String DEFAULT_COMMAND_THREAD_COUNT = "1";
+  public static final String DEFAULT_JOURNAL_SYNC_MILLIS =
+      Long.toString(Journal.DEFAULT_SYNC_MILLIS);
+  public static final String DEFAULT_JOURNAL_COMPACT_BYTES =
+      Long.toString(Journal.DEFAULT_COMPACT_BYTES);
+  public static final String DEFAULT_PLUGIN_CALL_THREAD_COUNT =
+      Integer.toString(PluginCallExecutor.DEFAULT_THREAD_COUNT);
+  public static final String DEFAULT_PLUGIN_CALL_QUEUE_SIZE =
+      Integer.toString(PluginCallExecutor.DEFAULT_QUEUE_SIZE);
+  public static final String DEFAULT_PLUGIN_CALL_TIMEOUT_SECONDS =
+      Long.toString(PluginCallExecutor.DEFAULT_TIMEOUT_MILLIS / 1000L);
+  public static final String DEFAULT_PLUGIN_STATS_PERIOD_SECONDS = "60";
 
   private final ExecutorService shellExecutorService;
   private final String loginBannerContent;
@@ -67,12 +83,18 @@ public class Server {
 
   private final ScheduledExecutorService adminExecutorService;
   private final long autosavePeriodSeconds;
+  private final int commandThreadCount;
+  private final long journalSyncMillis;
+  private final long journalCompactBytes;
   private final Multimap<Actor, Shell> openShells;
 
   private final Set<Protocol> protocols;
   private final ApiServer apiServer;
+  private final Path pluginStatsFile;
+  private final long pluginStatsPeriodSeconds;
 
   private ScheduledFuture<?> autosaveFuture;
+  private ScheduledFuture<?> pluginStatsFuture;
 
   /**
    * Creates a new server.
@@ -101,13 +123,29 @@ public class Server {
     autosavePeriodSeconds = Long.parseLong(
         serverProperties.getProperty("autosavePeriodSeconds",
                                      DEFAULT_AUTOSAVE_PERIOD_SECONDS));
+    commandThreadCount = Integer.parseInt(
+        serverProperties.getProperty("commandThreadCount",
+                                     DEFAULT_COMMAND_THREAD_COUNT));
+    journalSyncMillis = Long.parseLong(
+        serverProperties.getProperty("journalSyncMillis",
+                                     DEFAULT_JOURNAL_SYNC_MILLIS));
+    journalCompactBytes = Long.parseLong(
+        serverProperties.getProperty("journalCompactBytes",
+                                     DEFAULT_JOURNAL_COMPACT_BYTES));
 
     openShells = Multimaps.synchronizedSetMultimap(HashMultimap.create());
 
     autosaveFuture = null;
+    pluginStatsFuture = null;
 
     protocols = createProtocols(serverProperties);
     apiServer = createApiServer(serverProperties);
+    String pluginStatsFileProperty = serverProperties.getProperty("pluginStatsFile");
+    pluginStatsFile = pluginStatsFileProperty != null ?
+        FileSystems.getDefault().getPath(pluginStatsFileProperty) : null;
+    pluginStatsPeriodSeconds = Long.parseLong(
+        serverProperties.getProperty("pluginStatsPeriodSeconds",
+                                     DEFAULT_PLUGIN_STATS_PERIOD_SECONDS));
   }
 
   private String readLoginBannerContent(Properties serverProperties) throws IOException {
@@ -158,7 +196,26 @@ public class Server {
     }
 
     Path apiSocketPath = FileSystems.getDefault().getPath(apiSocketFile);
-    return new ApiServer(apiSocketPath);
+    PluginCallExecutor pluginCallExecutor = new PluginCallExecutor(
+        Integer.parseInt(serverProperties.getProperty("pluginCallThreadCount",
+                                                      DEFAULT_PLUGIN_CALL_THREAD_COUNT)),
+        Integer.parseInt(serverProperties.getProperty("pluginCallQueueSize",
+                                                      DEFAULT_PLUGIN_CALL_QUEUE_SIZE)),
+        Long.parseLong(serverProperties.getProperty("pluginCallTimeoutSeconds",
+                                                    DEFAULT_PLUGIN_CALL_TIMEOUT_SECONDS)) * 1000L);
+    int apiWorkerThreadCount =
+        Integer.parseInt(serverProperties.getProperty("apiWorkerThreadCount",
+                                                      DEFAULT_API_WORKER_THREAD_COUNT));
+    return new ApiServer(apiSocketPath, pluginCallExecutor, apiWorkerThreadCount);
+  }
+
+  /**
+   * Gets the API server, if it is enabled.
+   *
+   * @return API server
+   */
+  public Optional<ApiServer> getApiServer() {
+    return Optional.ofNullable(apiServer);
   }
 
   /**
@@ -293,7 +350,16 @@ public class Server {
    * @throws IOException if the server fails to start
    */
   public void start(File universeFile) throws IOException {
-    CommandExecutor.create(apiServer, this);
+    CommandExecutor.create(apiServer, this, commandThreadCount);
+
+    if (journalSyncMillis >= 0L) {
+      // Compaction is a save, so it runs like any other autosave.
+      Universe.setJournalSettings(new Journal.Settings(
+          journalSyncMillis, Math.max(journalCompactBytes, 0L),
+          new AutosaveRunnable(CommandExecutor.getInstance())));
+    } else {
+      LOG.warn("Journaling disabled");
+    }
 
     if (universeFile != null) {
       CommandExecutor.getInstance()
@@ -316,11 +382,18 @@ public class Server {
     }
     if (apiServer != null) {
       apiServer.start();
+      if (pluginStatsFile != null && pluginStatsPeriodSeconds > 0L) {
+        pluginStatsFuture = adminExecutorService.scheduleAtFixedRate(
+            new PluginStatsRunnable(apiServer.getPluginCallExecutor().getMetrics(),
+                                    pluginStatsFile),
+            pluginStatsPeriodSeconds, pluginStatsPeriodSeconds, TimeUnit.SECONDS);
+      }
     }
   }
 
 
   private static final long TIMEOUT_ADMIN_EXECUTOR_SERVICE = 10L;
+  private static final long TIMEOUT_COMMAND_EXECUTOR = 30L;
 
   /**
    * Stops the server, including all enabled protocols.
@@ -341,11 +414,26 @@ public class Server {
     if (autosaveFuture != null) {
       autosaveFuture.cancel(false);
     }
+    if (pluginStatsFuture != null) {
+      pluginStatsFuture.cancel(false);
+    }
     adminExecutorService.shutdown();
     adminExecutorService.awaitTermination(TIMEOUT_ADMIN_EXECUTOR_SERVICE,
                                           TimeUnit.SECONDS);
 
+    // Let queued commands, including a final autosave, finish before the
+    // journal is closed.
     CommandExecutor.getInstance().shutdown();
+    if (!CommandExecutor.getInstance().awaitTermination(TIMEOUT_COMMAND_EXECUTOR,
+                                                        TimeUnit.SECONDS)) {
+      LOG.warn("Commands were still running after {} seconds; their changes " +
+               "may not be journaled", TIMEOUT_COMMAND_EXECUTOR);
+    }
+    Universe.awaitSave();
+    Universe universe = Universe.getCurrent();
+    if (universe != null) {
+      universe.closeJournal();
+    }
     LOG.info("Shutdown complete");
   }
 
@@ -0,0 +1,133 @@
+package xyz.deszaras.grounds.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ApiConnectionTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private TestByteChannel channel;
+  private ApiConnection connection;
+
+  private static String request(String id) throws Exception {
+    return OBJECT_MAPPER.writeValueAsString(
+        new JsonRpcRequest("ping", ImmutableMap.of("big", "x".repeat(100)), id));
+  }
+
+  private void readAll() throws Exception {
+    ByteBuffer readBuffer = ByteBuffer.allocate(16);
+    int read = connection.read(readBuffer);
+    while (read >= 0) {
+      read = connection.read(readBuffer);
+    }
+  }
+
+  private List<JsonNode> takeRequests() {
+    List<JsonNode> requests = new ArrayList<>();
+    JsonNode request = connection.startNextRequest();
+    while (request != null) {
+      requests.add(request);
+      connection.finishRequest(null);
+      request = connection.startNextRequest();
+    }
+    return requests;
+  }
+
+  @Test
+  public void testRequestsInPieces() throws Exception {
+    channel = new TestByteChannel(request("1") + request("2") + "\n  " + request("3"));
+    // Requests arrive in pieces that straddle request boundaries.
+    channel.setMaxReadSize(7);
+    connection = new ApiConnection(channel);
+
+    readAll();
+
+    List<JsonNode> requests = takeRequests();
+    assertEquals(3, requests.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Integer.toString(i + 1), requests.get(i).get("id").asText());
+    }
+    assertTrue(connection.isDone());
+  }
+
+  @Test
+  public void testLargeRequest() throws Exception {
+    String bigValue = "x".repeat(100000);
+    channel = new TestByteChannel(OBJECT_MAPPER.writeValueAsString(
+        new JsonRpcRequest("ping", ImmutableMap.of("big", bigValue), "1")));
+    connection = new ApiConnection(channel);
+
+    readAll();
+
+    List<JsonNode> requests = takeRequests();
+    assertEquals(1, requests.size());
+    assertEquals(bigValue, requests.get(0).get("params").get("big").asText());
+  }
+
+  @Test
+  public void testOneRequestAtATime() throws Exception {
+    channel = new TestByteChannel(request("1") + request("2"));
+    connection = new ApiConnection(channel);
+    readAll();
+
+    assertEquals("1", connection.startNextRequest().get("id").asText());
+    assertNull(connection.startNextRequest());
+    connection.finishRequest("one".getBytes(StandardCharsets.UTF_8));
+    assertEquals("2", connection.startNextRequest().get("id").asText());
+    connection.finishRequest("two".getBytes(StandardCharsets.UTF_8));
+    assertFalse(connection.isDone());
+
+    assertTrue(connection.flush());
+    assertEquals("onetwo", channel.getStringOutput());
+    assertTrue(connection.isDone());
+  }
+
+  @Test
+  public void testInvalidJsonAfterValidRequest() throws Exception {
+    channel = new TestByteChannel(request("1") + "\npotato" + request("2"));
+    connection = new ApiConnection(channel);
+    readAll();
+
+    assertFalse(connection.wantsRead());
+    assertEquals(1, takeRequests().size());
+
+    // The parse error follows the responses to earlier requests.
+    assertTrue(connection.flush());
+    JsonRpcResponse res = OBJECT_MAPPER.readValue(channel.getOutput(),
+                                                  JsonRpcResponse.class);
+    assertEquals(JsonRpcErrorCodes.PARSE_ERROR, res.getError().getCode());
+    assertTrue(connection.isDone());
+  }
+
+  @Test
+  public void testBackPressure() throws Exception {
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < ApiConnection.MAX_PENDING_REQUESTS; i++) {
+      content.append(request(Integer.toString(i)));
+    }
+    channel = new TestByteChannel(content.toString());
+    connection = new ApiConnection(channel);
+    ByteBuffer readBuffer = ByteBuffer.allocate(content.length());
+
+    connection.read(readBuffer);
+    assertFalse(connection.wantsRead());
+
+    connection.startNextRequest();
+    connection.finishRequest(null);
+    assertTrue(connection.wantsRead());
+  }
+}
@@ -1,7 +1,6 @@
 package xyz.deszaras.grounds.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -9,6 +8,8 @@ import static org.mockito.Mockito.when;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -22,7 +23,6 @@ import xyz.deszaras.grounds.command.CommandExecutor;
 import xyz.deszaras.grounds.model.Extension;
 import xyz.deszaras.grounds.model.Player;
 
-@SuppressWarnings("PMD.TooManyStaticImports")
 public class ApiHandlerTest {
 
   private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
@@ -30,10 +30,11 @@ public class ApiHandlerTest {
   private static final String REQUEST_ID = "rid1";
   private static final String PLUGIN_CALL_ID = "pcid1";
 
-  private TestByteChannel channel;
   private PluginCallTracker pluginCallTracker;
   private ApiMethodFactory apiMethodFactory;
   private CommandExecutor commandExecutor;
+  private PluginCallMetrics metrics;
+  private PluginCallTracker.PluginCallInfo callInfo;
 
   private Actor actor;
   private Player caller;
@@ -47,11 +48,16 @@ public class ApiHandlerTest {
     actor = mock(Actor.class);
     caller = mock(Player.class);
     extension = mock(Extension.class);
-    pluginCallTracker.track(PLUGIN_CALL_ID,
-                            new PluginCallTracker.PluginCallInfo(actor, caller, extension));
+    callInfo = new PluginCallTracker.PluginCallInfo(actor, caller, extension);
+    pluginCallTracker.track(PLUGIN_CALL_ID, callInfo);
 
     apiMethodFactory = mock(ApiMethodFactory.class);
     commandExecutor = mock(CommandExecutor.class);
+
+    metrics = new PluginCallMetrics();
+
+    handler = new ApiHandler(pluginCallTracker, apiMethodFactory, commandExecutor,
+                             metrics, PluginCallExecutor.DEFAULT_TIMEOUT_MILLIS);
   }
 
   private static class PingPongApiMethod implements ApiMethod {
@@ -66,24 +72,25 @@ public class ApiHandlerTest {
     }
   }
 
+  private JsonRpcResponse handle(JsonRpcRequest req) throws Exception {
+    byte[] responseBytes = handler.handle(OBJECT_MAPPER.valueToTree(req));
+    return OBJECT_MAPPER.readValue(responseBytes, JsonRpcResponse.class);
+  }
+
   @Test
+  @SuppressWarnings("unchecked")
   public void testSuccess() throws Exception {
     JsonRpcRequest req =
         new JsonRpcRequest("ping",
                            ImmutableMap.of(ApiRequestParameters.PLUGIN_CALL_ID,
                                            PLUGIN_CALL_ID),
                            REQUEST_ID);
-    channel = new TestByteChannel(OBJECT_MAPPER.writeValueAsString(req));
-    handler = new ApiHandler(channel, pluginCallTracker,
-                             apiMethodFactory, commandExecutor);
     PingPongApiMethod apiMethod = new PingPongApiMethod();
     when(apiMethodFactory.getApiMethod("ping"))
         .thenReturn(Optional.of(apiMethod));
 
-    handler.run();
+    JsonRpcResponse res = handle(req);
 
-    JsonRpcResponse res = OBJECT_MAPPER.readValue(channel.getOutput(),
-                                                  JsonRpcResponse.class);
     assertEquals("pong", res.getResult());
     assertNull(res.getError());
     assertEquals(REQUEST_ID, apiMethod.request.getId());
@@ -97,21 +104,21 @@ public class ApiHandlerTest {
     assertEquals(caller, apiMethod.ctx.getCaller());
     assertEquals(commandExecutor, apiMethod.ctx.getCommandExecutor());
 
-    assertFalse(channel.isOpen());
+    assertEquals(1, callInfo.getApiCallCount());
+    Map<String, Object> apiMethods =
+        (Map<String, Object>) metrics.getSnapshot().get("apiMethods");
+    Map<String, Object> pingStats = (Map<String, Object>) apiMethods.get("ping");
+    assertEquals(1L, pingStats.get("calls"));
+    assertEquals(0L, pingStats.get("errors"));
   }
 
   @Test
-  public void testInvalidJson() throws Exception {
-    channel = new TestByteChannel("potato");
-    handler = new ApiHandler(channel, pluginCallTracker,
-                             apiMethodFactory, commandExecutor);
+  public void testInvalidRequest() throws Exception {
+    byte[] responseBytes = handler.handle(OBJECT_MAPPER.readTree("{\"potato\":1}"));
 
-    handler.run();
-
-    JsonRpcResponse res = OBJECT_MAPPER.readValue(channel.getOutput(),
-                                                  JsonRpcResponse.class);
+    JsonRpcResponse res = OBJECT_MAPPER.readValue(responseBytes, JsonRpcResponse.class);
     assertNull(res.getResult());
-    assertEquals(JsonRpcErrorCodes.PARSE_ERROR, res.getError().getCode());
+    assertEquals(JsonRpcErrorCodes.INVALID_REQUEST, res.getError().getCode());
   }
 
   @Test
@@ -121,14 +128,9 @@ public class ApiHandlerTest {
                            ImmutableMap.of(ApiRequestParameters.PLUGIN_CALL_ID,
                                            PLUGIN_CALL_ID),
                            null);
-    channel = new TestByteChannel(OBJECT_MAPPER.writeValueAsString(req));
-    handler = new ApiHandler(channel, pluginCallTracker,
-                             apiMethodFactory, commandExecutor);
 
-    handler.run();
+    JsonRpcResponse res = handle(req);
 
-    JsonRpcResponse res = OBJECT_MAPPER.readValue(channel.getOutput(),
-                                                  JsonRpcResponse.class);
     assertNull(res.getResult());
     assertEquals(JsonRpcErrorCodes.INVALID_REQUEST, res.getError().getCode());
     assertEquals(ApiHandler.ERROR_MISSING_JSON_RPC_ID, res.getError().getMessage());
@@ -140,14 +142,9 @@ public class ApiHandlerTest {
         new JsonRpcRequest("ping",
                            null,
                            REQUEST_ID);
-    channel = new TestByteChannel(OBJECT_MAPPER.writeValueAsString(req));
-    handler = new ApiHandler(channel, pluginCallTracker,
-                             apiMethodFactory, commandExecutor);
 
-    handler.run();
+    JsonRpcResponse res = handle(req);
 
-    JsonRpcResponse res = OBJECT_MAPPER.readValue(channel.getOutput(),
-                                                  JsonRpcResponse.class);
     assertNull(res.getResult());
     assertEquals(JsonRpcErrorCodes.INVALID_PARAMETERS, res.getError().getCode());
     assertEquals(ApiHandler.ERROR_MISSING_PLUGIN_CALL_ID, res.getError().getMessage());
@@ -161,14 +158,9 @@ public class ApiHandlerTest {
                            ImmutableMap.of(ApiRequestParameters.PLUGIN_CALL_ID,
                                            PLUGIN_CALL_ID + "xxx"),
                            REQUEST_ID);
-    channel = new TestByteChannel(OBJECT_MAPPER.writeValueAsString(req));
-    handler = new ApiHandler(channel, pluginCallTracker,
-                             apiMethodFactory, commandExecutor);
 
-    handler.run();
+    JsonRpcResponse res = handle(req);
 
-    JsonRpcResponse res = OBJECT_MAPPER.readValue(channel.getOutput(),
-                                                  JsonRpcResponse.class);
     assertNull(res.getResult());
     assertEquals(JsonRpcErrorCodes.INVALID_PARAMETERS, res.getError().getCode());
     assertEquals(String.format(ApiHandler.ERROR_UNKNOWN_PLUGIN_CALL_ID_FORMAT, PLUGIN_CALL_ID + "xxx"),
@@ -183,20 +175,57 @@ public class ApiHandlerTest {
                            ImmutableMap.of(ApiRequestParameters.PLUGIN_CALL_ID,
                                            PLUGIN_CALL_ID),
                            REQUEST_ID);
-    channel = new TestByteChannel(OBJECT_MAPPER.writeValueAsString(req));
-    handler = new ApiHandler(channel, pluginCallTracker,
-                             apiMethodFactory, commandExecutor);
     when(apiMethodFactory.getApiMethod("ping"))
         .thenReturn(Optional.empty());
 
-    handler.run();
+    JsonRpcResponse res = handle(req);
 
-    JsonRpcResponse res = OBJECT_MAPPER.readValue(channel.getOutput(),
-                                                  JsonRpcResponse.class);
     assertNull(res.getResult());
     assertEquals(JsonRpcErrorCodes.METHOD_NOT_FOUND, res.getError().getCode());
     assertEquals(String.format(ApiHandler.ERROR_UNKNOWN_METHOD_FORMAT, "ping"),
                  res.getError().getMessage());
     assertEquals(REQUEST_ID, res.getId());
   }
+
+  @Test
+  public void testBatch() throws Exception {
+    List<JsonRpcRequest> batch = List.of(
+        new JsonRpcRequest("ping",
+                           ImmutableMap.of(ApiRequestParameters.PLUGIN_CALL_ID,
+                                           PLUGIN_CALL_ID),
+                           REQUEST_ID + 0),
+        new JsonRpcRequest("nope",
+                           ImmutableMap.of(ApiRequestParameters.PLUGIN_CALL_ID,
+                                           PLUGIN_CALL_ID),
+                           REQUEST_ID + 1),
+        new JsonRpcRequest("ping",
+                           ImmutableMap.of(ApiRequestParameters.PLUGIN_CALL_ID,
+                                           PLUGIN_CALL_ID),
+                           REQUEST_ID + 2));
+    when(apiMethodFactory.getApiMethod("ping"))
+        .thenReturn(Optional.of(new PingPongApiMethod()));
+    when(apiMethodFactory.getApiMethod("nope"))
+        .thenReturn(Optional.empty());
+
+    byte[] responseBytes = handler.handle(OBJECT_MAPPER.valueToTree(batch));
+
+    JsonRpcResponse[] responses = OBJECT_MAPPER.readValue(responseBytes,
+                                                          JsonRpcResponse[].class);
+    assertEquals(3, responses.length);
+    assertEquals("pong", responses[0].getResult());
+    assertEquals(REQUEST_ID + 0, responses[0].getId());
+    assertEquals(JsonRpcErrorCodes.METHOD_NOT_FOUND, responses[1].getError().getCode());
+    assertEquals(REQUEST_ID + 1, responses[1].getId());
+    assertEquals("pong", responses[2].getResult());
+    assertEquals(REQUEST_ID + 2, responses[2].getId());
+  }
+
+  @Test
+  public void testEmptyBatch() throws Exception {
+    byte[] responseBytes = handler.handle(OBJECT_MAPPER.readTree("[]"));
+
+    JsonRpcResponse res = OBJECT_MAPPER.readValue(responseBytes, JsonRpcResponse.class);
+    assertEquals(JsonRpcErrorCodes.INVALID_REQUEST, res.getError().getCode());
+    assertEquals(ApiHandler.ERROR_EMPTY_BATCH, res.getError().getMessage());
+  }
 }
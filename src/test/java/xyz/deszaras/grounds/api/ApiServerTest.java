@@ -0,0 +1,123 @@
+package xyz.deszaras.grounds.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ApiServerTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private static final int WORKER_THREAD_COUNT = 4;
+  private static final int CONNECTION_COUNT = 1000;
+
+  @TempDir
+  Path tempDir;
+
+  private UnixDomainSocketAddress socketAddress;
+  private ApiServer apiServer;
+  private List<SocketChannel> clients;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    Path socketPath = tempDir.resolve("api.sock");
+    socketAddress = UnixDomainSocketAddress.of(socketPath);
+    apiServer = new ApiServer(socketPath, new PluginCallExecutor(),
+                              WORKER_THREAD_COUNT, () -> null);
+    apiServer.start();
+    clients = new ArrayList<>();
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    for (SocketChannel client : clients) {
+      client.close();
+    }
+    apiServer.shutdown();
+  }
+
+  private static byte[] request(String id) throws Exception {
+    // The plugin call ID is unknown, so each request gets a quick error.
+    return OBJECT_MAPPER.writeValueAsBytes(
+        new JsonRpcRequest("getCallerName",
+                           ImmutableMap.of(ApiRequestParameters.PLUGIN_CALL_ID, "nope"),
+                           id));
+  }
+
+  @Test
+  @Timeout(value = 60, unit = TimeUnit.SECONDS)
+  public void testManyConnections() throws Exception {
+    int threadsBefore = Thread.activeCount();
+
+    // Open every connection, and pipeline two requests on each, before
+    // reading any responses.
+    for (int i = 0; i < CONNECTION_COUNT; i++) {
+      SocketChannel client = SocketChannel.open(StandardProtocolFamily.UNIX);
+      client.connect(socketAddress);
+      clients.add(client);
+    }
+    for (int i = 0; i < CONNECTION_COUNT; i++) {
+      ByteBuffer requests = ByteBuffer.wrap(
+          (new String(request(i + "a")) + new String(request(i + "b"))).getBytes());
+      while (requests.hasRemaining()) {
+        clients.get(i).write(requests);
+      }
+    }
+
+    for (int i = 0; i < CONNECTION_COUNT; i++) {
+      MappingIterator<JsonRpcResponse> responses =
+          OBJECT_MAPPER.readerFor(JsonRpcResponse.class)
+          .readValues(Channels.newInputStream(clients.get(i)));
+      for (String suffix : List.of("a", "b")) {
+        JsonRpcResponse response = responses.nextValue();
+        assertEquals(i + suffix, response.getId());
+        assertEquals(JsonRpcErrorCodes.INVALID_PARAMETERS, response.getError().getCode());
+      }
+    }
+
+    // No thread per connection: at most the workers have been started.
+    int threadsAdded = Thread.activeCount() - threadsBefore;
+    assertTrue(threadsAdded <= WORKER_THREAD_COUNT,
+               "API server started " + threadsAdded + " threads");
+  }
+
+  @Test
+  @Timeout(value = 60, unit = TimeUnit.SECONDS)
+  public void testConnectionClosedAfterInput() throws Exception {
+    SocketChannel client = SocketChannel.open(StandardProtocolFamily.UNIX);
+    client.connect(socketAddress);
+    clients.add(client);
+
+    ByteBuffer requestBuffer = ByteBuffer.wrap(request("1"));
+    while (requestBuffer.hasRemaining()) {
+      client.write(requestBuffer);
+    }
+    client.shutdownOutput();
+
+    // The response still arrives, followed by the end of the stream.
+    MappingIterator<JsonRpcResponse> responses =
+        OBJECT_MAPPER.readerFor(JsonRpcResponse.class)
+        .readValues(Channels.newInputStream(client));
+    assertEquals("1", responses.nextValue().getId());
+    assertEquals(-1, client.read(ByteBuffer.allocate(1)));
+  }
+}
@@ -0,0 +1,66 @@
+package xyz.deszaras.grounds.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+
+  private static final double DELTA = 1.0e-9;
+
+  private LatencyHistogram h;
+
+  @BeforeEach
+  public void setUp() {
+    h = new LatencyHistogram();
+  }
+
+  @Test
+  public void testEmpty() {
+    assertEquals(0L, h.getCount());
+    assertEquals(0.0, h.getMeanMillis(), DELTA);
+    assertEquals(0.0, h.getMaxMillis(), DELTA);
+    assertEquals(0.0, h.getPercentileMillis(99.0), DELTA);
+    assertEquals(Map.of(), h.getBucketCounts());
+  }
+
+  @Test
+  public void testRecord() {
+    // 90 fast latencies of 0.5 ms, 10 slow ones of 100 ms
+    for (int i = 0; i < 90; i++) {
+      h.record(500_000L);
+    }
+    for (int i = 0; i < 10; i++) {
+      h.record(100_000_000L);
+    }
+
+    assertEquals(100L, h.getCount());
+    assertEquals(10.45, h.getMeanMillis(), DELTA);
+    assertEquals(100.0, h.getMaxMillis(), DELTA);
+
+    // 500 us is under 512 us; 100000 us is capped by the maximum
+    assertEquals(0.512, h.getPercentileMillis(50.0), DELTA);
+    assertEquals(0.512, h.getPercentileMillis(90.0), DELTA);
+    assertEquals(100.0, h.getPercentileMillis(99.0), DELTA);
+    assertEquals(Map.of(0.512, 90L, 131.072, 10L), h.getBucketCounts());
+  }
+
+  @Test
+  public void testRecordExtremes() {
+    h.record(-5L);
+    h.record(Long.MAX_VALUE);
+
+    assertEquals(2L, h.getCount());
+    assertEquals(2, h.getBucketCounts().size());
+    assertEquals(0.001, h.getPercentileMillis(0.0), DELTA);
+  }
+
+  @Test
+  public void testInvalidPercentile() {
+    assertThrows(IllegalArgumentException.class, () -> h.getPercentileMillis(101.0));
+  }
+}
@@ -0,0 +1,170 @@
+package xyz.deszaras.grounds.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import xyz.deszaras.grounds.command.Actor;
+import xyz.deszaras.grounds.command.CommandException;
+import xyz.deszaras.grounds.model.Extension;
+import xyz.deszaras.grounds.model.Player;
+
+public class PluginCallExecutorTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private PluginCall call;
+  private PluginCallExecutor executor;
+
+  private static class TestPluginCallable extends PluginCallable {
+    private final Process process;
+
+    private TestPluginCallable(PluginCall call, Process process) {
+      super(new Actor("actor"), Player.GOD, call, List.of(), true);
+      this.process = process;
+    }
+
+    @Override
+    protected Process buildProcess(String path) {
+      return process;
+    }
+  }
+
+  /**
+   * A plugin process that produces no output until it is destroyed.
+   */
+  private static class HungInputStream extends InputStream {
+    private final CountDownLatch destroyed = new CountDownLatch(1);
+
+    @Override
+    public int read() {
+      try {
+        destroyed.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return -1;
+    }
+  }
+
+  @BeforeEach
+  public void setUp() {
+    call = new PluginCall(PluginCallTest.PLUGIN_PATH,
+                          PluginCallTest.PLUGIN_METHOD,
+                          PluginCallTest.PLUGIN_CALLER_ROLES,
+                          PluginCallTest.PLUGIN_HELP_BUNDLE,
+                          new Extension("pluginExtension"),
+                          new PluginCallTracker());
+    executor = new PluginCallExecutor(1, 1, 200L);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  private Process newProcess(String result) throws Exception {
+    Process process = mock(Process.class);
+    when(process.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    byte[] responseBytes =
+        OBJECT_MAPPER.writeValueAsBytes(new JsonRpcResponse(result, "xxx"));
+    when(process.getInputStream()).thenReturn(new ByteArrayInputStream(responseBytes));
+    when(process.waitFor()).thenReturn(0);
+    return process;
+  }
+
+  private Process newHungProcess() throws Exception {
+    Process process = mock(Process.class);
+    when(process.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    HungInputStream stdout = new HungInputStream();
+    when(process.getInputStream()).thenReturn(stdout);
+    when(process.destroyForcibly()).thenAnswer(invocation -> {
+        stdout.destroyed.countDown();
+        return process;
+      });
+    return process;
+  }
+
+  @Test
+  public void testSubmit() throws Exception {
+    ListenableFuture<String> future =
+        executor.submit(new TestPluginCallable(call, newProcess("OK")));
+
+    assertEquals("OK", future.get(10, TimeUnit.SECONDS));
+    assertEquals(1L, executor.getCompletedCount());
+    assertEquals(0L, executor.getTimedOutCount());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testCallMetrics() throws Exception {
+    assertEquals("OK", executor.call(new TestPluginCallable(call, newProcess("OK"))));
+    assertThrows(CommandException.class,
+                 () -> executor.call(new TestPluginCallable(call, newHungProcess())));
+
+    Map<String, Object> pluginCalls =
+        (Map<String, Object>) executor.getMetrics().getSnapshot().get("pluginCalls");
+    Map<String, Object> callStats = (Map<String, Object>) pluginCalls.get(call.toString());
+    assertEquals(2L, callStats.get("calls"));
+    assertEquals(0L, callStats.get("errors"));
+    assertEquals(1L, callStats.get("timeouts"));
+    assertEquals(0L, callStats.get("apiCalls"));
+
+    // Only the call that finished reached the exit phase.
+    Map<String, Object> phases = (Map<String, Object>) callStats.get("phases");
+    assertEquals(List.of("spawn", "write", "read", "exit"), List.copyOf(phases.keySet()));
+    assertEquals(2L, ((Map<String, Object>) phases.get("spawn")).get("count"));
+    assertEquals(1L, ((Map<String, Object>) phases.get("exit")).get("count"));
+  }
+
+  @Test
+  public void testCallTimesOut() throws Exception {
+    TestPluginCallable callable = new TestPluginCallable(call, newHungProcess());
+
+    CommandException e = assertThrows(CommandException.class,
+                                      () -> executor.call(callable));
+
+    Assertions.assertTrue(e.getMessage().contains("timed out"));
+    Assertions.assertTrue(callable.isTimedOut());
+    assertEquals(1L, executor.getTimedOutCount());
+  }
+
+  @Test
+  public void testSubmitRejectedWhenQueueFull() throws Exception {
+    ListenableFuture<String> running =
+        executor.submit(new TestPluginCallable(call, newHungProcess()));
+    ListenableFuture<String> queued =
+        executor.submit(new TestPluginCallable(call, newProcess("OK")));
+    ListenableFuture<String> rejected =
+        executor.submit(new TestPluginCallable(call, newProcess("OK")));
+
+    ExecutionException e = assertThrows(ExecutionException.class,
+                                        () -> rejected.get(10, TimeUnit.SECONDS));
+    Assertions.assertTrue(e.getCause() instanceof CommandException);
+    assertEquals(1L, executor.getRejectedCount());
+
+    // The hung call times out, and then the queued call runs.
+    assertThrows(ExecutionException.class, () -> running.get(10, TimeUnit.SECONDS));
+    assertEquals("OK", queued.get(10, TimeUnit.SECONDS));
+    assertEquals(0, executor.getQueueDepth());
+    assertEquals(2L, executor.getCompletedCount());
+  }
+}
@@ -1,19 +1,24 @@
 package xyz.deszaras.grounds.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import xyz.deszaras.grounds.auth.Policy;
 import xyz.deszaras.grounds.model.Attr;
 import xyz.deszaras.grounds.model.Extension;
 
+@SuppressWarnings("PMD.TooManyStaticImports")
 public class PluginCallFactoryTest {
 
   private Attr a;
@@ -54,6 +59,59 @@ public class PluginCallFactoryTest {
     assertEquals(0, helpBundle.keySet().size());
   }
 
+  @Test
+  public void testNewPluginCallPersistent() throws PluginCallFactoryException {
+    a = new Attr("$doit", List.of(
+      new Attr(PluginCallFactory.PATH, PluginCallTest.PLUGIN_PATH),
+      new Attr(PluginCallFactory.METHOD, PluginCallTest.PLUGIN_METHOD),
+      new Attr(PluginCallFactory.MODE, PluginCallFactory.MODE_PERSISTENT),
+      new Attr(PluginCallFactory.WORKERS, 3)
+    ));
+
+    call = pcf.newPluginCall(a, e, tracker);
+
+    assertTrue(call.isPersistent());
+    assertEquals(3, call.getMaxWorkers());
+  }
+
+  @Test
+  public void testNewPluginCallDefaultMode() throws PluginCallFactoryException {
+    a = new Attr("$doit", List.of(
+      new Attr(PluginCallFactory.PATH, PluginCallTest.PLUGIN_PATH),
+      new Attr(PluginCallFactory.METHOD, PluginCallTest.PLUGIN_METHOD)
+    ));
+
+    call = pcf.newPluginCall(a, e, tracker);
+
+    assertFalse(call.isPersistent());
+    assertEquals(PluginCallFactory.DEFAULT_WORKERS, call.getMaxWorkers());
+  }
+
+  @Test
+  public void testNewPluginCallInvalidMode() throws PluginCallFactoryException {
+    a = new Attr("$doit", List.of(
+      new Attr(PluginCallFactory.PATH, PluginCallTest.PLUGIN_PATH),
+      new Attr(PluginCallFactory.METHOD, PluginCallTest.PLUGIN_METHOD),
+      new Attr(PluginCallFactory.MODE, "daemon")
+    ));
+
+    assertThrows(PluginCallFactoryException.class,
+                 () -> pcf.newPluginCall(a, e, tracker));
+  }
+
+  @Test
+  public void testNewPluginCallInvalidWorkers() throws PluginCallFactoryException {
+    a = new Attr("$doit", List.of(
+      new Attr(PluginCallFactory.PATH, PluginCallTest.PLUGIN_PATH),
+      new Attr(PluginCallFactory.METHOD, PluginCallTest.PLUGIN_METHOD),
+      new Attr(PluginCallFactory.MODE, PluginCallFactory.MODE_PERSISTENT),
+      new Attr(PluginCallFactory.WORKERS, 0)
+    ));
+
+    assertThrows(PluginCallFactoryException.class,
+                 () -> pcf.newPluginCall(a, e, tracker));
+  }
+
   @Test
   public void testNewPluginCallNotAttrList() throws PluginCallFactoryException {
     a = new Attr("$doit", PluginCallTest.PLUGIN_METHOD);
@@ -142,4 +200,79 @@ public class PluginCallFactoryTest {
     assertEquals("$DOIT BRODIE", helpBundle.getString("$doit_brodie.syntax"));
     assertEquals("Would you like a pretzel?", helpBundle.getString("$doit_brodie.summary"));
   }
+
+  @Test
+  public void testGetPluginCallCached() throws PluginCallFactoryException {
+    e = new Extension("ext");
+    a = new Attr("$doit", List.of(
+      new Attr(PluginCallFactory.PATH, PluginCallTest.PLUGIN_PATH),
+      new Attr(PluginCallFactory.METHOD, PluginCallTest.PLUGIN_METHOD)
+    ));
+
+    call = pcf.getPluginCall(a, e, tracker);
+    assertTrue(call == pcf.getPluginCall(a, e, tracker));
+
+    // a new extension object, as after a reload, means a new call
+    Extension e2 = new Extension(e.getId(), e.getAttrs(), Set.of(), new Policy());
+    PluginCall call2 = pcf.getPluginCall(a, e2, tracker);
+    assertFalse(call == call2);
+    assertEquals(e2, call2.getExtension());
+
+    // an equal, but replaced, attribute means a new call
+    Attr a2 = new Attr("$doit", List.of(
+      new Attr(PluginCallFactory.PATH, PluginCallTest.PLUGIN_PATH),
+      new Attr(PluginCallFactory.METHOD, "other")
+    ));
+    PluginCall call3 = pcf.getPluginCall(a2, e2, tracker);
+    assertFalse(call2 == call3);
+    assertEquals("other", call3.getMethod());
+    assertTrue(call3 == pcf.getPluginCall(a2, e2, tracker));
+  }
+
+  @Test
+  public void testGetPluginCallCacheBounded() throws PluginCallFactoryException {
+    pcf = new PluginCallFactory(1L);
+    e = new Extension("ext");
+    a = new Attr("$doit", List.of(
+      new Attr(PluginCallFactory.PATH, PluginCallTest.PLUGIN_PATH),
+      new Attr(PluginCallFactory.METHOD, PluginCallTest.PLUGIN_METHOD)
+    ));
+    call = pcf.getPluginCall(a, e, tracker);
+
+    // a call for another extension, as after it is destroyed, evicts the first
+    Extension e2 = new Extension("ext2");
+    PluginCall call2 = pcf.getPluginCall(a, e2, tracker);
+    assertTrue(call2 == pcf.getPluginCall(a, e2, tracker));
+    assertFalse(call == pcf.getPluginCall(a, e, tracker));
+  }
+
+  @Test
+  public void testGetPluginCallNotCachedOnFailure() {
+    e = new Extension("ext");
+    a = new Attr("$doit", List.of(
+      new Attr(PluginCallFactory.METHOD, PluginCallTest.PLUGIN_METHOD)
+    ));
+
+    assertThrows(PluginCallFactoryException.class,
+                 () -> pcf.getPluginCall(a, e, tracker));
+    assertThrows(PluginCallFactoryException.class,
+                 () -> pcf.getPluginCall(a, e, tracker));
+  }
+
+  @Test
+  public void testHelpBundleLazy() {
+    int[] built = new int[1];
+    call = new PluginCall(PluginCallTest.PLUGIN_PATH, PluginCallTest.PLUGIN_METHOD,
+                          PluginCallTest.PLUGIN_CALLER_ROLES,
+                          () -> {
+                            built[0]++;
+                            return mock(ResourceBundle.class);
+                          },
+                          e, tracker, false, 1);
+    assertEquals(0, built[0]);
+
+    ResourceBundle helpBundle = call.getHelpBundle();
+    assertTrue(helpBundle == call.getHelpBundle());
+    assertEquals(1, built[0]);
+  }
 }
@@ -0,0 +1,70 @@
+package xyz.deszaras.grounds.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PluginCallMetricsTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private PluginCallMetrics metrics;
+
+  @BeforeEach
+  public void setUp() {
+    metrics = new PluginCallMetrics();
+    metrics.recordPluginCall("/bin/chat::say", 4_000_000L,
+                             PluginCallMetrics.Outcome.SUCCESS, 3,
+                             Map.of(PluginCallMetrics.Phase.SPAWN, 1_000_000L,
+                                    PluginCallMetrics.Phase.READ, 2_000_000L));
+    metrics.recordPluginCall("/bin/chat::say", 30_000_000L,
+                             PluginCallMetrics.Outcome.TIMEOUT, 1, Map.of());
+    metrics.recordPluginCall("/bin/chat::list", 2_000_000L,
+                             PluginCallMetrics.Outcome.ERROR, 0, Map.of());
+    metrics.recordApiCall("getCallerName", 50_000L, false);
+    metrics.recordApiCall("getCallerName", 70_000L, true);
+  }
+
+  @Test
+  public void testJson() throws Exception {
+    JsonNode snapshot = OBJECT_MAPPER.readTree(metrics.toJson());
+
+    JsonNode say = snapshot.get("pluginCalls").get("/bin/chat::say");
+    assertEquals(2, say.get("calls").asInt());
+    assertEquals(0, say.get("errors").asInt());
+    assertEquals(1, say.get("timeouts").asInt());
+    assertEquals(0.5, say.get("timeoutRate").asDouble());
+    assertEquals(4, say.get("apiCalls").asInt());
+    assertEquals(3, say.get("maxApiCallsPerCall").asInt());
+    assertEquals(30.0, say.get("latency").get("maxMs").asDouble());
+    assertEquals(1, say.get("phases").get("spawn").get("count").asInt());
+    assertEquals(1, say.get("phases").get("read").get("count").asInt());
+    assertTrue(say.get("phases").get("exit") == null);
+
+    JsonNode list = snapshot.get("pluginCalls").get("/bin/chat::list");
+    assertEquals(1.0, list.get("errorRate").asDouble());
+
+    JsonNode getCallerName = snapshot.get("apiMethods").get("getCallerName");
+    assertEquals(2, getCallerName.get("calls").asInt());
+    assertEquals(1, getCallerName.get("errors").asInt());
+  }
+
+  @Test
+  public void testText() {
+    String text = metrics.toText();
+
+    assertTrue(text.contains("/bin/chat::list"));
+    assertTrue(text.contains("/bin/chat::say"));
+    assertTrue(text.contains("spawn"));
+    assertTrue(text.contains("getCallerName"));
+    // /bin/chat::say made 2.0 API calls per call
+    assertTrue(text.contains("2.0"));
+  }
+}
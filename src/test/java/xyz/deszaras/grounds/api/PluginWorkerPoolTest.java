@@ -0,0 +1,145 @@
+package xyz.deszaras.grounds.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import xyz.deszaras.grounds.model.Extension;
+
+public class PluginWorkerPoolTest {
+
+  // A worker that answers every request line with a response echoing its ID,
+  // and reports the plugin mode it was started in as its result.
+  private static final String WORKER_SCRIPT =
+      "while read line; do " +
+      "id=$(printf '%s' \"$line\" | sed 's/.*\"id\":\"\\([^\"]*\\)\".*/\\1/'); " +
+      "printf '{\"jsonrpc\":\"2.0\",\"result\":\"%s\",\"id\":\"%s\"}\\n' " +
+      "\"$" + PluginWorkerPool.MODE_ENV + "\" \"$id\"; " +
+      "done";
+
+  private List<Process> processes;
+  private PluginWorkerPool pool;
+  private PluginCall call;
+
+  @BeforeEach
+  public void setUp() {
+    processes = new ArrayList<>();
+    pool = new PluginWorkerPool(5000L) {
+        @Override
+        protected Process startProcess(String path) throws IOException {
+          ProcessBuilder processBuilder = new ProcessBuilder("sh", "-c", WORKER_SCRIPT);
+          processBuilder.environment().put(MODE_ENV, PluginCallFactory.MODE_PERSISTENT);
+          Process process = processBuilder.start();
+          processes.add(process);
+          return process;
+        }
+      };
+    call = new PluginCall(PluginCallTest.PLUGIN_PATH,
+                          PluginCallTest.PLUGIN_METHOD,
+                          PluginCallTest.PLUGIN_CALLER_ROLES,
+                          PluginCallTest.PLUGIN_HELP_BUNDLE,
+                          new Extension("pluginExtension"),
+                          new PluginCallTracker(),
+                          true, 1);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    pool.shutdown();
+    processes.forEach(Process::destroyForcibly);
+  }
+
+  private JsonRpcResponse call() throws Exception {
+    JsonRpcRequest request = new JsonRpcRequest(PluginCallTest.PLUGIN_METHOD,
+                                                Map.of("_plugin_call_id", "abc"));
+    JsonRpcResponse response = pool.call(call, request, p -> { });
+    assertEquals(request.getId(), response.getId());
+    return response;
+  }
+
+  @Test
+  public void testCallsReuseWorker() throws Exception {
+    assertEquals(PluginCallFactory.MODE_PERSISTENT, call().getResult());
+    assertEquals(PluginCallFactory.MODE_PERSISTENT, call().getResult());
+    assertEquals(PluginCallFactory.MODE_PERSISTENT, call().getResult());
+
+    assertEquals(1, processes.size());
+  }
+
+  @Test
+  public void testCallsWithDifferentMaximumsShareWorkers() throws Exception {
+    PluginCall otherCall = new PluginCall(PluginCallTest.PLUGIN_PATH,
+                                          PluginCallTest.PLUGIN_METHOD,
+                                          PluginCallTest.PLUGIN_CALLER_ROLES,
+                                          PluginCallTest.PLUGIN_HELP_BUNDLE,
+                                          new Extension("otherExtension"),
+                                          new PluginCallTracker(),
+                                          true, 2);
+    JsonRpcRequest request = new JsonRpcRequest(PluginCallTest.PLUGIN_METHOD, Map.of());
+
+    for (int i = 0; i < 3; i++) {
+      call();
+      pool.call(otherCall, request, p -> { });
+    }
+
+    assertEquals(1, processes.size());
+    assertTrue(processes.get(0).isAlive());
+  }
+
+  @Test
+  public void testExitedWorkerRestarted() throws Exception {
+    call();
+    processes.get(0).destroyForcibly().waitFor();
+
+    call();
+
+    assertEquals(2, processes.size());
+  }
+
+  @Test
+  public void testProcessDetachedBeforeWorkerGivenBack() throws Exception {
+    JsonRpcRequest request = new JsonRpcRequest(PluginCallTest.PLUGIN_METHOD, Map.of());
+    List<Process> attached = new ArrayList<>();
+
+    pool.call(call, request, attached::add);
+
+    // The caller lets go of the process before another call can borrow it.
+    assertEquals(2, attached.size());
+    assertEquals(processes.get(0), attached.get(0));
+    assertNull(attached.get(1));
+  }
+
+  @Test
+  public void testCallFailsWhenWorkerDestroyed() throws Exception {
+    JsonRpcRequest request = new JsonRpcRequest(PluginCallTest.PLUGIN_METHOD, Map.of());
+
+    // Destroying the process, as a timeout does, fails the call.
+    assertThrows(IOException.class,
+                 () -> pool.call(call, request, p -> p.destroyForcibly()));
+
+    // The next call gets a new worker.
+    call();
+    assertEquals(2, processes.size());
+    assertTrue(processes.get(1).isAlive());
+  }
+
+  @Test
+  public void testShutdown() throws Exception {
+    call();
+    pool.shutdown();
+
+    assertTrue(processes.get(0).waitFor(5, TimeUnit.SECONDS));
+    assertThrows(IOException.class, () -> call());
+  }
+}
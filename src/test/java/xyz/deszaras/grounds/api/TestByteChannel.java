@@ -4,6 +4,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ByteChannel;
 import java.nio.channels.ClosedChannelException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * A byte channel for testing purposes.
@@ -13,6 +14,7 @@ public class TestByteChannel implements ByteChannel {
   private final ByteBuffer content;
   private final ByteBuffer output;
   private boolean closed;
+  private int maxReadSize;
 
   /**
    * Creates a new byte channel with the given content for reading. The content
@@ -45,6 +47,17 @@ public class TestByteChannel implements ByteChannel {
     this.content = content;
     output = ByteBuffer.allocate(outputCapacity);
     closed = false;
+    maxReadSize = Integer.MAX_VALUE;
+  }
+
+  /**
+   * Limits the number of bytes returned by each read, to simulate content
+   * arriving in pieces.
+   *
+   * @param  maxReadSize maximum bytes per read
+   */
+  public void setMaxReadSize(int maxReadSize) {
+    this.maxReadSize = maxReadSize;
   }
 
   @Override
@@ -55,7 +68,7 @@ public class TestByteChannel implements ByteChannel {
     if (!content.hasRemaining()) {
       return -1;
     }
-    int ct = Math.min(dst.remaining(), content.remaining());
+    int ct = Math.min(Math.min(dst.remaining(), content.remaining()), maxReadSize);
     for (int i = 0; i < ct; i++) {
       dst.put(content.get());
     }
@@ -88,7 +101,7 @@ public class TestByteChannel implements ByteChannel {
    * @return output
    */
   public byte[] getOutput() {
-    return output.array();
+    return Arrays.copyOf(output.array(), output.position());
   }
 
   /**
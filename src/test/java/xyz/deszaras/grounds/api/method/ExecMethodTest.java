@@ -2,7 +2,15 @@ package xyz.deszaras.grounds.api.method;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.List;
 import java.util.Map;
@@ -13,7 +21,11 @@ import org.junit.jupiter.api.Test;
 import xyz.deszaras.grounds.api.JsonRpcErrorCodes;
 import xyz.deszaras.grounds.api.JsonRpcRequest;
 import xyz.deszaras.grounds.api.JsonRpcResponse;
+import xyz.deszaras.grounds.command.Command;
+import xyz.deszaras.grounds.command.CommandResult;
+import xyz.deszaras.grounds.command.PluginCallCommand;
 
+@SuppressWarnings("PMD.TooManyStaticImports")
 public class ExecMethodTest extends ApiMethodTest {
 
   private ExecMethod method;
@@ -60,6 +72,64 @@ public class ExecMethodTest extends ApiMethodTest {
         .getCommand(actor, extension, commandLine);
   }
 
+  @Test
+  public void testCallAsync() throws Exception {
+    Command<Boolean> command = mockSuccessfulCommand(caller, true);
+    when(commandExecutor.submit(command))
+        .thenReturn(Futures.immediateFuture(new CommandResult<>(true, command)));
+    ctx = new ApiMethodContext(actor, caller, extension, commandExecutor, true);
+    List<String> commandLine = List.of("SAY", "hello");
+    request = new JsonRpcRequest("exec", Map.<String, Object>of(
+        "commandLine", commandLine
+    ));
+
+    response = method.call(request, ctx);
+
+    Object result = verifySuccessfulResult();
+    assertEquals("true", result);
+
+    verify(commandExecutor).submit(command);
+  }
+
+  @Test
+  public void testCallAsyncTimeout() throws Exception {
+    Command<Boolean> command = mockSuccessfulCommand(caller, true);
+    when(commandExecutor.submit(command)).thenReturn(SettableFuture.create());
+    ctx = new ApiMethodContext(actor, caller, extension, commandExecutor, true, 10L);
+    List<String> commandLine = List.of("SAY", "hello");
+    request = new JsonRpcRequest("exec", Map.<String, Object>of(
+        "commandLine", commandLine
+    ));
+
+    response = method.call(request, ctx);
+
+    JsonRpcResponse.ErrorObject error =
+        verifyError(JsonRpcErrorCodes.INTERNAL_ERROR);
+    assertTrue(error.getMessage().contains("Timed out"));
+  }
+
+  @Test
+  public void testCallAsyncNestedPluginCall() throws Exception {
+    PluginCallCommand command = mock(PluginCallCommand.class);
+    when(commandExecutor.getCommandFactory()
+         .getCommand(eq(actor), eq(caller), any(List.class)))
+        .thenReturn(command);
+    when(command.executeNested()).thenReturn("nested");
+    ctx = new ApiMethodContext(actor, caller, extension, commandExecutor, true);
+    List<String> commandLine = List.of("$plugin", "hello");
+    request = new JsonRpcRequest("exec", Map.<String, Object>of(
+        "commandLine", commandLine
+    ));
+
+    response = method.call(request, ctx);
+
+    Object result = verifySuccessfulResult();
+    assertEquals("nested", result);
+
+    verify(command).executeNested();
+    verify(commandExecutor, never()).submit(any());
+  }
+
   @Test
   public void testCallMissingCommandLine() throws Exception {
     request = new JsonRpcRequest("exec", Map.<String, Object>of());
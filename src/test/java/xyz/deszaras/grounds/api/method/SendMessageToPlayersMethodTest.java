@@ -0,0 +1,133 @@
+package xyz.deszaras.grounds.api.method;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import xyz.deszaras.grounds.api.JsonRpcErrorCodes;
+import xyz.deszaras.grounds.api.JsonRpcRequest;
+import xyz.deszaras.grounds.command.Actor;
+import xyz.deszaras.grounds.command.Message;
+import xyz.deszaras.grounds.model.AttrNames;
+import xyz.deszaras.grounds.model.Place;
+import xyz.deszaras.grounds.model.Player;
+
+@SuppressWarnings("PMD.TooManyStaticImports")
+public class SendMessageToPlayersMethodTest extends ApiMethodTest {
+
+  private SendMessageToPlayersMethod method;
+
+  private Player online;
+  private Player offline;
+  private Player muting;
+
+  @BeforeEach
+  public void setUp() {
+    super.setUp();
+
+    online = spy(new Player("online"));
+    online.setCurrentActor(new Actor("actor2"));
+    testUniverse.addThing(online);
+    offline = spy(new Player("offline"));
+    testUniverse.addThing(offline);
+    muting = spy(new Player("muting"));
+    muting.setCurrentActor(new Actor("actor3"));
+    muting.setAttr(AttrNames.MUTE, caller.getId().toString());
+    testUniverse.addThing(muting);
+
+    method = new SendMessageToPlayersMethod();
+  }
+
+  @Test
+  public void testCall() throws Exception {
+    request = new JsonRpcRequest("sendMessageToPlayers", Map.<String, Object>of(
+        "players", List.of("online", "offline", "muting", "nobody",
+                           online.getId().toString()),
+        "message", "Hello there",
+        "header", "NEWS"
+    ));
+
+    response = method.call(request, ctx);
+
+    Object result = verifySuccessfulResult();
+    assertEquals(Map.of("online", SendMessageToPlayersMethod.STATUS_SENT,
+                        "offline", SendMessageToPlayersMethod.STATUS_OFFLINE,
+                        "muting", SendMessageToPlayersMethod.STATUS_MUTED,
+                        "nobody", SendMessageToPlayersMethod.STATUS_NOT_FOUND,
+                        online.getId().toString(), SendMessageToPlayersMethod.STATUS_SENT),
+                 result);
+
+    // Named twice, but sent only once.
+    ArgumentCaptor<Message> msgCaptor = ArgumentCaptor.forClass(Message.class);
+    verify(online, times(1)).sendMessage(msgCaptor.capture());
+    Message msg = msgCaptor.getValue();
+    assertEquals(caller, msg.getSender());
+    assertEquals(Message.Style.SCRIPT, msg.getStyle());
+    assertEquals("NEWS\nHello there", msg.getMessage());
+
+    verify(offline, never()).sendMessage(Mockito.any(Message.class));
+    verify(muting, never()).sendMessage(Mockito.any(Message.class));
+  }
+
+  @Test
+  public void testCallNotPlayerId() throws Exception {
+    Place place = new Place("place");
+    testUniverse.addThing(place);
+    request = new JsonRpcRequest("sendMessageToPlayers", Map.<String, Object>of(
+        "players", List.of(place.getId().toString()),
+        "message", "Hello there"
+    ));
+
+    response = method.call(request, ctx);
+
+    Object result = verifySuccessfulResult();
+    assertEquals(Map.of(place.getId().toString(),
+                        SendMessageToPlayersMethod.STATUS_NOT_FOUND),
+                 result);
+  }
+
+  @Test
+  public void testCallInvalidTable() throws Exception {
+    request = new JsonRpcRequest("sendMessageToPlayers", Map.<String, Object>of(
+        "players", List.of("online"),
+        "table", Map.of("rows", List.of())
+    ));
+
+    response = method.call(request, ctx);
+
+    verifyError(JsonRpcErrorCodes.INVALID_PARAMETERS);
+    verify(online, never()).sendMessage(Mockito.any(Message.class));
+  }
+
+  @Test
+  public void testCallMissingPlayers() throws Exception {
+    request = new JsonRpcRequest("sendMessageToPlayers", Map.<String, Object>of(
+        "message", "Hello there"
+    ));
+
+    response = method.call(request, ctx);
+
+    verifyError(JsonRpcErrorCodes.INVALID_PARAMETERS);
+  }
+
+  @Test
+  public void testCallMissingContent() throws Exception {
+    request = new JsonRpcRequest("sendMessageToPlayers", Map.<String, Object>of(
+        "players", List.of("online")
+    ));
+
+    response = method.call(request, ctx);
+
+    verifyError(JsonRpcErrorCodes.INVALID_PARAMETERS);
+  }
+}
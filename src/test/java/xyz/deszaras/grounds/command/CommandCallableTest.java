@@ -11,6 +11,8 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.Set;
 
@@ -72,4 +74,42 @@ public class CommandCallableTest {
     verify(commandEventBus, never()).post(any(TestEvent.class));
   }
 
+  @Test
+  public void testCommandCallableAsync() throws Exception {
+    callable = new CommandCallable(command, commandExecutor);
+
+    SettableFuture<Boolean> executeFuture = SettableFuture.create();
+    when(command.executeAsync()).thenReturn(executeFuture);
+    Place place = new Place("there");
+    when(command.getEvents()).thenReturn(Set.of(new TestEvent(Player.GOD, place)));
+
+    ListenableFuture<CommandResult> resultFuture = callable.callAsync();
+
+    assertFalse(resultFuture.isDone());
+    verify(commandEventBus, never()).post(any(TestEvent.class));
+
+    executeFuture.set(true);
+
+    CommandResult result = resultFuture.get();
+    assertTrue(result.isSuccessful());
+    assertTrue((Boolean) result.getResult());
+    verify(commandEventBus).post(any(TestEvent.class));
+  }
+
+  @Test
+  public void testCommandCallableAsyncFailure() throws Exception {
+    callable = new CommandCallable(command, commandExecutor);
+
+    CommandException e = new CommandException();
+    SettableFuture<Boolean> executeFuture = SettableFuture.create();
+    when(command.executeAsync()).thenReturn(executeFuture);
+
+    ListenableFuture<CommandResult> resultFuture = callable.callAsync();
+    executeFuture.setException(e);
+
+    CommandResult result = resultFuture.get();
+    assertFalse(result.isSuccessful());
+    assertEquals(e, result.getCommandException().get());
+    verify(commandEventBus, never()).post(any(TestEvent.class));
+  }
 }
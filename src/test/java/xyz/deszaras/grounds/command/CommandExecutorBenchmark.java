@@ -0,0 +1,114 @@
+package xyz.deszaras.grounds.command;
+
+import com.google.common.eventbus.EventBus;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.deszaras.grounds.api.ApiServer;
+import xyz.deszaras.grounds.auth.Role;
+import xyz.deszaras.grounds.model.Place;
+import xyz.deszaras.grounds.model.Player;
+import xyz.deszaras.grounds.model.Thing;
+import xyz.deszaras.grounds.model.Universe;
+
+/**
+ * Load test for the command executor. Players spread across many places each
+ * submit a look and a say, and each operation waits for the whole batch to
+ * finish. The players are not connected, so messages to them are dropped.
+ * Compare throughput across thread counts on a machine with several cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CommandExecutorBenchmark {
+
+  @Param({ "1", "2", "4", "8" })
+  public int threadCount;
+
+  @Param({ "64" })
+  public int placeCount;
+
+  @Param({ "8" })
+  public int playersPerPlace;
+
+  private Actor actor;
+  private List<Player> players;
+  private CommandExecutor commandExecutor;
+
+  @Setup
+  public void setUp() {
+    Universe universe = new Universe("benchmark");
+    Universe.setCurrent(universe);
+
+    players = new ArrayList<>();
+    for (int i = 0; i < placeCount; i++) {
+      Place place = new Place("place" + i);
+      universe.addThing(place);
+      for (int j = 0; j < playersPerPlace; j++) {
+        Player player = new Player("player" + i + "_" + j);
+        universe.addThing(player);
+        universe.addRole(Role.DENIZEN, player);
+        place.give(player);
+        player.setLocation(place);
+        players.add(player);
+
+        Thing item = new Thing("item" + i + "_" + j);
+        universe.addThing(item);
+        place.give(item);
+        item.setLocation(place);
+      }
+    }
+
+    actor = new Actor("actor");
+
+    // The API server is never started.
+    ApiServer apiServer = new ApiServer(Path.of("benchmark.sock"));
+    CommandFactory commandFactory =
+        new CommandFactory(List.of(), Map.of(), apiServer, null);
+    commandExecutor = new CommandExecutor(commandFactory, new EventBus("benchmark"),
+                                          threadCount);
+  }
+
+  @TearDown
+  public void tearDown() {
+    commandExecutor.shutdown();
+  }
+
+  @Benchmark
+  public int submitBatch() throws ExecutionException, InterruptedException {
+    List<Future<? extends CommandResult<?>>> futures = new ArrayList<>(players.size() * 2);
+    for (Player player : players) {
+      futures.add(commandExecutor.submit(new LookCommand(actor, player)));
+      futures.add(commandExecutor.submit(new SayCommand(actor, player, "Hello!", false)));
+    }
+    int successes = 0;
+    for (Future<? extends CommandResult<?>> future : futures) {
+      if (future.get().isSuccessful()) {
+        successes++;
+      }
+    }
+    return successes;
+  }
+}
@@ -7,14 +7,22 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import xyz.deszaras.grounds.model.Place;
 import xyz.deszaras.grounds.model.Player;
 
 public class CommandExecutorTest {
@@ -45,6 +53,7 @@ public class CommandExecutorTest {
   public void testSubmitCommandLine() throws Exception {
     Command<Integer> command = mock(Command.class);
     when(command.execute()).thenReturn(42);
+    when(command.executeAsync()).thenCallRealMethod();
 
     Actor actor = mock(Actor.class);
     Player player = mock(Player.class);
@@ -61,9 +70,242 @@ public class CommandExecutorTest {
   public void testSubmitCommand() throws Exception {
     Command<Integer> command = mock(Command.class);
     when(command.execute()).thenReturn(42);
+    when(command.executeAsync()).thenCallRealMethod();
 
     Future<CommandResult<Integer>> future = executor.submit(command);
 
     assertEquals(42, future.get().getResult());
   }
+
+  private static class TestCommand extends Command<Integer> {
+    private final int value;
+    private final boolean local;
+    private final CountDownLatch started;
+    private final CountDownLatch awaited;
+    private final CountDownLatch released;
+    private final List<Integer> record;
+
+    // Counts down started when the command starts, waits for awaited, records
+    // its value, and then counts down released.
+    private TestCommand(Player player, int value, boolean local,
+                        CountDownLatch started, CountDownLatch awaited,
+                        CountDownLatch released, List<Integer> record) {
+      super(mock(Actor.class), player);
+      this.value = value;
+      this.local = local;
+      this.started = started;
+      this.awaited = awaited;
+      this.released = released;
+      this.record = record;
+    }
+
+    @Override
+    public boolean isLocal() {
+      return local;
+    }
+
+    @Override
+    protected void checkPermittedRoles() {
+      // all test commands are permitted
+    }
+
+    @Override
+    protected Integer executeImpl() throws CommandException {
+      if (started != null) {
+        started.countDown();
+      }
+      if (awaited != null) {
+        try {
+          if (!awaited.await(10, TimeUnit.SECONDS)) {
+            throw new CommandException("Timed out");
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new CommandException(e);
+        }
+      }
+      record.add(value);
+      if (released != null) {
+        released.countDown();
+      }
+      return value;
+    }
+  }
+
+  private static Place newPlaceInLane(int lane, int threadCount) {
+    Place place;
+    do {
+      place = new Place("place");
+    } while (Math.floorMod(place.getId().toString().hashCode(), threadCount) != lane);
+    return place;
+  }
+
+  private static Player newPlayerInPlace(Place place) {
+    Player player = new Player("player");
+    player.setLocation(place);
+    return player;
+  }
+
+  private static Player newPlayerInPlace(int lane, int threadCount) {
+    return newPlayerInPlace(newPlaceInLane(lane, threadCount));
+  }
+
+  @Test
+  public void testLocalCommandsInDifferentLocationsRunConcurrently() throws Exception {
+    executor.shutdown();
+    executor = new CommandExecutor(factory, eventBus, 2);
+    assertEquals(2, executor.getThreadCount());
+
+    Player player0 = newPlayerInPlace(0, 2);
+    Player player1 = newPlayerInPlace(1, 2);
+    List<Integer> record = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch latch = new CountDownLatch(1);
+
+    // The first command waits for the second, so they must run in parallel.
+    Future<CommandResult<Integer>> future0 =
+        executor.submit(new TestCommand(player0, 0, true, null, latch, null, record));
+    Future<CommandResult<Integer>> future1 =
+        executor.submit(new TestCommand(player1, 1, true, null, null, latch, record));
+
+    assertEquals(0, future0.get(10, TimeUnit.SECONDS).getResult());
+    assertEquals(1, future1.get(10, TimeUnit.SECONDS).getResult());
+    // The second command records before releasing the first.
+    assertEquals(List.of(1, 0), record);
+  }
+
+  @Test
+  public void testLocalCommandAfterMoveRunsAsBarrier() throws Exception {
+    executor.shutdown();
+    executor = new CommandExecutor(factory, eventBus, 2);
+
+    Place newPlace = newPlaceInLane(1, 2);
+    Player player0 = newPlayerInPlace(0, 2);
+    Player player1 = newPlayerInPlace(newPlace);
+    List<Integer> record = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch latch = new CountDownLatch(1);
+
+    // The first player moves to the second player's location, and then
+    // speaks there. The later command in that location must wait for it.
+    Future<CommandResult<Integer>> future0 =
+        executor.submit(new TestCommand(player0, 0, false, null, null, null, record) {
+            @Override
+            protected Integer executeImpl() throws CommandException {
+              player0.setLocation(newPlace);
+              return super.executeImpl();
+            }
+          });
+    Future<CommandResult<Integer>> future1 =
+        executor.submit(new TestCommand(player0, 1, true, started, latch, null, record));
+    Future<CommandResult<Integer>> future2 =
+        executor.submit(new TestCommand(player1, 2, true, null, null, null, record));
+
+    Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+    Assertions.assertFalse(future2.isDone());
+
+    latch.countDown();
+    assertEquals(0, future0.get(10, TimeUnit.SECONDS).getResult());
+    assertEquals(1, future1.get(10, TimeUnit.SECONDS).getResult());
+    assertEquals(2, future2.get(10, TimeUnit.SECONDS).getResult());
+    assertEquals(List.of(0, 1, 2), record);
+  }
+
+  @Test
+  public void testAwaitTermination() throws Exception {
+    List<Integer> record = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch latch = new CountDownLatch(1);
+
+    executor.submit(new TestCommand(new Player("player"), 0, false,
+                                    started, latch, null, record));
+    Future<CommandResult<Integer>> future1 =
+        executor.submit(new TestCommand(new Player("player"), 1, false,
+                                        null, null, null, record));
+    Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+    executor.shutdown();
+
+    // Commands queued before shutdown still run before termination.
+    Assertions.assertFalse(executor.awaitTermination(10L, TimeUnit.MILLISECONDS));
+    latch.countDown();
+    Assertions.assertTrue(executor.awaitTermination(10L, TimeUnit.SECONDS));
+    assertEquals(1, future1.get(10, TimeUnit.SECONDS).getResult());
+    assertEquals(List.of(0, 1), record);
+  }
+
+  @Test
+  public void testNonLocalCommandRunsAlone() throws Exception {
+    executor.shutdown();
+    executor = new CommandExecutor(factory, eventBus, 2);
+
+    Player player0 = newPlayerInPlace(0, 2);
+    Player player1 = newPlayerInPlace(1, 2);
+    List<Integer> record = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch latch = new CountDownLatch(1);
+
+    Future<CommandResult<Integer>> future0 =
+        executor.submit(new TestCommand(player0, 0, true, started, latch, null, record));
+    Future<CommandResult<Integer>> future1 =
+        executor.submit(new TestCommand(player1, 1, false, null, null, null, record));
+    Future<CommandResult<Integer>> future2 =
+        executor.submit(new TestCommand(player1, 2, true, null, null, null, record));
+
+    // The non-local command waits for the earlier local command, and the
+    // later local command waits for it, even though it is in another lane.
+    // The first command cannot finish until the latch is released, so the
+    // others cannot have run yet, and the record shows the order they ran in.
+    Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+    Assertions.assertFalse(future1.isDone());
+    Assertions.assertFalse(future2.isDone());
+
+    latch.countDown();
+    assertEquals(0, future0.get(10, TimeUnit.SECONDS).getResult());
+    assertEquals(1, future1.get(10, TimeUnit.SECONDS).getResult());
+    assertEquals(2, future2.get(10, TimeUnit.SECONDS).getResult());
+    assertEquals(List.of(0, 1, 2), record);
+  }
+
+  @Test
+  public void testAsyncCommandDoesNotHoldUpOthers() throws Exception {
+    SettableFuture<Integer> asyncResult = SettableFuture.create();
+    Command<Integer> asyncCommand = new TestCommand(new Player("player"), 0, false,
+                                                    null, null, null, List.of()) {
+        @Override
+        public ListenableFuture<Integer> executeAsync() {
+          return asyncResult;
+        }
+      };
+    List<Integer> record = Collections.synchronizedList(new ArrayList<>());
+
+    Future<CommandResult<Integer>> future0 = executor.submit(asyncCommand);
+    Future<CommandResult<Integer>> future1 =
+        executor.submit(new TestCommand(new Player("player"), 1, false,
+                                        null, null, null, record));
+
+    assertEquals(1, future1.get(10, TimeUnit.SECONDS).getResult());
+    Assertions.assertFalse(future0.isDone());
+
+    asyncResult.set(0);
+    assertEquals(0, future0.get(10, TimeUnit.SECONDS).getResult());
+  }
+
+  @Test
+  public void testCommandsInSameLocationRunInOrder() throws Exception {
+    executor.shutdown();
+    executor = new CommandExecutor(factory, eventBus, 4);
+
+    Player player = newPlayerInPlace(3, 4);
+    List<Integer> record = Collections.synchronizedList(new ArrayList<>());
+    List<Integer> expected = new ArrayList<>();
+    List<Future<CommandResult<Integer>>> futures = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      futures.add(executor.submit(new TestCommand(player, i, i % 10 != 0,
+                                                  null, null, null, record)));
+      expected.add(i);
+    }
+    for (Future<CommandResult<Integer>> future : futures) {
+      future.get(10, TimeUnit.SECONDS);
+    }
+    assertEquals(expected, record);
+  }
 }
@@ -14,8 +14,15 @@ import java.util.function.BiFunction;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
 
+import xyz.deszaras.grounds.api.ApiServer;
+import xyz.deszaras.grounds.api.PluginCall;
+import xyz.deszaras.grounds.api.PluginCallFactory;
+import xyz.deszaras.grounds.model.Attr;
+import xyz.deszaras.grounds.model.Extension;
 import xyz.deszaras.grounds.model.Player;
+import xyz.deszaras.grounds.model.Universe;
 import xyz.deszaras.grounds.server.Server;
 
 public class CommandFactoryTest {
@@ -146,4 +153,45 @@ public class CommandFactoryTest {
     assertThrows(CommandFactoryException.class,
                  () -> f.getCommand(actor, player, List.of("DESCRIBE")));
   }
+
+  @Test
+  public void testFindPluginCallCached() throws Exception {
+    ApiServer apiServer = mock(ApiServer.class, Mockito.RETURNS_MOCKS);
+    f = new CommandFactory(TEST_TRANSFORMS, TEST_COMMANDS, apiServer, null);
+
+    Universe u = new Universe("test");
+    Universe.setCurrent(u);
+    Extension e = new Extension("ext");
+    e.setAttr(newPluginCallAttr("$doit", "doit"));
+    u.addThing(e);
+
+    PluginCall call = f.findPluginCall("$doit").get();
+    assertEquals("doit", call.getMethod());
+    assertEquals(e, call.getExtension());
+    assertTrue(call == f.findPluginCall("$doit").get());
+
+    // attribute change
+    e.setAttr(newPluginCallAttr("$doit", "doitnow"));
+
+    PluginCall call2 = f.findPluginCall("$doit").get();
+    assertEquals("doitnow", call2.getMethod());
+
+    // extension reload
+    Universe u2 = Universe.fromJson(u.toJson());
+    Universe.setCurrent(u2);
+
+    PluginCall call3 = f.findPluginCall("$doit").get();
+    assertTrue(u2.getThing(e.getId()).get() == call3.getExtension());
+
+    // extension destruction
+    u2.removeThing(call3.getExtension());
+
+    assertTrue(f.findPluginCall("$doit").isEmpty());
+  }
+
+  private static Attr newPluginCallAttr(String commandName, String method) {
+    return new Attr(commandName, List.of(
+        new Attr(PluginCallFactory.PATH, "/bin/plugin"),
+        new Attr(PluginCallFactory.METHOD, method)));
+  }
 }
@@ -0,0 +1,27 @@
+package xyz.deszaras.grounds.command;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+
+/**
+ * A command executor that discards every command submitted to it. Benchmarks
+ * use this to measure the work leading up to command submission without
+ * mocking overhead.
+ */
+public class DiscardingCommandExecutor extends CommandExecutor {
+
+  /**
+   * Creates a new executor.
+   *
+   * @param commandFactory command factory
+   */
+  public DiscardingCommandExecutor(CommandFactory commandFactory) {
+    super(commandFactory, null);
+  }
+
+  @Override
+  public <R> ListenableFuture<CommandResult<R>> submit(Command<R> command) {
+    return Futures.immediateCancelledFuture();
+  }
+}
@@ -0,0 +1,86 @@
+package xyz.deszaras.grounds.command;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import xyz.deszaras.grounds.model.Journal;
+import xyz.deszaras.grounds.model.Player;
+import xyz.deszaras.grounds.model.Thing;
+import xyz.deszaras.grounds.model.Universe;
+
+public class LoadCommandTest extends AbstractCommandTest {
+
+  private static final Journal.Settings SYNC_ALWAYS =
+      new Journal.Settings(0L, 0L, () -> {});
+
+  @TempDir
+  Path tempDir;
+
+  private File universeFile;
+  private Path journalFile;
+
+  @BeforeEach
+  public void setUp() {
+    super.setUp();
+
+    universeFile = tempDir.resolve("universe.json").toFile();
+    journalFile = Journal.getPath(universeFile.toPath());
+  }
+
+  @AfterEach
+  public void tearDown() {
+    Universe.getCurrent().closeJournal();
+    Universe.setCurrentFile(null);
+    Universe.setJournalSettings(null);
+  }
+
+  @Test
+  public void testReplayWithoutJournaling() throws Exception {
+    Universe.save(testUniverse, universeFile);
+    testUniverse.openJournal(journalFile, SYNC_ALWAYS);
+    Thing item = new Thing("item");
+    testUniverse.addThing(item);
+    item.setAttr("color", "red");
+    testUniverse.closeJournal();
+    Universe.setJournalSettings(null);
+
+    assertTrue(new LoadCommand(actor, Player.GOD, universeFile).execute());
+
+    // The replayed records are saved, and the journal is gone.
+    assertFalse(Files.exists(journalFile));
+    Universe loaded = Universe.load(universeFile);
+    assertEquals("red", loaded.getThing(item.getId()).get().getAttr("color").get().getValue());
+
+    // A later load does not replay the old records over newer changes.
+    Universe.getCurrent().getThing(item.getId()).get().setAttr("color", "blue");
+    Universe.saveCurrent(false);
+    assertTrue(new LoadCommand(actor, Player.GOD, universeFile).execute());
+    assertEquals("blue", Universe.getCurrent().getThing(item.getId()).get()
+                 .getAttr("color").get().getValue());
+  }
+
+  @Test
+  public void testReplayWithJournaling() throws Exception {
+    Universe.save(testUniverse, universeFile);
+    testUniverse.openJournal(journalFile, SYNC_ALWAYS);
+    Thing item = new Thing("item");
+    testUniverse.addThing(item);
+    testUniverse.closeJournal();
+    Universe.setJournalSettings(SYNC_ALWAYS);
+
+    assertTrue(new LoadCommand(actor, Player.GOD, universeFile).execute());
+
+    assertTrue(Universe.getCurrent().getThing(item.getId()).isPresent());
+    assertTrue(Files.exists(journalFile));
+  }
+}
@@ -0,0 +1,77 @@
+package xyz.deszaras.grounds.command;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.deszaras.grounds.auth.Role;
+import xyz.deszaras.grounds.model.Link;
+import xyz.deszaras.grounds.model.Place;
+import xyz.deszaras.grounds.model.Player;
+import xyz.deszaras.grounds.model.Universe;
+
+/**
+ * Measures moving a player back and forth between two places as the number of
+ * other places and links in the universe grows. Latency should stay flat.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MoveCommandBenchmark {
+
+  @Param({ "1000", "10000", "100000" })
+  public int linkCount;
+
+  private Actor actor;
+  private Player player;
+  private boolean there;
+
+  @Setup
+  public void setUp() {
+    Universe universe = new Universe("benchmark");
+    Universe.setCurrent(universe);
+
+    Place previous = new Place("place0");
+    universe.addThing(previous);
+    for (int i = 1; i <= linkCount; i++) {
+      Place next = new Place("place" + i);
+      universe.addThing(next);
+      universe.addThing(new Link("link" + i, previous, "back", next, "onward"));
+      previous = next;
+    }
+
+    Place hither = new Place("hither");
+    universe.addThing(hither);
+    Place yon = new Place("yon");
+    universe.addThing(yon);
+    universe.addThing(new Link("hitherandyon", hither, "hither", yon, "yon"));
+
+    actor = new Actor("actor");
+    player = new Player("player");
+    universe.addThing(player);
+    universe.addRole(Role.DENIZEN, player);
+    hither.give(player);
+    player.setLocation(hither);
+    there = false;
+  }
+
+  @Benchmark
+  public String move() throws CommandException {
+    String result = new MoveCommand(actor, player, there ? "hither" : "yon").executeImpl();
+    there = !there;
+    return result;
+  }
+}
@@ -0,0 +1,71 @@
+package xyz.deszaras.grounds.command;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.deszaras.grounds.model.Place;
+import xyz.deszaras.grounds.model.Player;
+import xyz.deszaras.grounds.model.Thing;
+import xyz.deszaras.grounds.model.Universe;
+
+/**
+ * Measures a player saying something in a crowded room. The occupants are
+ * not connected, so messages to them are dropped, leaving the cost of finding
+ * them. The room also holds an item for every occupant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SayCommandBenchmark {
+
+  @Param({ "500" })
+  public int occupantCount;
+
+  private Actor actor;
+  private Player player;
+
+  @Setup
+  public void setUp() {
+    Universe universe = new Universe("benchmark");
+    Universe.setCurrent(universe);
+
+    Place room = new Place("room");
+    universe.addThing(room);
+    for (int i = 0; i < occupantCount; i++) {
+      Player occupant = new Player("occupant" + i);
+      universe.addThing(occupant);
+      room.give(occupant);
+      occupant.setLocation(room);
+
+      Thing item = new Thing("item" + i);
+      universe.addThing(item);
+      room.give(item);
+      item.setLocation(room);
+    }
+
+    actor = new Actor("actor");
+    player = new Player("player");
+    universe.addThing(player);
+    room.give(player);
+    player.setLocation(room);
+  }
+
+  @Benchmark
+  public Boolean say() throws CommandException {
+    return new SayCommand(actor, player, "Hello, everyone!", false).executeImpl();
+  }
+}
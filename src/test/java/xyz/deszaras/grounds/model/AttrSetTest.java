@@ -0,0 +1,61 @@
+package xyz.deszaras.grounds.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class AttrSetTest {
+
+  private static final Attr A1 = new Attr("a", "1");
+  private static final Attr A2 = new Attr("a", "2");
+  private static final Attr B = new Attr("b", 3);
+
+  @Test
+  public void testOf() {
+    AttrSet s = AttrSet.of(List.of(A1, B, A2));
+
+    assertEquals(2, s.size());
+    assertEquals(Set.of(A2, B), s);
+    assertEquals(A2, s.get("a"));
+    assertTrue(s.contains(B));
+    assertFalse(s.contains(A1));
+    assertFalse(s.contains("b"));
+  }
+
+  @Test
+  public void testWith() {
+    AttrSet s = AttrSet.EMPTY.with(A1);
+    AttrSet s2 = s.with(B).with(A2);
+
+    assertEquals(Set.of(A1), s);
+    assertEquals(Set.of(A2, B), s2);
+  }
+
+  @Test
+  public void testWithout() {
+    AttrSet s = AttrSet.of(List.of(A1, B));
+    AttrSet s2 = s.without("a");
+
+    assertEquals(Set.of(A1, B), s);
+    assertEquals(Set.of(B), s2);
+    assertTrue(s2 == s2.without("a"));
+  }
+
+  @Test
+  public void testImmutable() {
+    AttrSet s = AttrSet.of(List.of(A1, B));
+
+    assertThrows(UnsupportedOperationException.class, () -> s.add(A2));
+    assertThrows(UnsupportedOperationException.class, () -> s.remove(A1));
+    Iterator<Attr> it = s.iterator();
+    it.next();
+    assertThrows(UnsupportedOperationException.class, () -> it.remove());
+  }
+}
@@ -2,6 +2,7 @@ package xyz.deszaras.grounds.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.nio.file.Paths;
@@ -49,6 +50,47 @@ public class AttrTest {
     assertEquals(ts, attr.getInstantValue());
   }
 
+  @Test
+  public void testPrimitiveAttrsSerialized() {
+    assertEquals("42", new Attr("a", 42).getValue());
+    assertEquals("true", new Attr("a", true).getValue());
+    assertEquals("123456", new Attr("a", Instant.ofEpochSecond(123456L)).getValue());
+    assertEquals("a[INTEGER]=-7", new Attr("a", -7).toAttrSpec());
+    assertEquals("{\"name\":\"a\",\"value\":\"42\",\"type\":\"INTEGER\"}",
+                 new Attr("a", 42).toJson());
+
+    assertEquals(new Attr("a", 42), new Attr("a", "42", Attr.Type.INTEGER));
+    assertEquals(new Attr("a", 42).hashCode(),
+                 new Attr("a", "42", Attr.Type.INTEGER).hashCode());
+    assertEquals(new Attr("a", false), Attr.fromJson(new Attr("a", false).toJson()));
+    assertFalse(new Attr("a", 42).equals(new Attr("a", "42")));
+  }
+
+  @Test
+  public void testMalformedPrimitiveAttrs() {
+    attr = new Attr("a", "forty-two", Attr.Type.INTEGER);
+    assertEquals("forty-two", attr.getValue());
+    assertThrows(NumberFormatException.class, () -> attr.getIntValue());
+
+    attr = new Attr("a", "yes", Attr.Type.BOOLEAN);
+    assertEquals("yes", attr.getValue());
+    assertFalse(attr.getBooleanValue());
+    assertFalse(attr.equals(new Attr("a", false)));
+  }
+
+  @Test
+  public void testWithValue() {
+    attr = new Attr("a", 42);
+    assertEquals(new Attr("a", 43), attr.withIntValue(43));
+    assertTrue(attr == attr.withIntValue(42));
+    assertThrows(IllegalStateException.class, () -> attr.withBooleanValue(true));
+
+    attr = new Attr("a", "true", Attr.Type.BOOLEAN);
+    assertEquals(new Attr("a", false), attr.withBooleanValue(false));
+    assertTrue(attr == attr.withBooleanValue(true));
+    assertThrows(IllegalStateException.class, () -> attr.withIntValue(1));
+  }
+
   @Test
   public void testThingAttr() {
     Thing t = new Thing("something");
@@ -78,6 +120,29 @@ public class AttrTest {
     assertEquals(setAttrs, attr.getAttrListValue());
   }
 
+  @Test
+  public void testAttrListAttrParsedOnce() {
+    List<Attr> setAttrs = new ArrayList<>();
+    setAttrs.add(new Attr("x1", "b1"));
+    setAttrs.add(new Attr("x2", "b2"));
+    attr = new Attr("a", Attr.toJson(setAttrs), Attr.Type.ATTRLIST);
+
+    List<Attr> value = attr.getAttrListValue();
+    assertEquals(setAttrs, value);
+    assertTrue(value == attr.getAttrListValue());
+    assertTrue(attr.getAttrListValueAsMap() == attr.getAttrListValueAsMap());
+    assertThrows(UnsupportedOperationException.class,
+                 () -> value.add(new Attr("x3", "b3")));
+    assertThrows(UnsupportedOperationException.class,
+                 () -> attr.getAttrListValueAsMap().remove("x1"));
+
+    // the list passed in is copied
+    attr = new Attr("a", setAttrs);
+    setAttrs.add(new Attr("x3", "b3"));
+    assertEquals(2, attr.getAttrListValue().size());
+    assertEquals(attr, Attr.fromJson(attr.toJson()));
+  }
+
   @Test
   public void testAttrListAttrAsMap() {
     List<Attr> setAttrs = new ArrayList<>();
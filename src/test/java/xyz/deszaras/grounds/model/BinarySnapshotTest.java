@@ -0,0 +1,166 @@
+package xyz.deszaras.grounds.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import xyz.deszaras.grounds.auth.Policy;
+import xyz.deszaras.grounds.auth.Role;
+
+public class BinarySnapshotTest {
+
+  @TempDir
+  Path tempDir;
+
+  private Universe u;
+  private File universeFile;
+
+  @BeforeEach
+  public void setUp() {
+    u = new Universe("test");
+    Universe.setCurrent(u);
+    universeFile = tempDir.resolve("universe.bin").toFile();
+    Universe.setCurrentFile(universeFile);
+  }
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    Place place = new Place("place");
+    u.addThing(place);
+    Place elsewhere = new Place("elsewhere");
+    u.addThing(elsewhere);
+    Thing item = new Thing("item");
+    u.addThing(item);
+    place.give(item);
+    Player player = new Player("player");
+    u.addThing(player);
+    u.addRole(Role.BARD, player);
+    Link link = new Link("link", place, "out", elsewhere, "in");
+    u.addThing(link);
+    item.getPolicy().setRoles(Policy.Category.READ, Set.of(Role.ADEPT));
+    item.policyChanged();
+
+    assertTrue(Universe.saveCurrent(true));
+    assertTrue(BinarySnapshot.isSnapshot(universeFile));
+    assertFalse(SegmentedSnapshot.isSnapshot(universeFile));
+
+    Universe u2 = Universe.load(universeFile);
+    assertEquals("test", u2.getName());
+    assertEquals(u.getThings().size(), u2.getThings().size());
+    assertEquals(Set.of(item.getId()), u2.getThing(place.getId()).get().getContents());
+    assertEquals(Set.of(Role.BARD), u2.getRoles(player));
+    assertEquals(u.getOriginId(), u2.getOriginId());
+    assertEquals(u.getLostAndFoundId(), u2.getLostAndFoundId());
+    assertEquals(u.getGuestHomeId(), u2.getGuestHomeId());
+    assertEquals(Set.of(Role.ADEPT),
+                 u2.getThing(item.getId()).get().getPolicy().getRoles(Policy.Category.READ));
+    for (Thing thing : u.getThings()) {
+      Thing thing2 = u2.getThing(thing.getId()).get();
+      assertEquals(thing.getClass(), thing2.getClass());
+      assertEquals(thing.getAttrs(), thing2.getAttrs());
+      assertEquals(thing.getContents(), thing2.getContents());
+    }
+  }
+
+  @Test
+  public void testAttrTypes() throws Exception {
+    Thing item = new Thing("item");
+    u.addThing(item);
+    Thing other = new Thing("other");
+    u.addThing(other);
+    Instant now = Instant.ofEpochSecond(1600000000L);
+    item.setAttr(new Attr("s", "string"));
+    item.setAttr(new Attr("i", -42));
+    item.setAttr(new Attr("b", true));
+    item.setAttr(new Attr("t", now));
+    item.setAttr(new Attr("th", other));
+    item.setAttr(new Attr("a", new Attr("inner", 7)));
+    item.setAttr(new Attr("l", List.of(new Attr("l1", "x"), new Attr("l2", false))));
+    item.setAttr(new Attr("bad", "not a number", Attr.Type.INTEGER));
+
+    assertTrue(Universe.saveCurrent(false));
+
+    Thing item2 = Universe.load(universeFile).getThing(item.getId()).get();
+    assertEquals("string", item2.getAttr("s").get().getValue());
+    assertEquals(-42, item2.getAttr("i").get().getIntValue());
+    assertTrue(item2.getAttr("b").get().getBooleanValue());
+    assertEquals(now, item2.getAttr("t").get().getInstantValue());
+    assertEquals(other.getId().toString(), item2.getAttr("th").get().getValue());
+    assertEquals(Attr.Type.THING, item2.getAttr("th").get().getType());
+    Attr inner = item2.getAttr("a").get().getAttrValue();
+    assertEquals("inner", inner.getName());
+    assertEquals(7, inner.getIntValue());
+    List<Attr> list = item2.getAttr("l").get().getAttrListValue();
+    assertEquals(2, list.size());
+    assertEquals("x", list.get(0).getValue());
+    assertFalse(list.get(1).getBooleanValue());
+    assertEquals("not a number", item2.getAttr("bad").get().getValue());
+    assertEquals(Attr.Type.INTEGER, item2.getAttr("bad").get().getType());
+  }
+
+  @Test
+  public void testLoadAcrossChunks() throws Exception {
+    int count = BinarySnapshot.LOAD_CHUNK_SIZE * 2 + 10;
+    for (int i = 0; i < count; i++) {
+      Thing item = new Thing("item" + i);
+      item.setAttr("attr" + (i % 100), i);
+      u.addThing(item);
+    }
+    assertTrue(Universe.saveCurrent(false));
+
+    Universe u2 = Universe.load(universeFile);
+    assertEquals(u.getThings().size(), u2.getThings().size());
+    for (Thing thing : u.getThings()) {
+      assertEquals(thing.getAttrs(), u2.getThing(thing.getId()).get().getAttrs());
+    }
+  }
+
+  @Test
+  public void testExistingFormatKeptOnSave() throws Exception {
+    File plainFile = tempDir.resolve("universe.dat").toFile();
+    Universe.setCurrentFile(plainFile);
+    assertFalse(BinarySnapshot.shouldSave(plainFile));
+    assertTrue(BinarySnapshot.shouldSave(universeFile));
+
+    assertTrue(Universe.saveCurrent(false));
+    assertFalse(BinarySnapshot.isSnapshot(plainFile));
+
+    Universe.setCurrentFile(universeFile);
+    assertTrue(Universe.saveCurrent(false));
+    Files.copy(universeFile.toPath(), plainFile.toPath(),
+               StandardCopyOption.REPLACE_EXISTING);
+    assertTrue(BinarySnapshot.shouldSave(plainFile));
+  }
+
+  @Test
+  public void testConvert() throws Exception {
+    Thing item = new Thing("item");
+    u.addThing(item);
+    item.setAttr("color", "red");
+    File jsonFile = tempDir.resolve("universe.json").toFile();
+    Universe.setCurrentFile(jsonFile);
+    assertTrue(Universe.saveCurrent(false));
+
+    Universe u2 = Universe.load(jsonFile);
+    Universe.setCurrent(u2);
+    Universe.setCurrentFile(universeFile);
+    assertTrue(Universe.saveCurrent(false));
+    assertTrue(BinarySnapshot.isSnapshot(universeFile));
+
+    Universe u3 = Universe.load(universeFile);
+    assertEquals("red", u3.getThing(item.getId()).get().getAttr("color").get().getValue());
+    assertEquals(u.getThings().size(), u3.getThings().size());
+  }
+}
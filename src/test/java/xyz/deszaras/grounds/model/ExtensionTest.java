@@ -1,6 +1,8 @@
 package xyz.deszaras.grounds.model;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
@@ -26,6 +28,7 @@ public class ExtensionTest {
 
   private Universe universe;
   private Extension e;
+  private ListenerRouter router;
 
   private static class TestPayload {
     public final String s;
@@ -47,6 +50,9 @@ public class ExtensionTest {
     Universe.setCurrent(universe);
 
     e = new Extension("extension");
+    universe.addThing(e);
+
+    router = new ListenerRouter();
   }
 
   @Test
@@ -66,7 +72,7 @@ public class ExtensionTest {
                                eq(listenerAttr), eq(e), any(List.class)))
         .thenReturn(pluginCallCommand);
 
-    e.handle(event, commandExecutor);
+    router.handle(event, commandExecutor);
 
     verify(commandExecutor).submit(pluginCallCommand);
     ArgumentCaptor<List> pluginArgumentsCaptor = ArgumentCaptor.forClass(List.class);
@@ -78,6 +84,66 @@ public class ExtensionTest {
     assertEquals(event.getAugmentedPayloadJsonString(), pluginArguments.get(0));
   }
 
+  @Test
+  public void testHandleBatched() throws Exception {
+    Attr listenerAttr = new Attr("^listener1",
+        List.of(new Attr("pluginMethod", "doit"),
+                new Attr("batchWindowMillis", 1000),
+                new Attr("batchMaxEvents", 1)));
+    e.setAttr(listenerAttr);
+
+    Place place = new Place("there");
+    Event event = new TestEvent(Player.GOD, place);
+
+    PluginCallCommand pluginCallCommand = mock(PluginCallCommand.class);
+    CommandExecutor commandExecutor =
+        mock(CommandExecutor.class, RETURNS_DEEP_STUBS);
+    when(commandExecutor.getCommandFactory()
+         .newPluginCallCommand(eq(Actor.INTERNAL), eq(e),
+                               eq(listenerAttr), eq(e), any(List.class)))
+        .thenReturn(pluginCallCommand);
+
+    router.handle(event, commandExecutor);
+
+    verify(commandExecutor).submit(pluginCallCommand);
+    ArgumentCaptor<List> pluginArgumentsCaptor = ArgumentCaptor.forClass(List.class);
+    verify(commandExecutor.getCommandFactory())
+        .newPluginCallCommand(eq(Actor.INTERNAL), eq(e),
+                              eq(listenerAttr), eq(e), pluginArgumentsCaptor.capture());
+    List<String> pluginArguments = pluginArgumentsCaptor.getValue();
+    assertEquals(1, pluginArguments.size());
+    assertEquals("[" + event.getAugmentedPayloadJsonString() + "]",
+                 pluginArguments.get(0));
+  }
+
+  @Test
+  public void testBatcherDroppedOnListenerChange() throws Exception {
+    Attr listenerAttr = new Attr("^listener1",
+        List.of(new Attr("pluginMethod", "doit"),
+                new Attr("batchWindowMillis", 60000)));
+    e.setAttr(listenerAttr);
+
+    Place place = new Place("there");
+    CommandExecutor commandExecutor =
+        mock(CommandExecutor.class, RETURNS_DEEP_STUBS);
+
+    router.handle(new TestEvent(Player.GOD, place), commandExecutor);
+    assertTrue(e.hasListenerBatcher("^listener1"));
+
+    e.setAttr(new Attr("^listener1",
+        List.of(new Attr("pluginMethod", "doitagain"),
+                new Attr("batchWindowMillis", 60000))));
+    assertFalse(e.hasListenerBatcher("^listener1"));
+
+    router.handle(new TestEvent(Player.GOD, place), commandExecutor);
+    assertTrue(e.hasListenerBatcher("^listener1"));
+
+    e.removeAttr("^listener1");
+    assertFalse(e.hasListenerBatcher("^listener1"));
+
+    verify(commandExecutor, never()).submit(any(PluginCallCommand.class));
+  }
+
   @Test
   public void testHandleSelectingEventType() throws Exception {
     Attr listenerAttr = new Attr("^listener1",
@@ -96,7 +162,7 @@ public class ExtensionTest {
                                eq(listenerAttr), eq(e), any(List.class)))
         .thenReturn(pluginCallCommand);
 
-    e.handle(event, commandExecutor);
+    router.handle(event, commandExecutor);
 
     verify(commandExecutor).submit(pluginCallCommand);
   }
@@ -114,7 +180,7 @@ public class ExtensionTest {
     CommandExecutor commandExecutor =
         mock(CommandExecutor.class, RETURNS_DEEP_STUBS);
 
-    e.handle(event, commandExecutor);
+    router.handle(event, commandExecutor);
 
     verify(commandExecutor, never()).submit(any(PluginCallCommand.class));
   }
@@ -131,7 +197,6 @@ public class ExtensionTest {
     place.give(e);
     e.setLocation(place);
     universe.addThing(place);
-    universe.addThing(e);
 
     PluginCallCommand pluginCallCommand = mock(PluginCallCommand.class);
     CommandExecutor commandExecutor =
@@ -141,7 +206,7 @@ public class ExtensionTest {
                                eq(listenerAttr), eq(e), any(List.class)))
         .thenReturn(pluginCallCommand);
 
-    e.handle(event, commandExecutor);
+    router.handle(event, commandExecutor);
 
     verify(commandExecutor).submit(pluginCallCommand);
   }
@@ -160,12 +225,11 @@ public class ExtensionTest {
     e.setLocation(notPlace);
     universe.addThing(place);
     universe.addThing(notPlace);
-    universe.addThing(e);
 
     CommandExecutor commandExecutor =
         mock(CommandExecutor.class, RETURNS_DEEP_STUBS);
 
-    e.handle(event, commandExecutor);
+    router.handle(event, commandExecutor);
 
     verify(commandExecutor, never()).submit(any(PluginCallCommand.class));
   }
@@ -184,7 +248,6 @@ public class ExtensionTest {
     e.setLocation(notPlace);
     universe.addThing(place);
     universe.addThing(notPlace);
-    universe.addThing(e);
 
     PluginCallCommand pluginCallCommand = mock(PluginCallCommand.class);
     CommandExecutor commandExecutor =
@@ -194,11 +257,83 @@ public class ExtensionTest {
                                eq(listenerAttr), eq(e), any(List.class)))
         .thenReturn(pluginCallCommand);
 
-    e.handle(event, commandExecutor);
+    router.handle(event, commandExecutor);
 
     verify(commandExecutor).submit(pluginCallCommand);
   }
 
+  @Test
+  public void testHandleLocalizedAfterMove() throws Exception {
+    Attr listenerAttr = new Attr("^listener1",
+        List.of(new Attr("pluginMethod", "doit"),
+                new Attr("localized", true)));
+    e.setAttr(listenerAttr);
+
+    Place place = new Place("there");
+    Event event = new TestEvent(Player.GOD, place);
+    Place notPlace = new Place("notThere");
+    universe.addThing(place);
+    universe.addThing(notPlace);
+    notPlace.give(e);
+    e.setLocation(notPlace);
+
+    PluginCallCommand pluginCallCommand = mock(PluginCallCommand.class);
+    CommandExecutor commandExecutor =
+        mock(CommandExecutor.class, RETURNS_DEEP_STUBS);
+    when(commandExecutor.getCommandFactory()
+         .newPluginCallCommand(eq(Actor.INTERNAL), eq(e),
+                               eq(listenerAttr), eq(e), any(List.class)))
+        .thenReturn(pluginCallCommand);
+
+    router.handle(event, commandExecutor);
+
+    verify(commandExecutor, never()).submit(any(PluginCallCommand.class));
+
+    notPlace.take(e);
+    place.give(e);
+    e.setLocation(place);
+
+    router.handle(event, commandExecutor);
+
+    verify(commandExecutor).submit(pluginCallCommand);
+  }
+
+  @Test
+  public void testHandleAfterListenerRemoved() throws Exception {
+    Attr listenerAttr = new Attr("^listener1",
+        List.of(new Attr("pluginMethod", "doit")));
+    e.setAttr(listenerAttr);
+    e.removeAttr("^listener1");
+
+    Place place = new Place("there");
+    Event event = new TestEvent(Player.GOD, place);
+
+    CommandExecutor commandExecutor =
+        mock(CommandExecutor.class, RETURNS_DEEP_STUBS);
+
+    router.handle(event, commandExecutor);
+
+    verify(commandExecutor, never()).submit(any(PluginCallCommand.class));
+  }
+
+  @Test
+  public void testHandleAfterExtensionRemoved() throws Exception {
+    Attr listenerAttr = new Attr("^listener1",
+        List.of(new Attr("pluginMethod", "doit")));
+    e.setAttr(listenerAttr);
+    universe.removeThing(e);
+
+    Place place = new Place("there");
+    Event event = new TestEvent(Player.GOD, place);
+
+    CommandExecutor commandExecutor =
+        mock(CommandExecutor.class, RETURNS_DEEP_STUBS);
+
+    router.handle(event, commandExecutor);
+
+    verify(commandExecutor, never()).submit(any(PluginCallCommand.class));
+  }
+
   @Test
   public void testGetListenerAttrs() {
     Attr listenerAttr = new Attr("^listener1", List.of(new Attr("pluginMethod", "doit")));
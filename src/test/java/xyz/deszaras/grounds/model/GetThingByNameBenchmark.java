@@ -0,0 +1,60 @@
+package xyz.deszaras.grounds.model;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares looking up a thing by name through the universe's name index with
+ * scanning every thing in the universe, which is how lookups used to work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GetThingByNameBenchmark {
+
+  private static final String TARGET_NAME = "target";
+
+  @Param({ "1000", "100000", "1000000" })
+  public int thingCount;
+
+  private Universe universe;
+
+  @Setup
+  public void setUp() {
+    universe = new Universe("benchmark");
+    Universe.setCurrent(universe);
+    for (int i = 0; i < thingCount; i++) {
+      universe.addThing(new Thing("missive" + i));
+    }
+    universe.addThing(new Player(TARGET_NAME));
+  }
+
+  @Benchmark
+  public Optional<Player> indexed() {
+    return universe.getThingByName(TARGET_NAME, Player.class);
+  }
+
+  @Benchmark
+  public Optional<Player> scan() {
+    return universe.getThings().stream()
+        .filter(t -> Player.class.isAssignableFrom(t.getClass()))
+        .filter(t -> t.getName().equals(TARGET_NAME))
+        .findFirst()
+        .map(t -> Player.class.cast(t));
+  }
+}
@@ -0,0 +1,294 @@
+package xyz.deszaras.grounds.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import xyz.deszaras.grounds.auth.Policy;
+import xyz.deszaras.grounds.auth.Role;
+
+public class JournalTest {
+
+  private static final Journal.Settings SYNC_ALWAYS =
+      new Journal.Settings(0L, 0L, () -> {});
+
+  @TempDir
+  Path tempDir;
+
+  private Universe u;
+  private File universeFile;
+  private Path journalFile;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    u = new Universe("test");
+    Universe.setCurrent(u);
+    universeFile = tempDir.resolve("universe.json").toFile();
+    Universe.setCurrentFile(universeFile);
+    Universe.save(u, universeFile);
+    journalFile = Journal.getPath(universeFile.toPath());
+  }
+
+  @AfterEach
+  public void tearDown() {
+    u.closeJournal();
+  }
+
+  private Universe reload() throws Exception {
+    Universe u2 = Universe.load(universeFile);
+    Journal.replay(journalFile, u2);
+    return u2;
+  }
+
+  @Test
+  public void testReplay() throws Exception {
+    u.openJournal(journalFile, SYNC_ALWAYS);
+
+    Place place = new Place("place");
+    u.addThing(place);
+    Thing item = new Thing("item");
+    u.addThing(item);
+    Player player = new Player("player");
+    u.addThing(player);
+    Thing gone = new Thing("gone");
+    u.addThing(gone);
+
+    item.setDescription("shiny");
+    item.setAttr("color", "red");
+    item.setAttr("size", 3);
+    item.removeAttr("size");
+    place.give(item);
+    place.give(player);
+    place.give(gone);
+    place.take(gone);
+    u.removeThing(gone);
+    u.addRole(Role.BARD, player);
+    u.addRole(Role.ADEPT, player);
+    u.removeRole(Role.BARD, player);
+
+    u.closeJournal();
+    Universe u2 = reload();
+
+    Place place2 = u2.getThing(place.getId(), Place.class).get();
+    Thing item2 = u2.getThing(item.getId()).get();
+    Player player2 = u2.getThing(player.getId(), Player.class).get();
+    assertEquals("shiny", item2.getDescription().get());
+    assertEquals("red", item2.getAttr("color").get().getValue());
+    assertFalse(item2.getAttr("size").isPresent());
+    assertEquals(Set.of(item.getId(), player.getId()), place2.getContents());
+    assertEquals(Set.of(player2), place2.getPlayers());
+    assertFalse(u2.getThing(gone.getId()).isPresent());
+    assertEquals(Set.of(Role.ADEPT), u2.getRoles(player2));
+  }
+
+  @Test
+  public void testReplayConcurrentChanges() throws Exception {
+    u.openJournal(journalFile, SYNC_ALWAYS);
+    Thing item = new Thing("item");
+    u.addThing(item);
+    Player player = new Player("player");
+    u.addThing(player);
+    Role[] roles = { Role.BARD, Role.ADEPT, Role.GUEST };
+
+    int threadCount = 4;
+    CyclicBarrier barrier = new CyclicBarrier(threadCount);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < threadCount; t++) {
+      int threadNum = t;
+      threads.add(new Thread(() -> {
+          try {
+            barrier.await();
+          } catch (Exception e) {
+            throw new IllegalStateException(e);
+          }
+          for (int i = 0; i < 500; i++) {
+            item.setAttr("color", "color" + threadNum + "-" + i);
+            if (i % 2 == 0) {
+              u.addRole(roles[(threadNum + i) % roles.length], player);
+            } else {
+              u.removeRole(roles[(threadNum + i) % roles.length], player);
+            }
+          }
+        }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Universe u2 = reload();
+    assertEquals(item.getAttr("color").get().getValue(),
+                 u2.getThing(item.getId()).get().getAttr("color").get().getValue());
+    assertEquals(u.getRoles(player), u2.getRoles(player));
+  }
+
+  @Test
+  public void testReplayPolicy() throws Exception {
+    u.openJournal(journalFile, SYNC_ALWAYS);
+
+    Thing item = new Thing("item");
+    u.addThing(item);
+    item.getPolicy().setRoles(Policy.Category.WRITE, Set.of(Role.THAUMATURGE));
+    item.policyChanged();
+
+    u.closeJournal();
+    Universe u2 = reload();
+
+    assertEquals(Set.of(Role.THAUMATURGE),
+                 u2.getThing(item.getId()).get().getPolicy().getRoles(Policy.Category.WRITE));
+  }
+
+  @Test
+  public void testSaveToNewFileMovesJournal() throws Exception {
+    u.openJournal(journalFile, SYNC_ALWAYS);
+    u.addThing(new Thing("item1"));
+
+    File newFile = tempDir.resolve("universe2.json").toFile();
+    Path newJournalFile = Journal.getPath(newFile.toPath());
+    Files.write(newJournalFile, "stale\n".getBytes(StandardCharsets.UTF_8));
+    Universe.setCurrentFile(newFile);
+    assertTrue(Universe.saveCurrent(true));
+
+    assertEquals(newJournalFile, u.getJournal().get().getFile());
+    Thing item2 = new Thing("item2");
+    u.addThing(item2);
+    u.closeJournal();
+
+    Universe u2 = Universe.load(newFile);
+    assertEquals(1, Journal.replay(newJournalFile, u2));
+    assertTrue(u2.getThing(item2.getId()).isPresent());
+  }
+
+  @Test
+  public void testFailedSaveToNewFileKeepsJournal() throws Exception {
+    u.openJournal(journalFile, SYNC_ALWAYS);
+    Thing item1 = new Thing("item1");
+    u.addThing(item1);
+
+    Path notADirectory = tempDir.resolve("notadir");
+    Files.write(notADirectory, new byte[0]);
+    Universe.setCurrentFile(notADirectory.resolve("universe2.json").toFile());
+    assertThrows(IOException.class, () -> Universe.saveCurrent(true));
+    Universe.setCurrentFile(universeFile);
+
+    assertEquals(journalFile, u.getJournal().get().getFile());
+    Thing item2 = new Thing("item2");
+    u.addThing(item2);
+    u.closeJournal();
+
+    Universe u2 = reload();
+    assertTrue(u2.getThing(item1.getId()).isPresent());
+    assertTrue(u2.getThing(item2.getId()).isPresent());
+  }
+
+  @Test
+  public void testReplayTwice() throws Exception {
+    u.openJournal(journalFile, SYNC_ALWAYS);
+
+    Thing item = new Thing("item");
+    u.addThing(item);
+    item.setAttr("color", "red");
+    item.setAttr("color", "blue");
+    Player player = new Player("player");
+    u.addThing(player);
+    u.addRole(Role.BARD, player);
+    u.removeAllRoles(player);
+
+    u.closeJournal();
+    Universe u2 = Universe.load(universeFile);
+    assertEquals(6, Journal.replay(journalFile, u2));
+    assertEquals(6, Journal.replay(journalFile, u2));
+
+    Thing item2 = u2.getThing(item.getId()).get();
+    assertEquals("blue", item2.getAttr("color").get().getValue());
+    assertEquals(Set.of(), u2.getRoles(player));
+  }
+
+  @Test
+  public void testSaveCompacts() throws Exception {
+    u.openJournal(journalFile, SYNC_ALWAYS);
+
+    Thing item = new Thing("item");
+    u.addThing(item);
+    assertTrue(u.getJournal().get().getSize() > 0L);
+
+    assertTrue(Universe.saveCurrent(true));
+
+    assertEquals(0L, u.getJournal().get().getSize());
+    assertEquals(0L, Files.size(journalFile));
+    assertFalse(Files.exists(journalFile.resolveSibling("universe.json.journal.old")));
+
+    item.setAttr("color", "red");
+    u.closeJournal();
+
+    Universe u2 = reload();
+    assertEquals("red", u2.getThing(item.getId()).get().getAttr("color").get().getValue());
+  }
+
+  @Test
+  public void testReplaySetAside() throws Exception {
+    u.openJournal(journalFile, SYNC_ALWAYS);
+
+    Thing item = new Thing("item");
+    u.addThing(item);
+    // as if a save started, but did not finish
+    u.getJournal().get().setAside();
+    item.setAttr("color", "red");
+    u.closeJournal();
+
+    Universe u2 = reload();
+    assertEquals("red", u2.getThing(item.getId()).get().getAttr("color").get().getValue());
+  }
+
+  @Test
+  public void testReplayTruncatesIncompleteRecord() throws Exception {
+    u.openJournal(journalFile, SYNC_ALWAYS);
+    Thing item = new Thing("item");
+    u.addThing(item);
+    u.closeJournal();
+    long goodSize = Files.size(journalFile);
+
+    Files.write(journalFile, "{\"op\":\"SET_ATTR\",\"id\":".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+    Universe u2 = Universe.load(universeFile);
+    assertEquals(1, Journal.replay(journalFile, u2));
+    assertTrue(u2.getThing(item.getId()).isPresent());
+    assertEquals(goodSize, Files.size(journalFile));
+  }
+
+  @Test
+  public void testCompactor() throws Exception {
+    AtomicInteger compactions = new AtomicInteger();
+    u.openJournal(journalFile,
+                  new Journal.Settings(0L, 10L, compactions::incrementAndGet));
+
+    u.addThing(new Thing("item1"));
+    u.addThing(new Thing("item2"));
+    assertEquals(1, compactions.get());
+
+    assertTrue(Universe.saveCurrent(false));
+    u.addThing(new Thing("item3"));
+    assertEquals(2, compactions.get());
+  }
+}
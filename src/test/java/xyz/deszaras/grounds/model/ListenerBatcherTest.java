@@ -0,0 +1,306 @@
+package xyz.deszaras.grounds.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import xyz.deszaras.grounds.command.Actor;
+import xyz.deszaras.grounds.command.CommandExecutor;
+import xyz.deszaras.grounds.command.Event;
+import xyz.deszaras.grounds.command.PluginCallCommand;
+
+@SuppressWarnings("PMD.TooManyStaticImports")
+public class ListenerBatcherTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private static class TestPayload {
+    public final String s;
+
+    private TestPayload(String s) {
+      this.s = s;
+    }
+  }
+
+  private static class TestEvent extends Event<TestPayload> {
+    private TestEvent(Player player, String s) {
+      super(player, null, new TestPayload(s));
+    }
+  }
+
+  private Extension extension;
+  private Attr listenerAttr;
+  private Player player1;
+  private Player player2;
+  private ScheduledExecutorService scheduler;
+  private List<Runnable> scheduled;
+  private CommandExecutor commandExecutor;
+  private PluginCallCommand command;
+  private ListenerBatcher batcher;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    extension = new Extension("extension");
+    listenerAttr = new Attr("^listener1", List.of(new Attr("pluginMethod", "doit")));
+    player1 = new Player("player1");
+    player2 = new Player("player2");
+
+    scheduled = new ArrayList<>();
+    scheduler = mock(ScheduledExecutorService.class);
+    when(scheduler.schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS)))
+        .thenAnswer(invocation -> {
+            scheduled.add(invocation.getArgument(0));
+            return mock(ScheduledFuture.class);
+          });
+    doAnswer(invocation -> scheduled.add(invocation.getArgument(0)))
+        .when(scheduler).execute(any(Runnable.class));
+
+    command = mock(PluginCallCommand.class);
+    commandExecutor = mock(CommandExecutor.class, Mockito.RETURNS_DEEP_STUBS);
+    when(commandExecutor.getCommandFactory()
+         .newPluginCallCommand(eq(Actor.INTERNAL), eq(extension),
+                               eq(listenerAttr), eq(extension), any(List.class)))
+        .thenReturn(command);
+    when(commandExecutor.submit(command)).thenReturn(Futures.immediateFuture(null));
+
+    batcher = new ListenerBatcher(extension, scheduler);
+  }
+
+  private void add(Player player, String s, ListenerBatcher.Settings settings) {
+    batcher.add(new TestEvent(player, s), listenerAttr, settings, commandExecutor);
+  }
+
+  private void runScheduled() {
+    List<Runnable> toRun = new ArrayList<>(scheduled);
+    scheduled.clear();
+    toRun.forEach(Runnable::run);
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> getBatches() throws Exception {
+    ArgumentCaptor<List> argsCaptor = ArgumentCaptor.forClass(List.class);
+    verify(commandExecutor.getCommandFactory(), Mockito.atLeast(0))
+        .newPluginCallCommand(eq(Actor.INTERNAL), eq(extension),
+                              eq(listenerAttr), eq(extension), argsCaptor.capture());
+    List<String> batches = new ArrayList<>();
+    for (List args : argsCaptor.getAllValues()) {
+      assertEquals(1, args.size());
+      JsonNode batch = OBJECT_MAPPER.readTree((String) args.get(0));
+      StringBuilder b = new StringBuilder();
+      for (JsonNode payload : batch) {
+        b.append(payload.get("s").asText());
+      }
+      batches.add(b.toString());
+    }
+    return batches;
+  }
+
+  @Test
+  public void testBatchByWindow() throws Exception {
+    ListenerBatcher.Settings settings =
+        new ListenerBatcher.Settings(100L, 10, 10, ListenerBatcher.OverflowPolicy.DROP_NEWEST);
+    add(player1, "a", settings);
+    add(player2, "b", settings);
+    add(player1, "c", settings);
+
+    verify(commandExecutor, never()).submit(command);
+    assertEquals(1, scheduled.size());
+
+    runScheduled();
+
+    verify(commandExecutor).submit(command);
+    assertEquals(List.of("abc"), getBatches());
+    assertEquals(0, batcher.getQueuedCount());
+  }
+
+  @Test
+  public void testBatchByCount() throws Exception {
+    ListenerBatcher.Settings settings =
+        new ListenerBatcher.Settings(100L, 2, 10, ListenerBatcher.OverflowPolicy.DROP_NEWEST);
+    add(player1, "a", settings);
+    add(player1, "b", settings);
+    add(player1, "c", settings);
+
+    verify(commandExecutor).submit(command);
+    assertEquals(List.of("ab"), getBatches());
+    assertEquals(1, batcher.getQueuedCount());
+
+    runScheduled();
+
+    assertEquals(List.of("ab", "c"), getBatches());
+  }
+
+  @Test
+  public void testBackPressure() throws Exception {
+    SettableFuture<Object> inProgress = SettableFuture.create();
+    Mockito.doReturn(inProgress).when(commandExecutor).submit(command);
+    ListenerBatcher.Settings settings =
+        new ListenerBatcher.Settings(100L, 1, 10, ListenerBatcher.OverflowPolicy.DROP_NEWEST);
+    add(player1, "a", settings);
+    add(player1, "b", settings);
+
+    // The first batch is still in progress, so the second waits, without
+    // polling.
+    verify(commandExecutor, times(1)).submit(command);
+    assertTrue(scheduled.isEmpty());
+    assertEquals(1, batcher.getQueuedCount());
+
+    // Finishing the first batch dispatches the second.
+    inProgress.set(null);
+    assertEquals(1, scheduled.size());
+    runScheduled();
+    verify(commandExecutor, times(2)).submit(command);
+    assertEquals(List.of("a", "b"), getBatches());
+  }
+
+  @Test
+  public void testBackPressureByWindow() throws Exception {
+    SettableFuture<Object> inProgress = SettableFuture.create();
+    Mockito.doReturn(inProgress).when(commandExecutor).submit(command);
+    ListenerBatcher.Settings settings =
+        new ListenerBatcher.Settings(100L, 1, 10, ListenerBatcher.OverflowPolicy.DROP_NEWEST);
+    add(player1, "a", settings);
+    ListenerBatcher.Settings windowSettings =
+        new ListenerBatcher.Settings(100L, 10, 10, ListenerBatcher.OverflowPolicy.DROP_NEWEST);
+    add(player1, "b", windowSettings);
+
+    // The window passes while the first batch is still in progress.
+    runScheduled();
+    verify(commandExecutor, times(1)).submit(command);
+    assertTrue(scheduled.isEmpty());
+
+    // A later event joins the deferred batch instead of starting a window.
+    add(player1, "c", windowSettings);
+    assertTrue(scheduled.isEmpty());
+
+    inProgress.set(null);
+    runScheduled();
+    verify(commandExecutor, times(2)).submit(command);
+    assertEquals(List.of("a", "bc"), getBatches());
+  }
+
+  @Test
+  public void testCancel() throws Exception {
+    ListenerBatcher.Settings settings =
+        new ListenerBatcher.Settings(100L, 10, 10, ListenerBatcher.OverflowPolicy.DROP_NEWEST);
+    add(player1, "a", settings);
+    add(player1, "b", settings);
+
+    batcher.cancel();
+    assertEquals(0, batcher.getQueuedCount());
+    runScheduled();
+
+    add(player1, "c", settings);
+    assertEquals(0, batcher.getQueuedCount());
+    runScheduled();
+
+    verify(commandExecutor, never()).submit(command);
+  }
+
+  @Test
+  public void testOverflowDropNewest() throws Exception {
+    ListenerBatcher.Settings settings =
+        new ListenerBatcher.Settings(100L, 10, 2, ListenerBatcher.OverflowPolicy.DROP_NEWEST);
+    add(player1, "a", settings);
+    add(player1, "b", settings);
+    add(player1, "c", settings);
+    runScheduled();
+
+    assertEquals(List.of("ab"), getBatches());
+    assertEquals(1L, batcher.getDroppedCount());
+  }
+
+  @Test
+  public void testOverflowDropOldest() throws Exception {
+    ListenerBatcher.Settings settings =
+        new ListenerBatcher.Settings(100L, 10, 2, ListenerBatcher.OverflowPolicy.DROP_OLDEST);
+    add(player1, "a", settings);
+    add(player1, "b", settings);
+    add(player1, "c", settings);
+    runScheduled();
+
+    assertEquals(List.of("bc"), getBatches());
+    assertEquals(1L, batcher.getDroppedCount());
+  }
+
+  @Test
+  public void testOverflowMerge() throws Exception {
+    ListenerBatcher.Settings settings =
+        new ListenerBatcher.Settings(100L, 10, 2, ListenerBatcher.OverflowPolicy.MERGE);
+    add(player1, "a", settings);
+    add(player2, "b", settings);
+    // replaces "a", the latest event from player1
+    add(player1, "c", settings);
+    runScheduled();
+
+    assertEquals(List.of("cb"), getBatches());
+    assertEquals(0L, batcher.getDroppedCount());
+  }
+
+  @Test
+  public void testOverflowMergeAfterDispatch() throws Exception {
+    ListenerBatcher.Settings settings =
+        new ListenerBatcher.Settings(100L, 10, 2, ListenerBatcher.OverflowPolicy.MERGE);
+    add(player1, "a", settings);
+    add(player2, "b", settings);
+    runScheduled();
+
+    // Dispatched events are no longer merged into.
+    add(player1, "c", settings);
+    add(player2, "d", settings);
+    add(player1, "e", settings);
+    add(player1, "f", settings);
+    runScheduled();
+
+    assertEquals(List.of("ab", "fd"), getBatches());
+    assertEquals(0L, batcher.getDroppedCount());
+  }
+
+  @Test
+  public void testSettingsFromListenerAttr() {
+    assertTrue(ListenerBatcher.Settings.fromListenerAttr(listenerAttr).isEmpty());
+
+    Attr batchedAttr = new Attr("^listener1", List.of(
+        new Attr("pluginMethod", "doit"),
+        new Attr(ListenerBatcher.BATCH_WINDOW_MILLIS, 500),
+        new Attr(ListenerBatcher.BATCH_OVERFLOW, "dropOldest")));
+    ListenerBatcher.Settings settings =
+        ListenerBatcher.Settings.fromListenerAttr(batchedAttr).get();
+    assertEquals(500L, settings.getWindowMillis());
+    assertEquals(ListenerBatcher.DEFAULT_MAX_EVENTS, settings.getMaxEvents());
+    assertEquals(ListenerBatcher.DEFAULT_QUEUE_SIZE, settings.getQueueSize());
+    assertEquals(ListenerBatcher.OverflowPolicy.DROP_OLDEST, settings.getOverflowPolicy());
+
+    Attr invalidAttr = new Attr("^listener1", List.of(
+        new Attr(ListenerBatcher.BATCH_WINDOW_MILLIS, 500),
+        new Attr(ListenerBatcher.BATCH_OVERFLOW, "explode")));
+    assertThrows(IllegalArgumentException.class,
+                 () -> ListenerBatcher.Settings.fromListenerAttr(invalidAttr));
+  }
+}
@@ -0,0 +1,97 @@
+package xyz.deszaras.grounds.model;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import xyz.deszaras.grounds.api.ApiServer;
+import xyz.deszaras.grounds.command.CommandExecutor;
+import xyz.deszaras.grounds.command.CommandFactory;
+import xyz.deszaras.grounds.command.DiscardingCommandExecutor;
+import xyz.deszaras.grounds.command.Event;
+
+/**
+ * Measures routing one event to 50 extensions, each with 10 listener
+ * attributes. One listener per extension matches and has a plugin call
+ * command built for it. Submitted commands are discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ListenerDispatchBenchmark {
+
+  private static final int EXTENSION_COUNT = 50;
+  private static final int LISTENER_COUNT = 10;
+
+  private static class BenchmarkPayload {
+    public final String s;
+
+    private BenchmarkPayload(String s) {
+      this.s = s;
+    }
+  }
+
+  private static class BenchmarkEvent extends Event<BenchmarkPayload> {
+    private BenchmarkEvent(Player player, Place place) {
+      super(player, place, new BenchmarkPayload("benchmark"));
+    }
+  }
+
+  private ListenerRouter router;
+  private CommandExecutor commandExecutor;
+  private Event event;
+
+  @Setup
+  public void setUp() {
+    Universe universe = new Universe("benchmark");
+    Universe.setCurrent(universe);
+
+    for (int i = 0; i < EXTENSION_COUNT; i++) {
+      Extension extension = new Extension("extension" + i);
+      for (int j = 0; j < LISTENER_COUNT; j++) {
+        String eventType = j == 0 ? BenchmarkEvent.class.getSimpleName() : "OtherEvent" + j;
+        extension.setAttr(new Attr("^listener" + j, List.of(
+            new Attr("pluginPath", "/opt/grounds/plugins/listener"),
+            new Attr("pluginMethod", "listen" + j),
+            new Attr("callerRoles", "BARD,THAUMATURGE"),
+            new Attr("eventType", eventType),
+            new Attr("localized", false))));
+      }
+      universe.addThing(extension);
+    }
+
+    // Reload the universe so that listener attributes start out as they do
+    // on a running server, with only their serialized values.
+    universe = Universe.fromJson(universe.toJson());
+    Universe.setCurrent(universe);
+    router = new ListenerRouter();
+
+    // The API server is never started.
+    ApiServer apiServer = new ApiServer(Path.of("benchmark.sock"));
+    CommandFactory commandFactory =
+        new CommandFactory(List.of(), Map.of(), apiServer, null);
+    commandExecutor = new DiscardingCommandExecutor(commandFactory);
+
+    event = new BenchmarkEvent(Player.GOD, universe.getOriginPlace());
+  }
+
+  @Benchmark
+  public void dispatch() {
+    router.handle(event, commandExecutor);
+  }
+}
@@ -0,0 +1,29 @@
+package xyz.deszaras.grounds.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class LoadTimerTest {
+
+  @Test
+  public void testPhases() {
+    AtomicLong now = new AtomicLong(1000L);
+    LoadTimer timer = new LoadTimer(now::get);
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(20L));
+    timer.endPhase("read");
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(5L));
+    timer.endPhase("parse");
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30L));
+    timer.endPhase("read");
+
+    assertEquals(50L, timer.getMillis("read"));
+    assertEquals(5L, timer.getMillis("parse"));
+    assertEquals(0L, timer.getMillis("index"));
+    assertEquals(55L, timer.getTotalMillis());
+    assertEquals("read 50 ms, parse 5 ms (55 ms total)", timer.toString());
+  }
+}
@@ -0,0 +1,71 @@
+package xyz.deszaras.grounds.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PlaceTest {
+
+  private Place place;
+  private Player player;
+  private Extension extension;
+  private Thing item;
+
+  @BeforeEach
+  public void setUp() {
+    place = new Place("here");
+    player = new Player("bob");
+    extension = new Extension("ext");
+    item = new Thing("item");
+  }
+
+  @Test
+  public void testGiveAndTake() {
+    Set<Player> players = place.getPlayers();
+
+    place.give(player);
+    assertTrue(place.giveIfNotPresent(extension));
+    place.give(item);
+
+    assertEquals(Set.of(player, extension), players);
+
+    place.take(player);
+    assertTrue(place.takeIfPresent(extension));
+    assertFalse(place.takeIfPresent(extension));
+
+    assertTrue(players.isEmpty());
+    assertEquals(Set.of(item.getId()), place.getContents());
+
+    assertThrows(UnsupportedOperationException.class, () -> players.add(player));
+  }
+
+  @Test
+  public void testGiveIfNotPresent() {
+    place.give(player);
+    assertFalse(place.giveIfNotPresent(player));
+    assertEquals(Set.of(player), place.getPlayers());
+  }
+
+  @Test
+  public void testPlayersAfterLoad() {
+    Universe u = new Universe("test");
+    u.addThing(place);
+    u.addThing(player);
+    u.addThing(item);
+    place.give(player);
+    place.give(item);
+
+    Universe u2 = Universe.fromJson(u.toJson());
+    Place place2 = u2.getThing(place.getId(), Place.class).get();
+
+    assertEquals(Set.of(player), place2.getPlayers());
+    assertTrue(place2.getPlayers().iterator().next() ==
+               u2.getThing(player.getId()).get());
+  }
+}
@@ -0,0 +1,219 @@
+package xyz.deszaras.grounds.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import xyz.deszaras.grounds.auth.Policy;
+import xyz.deszaras.grounds.auth.Role;
+
+public class SegmentedSnapshotTest {
+
+  @TempDir
+  Path tempDir;
+
+  private Universe u;
+  private File universeFile;
+  private Path segmentDirectory;
+
+  @BeforeEach
+  public void setUp() {
+    u = new Universe("test");
+    Universe.setCurrent(u);
+    universeFile = tempDir.resolve("universe.json").toFile();
+    Universe.setCurrentFile(universeFile);
+    segmentDirectory = SegmentedSnapshot.getSegmentDirectory(universeFile.toPath());
+  }
+
+  private Set<String> listSegmentFiles() throws Exception {
+    try (Stream<Path> files = Files.list(segmentDirectory)) {
+      return files.map(p -> p.getFileName().toString()).collect(Collectors.toSet());
+    }
+  }
+
+  @Test
+  public void testSaveAndLoad() throws Exception {
+    Place place = new Place("place");
+    u.addThing(place);
+    Thing item = new Thing("item");
+    u.addThing(item);
+    place.give(item);
+    Player player = new Player("player");
+    u.addThing(player);
+    u.addRole(Role.BARD, player);
+
+    assertTrue(Universe.saveCurrent(true));
+    assertTrue(SegmentedSnapshot.isSnapshot(universeFile));
+
+    Universe u2 = Universe.load(universeFile);
+    assertEquals("test", u2.getName());
+    assertEquals(3 + 3, u2.getThings().size());
+    assertEquals(Set.of(item.getId()), u2.getThing(place.getId()).get().getContents());
+    assertEquals(Set.of(Role.BARD), u2.getRoles(player));
+    assertEquals(u.getOriginId(), u2.getOriginId());
+    assertEquals(u.getLostAndFoundId(), u2.getLostAndFoundId());
+    assertEquals(u.getGuestHomeId(), u2.getGuestHomeId());
+  }
+
+  @Test
+  public void testSaveWritesOnlyChangedSegments() throws Exception {
+    for (int i = 0; i < 50; i++) {
+      u.addThing(new Thing("item" + i));
+    }
+    Thing item = new Thing("changing");
+    u.addThing(item);
+    assertTrue(Universe.saveCurrent(false));
+    Map<Integer, String> before =
+        SegmentedSnapshot.readManifest(universeFile).getSegmentFiles();
+
+    item.setAttr("color", "red");
+    assertTrue(Universe.saveCurrent(false));
+    Map<Integer, String> after =
+        SegmentedSnapshot.readManifest(universeFile).getSegmentFiles();
+
+    int itemSegment = SegmentIndex.segmentOf(item.getId());
+    assertEquals(before.keySet(), after.keySet());
+    assertNotEquals(before.get(itemSegment), after.get(itemSegment));
+    Set<Integer> rewritten = new HashSet<>();
+    before.forEach((segment, file) -> {
+      if (!file.equals(after.get(segment))) {
+        rewritten.add(segment);
+      }
+    });
+    assertEquals(Set.of(itemSegment), rewritten);
+    assertEquals(new HashSet<>(after.values()), listSegmentFiles());
+
+    Universe u2 = Universe.load(universeFile);
+    assertEquals("red", u2.getThing(item.getId()).get().getAttr("color").get().getValue());
+  }
+
+  @Test
+  public void testSaveRemovedThing() throws Exception {
+    Thing item = new Thing("item");
+    u.addThing(item);
+    assertTrue(Universe.saveCurrent(false));
+
+    u.removeThing(item);
+    assertTrue(Universe.saveCurrent(false));
+
+    Universe u2 = Universe.load(universeFile);
+    assertFalse(u2.getThing(item.getId()).isPresent());
+    assertEquals(3, u2.getThings().size());
+  }
+
+  @Test
+  public void testSaveChangedPolicy() throws Exception {
+    Thing item = new Thing("item");
+    u.addThing(item);
+    assertTrue(Universe.saveCurrent(false));
+
+    item.getPolicy().setRoles(Policy.Category.READ, Set.of(Role.ADEPT));
+    item.policyChanged();
+    assertTrue(Universe.saveCurrent(false));
+
+    Universe u2 = Universe.load(universeFile);
+    assertEquals(Set.of(Role.ADEPT),
+                 u2.getThing(item.getId()).get().getPolicy().getRoles(Policy.Category.READ));
+  }
+
+  @Test
+  public void testSaveOverSingleFile() throws Exception {
+    Thing item = new Thing("item");
+    u.addThing(item);
+    Universe.save(u, universeFile);
+    assertFalse(SegmentedSnapshot.isSnapshot(universeFile));
+
+    Universe u2 = Universe.load(universeFile);
+    Universe.setCurrent(u2);
+    assertTrue(Universe.saveCurrent(false));
+    assertTrue(SegmentedSnapshot.isSnapshot(universeFile));
+
+    Universe u3 = Universe.load(universeFile);
+    assertTrue(u3.getThing(item.getId()).isPresent());
+  }
+
+  @Test
+  public void testSaveAfterLoadWritesNothingUnchanged() throws Exception {
+    u.addThing(new Thing("item"));
+    assertTrue(Universe.saveCurrent(false));
+    Set<String> segmentFiles = listSegmentFiles();
+
+    Universe u2 = Universe.load(universeFile);
+    Universe.setCurrent(u2);
+    assertTrue(Universe.saveCurrent(false));
+
+    assertEquals(segmentFiles, listSegmentFiles());
+    assertEquals(2L, SegmentedSnapshot.readManifest(universeFile).getGeneration());
+  }
+
+  @Test
+  public void testSaveInBackgroundCapturesPointInTime() throws Exception {
+    Place place = new Place("place");
+    u.addThing(place);
+    Thing item = new Thing("item");
+    u.addThing(item);
+    item.setAttr("color", "red");
+    Set<Role> readRoles = Set.copyOf(place.getPolicy().getRoles(Policy.Category.READ));
+
+    assertTrue(Universe.saveCurrentInBackground(false));
+    item.setAttr("color", "blue");
+    place.give(item);
+    place.getPolicy().setRoles(Policy.Category.READ, Set.of(Role.GUEST));
+    place.policyChanged();
+    Universe.awaitSave();
+
+    Universe u2 = Universe.load(universeFile);
+    assertEquals("red", u2.getThing(item.getId()).get().getAttr("color").get().getValue());
+    Thing place2 = u2.getThing(place.getId()).get();
+    assertEquals(Set.of(), place2.getContents());
+    assertEquals(place.getClass(), place2.getClass());
+    assertEquals(readRoles, place2.getPolicy().getRoles(Policy.Category.READ));
+
+    assertTrue(Universe.saveCurrent(false));
+    Universe u3 = Universe.load(universeFile);
+    assertEquals("blue", u3.getThing(item.getId()).get().getAttr("color").get().getValue());
+    assertEquals(Set.of(item.getId()), u3.getThing(place.getId()).get().getContents());
+  }
+
+  @Test
+  public void testLoadIndexesEveryThing() throws Exception {
+    Place hub = new Place("hub");
+    u.addThing(hub);
+    for (int i = 0; i < 200; i++) {
+      Place place = new Place("place" + i);
+      u.addThing(place);
+      u.addThing(new Link("link" + i, hub, "to" + i, place, "back"));
+      Player player = new Player("player" + i);
+      u.addThing(player);
+      place.give(player);
+    }
+    assertTrue(Universe.saveCurrent(false));
+
+    Universe u2 = Universe.load(universeFile);
+    assertEquals(u.getThings().size(), u2.getThings().size());
+    assertEquals(200 + 3 + 1, u2.getThings(Place.class).size());
+    assertEquals(200, u2.getThings(Player.class).size());
+    Place hub2 = u2.getThing(hub.getId(), Place.class).get();
+    assertEquals(200, u2.findLinks(hub2).size());
+    for (int i = 0; i < 200; i++) {
+      Place place2 = u2.getThingByName("place" + i, Place.class).get();
+      assertEquals(1, place2.getPlayers().size());
+      assertTrue(u2.findLink(hub2, place2).isPresent());
+      assertTrue(u2.getThingByName("player" + i, Player.class).isPresent());
+    }
+  }
+}
@@ -7,8 +7,11 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -190,6 +193,29 @@ public class ThingTest {
     assertTrue(thing.getDoing().isEmpty());
   }
 
+  @Test
+  public void testContents() {
+    Thing t1 = new Thing("t1");
+    Thing t2 = new Thing("t2");
+    Set<UUID> contents = thing.getContents();
+
+    thing.give(t1);
+    assertTrue(thing.giveIfNotPresent(t2));
+    assertFalse(thing.giveIfNotPresent(t2));
+    assertEquals(Set.of(t1.getId(), t2.getId()), contents);
+    assertTrue(thing.has(t1));
+
+    // contents may change during iteration
+    for (UUID id : contents) {
+      thing.take(id.equals(t1.getId()) ? t1 : t2);
+    }
+    assertTrue(contents.isEmpty());
+    assertFalse(thing.takeIfPresent(t1));
+
+    assertThrows(UnsupportedOperationException.class,
+                 () -> contents.add(t1.getId()));
+  }
+
   @Test
   public void testAttrStringValue() {
     thing.setAttr("a", "b");
@@ -206,6 +232,81 @@ public class ThingTest {
     assertEquals(42, a.get().getIntValue());
   }
 
+  @Test
+  public void testAddToAttr() {
+    thing.setAttr("a", 42);
+    assertEquals(43, thing.addToAttr("a", 1));
+    assertEquals(40, thing.addToAttr("a", -3));
+    thing.incrAttr("a");
+    assertEquals("41", thing.getAttr("a").get().getValue());
+
+    Attr a = thing.getAttr("a").get();
+    assertEquals(41, thing.addToAttr("a", 0));
+    assertTrue(a == thing.getAttr("a").get());
+
+    assertThrows(IllegalStateException.class, () -> thing.addToAttr("b", 1));
+    thing.setAttr("b", true);
+    assertThrows(IllegalStateException.class, () -> thing.addToAttr("b", 1));
+  }
+
+  @Test
+  public void testAddToAttrConcurrently() throws Exception {
+    thing.setAttr("a", 0);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      threads.add(new Thread(() -> {
+          for (int j = 0; j < 1000; j++) {
+            thing.incrAttr("a");
+          }
+        }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread t : threads) {
+      t.join();
+    }
+
+    assertEquals(4000, thing.getAttr("a").get().getIntValue());
+  }
+
+  @Test
+  public void testGetAttrsIsSnapshot() {
+    thing.setAttr("a", "b");
+    Set<Attr> attrs = thing.getAttrs();
+
+    thing.setAttr("a", "c");
+    thing.setAttr("d", "e");
+
+    assertTrue(attrs.contains(new Attr("a", "b")));
+    assertFalse(attrs.contains(new Attr("a", "c")));
+    assertFalse(attrs.contains(new Attr("d", "e")));
+    assertTrue(thing.getAttrs().contains(new Attr("d", "e")));
+  }
+
+  @Test
+  public void testCompareAndSetAttr() {
+    thing.setAttr("a", false);
+    assertFalse(thing.compareAndSetAttr("a", true, false));
+    assertTrue(thing.compareAndSetAttr("a", false, true));
+    assertTrue(thing.getAttr("a").get().getBooleanValue());
+    assertTrue(thing.compareAndSetAttr("a", true, true));
+    assertTrue(thing.getAttr("a").get().getBooleanValue());
+
+    assertThrows(IllegalStateException.class,
+                 () -> thing.compareAndSetAttr("b", true, false));
+  }
+
+  @Test
+  public void testGetAndSetAttr() {
+    thing.setAttr("a", false);
+    assertFalse(thing.getAndSetAttr("a", true));
+    assertTrue(thing.getAndSetAttr("a", true));
+    assertTrue(thing.getAndSetAttr("a", false));
+    assertFalse(thing.getAttr("a").get().getBooleanValue());
+
+    thing.setAttr("b", 1);
+    assertThrows(IllegalStateException.class, () -> thing.getAndSetAttr("b", true));
+  }
+
   @Test
   public void testAttrBooleanValue() {
     thing.setAttr("a", true);
@@ -9,6 +9,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -125,6 +127,73 @@ public class UniverseTest {
     assertTrue(allThings.contains(t2));
   }
 
+  @Test
+  public void testGetThingsOfType() {
+    Player p1 = new Player("bob");
+    u.addThing(p1);
+    Extension e1 = new Extension("ext");
+    u.addThing(e1);
+    Thing t1 = new Thing("item");
+    u.addThing(t1);
+
+    Collection<Player> players = u.getThings(Player.class);
+    Collection<Extension> extensions = u.getThings(Extension.class);
+    Collection<Link> links = u.getThings(Link.class);
+
+    // subtypes are not included
+    assertEquals(Set.of(p1), players);
+    assertEquals(Set.of(e1), extensions);
+    assertEquals(Set.of(t1), u.getThings(Thing.class));
+    assertEquals(Set.of(u.getOriginPlace(), u.getLostAndFoundPlace(),
+                        u.getGuestHomePlace()),
+                 u.getThings(Place.class));
+    assertTrue(links.isEmpty());
+
+    // views stay up to date
+    Player p2 = new Player("alice");
+    u.addThing(p2);
+    u.removeThing(e1);
+    Link l1 = new Link("l", u.getOriginPlace(), "O", u.getGuestHomePlace(), "G");
+    u.addThing(l1);
+
+    assertEquals(Set.of(p1, p2), players);
+    assertTrue(extensions.isEmpty());
+    assertEquals(Set.of(l1), links);
+
+    assertThrows(UnsupportedOperationException.class,
+                 () -> players.remove(p1));
+  }
+
+  @Test
+  public void testFindPluginCommandExtension() {
+    Extension e1 = new Extension("ext");
+    e1.setAttr(new Attr("$doit", List.of(new Attr("pluginMethod", "doit"))));
+    e1.setAttr(new Attr("$notacommand", "doit"));
+    e1.setAttr(new Attr("^listener", List.of(new Attr("pluginMethod", "listen"))));
+    u.addThing(e1);
+
+    assertEquals(Optional.of(e1), u.findPluginCommandExtension("$doit"));
+    assertTrue(u.findPluginCommandExtension("$notacommand").isEmpty());
+    assertTrue(u.findPluginCommandExtension("^listener").isEmpty());
+
+    // attribute changes are tracked
+    e1.setAttr(new Attr("$notacommand", List.of(new Attr("pluginMethod", "doit"))));
+    e1.removeAttr("$doit");
+
+    assertTrue(u.findPluginCommandExtension("$doit").isEmpty());
+    assertEquals(Optional.of(e1), u.findPluginCommandExtension("$notacommand"));
+
+    e1.setAttr(new Attr("$notacommand", "doit"));
+
+    assertTrue(u.findPluginCommandExtension("$notacommand").isEmpty());
+
+    // removal is tracked
+    e1.setAttr(new Attr("$doit", List.of(new Attr("pluginMethod", "doit"))));
+    u.removeThing(e1);
+
+    assertTrue(u.findPluginCommandExtension("$doit").isEmpty());
+  }
+
   @Test
   public void testGetThingByType() {
     Place p = new Place("here");
@@ -169,6 +238,63 @@ public class UniverseTest {
     assertEquals(p, u.getThingByName("here", Thing.class).get());
   }
 
+  @Test
+  public void testGetThingByNameMissing() {
+    Place p = new Place("here");
+    u.addThing(p);
+
+    assertTrue(u.getThingByName("there", Place.class).isEmpty());
+    assertTrue(u.getThingByName("here", Player.class).isEmpty());
+  }
+
+  @Test
+  public void testGetThingByNameAfterRename() {
+    Thing t = new Thing("item");
+    u.addThing(t);
+
+    t.setAttr(AttrNames.NAME, "widget");
+
+    assertTrue(u.getThingByName("item", Thing.class).isEmpty());
+    assertEquals(t, u.getThingByName("widget", Thing.class).get());
+  }
+
+  @Test
+  public void testGetThingByNameAfterRemove() {
+    Thing t = new Thing("item");
+    u.addThing(t);
+    u.removeThing(t);
+
+    assertTrue(u.getThingByName("item", Thing.class).isEmpty());
+
+    // renaming a removed thing does not affect the universe
+    t.setAttr(AttrNames.NAME, "widget");
+    assertTrue(u.getThingByName("widget", Thing.class).isEmpty());
+  }
+
+  @Test
+  public void testGetThingByNameAfterReplace() {
+    Thing t = new Thing("item");
+    u.addThing(t);
+    Thing t2 = new Thing("widget", t.getId());
+    u.addThing(t2);
+
+    assertTrue(u.getThingByName("item", Thing.class).isEmpty());
+    assertEquals(t2, u.getThingByName("widget", Thing.class).get());
+  }
+
+  @Test
+  public void testGetThingByNameSharedName() {
+    Thing t1 = new Thing("item");
+    u.addThing(t1);
+    Thing t2 = new Thing("item");
+    u.addThing(t2);
+
+    assertTrue(Set.of(t1, t2).contains(u.getThingByName("item", Thing.class).get()));
+
+    u.removeThing(t1);
+    assertEquals(t2, u.getThingByName("item", Thing.class).get());
+  }
+
   @Test
   public void testGetThingByNameButWrongType() {
     Thing t = new Thing("item");
@@ -178,6 +304,68 @@ public class UniverseTest {
                  () -> u.getThing("item", Place.class));
   }
 
+  @Test
+  public void testFindLinks() {
+    Place p1 = new Place("p1");
+    u.addThing(p1);
+    Place p2 = new Place("p2");
+    u.addThing(p2);
+    Place p3 = new Place("p3");
+    u.addThing(p3);
+    Link l12 = new Link("l12", p1, "P1", p2, "P2");
+    u.addThing(l12);
+    Link l23 = new Link("l23", p2, "P2", p3, "P3");
+    u.addThing(l23);
+
+    assertEquals(Set.of(l12), Set.copyOf(u.findLinks(p1)));
+    assertEquals(Set.of(l12, l23), Set.copyOf(u.findLinks(p2)));
+    assertEquals(Set.of(l23), Set.copyOf(u.findLinks(p3)));
+
+    assertEquals(l12, u.findLink(p1, p2).get());
+    assertEquals(l12, u.findLink(p2, p1).get());
+    assertTrue(u.findLink(p1, p3).isEmpty());
+
+    u.removeThing(l12);
+
+    assertTrue(u.findLinks(p1).isEmpty());
+    assertEquals(Set.of(l23), Set.copyOf(u.findLinks(p2)));
+    assertTrue(u.findLink(p1, p2).isEmpty());
+  }
+
+  @Test
+  public void testFindLinksAfterRelink() {
+    Place p1 = new Place("p1");
+    u.addThing(p1);
+    Place p2 = new Place("p2");
+    u.addThing(p2);
+    Place p3 = new Place("p3");
+    u.addThing(p3);
+    Link l = new Link("l", p1, "P1", p2, "P2");
+    u.addThing(l);
+
+    l.setAttr(Link.DESTINATION, new Attr("P3", p3));
+
+    assertEquals(Set.of(l), Set.copyOf(u.findLinks(p1)));
+    assertTrue(u.findLinks(p2).isEmpty());
+    assertEquals(Set.of(l), Set.copyOf(u.findLinks(p3)));
+  }
+
+  @Test
+  public void testFindLinksLoop() {
+    Place p1 = new Place("p1");
+    u.addThing(p1);
+    Place p2 = new Place("p2");
+    u.addThing(p2);
+    Link l = new Link("l", p1, "In", p1, "Out");
+    u.addThing(l);
+
+    // moving one end of a loop keeps the link at the other end
+    l.setAttr(Link.DESTINATION, new Attr("Out", p2));
+
+    assertEquals(Set.of(l), Set.copyOf(u.findLinks(p1)));
+    assertEquals(Set.of(l), Set.copyOf(u.findLinks(p2)));
+  }
+
   @Test
   public void testRoles() {
     p = new Player("bob");
@@ -197,10 +385,13 @@ public class UniverseTest {
     assertTrue(currentRoles.contains(Role.ADEPT));
     assertEquals(currentRoles, u.getRoles(p));
 
+    // Role sets are replaced, not changed, so earlier ones stay the same.
+    Set<Role> earlierRoles = currentRoles;
     currentRoles = u.removeRole(Role.BARD, p);
     assertEquals(1, currentRoles.size());
     assertTrue(currentRoles.contains(Role.ADEPT));
     assertEquals(currentRoles, u.getRoles(p));
+    assertEquals(Set.of(Role.BARD, Role.ADEPT), earlierRoles);
   }
 
   @Test
@@ -219,6 +410,26 @@ public class UniverseTest {
     assertEquals(2 + 3, allThings.size());
     assertTrue(allThings.contains(t1));
     assertTrue(allThings.contains(t2));
+    assertEquals(t1, u2.getThingByName("item1", Thing.class).get());
+    assertEquals(u2.getOriginPlace(), u2.getThingByName("ORIGIN", Place.class).get());
+  }
+
+  @Test
+  public void testLoadAndSaveLinks(@TempDir Path tempDir) throws Exception {
+    Place p1 = new Place("p1");
+    u.addThing(p1);
+    Place p2 = new Place("p2");
+    u.addThing(p2);
+    Link l = new Link("l", p1, "P1", p2, "P2");
+    u.addThing(l);
+
+    File saveFile = tempDir.resolve("universe.json").toFile();
+
+    Universe.save(u, saveFile);
+    Universe u2 = Universe.load(saveFile);
+
+    assertEquals(Set.of(l), Set.copyOf(u2.findLinks(p1)));
+    assertEquals(Set.of(l), Set.copyOf(u2.findLinks(p2)));
   }
 
   @Test